@@ -1,6 +1,7 @@
 package com.anotame.sales.application.dto;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 public record AuditLogResponse(
@@ -8,5 +9,6 @@ public record AuditLogResponse(
     String fieldName,
     String oldValue,
     String newValue,
-    OffsetDateTime changedAt
+    OffsetDateTime changedAt,
+    Map<String, Object> diff
 ) {}
@@ -0,0 +1,38 @@
+package com.anotame.sales.application.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * End-of-day cash close (corte de caja): money recorded in the ledger on one local day,
+ * per payment method. Refunds are reported as positive amounts and subtracted in {@code net}.
+ */
+@Data
+@Builder
+public class CashCloseResponse {
+
+    private LocalDate date;
+    private UUID branchId; // null = all branches
+    private List<MethodTotal> methods;
+    private BigDecimal totalReceived;
+    private long receivedCount;
+    private BigDecimal totalRefunded;
+    private long refundCount;
+    private BigDecimal net;
+
+    @Data
+    @Builder
+    public static class MethodTotal {
+        private String paymentMethod; // null when the payment was recorded without one
+        private BigDecimal received;
+        private long receivedCount;
+        private BigDecimal refunded;
+        private long refundCount;
+        private BigDecimal net;
+    }
+}
@@ -1,5 +1,6 @@
 package com.anotame.sales.application.dto;
 
+import com.anotame.sales.application.port.output.CustomerStats;
 import lombok.Data;
 import java.util.UUID;
 
@@ -19,4 +20,26 @@ public class CustomerDto {
     private String phoneNumber;
 
     private java.util.Map<String, Object> preferences;
+
+    // Profile badges; only filled in by GET /api/customers/{id} and ignored on writes.
+    private Stats stats;
+
+    @Data
+    public static class Stats {
+        private long orderCount;
+        private java.math.BigDecimal lifetimeSpend;
+        private java.math.BigDecimal openBalance;
+        private java.time.OffsetDateTime firstOrderAt;
+        private java.time.OffsetDateTime lastOrderAt;
+
+        public static Stats of(CustomerStats stats) {
+            Stats dto = new Stats();
+            dto.setOrderCount(stats.orderCount());
+            dto.setLifetimeSpend(stats.lifetimeSpend());
+            dto.setOpenBalance(stats.openBalance());
+            dto.setFirstOrderAt(stats.firstOrderAt());
+            dto.setLastOrderAt(stats.lastOrderAt());
+            return dto;
+        }
+    }
 }
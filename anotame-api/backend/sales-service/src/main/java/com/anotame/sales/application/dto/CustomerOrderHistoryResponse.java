@@ -0,0 +1,19 @@
+package com.anotame.sales.application.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class CustomerOrderHistoryResponse {
+    private UUID customerId;
+    // Lifetime figures over all of the customer's orders, not just this page.
+    private CustomerDto.Stats totals;
+    private List<OrderSummaryResponse> items;
+    private int size;
+    // Opaque position of the next page, null on the last page.
+    private String nextCursor;
+}
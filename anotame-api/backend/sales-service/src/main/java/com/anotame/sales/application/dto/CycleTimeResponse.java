@@ -0,0 +1,15 @@
+package com.anotame.sales.application.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class CycleTimeResponse {
+    private LocalDate from;
+    private LocalDate to;
+    private String groupBy;
+    private List<StageDurationItem> stages;
+}
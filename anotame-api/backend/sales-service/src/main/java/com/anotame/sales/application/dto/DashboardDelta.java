@@ -0,0 +1,18 @@
+package com.anotame.sales.application.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Headline dashboard figures that changed since the previous event of a live dashboard stream.
+ * Values are absolute, not increments; a null field did not change.
+ */
+@Data
+@Builder
+public class DashboardDelta {
+    private BigDecimal todayRevenue;
+    private Long readyForPickup;
+    private BigDecimal pendingDebt;
+    private Long todayWorkloadMinutes;
+}
@@ -3,6 +3,7 @@ package com.anotame.sales.application.dto;
 import lombok.Builder;
 import lombok.Data;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 @Data
@@ -17,4 +18,10 @@ public class FinancialKpiResponse {
     private long totalCustomersInPeriod;
     private long repeatCustomers;
 
+    // When the precomputed service/customer aggregates behind this response were last refreshed.
+    private OffsetDateTime refreshedAt;
+
+    // Sections whose query failed or timed out; they are left empty rather than failing the response.
+    private List<String> unavailableSections;
+
 }
\ No newline at end of file
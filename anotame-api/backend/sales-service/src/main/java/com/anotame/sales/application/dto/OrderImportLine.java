@@ -0,0 +1,50 @@
+package com.anotame.sales.application.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * One line of an NDJSON order import: a historical ticket with its customer, garments,
+ * services and the payments recorded against it.
+ */
+@Data
+public class OrderImportLine {
+
+    @Data
+    public static class Payment {
+        @NotNull(message = "amount is required")
+        private BigDecimal amount;
+        private String paymentMethod;
+        private String notes;
+        private OffsetDateTime recordedAt;
+    }
+
+    @NotBlank(message = "ticketNumber is required")
+    private String ticketNumber;
+
+    @NotNull(message = "createdAt is required")
+    private OffsetDateTime createdAt;
+
+    private OffsetDateTime committedDeadline;
+    private OffsetDateTime deliveredAt;
+    private String status;
+    private String notes;
+
+    @Valid
+    @NotNull(message = "customer is required")
+    private CustomerDto customer;
+
+    @Valid
+    @NotEmpty(message = "items must not be empty")
+    private List<OrderItemDto> items;
+
+    @Valid
+    private List<Payment> payments;
+}
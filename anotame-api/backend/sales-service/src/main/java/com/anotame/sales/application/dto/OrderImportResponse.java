@@ -0,0 +1,30 @@
+package com.anotame.sales.application.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class OrderImportResponse {
+
+    @Data
+    @Builder
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+
+    private UUID importId;
+    private String status;
+    private long linesCommitted;
+    private long ordersImported;
+    private long linesRejected;
+    private List<LineError> errors;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime updatedAt;
+    private OffsetDateTime finishedAt;
+}
@@ -10,6 +10,8 @@ import java.util.UUID;
 
 @Data
 public class OrderItemDto {
+    /** Existing item id when editing; lets the update keep the row instead of replacing it. */
+    private UUID id;
     private UUID garmentTypeId;
     @NotNull
     private OrderContentSource source = OrderContentSource.CATALOG;
@@ -10,6 +10,8 @@ import java.util.UUID;
 
 @Data
 public class OrderItemServiceDto {
+    /** Existing item service id when editing; lets the update keep the row instead of replacing it. */
+    private UUID id;
     private UUID serviceId;
     @NotNull
     private OrderContentSource source = OrderContentSource.CATALOG;
@@ -0,0 +1,32 @@
+package com.anotame.sales.application.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class OrderSummaryFacetsResponse {
+
+    @Data
+    @Builder
+    public static class FacetCount {
+        private String value;
+        private long count;
+    }
+
+    @Data
+    @Builder
+    public static class GarmentTypeFacetCount {
+        private UUID garmentTypeId;
+        private String garmentName;
+        private long count;
+    }
+
+    private long total;
+    private List<FacetCount> statuses;
+    private List<GarmentTypeFacetCount> garmentTypes;
+    private List<FacetCount> garmentSources;
+}
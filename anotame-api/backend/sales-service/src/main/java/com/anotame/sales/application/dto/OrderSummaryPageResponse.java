@@ -11,6 +11,10 @@ public class OrderSummaryPageResponse {
     private List<OrderSummaryResponse> items;
     private int page;
     private int size;
-    private long total;
-    private int totalPages;
+    // Null in cursor mode unless the caller asked for a total.
+    private Long total;
+    private Integer totalPages;
+    private boolean totalEstimated;
+    // Cursor mode only: opaque position of the next page, null on the last page.
+    private String nextCursor;
 }
@@ -0,0 +1,20 @@
+package com.anotame.sales.application.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class StageDurationItem {
+    // RECEIVED, IN_PROGRESS, READY, or CYCLE for intake to delivery.
+    private String stage;
+    // Service name or user id when grouped; null otherwise.
+    private String group;
+    private long transitions;
+    private BigDecimal averageMinutes;
+    // Percentiles are bucket upper bounds, at most 10% above the exact value.
+    private BigDecimal p50Minutes;
+    private BigDecimal p90Minutes;
+    private BigDecimal p99Minutes;
+}
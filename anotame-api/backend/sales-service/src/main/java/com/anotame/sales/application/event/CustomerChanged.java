@@ -0,0 +1,11 @@
+package com.anotame.sales.application.event;
+
+import java.util.UUID;
+
+/**
+ * Fired by writes that create, edit or delete customers. Observers that care about committed
+ * data observe it with {@code during = TransactionPhase.AFTER_SUCCESS}. {@code customerId} is
+ * null when many customers changed at once (imports).
+ */
+public record CustomerChanged(UUID customerId) {
+}
@@ -0,0 +1,12 @@
+package com.anotame.sales.application.event;
+
+import java.util.UUID;
+
+/**
+ * Fired by writes that move dashboard figures (orders, status changes, deliveries, payments).
+ * Observers that care about committed data observe it with
+ * {@code during = TransactionPhase.AFTER_SUCCESS}. {@code orderId} is null when many orders
+ * changed at once (imports, rollup rebuilds).
+ */
+public record DashboardChanged(UUID orderId) {
+}
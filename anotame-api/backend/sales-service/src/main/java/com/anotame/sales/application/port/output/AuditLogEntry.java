@@ -1,12 +1,14 @@
 package com.anotame.sales.application.port.output;
 
 import java.time.OffsetDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * Application-layer value object representing an audit log entry.
  * Used in {@link OrderAuditLogRepositoryPort} to avoid leaking the
  * JPA infrastructure entity into the application layer.
+ * {@code diff} is only set on entries that describe a structured change (e.g. item replacement).
  */
 public record AuditLogEntry(
     UUID orderId,
@@ -14,5 +16,6 @@ public record AuditLogEntry(
     String fieldName,
     String oldValue,
     String newValue,
-    OffsetDateTime changedAt
+    OffsetDateTime changedAt,
+    Map<String, Object> diff
 ) {}
@@ -0,0 +1,13 @@
+package com.anotame.sales.application.port.output;
+
+import java.util.List;
+
+/**
+ * Write path of the order audit log. Callers hand over all entries of one transaction at once.
+ * Depending on app.audit-log.mode they are written in that transaction with a single insert
+ * ({@code commit}), or queued once it commits and written by a background batch writer
+ * ({@code async}, where entries still queued are lost if the process dies).
+ */
+public interface AuditTrailPort {
+    void record(List<AuditLogEntry> entries);
+}
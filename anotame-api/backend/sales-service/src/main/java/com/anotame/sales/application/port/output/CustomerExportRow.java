@@ -0,0 +1,13 @@
+package com.anotame.sales.application.port.output;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record CustomerExportRow(
+        UUID id,
+        String firstName,
+        String lastName,
+        String phoneNumber,
+        String email,
+        OffsetDateTime createdAt) {
+}
@@ -0,0 +1,12 @@
+package com.anotame.sales.application.port.output;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Keyset position in a customer's order history. Matches the history sort
+ * ({@code createdAt desc, id desc}), so the next page starts strictly after the
+ * last order the client has seen.
+ */
+public record CustomerOrderCursor(OffsetDateTime createdAt, UUID orderId) {
+}
@@ -11,9 +11,24 @@ public interface CustomerRepositoryPort {
 
     Optional<Customer> findByPhoneNumber(String phoneNumber);
 
-    java.util.List<Customer> search(String query);
+    /**
+     * Live customers matching {@code query} by name, email or phone, best match first, at most
+     * {@code limit} of them after skipping {@code offset}.
+     */
+    java.util.List<Customer> search(String query, int limit, int offset);
+
+    /** The live customers among {@code ids}, in the order of {@code ids}. */
+    java.util.List<Customer> findAllByIds(java.util.List<UUID> ids);
 
     Customer save(Customer customer);
 
     void deleteById(UUID id);
+
+    Optional<CustomerStats> findStats(UUID id);
+
+    /** Number of chunks the customer statistics are rebuilt in, see {@link #rebuildStats}. */
+    int statsChunkCount();
+
+    /** Recomputes one chunk of the customer statistics, in its own transaction. */
+    void rebuildStats(int chunk);
 }
@@ -0,0 +1,17 @@
+package com.anotame.sales.application.port.output;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Lifetime figures of one customer, from the customer statistics table. {@code lifetimeSpend}
+ * is what was paid on its orders; {@code openBalance} is what is still owed on the ones not
+ * cancelled. The order timestamps are null while the customer has no orders.
+ */
+public record CustomerStats(
+        long orderCount,
+        BigDecimal lifetimeSpend,
+        BigDecimal openBalance,
+        OffsetDateTime firstOrderAt,
+        OffsetDateTime lastOrderAt) {
+}
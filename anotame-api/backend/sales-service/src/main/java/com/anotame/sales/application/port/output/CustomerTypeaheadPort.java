@@ -0,0 +1,20 @@
+package com.anotame.sales.application.port.output;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-memory prefix search over customer name words and phone digits, for lookups on every
+ * keystroke. It answers with customer ids only; callers load the records with
+ * {@link CustomerRepositoryPort#findAllByIds}.
+ */
+public interface CustomerTypeaheadPort {
+
+    /**
+     * The ids of the page of customers whose name words or phone start with the words of
+     * {@code query}, best first; empty when the index cannot answer (not loaded, a term it does
+     * not index, or no prefix match), in which case {@link CustomerRepositoryPort#search} should.
+     */
+    Optional<List<UUID>> search(String query, int limit, int offset);
+}
@@ -0,0 +1,23 @@
+package com.anotame.sales.application.port.output;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Workload and finance counters of the dashboard. Order counters and pending debt are read in
+ * one pass over the orders; revenue (money recorded in the ledger, net of refunds) comes from
+ * the payment rollup and the workload series from the daily workload rollup.
+ * {@code dailyRevenue} has one entry per day from {@link DashboardWindow#firstRevenueDay()}
+ * to today; {@code dailyWorkloadMinutes} one per day starting today. Empty days are zero.
+ */
+public record DashboardSnapshot(
+        long todayDeliveries,
+        long comingDeliveries,
+        long readyForPickup,
+        long pendingPipeline,
+        BigDecimal todayRevenue,
+        BigDecimal monthlyRevenue,
+        BigDecimal pendingDebt,
+        List<BigDecimal> dailyRevenue,
+        List<Long> dailyWorkloadMinutes) {
+}
@@ -0,0 +1,28 @@
+package com.anotame.sales.application.port.output;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * What a dashboard snapshot is computed for: an optional branch (null means all branches),
+ * the selected month and the current local day. It doubles as the snapshot cache key, so a
+ * cached snapshot never outlives the day it was computed on.
+ */
+public record DashboardWindow(UUID branchId, ZoneId zone, LocalDate today, YearMonth month) {
+
+    /** Days in the revenue chart, ending today. */
+    public static final int REVENUE_DAYS = 7;
+    /** Days in the workload chart, starting today. */
+    public static final int WORKLOAD_DAYS = 30;
+
+    public OffsetDateTime startOf(LocalDate day) {
+        return day.atStartOfDay(zone).toOffsetDateTime();
+    }
+
+    public LocalDate firstRevenueDay() {
+        return today.minusDays(REVENUE_DAYS - 1);
+    }
+}
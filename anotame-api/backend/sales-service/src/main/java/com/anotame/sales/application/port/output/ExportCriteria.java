@@ -0,0 +1,11 @@
+package com.anotame.sales.application.port.output;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Filter of a streaming export: rows with their reference timestamp in [from, to), optionally
+ * limited to one branch. Null bounds are open.
+ */
+public record ExportCriteria(OffsetDateTime from, OffsetDateTime to, UUID branchId) {
+}
@@ -0,0 +1,19 @@
+package com.anotame.sales.application.port.output;
+
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reads for bulk exports. Rows are pushed to {@code sink} one at a time while a
+ * database cursor is open, so memory use does not depend on how many rows match.
+ */
+public interface ExportRepositoryPort {
+
+    void streamOrders(ExportCriteria criteria, Consumer<OrderExportRow> sink);
+
+    void streamPayments(ExportCriteria criteria, Consumer<PaymentExportRow> sink);
+
+    /**
+     * Customers created in the range; with a branch, only those with an order at that branch.
+     */
+    void streamCustomers(ExportCriteria criteria, Consumer<CustomerExportRow> sink);
+}
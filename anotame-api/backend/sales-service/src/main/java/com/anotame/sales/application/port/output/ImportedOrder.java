@@ -0,0 +1,13 @@
+package com.anotame.sales.application.port.output;
+
+import com.anotame.sales.domain.model.Order;
+import com.anotame.sales.domain.model.OrderPayment;
+
+import java.util.List;
+
+/**
+ * A validated, priced order read from line {@code line} of an import file, with the
+ * payments to load into the ledger alongside it. The customer is identified by phone number.
+ */
+public record ImportedOrder(long line, Order order, List<OrderPayment> payments) {
+}
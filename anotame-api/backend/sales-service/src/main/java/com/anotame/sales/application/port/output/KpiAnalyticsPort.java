@@ -0,0 +1,24 @@
+package com.anotame.sales.application.port.output;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Optional in-memory engine for the financial KPIs. Row shapes and semantics match the
+ * {@link OrderRepositoryPort} methods of the same name; callers use those while the engine is
+ * disabled or still loading.
+ */
+public interface KpiAnalyticsPort {
+
+    boolean isReady();
+
+    /** When the in-memory data last caught up with the database. */
+    OffsetDateTime refreshedAt();
+
+    List<Object[]> getServiceTypeRevenue(LocalDate from, LocalDate to);
+
+    List<Object[]> getTopCustomers(LocalDate from, LocalDate to, int limit);
+
+    Object[] getRepeatRate(LocalDate from, LocalDate to);
+}
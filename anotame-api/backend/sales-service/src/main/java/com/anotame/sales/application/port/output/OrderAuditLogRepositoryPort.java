@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.UUID;
 
 public interface OrderAuditLogRepositoryPort {
-    void save(AuditLogEntry entry);
+    /** Writes {@code entries} with one multi-row insert per chunk instead of one insert per row. */
+    void saveAll(List<AuditLogEntry> entries);
+
     List<AuditLogEntry> findByOrderId(UUID orderId);
 }
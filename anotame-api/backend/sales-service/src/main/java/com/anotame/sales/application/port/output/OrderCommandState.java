@@ -0,0 +1,15 @@
+package com.anotame.sales.application.port.output;
+
+import java.math.BigDecimal;
+
+/**
+ * The handful of order columns the counter commands (status change, delivery, payment)
+ * need to validate a request, read without loading items or services.
+ */
+public record OrderCommandState(
+        String status,
+        String pickupCode,
+        BigDecimal totalAmount,
+        BigDecimal amountPaid,
+        String paymentMethod) {
+}
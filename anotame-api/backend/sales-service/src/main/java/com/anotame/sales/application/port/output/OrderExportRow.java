@@ -0,0 +1,24 @@
+package com.anotame.sales.application.port.output;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record OrderExportRow(
+        UUID id,
+        String ticketNumber,
+        UUID branchId,
+        OffsetDateTime createdAt,
+        String status,
+        UUID customerId,
+        String customerName,
+        String customerPhoneNumber,
+        BigDecimal totalAmount,
+        BigDecimal amountPaid,
+        String paymentMethod,
+        OffsetDateTime committedDeadline,
+        OffsetDateTime deliveredAt,
+        String garments,
+        String services,
+        String notes) {
+}
@@ -0,0 +1,21 @@
+package com.anotame.sales.application.port.output;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Durable progress of a bulk order import. {@code linesCommitted} input lines have been
+ * fully applied; a resumed import starts right after them.
+ */
+public record OrderImportCheckpoint(
+        UUID importId,
+        String status,
+        long linesCommitted,
+        long ordersImported,
+        long linesRejected,
+        List<OrderImportLineError> errors,
+        OffsetDateTime startedAt,
+        OffsetDateTime updatedAt,
+        OffsetDateTime finishedAt) {
+}
@@ -0,0 +1,7 @@
+package com.anotame.sales.application.port.output;
+
+/**
+ * An input line of a bulk order import that was rejected, with the reason.
+ */
+public record OrderImportLineError(long line, String message) {
+}
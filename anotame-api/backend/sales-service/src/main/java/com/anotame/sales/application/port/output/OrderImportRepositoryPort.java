@@ -0,0 +1,29 @@
+package com.anotame.sales.application.port.output;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OrderImportRepositoryPort {
+
+    Optional<OrderImportCheckpoint> findCheckpoint(UUID importId);
+
+    /**
+     * Creates the checkpoint of a new import, or reopens an unfinished one for resuming.
+     */
+    OrderImportCheckpoint beginImport(UUID importId, UUID userId);
+
+    /**
+     * Bulk-loads one chunk of orders (customers resolved or created by phone, orders, items,
+     * services and payments) and advances the checkpoint from {@code linesBefore} to
+     * {@code linesAfter}, all in one transaction. Orders whose ticket number already exists
+     * are skipped, so a replayed chunk never duplicates data.
+     *
+     * @throws com.anotame.sales.domain.exception.SalesConflictException when the checkpoint
+     *         is no longer at {@code linesBefore} (the same import is running elsewhere)
+     */
+    OrderImportCheckpoint commitChunk(UUID importId, UUID branchId, UUID userId, List<ImportedOrder> orders,
+            List<OrderImportLineError> rejected, long linesBefore, long linesAfter);
+
+    OrderImportCheckpoint finishImport(UUID importId, String status);
+}
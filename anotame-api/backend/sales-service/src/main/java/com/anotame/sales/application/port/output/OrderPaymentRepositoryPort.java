@@ -3,14 +3,29 @@ package com.anotame.sales.application.port.output;
 import com.anotame.sales.domain.model.OrderPayment;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
 public interface OrderPaymentRepositoryPort {
 
+    /** Appends a ledger entry and adds it to the daily payment rollup in the same transaction. */
     OrderPayment save(OrderPayment payment);
 
     List<OrderPayment> findByOrderId(UUID orderId);
 
     BigDecimal sumByOrderId(UUID orderId);
+
+    /**
+     * Rollup rows of {@code [from, to)} per day and payment method, ordered by day. A null
+     * branch sums all branches.
+     */
+    List<PaymentDayTotals> findDailyTotals(LocalDate from, LocalDate to, UUID branchId);
+
+    /** Months that have ledger entries or rollup rows, oldest first. */
+    List<YearMonth> findDailyTotalMonths();
+
+    /** Recomputes one month of the rollup from the ledger; runs in its own transaction. */
+    void rebuildDailyTotals(YearMonth month);
 }
@@ -0,0 +1,13 @@
+package com.anotame.sales.application.port.output;
+
+import java.math.BigDecimal;
+
+/**
+ * Order totals as committed by an atomic payment update.
+ */
+public record OrderPaymentTotals(BigDecimal amountPaid, BigDecimal totalAmount) {
+
+    public BigDecimal balance() {
+        return totalAmount.subtract(amountPaid);
+    }
+}
@@ -9,49 +9,124 @@ public interface OrderRepositoryPort {
 
     OrderSummaryResult findSummaries(int page, int size, OrderSummaryCriteria criteria);
 
+    /**
+     * Keyset variant of {@link #findSummaries}: returns up to {@code size} summaries
+     * strictly after {@code after} (or from the top when null) in a single query,
+     * without counting the filtered set.
+     */
+    OrderSummarySlice findSummariesAfter(OrderSummaryCursor after, int size, OrderSummaryCriteria criteria);
+
+    /**
+     * Up to {@code size} summaries of one customer's orders, newest first, strictly after
+     * {@code after} (or from the top when null).
+     */
+    OrderSummarySlice findCustomerOrdersAfter(java.util.UUID customerId, CustomerOrderCursor after, int size);
+
+    /**
+     * Counts summaries matching {@code criteria}. When {@code allowEstimate} is true and the
+     * filter is empty, the planner's row estimate is returned instead of a full count.
+     */
+    OrderSummaryCount countSummaries(OrderSummaryCriteria criteria, boolean allowEstimate);
+
+    /**
+     * Order counts per status, garment type and garment source under {@code criteria},
+     * plus the overall total, computed in one grouped scan.
+     */
+    java.util.List<OrderSummaryFacetCount> countSummaryFacets(OrderSummaryCriteria criteria);
+
     java.util.Optional<Order> findById(java.util.UUID id);
 
+    /**
+     * Read-only order detail built straight from one flat query (order × items × services),
+     * skipping the domain aggregate. The query count does not grow with the number of items.
+     */
+    java.util.Optional<com.anotame.sales.application.dto.OrderResponse> findDetailById(java.util.UUID id);
+
     void delete(java.util.UUID id);
 
+    // Counter commands: targeted single-row updates, no aggregate load or save
+
+    java.util.Optional<OrderCommandState> findCommandState(java.util.UUID id);
+
+    /**
+     * Sets the status of a live order whose current status is one of {@code allowedFrom}, and
+     * records the change in its history, made by {@code userId} (null when unknown). Returns the
+     * previous status, or empty when the order does not exist or is in another status.
+     */
+    java.util.Optional<String> updateStatus(java.util.UUID id, String status, java.util.Set<String> allowedFrom,
+                                            java.util.UUID userId, java.time.OffsetDateTime updatedAt);
+
+    /**
+     * Moves the order from READY to DELIVERED and records the change in its history. Returns
+     * false when the order is not READY (anymore), so two concurrent deliveries cannot both succeed.
+     */
+    boolean markDelivered(java.util.UUID id, java.util.UUID userId, java.time.OffsetDateTime deliveredAt);
+
+    /**
+     * Atomically adds {@code amount} to amount_paid, provided the order is live, not cancelled
+     * and the result stays within total_amount. Returns empty when any guard fails.
+     */
+    java.util.Optional<OrderPaymentTotals> applyPayment(java.util.UUID id, java.math.BigDecimal amount,
+            java.time.OffsetDateTime updatedAt);
+
     /**
      * Returns the next ticket number from the PostgreSQL sequence
-     * tco_ticket_number_seq.
+     * tco_ticket_number_seq, served from a block reserved by this instance
+     * (unique, but not gap-free or strictly ordered across instances).
      * Format: ORD-00001, ORD-00042, etc. (zero-padded to 5 digits).
      * This is the ONLY correct way to generate ticket numbers — do NOT use
      * System.currentTimeMillis() or UUID-based approaches, both of which collide.
      */
     String nextTicketNumber();
 
-    // KPI Metrics
-    long countActiveByDeadlineRange(java.time.OffsetDateTime start, java.time.OffsetDateTime end);
-
-    long countActiveFromDeadline(java.time.OffsetDateTime start);
-
-    long countByStatusNotIn(java.util.List<String> excludedStatuses);
-
-    long countByStatus(String status);
-
-    java.math.BigDecimal sumPaidAmountInRange(java.time.OffsetDateTime start, java.time.OffsetDateTime end);
+    /**
+     * Dashboard counters and chart series for the window: order counters come from a single
+     * scan of the orders, revenue and workload from the daily rollups. Results are cached briefly per window and dropped whenever orders or payments
+     * are written; concurrent requests for the same window share one computation.
+     */
+    DashboardSnapshot loadDashboardSnapshot(DashboardWindow window);
 
-    java.math.BigDecimal sumPendingDebt();
+    // Financial KPI queries — served from precomputed per-day views over local days [from, to)
+    java.util.List<Object[]> getServiceTypeRevenue(java.time.LocalDate from, java.time.LocalDate to);
 
-    java.util.List<Object[]> getWeeklyRevenueData(java.time.OffsetDateTime start, String zoneId);
+    java.util.List<Object[]> getTopCustomers(java.time.LocalDate from, java.time.LocalDate to, int limit);
 
-    java.util.List<Object[]> getDailyWorkload(java.time.OffsetDateTime start, java.time.OffsetDateTime end, String zoneId);
+    /**
+     * Refreshes the precomputed financial KPI views. Returns false when another instance was
+     * already refreshing them.
+     */
+    boolean refreshKpiViews();
 
-    // Financial KPI queries
-    java.util.List<Object[]> getRevenueTimeSeries(java.time.OffsetDateTime start, String granularity, String zoneId);
+    /** When the precomputed financial KPI views were last refreshed (the oldest of them). */
+    java.time.OffsetDateTime findKpiViewsRefreshedAt();
 
-    java.util.List<Object[]> getServiceTypeRevenue(java.time.OffsetDateTime start, java.time.OffsetDateTime end);
+    /**
+     * Makes the current transaction read-only and has the database cancel any of its statements
+     * running longer than {@code statementTimeout}. Must come before the transaction's first query.
+     */
+    void restrictToReadOnly(java.time.Duration statementTimeout);
 
-    java.util.List<Object[]> getTopCustomers(java.time.OffsetDateTime start, java.time.OffsetDateTime end, int limit);
+    /**
+     * Histogram buckets of the stage durations (V15) for stages ended on local days in
+     * {@code [from, to)}, grouped by "stage", "service" or "staff".
+     */
+    java.util.List<StageDurationBucket> findStageDurations(java.time.LocalDate from, java.time.LocalDate to,
+                                                           java.util.UUID branchId, String groupBy);
 
-    // At-risk customer query
-    java.util.List<Object[]> getAtRiskCustomers(java.time.LocalDate cutoffDate, String zoneId, int limit);
+    // At-risk customer query — customer statistics table, last order dates local to app.timezone
+    java.util.List<Object[]> getAtRiskCustomers(java.time.LocalDate cutoffDate, int limit);
 
     // Calendar queries
-    java.util.List<Object[]> getCalendarMonthData(java.time.OffsetDateTime monthStart, java.time.OffsetDateTime monthEnd, String zoneId);
+    /**
+     * Per-day workload of {@code [from, to)} from the daily rollup: local date, minutes,
+     * order count and scheduled revenue. A null branch sums all branches; empty days are absent.
+     */
+    java.util.List<Object[]> getCalendarMonthData(java.time.LocalDate from, java.time.LocalDate to,
+            java.util.UUID branchId);
+
+    /** Recomputes the daily workload rollup from the orders. */
+    void rebuildDailyWorkload();
 
-    Object[] getRepeatRate(java.time.OffsetDateTime start, java.time.OffsetDateTime end);
+    Object[] getRepeatRate(java.time.LocalDate from, java.time.LocalDate to);
 
 }
@@ -0,0 +1,8 @@
+package com.anotame.sales.application.port.output;
+
+/**
+ * Row count for an order summary filter. {@code estimated} is true when the value
+ * comes from planner statistics instead of an exact {@code count(*)}.
+ */
+public record OrderSummaryCount(long value, boolean estimated) {
+}
@@ -0,0 +1,11 @@
+package com.anotame.sales.application.port.output;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Keyset position in the order summary listing. Matches the listing sort
+ * ({@code createdAt desc, ticketNumber desc}), so the next page starts strictly
+ * after the last row the client has seen.
+ */
+public record OrderSummaryCursor(OffsetDateTime createdAt, String ticketNumber) {
+}
@@ -0,0 +1,9 @@
+package com.anotame.sales.application.port.output;
+
+/**
+ * One bucket of the order summary facets. {@code dimension} is one of
+ * {@code STATUS}, {@code GARMENT_TYPE}, {@code GARMENT_SOURCE} or {@code TOTAL};
+ * {@code label} is only set for garment types.
+ */
+public record OrderSummaryFacetCount(String dimension, String value, String label, long count) {
+}
@@ -0,0 +1,6 @@
+package com.anotame.sales.application.port.output;
+
+import java.util.List;
+
+public record OrderSummarySlice(List<OrderSummaryProjection> items, boolean hasMore) {
+}
@@ -0,0 +1,21 @@
+package com.anotame.sales.application.port.output;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Money received and refunded on one local day with one payment method, from the payment
+ * rollup. {@code refundedAmount} is positive; {@code paymentMethod} is null when unrecorded.
+ */
+public record PaymentDayTotals(
+        LocalDate day,
+        String paymentMethod,
+        BigDecimal receivedAmount,
+        long receivedCount,
+        BigDecimal refundedAmount,
+        long refundCount) {
+
+    public BigDecimal net() {
+        return receivedAmount.subtract(refundedAmount);
+    }
+}
@@ -0,0 +1,16 @@
+package com.anotame.sales.application.port.output;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record PaymentExportRow(
+        UUID id,
+        UUID orderId,
+        String ticketNumber,
+        UUID branchId,
+        BigDecimal amount,
+        String paymentMethod,
+        String notes,
+        OffsetDateTime recordedAt) {
+}
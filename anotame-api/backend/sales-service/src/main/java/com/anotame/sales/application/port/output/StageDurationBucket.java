@@ -0,0 +1,14 @@
+package com.anotame.sales.application.port.output;
+
+/**
+ * Stage durations of one histogram bucket, from the stage duration rollup: how many stages of
+ * {@code stage} within {@code group} took at most {@code upperBoundSeconds}, and their summed
+ * length. {@code group} is empty when not grouping.
+ */
+public record StageDurationBucket(
+        String stage,
+        String group,
+        double upperBoundSeconds,
+        long transitions,
+        long totalSeconds) {
+}
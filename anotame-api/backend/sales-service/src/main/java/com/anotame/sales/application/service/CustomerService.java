@@ -1,23 +1,37 @@
 package com.anotame.sales.application.service;
 
 import com.anotame.sales.application.dto.CustomerDto;
+import com.anotame.sales.application.event.CustomerChanged;
 import com.anotame.sales.application.port.output.CustomerRepositoryPort;
+import com.anotame.sales.application.port.output.CustomerTypeaheadPort;
 import com.anotame.sales.domain.exception.FieldValidationException;
 import com.anotame.sales.domain.exception.SalesNotFoundException;
+import com.anotame.sales.domain.exception.SalesValidationException;
 import com.anotame.sales.domain.model.Customer;
 import lombok.RequiredArgsConstructor;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @ApplicationScoped
 @RequiredArgsConstructor
 public class CustomerService {
 
+    static final int MAX_SEARCH_LIMIT = 50;
+
     private final CustomerRepositoryPort customerRepository;
+    private final CustomerTypeaheadPort customerTypeahead;
+    private final Event<CustomerChanged> customerChanged;
+    private final RebuildExecutor rebuildExecutor;
+
+    @ConfigProperty(name = "app.customer-stats.rebuild-parallelism", defaultValue = "2")
+    int rebuildParallelism;
 
     @Transactional
     public CustomerDto createCustomer(CustomerDto dto) {
@@ -41,6 +55,7 @@ public class CustomerService {
         customer.setPreferences(dto.getPreferences());
 
         Customer saved = customerRepository.save(customer);
+        customerChanged.fire(new CustomerChanged(saved.getId()));
         return mapToDto(saved);
     }
 
@@ -48,12 +63,24 @@ public class CustomerService {
     public CustomerDto getCustomer(UUID id) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new SalesNotFoundException("Cliente no encontrado"));
-        return mapToDto(customer);
+        CustomerDto dto = mapToDto(customer);
+        customerRepository.findStats(id).ifPresent(stats -> dto.setStats(CustomerDto.Stats.of(stats)));
+        return dto;
     }
 
     @Transactional
-    public List<CustomerDto> searchCustomers(String query) {
-        return customerRepository.search(query).stream()
+    public List<CustomerDto> searchCustomers(String query, int limit, int offset) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new SalesValidationException("limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        if (offset < 0) {
+            throw new SalesValidationException("offset must not be negative");
+        }
+        // Prefix lookups are ranked in memory and loaded by id; substrings, emails and typos go to the database.
+        return customerTypeahead.search(query, limit, offset)
+                .map(customerRepository::findAllByIds)
+                .orElseGet(() -> customerRepository.search(query, limit, offset))
+                .stream()
                 .map(this::mapToDto)
                 .collect(Collectors.toList());
     }
@@ -86,6 +113,7 @@ public class CustomerService {
         customer.setPreferences(dto.getPreferences());
 
         Customer saved = customerRepository.save(customer);
+        customerChanged.fire(new CustomerChanged(id));
         return mapToDto(saved);
     }
 
@@ -95,6 +123,19 @@ public class CustomerService {
             throw new SalesNotFoundException("Cliente no encontrado");
         }
         customerRepository.deleteById(id);
+        customerChanged.fire(new CustomerChanged(id));
+    }
+
+    /**
+     * Rebuilds the customer statistics chunk by chunk, each in its own transaction and up to
+     * {@code app.customer-stats.rebuild-parallelism} chunks at a time. A chunk holds back order
+     * writes of its own customers only. Returns the chunks rebuilt.
+     */
+    public int rebuildStats() {
+        int chunks = customerRepository.statsChunkCount();
+        rebuildExecutor.runAll("Customer statistics rebuild", IntStream.range(0, chunks).boxed().toList(),
+                rebuildParallelism, customerRepository::rebuildStats);
+        return chunks;
     }
 
     private CustomerDto mapToDto(Customer customer) {
@@ -0,0 +1,256 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.port.output.CustomerExportRow;
+import com.anotame.sales.application.port.output.ExportCriteria;
+import com.anotame.sales.application.port.output.ExportRepositoryPort;
+import com.anotame.sales.application.port.output.OrderExportRow;
+import com.anotame.sales.application.port.output.PaymentExportRow;
+import com.anotame.sales.domain.exception.SalesUnavailableException;
+import com.anotame.sales.domain.exception.SalesValidationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streaming exports of orders, the payment ledger and customers as CSV or NDJSON.
+ * Rows are written to the output as the database cursor yields them; nothing is collected,
+ * so heap use is flat regardless of the size of the export. Timestamps are rendered in the
+ * application timezone and the date range is interpreted there too ({@code to} inclusive).
+ * <p>
+ * Filters are validated when the export is requested; the returned writer runs later, once
+ * the response is already committed.
+ * <p>
+ * Each running export holds a pooled connection (its cursor) for as long as the client takes
+ * to download. At most app.exports.max-concurrent of them run at once, counted from the request
+ * until the writer finishes; further requests are rejected with 503 rather than queued, so
+ * slow downloads never take the connections the counter's writes need.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class ExportService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new SalesValidationException("Formato de exportación inválido: " + value);
+            }
+        }
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {
+    }
+
+    private static final List<Column<OrderExportRow>> ORDER_COLUMNS = List.of(
+            new Column<>("id", OrderExportRow::id),
+            new Column<>("ticketNumber", OrderExportRow::ticketNumber),
+            new Column<>("branchId", OrderExportRow::branchId),
+            new Column<>("createdAt", OrderExportRow::createdAt),
+            new Column<>("status", OrderExportRow::status),
+            new Column<>("customerId", OrderExportRow::customerId),
+            new Column<>("customerName", OrderExportRow::customerName),
+            new Column<>("customerPhoneNumber", OrderExportRow::customerPhoneNumber),
+            new Column<>("totalAmount", OrderExportRow::totalAmount),
+            new Column<>("amountPaid", OrderExportRow::amountPaid),
+            new Column<>("paymentMethod", OrderExportRow::paymentMethod),
+            new Column<>("committedDeadline", OrderExportRow::committedDeadline),
+            new Column<>("deliveredAt", OrderExportRow::deliveredAt),
+            new Column<>("garments", OrderExportRow::garments),
+            new Column<>("services", OrderExportRow::services),
+            new Column<>("notes", OrderExportRow::notes));
+
+    private static final List<Column<PaymentExportRow>> PAYMENT_COLUMNS = List.of(
+            new Column<>("id", PaymentExportRow::id),
+            new Column<>("orderId", PaymentExportRow::orderId),
+            new Column<>("ticketNumber", PaymentExportRow::ticketNumber),
+            new Column<>("branchId", PaymentExportRow::branchId),
+            new Column<>("amount", PaymentExportRow::amount),
+            new Column<>("paymentMethod", PaymentExportRow::paymentMethod),
+            new Column<>("notes", PaymentExportRow::notes),
+            new Column<>("recordedAt", PaymentExportRow::recordedAt));
+
+    private static final List<Column<CustomerExportRow>> CUSTOMER_COLUMNS = List.of(
+            new Column<>("id", CustomerExportRow::id),
+            new Column<>("firstName", CustomerExportRow::firstName),
+            new Column<>("lastName", CustomerExportRow::lastName),
+            new Column<>("phoneNumber", CustomerExportRow::phoneNumber),
+            new Column<>("email", CustomerExportRow::email),
+            new Column<>("createdAt", CustomerExportRow::createdAt));
+
+    private final ExportRepositoryPort exportRepository;
+    private final ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "app.timezone", defaultValue = "America/Mexico_City")
+    String appTimezone;
+
+    @ConfigProperty(name = "app.exports.max-concurrent", defaultValue = "1")
+    int maxConcurrent;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    public Consumer<OutputStream> exportOrders(Format format, LocalDate from, LocalDate to, UUID branchId) {
+        ExportCriteria criteria = buildCriteria(from, to, branchId);
+        return limited(out -> write(format, ORDER_COLUMNS, out, sink -> exportRepository.streamOrders(criteria, sink)));
+    }
+
+    public Consumer<OutputStream> exportPayments(Format format, LocalDate from, LocalDate to, UUID branchId) {
+        ExportCriteria criteria = buildCriteria(from, to, branchId);
+        return limited(out -> write(format, PAYMENT_COLUMNS, out, sink -> exportRepository.streamPayments(criteria, sink)));
+    }
+
+    public Consumer<OutputStream> exportCustomers(Format format, LocalDate from, LocalDate to, UUID branchId) {
+        ExportCriteria criteria = buildCriteria(from, to, branchId);
+        return limited(out -> write(format, CUSTOMER_COLUMNS, out, sink -> exportRepository.streamCustomers(criteria, sink)));
+    }
+
+    /** Takes an export permit now and gives it back once {@code export} has run, however it ends. */
+    private Consumer<OutputStream> limited(Consumer<OutputStream> export) {
+        if (!permits.tryAcquire()) {
+            throw new SalesUnavailableException("Ya hay " + maxConcurrent + " exportaciones en curso; intente más tarde");
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return out -> {
+            try {
+                export.accept(out);
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        };
+    }
+
+    private ExportCriteria buildCriteria(LocalDate from, LocalDate to, UUID branchId) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new SalesValidationException("El rango de fechas es inválido");
+        }
+        ZoneId zone = ZoneId.of(appTimezone);
+        return new ExportCriteria(
+                from != null ? from.atStartOfDay(zone).toOffsetDateTime() : null,
+                to != null ? to.plusDays(1).atStartOfDay(zone).toOffsetDateTime() : null,
+                branchId);
+    }
+
+    private <T> void write(Format format, List<Column<T>> columns, OutputStream out,
+                           Consumer<Consumer<T>> source) {
+        ZoneId zone = ZoneId.of(appTimezone);
+        try {
+            if (format == Format.NDJSON) {
+                JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+                // One object per line: newline-terminated, without Jackson's default space between root values.
+                json.setRootValueSeparator(null);
+                source.accept(row -> writeJsonRow(json, columns, row, zone));
+                json.flush();
+            } else {
+                Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writeCsvLine(csv, columns.stream().map(c -> (Object) c.name()).toList(), zone);
+                source.accept(row -> writeCsvLine(csv, columns.stream().map(c -> c.value().apply(row)).toList(), zone));
+                csv.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> void writeJsonRow(JsonGenerator json, List<Column<T>> columns, T row, ZoneId zone) {
+        try {
+            json.writeStartObject();
+            for (Column<T> column : columns) {
+                Object value = column.value().apply(row);
+                json.writeFieldName(column.name());
+                if (value == null) {
+                    json.writeNull();
+                } else if (value instanceof BigDecimal number) {
+                    json.writeNumber(number);
+                } else {
+                    json.writeString(format(value, zone));
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsvLine(Writer csv, List<Object> values, ZoneId zone) {
+        try {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    csv.write(',');
+                }
+                Object value = values.get(i);
+                if (value != null) {
+                    csv.write(escapeCsv(value instanceof String text ? neutralizeFormula(text) : format(value, zone)));
+                }
+            }
+            csv.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String format(Object value, ZoneId zone) {
+        if (value instanceof OffsetDateTime timestamp) {
+            return timestamp.atZoneSameInstant(zone).toOffsetDateTime().toString();
+        }
+        if (value instanceof BigDecimal number) {
+            return number.toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * CSV only: text that a spreadsheet would evaluate as a formula (customer names, notes, phone
+     * numbers typed as "+52...") is prefixed with a quote. Numbers and timestamps are not text,
+     * so negative amounts stay numeric.
+     */
+    private static String neutralizeFormula(String text) {
+        if (text.isEmpty()) {
+            return text;
+        }
+        return switch (text.charAt(0)) {
+            case '=', '+', '-', '@', '\t', '\r' -> "'" + text;
+            default -> text;
+        };
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
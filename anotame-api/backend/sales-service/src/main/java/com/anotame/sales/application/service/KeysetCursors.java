@@ -0,0 +1,45 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.domain.exception.SalesValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.function.BiFunction;
+
+/**
+ * Wire format of the keyset cursors handed to clients: base64url("&lt;createdAt ISO-8601&gt;|&lt;key&gt;"),
+ * where the key breaks ties between rows created at the same instant. Opaque to clients.
+ */
+final class KeysetCursors {
+
+    private KeysetCursors() {
+    }
+
+    static String encode(OffsetDateTime createdAt, Object key) {
+        String raw = createdAt + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The cursor built by {@code factory} from the timestamp and key of {@code cursor}; null when
+     * no cursor was given. A malformed cursor, or a key {@code factory} rejects with an
+     * {@link IllegalArgumentException}, is a validation error.
+     */
+    static <T> T decode(String cursor, BiFunction<OffsetDateTime, String, T> factory) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new SalesValidationException("Invalid cursor");
+            }
+            return factory.apply(OffsetDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new SalesValidationException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.port.output.OrderRepositoryPort;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs independent read queries of one request side by side, each on a virtual thread and in
+ * its own read-only transaction, so the request takes as long as its slowest query instead of
+ * their sum.
+ * <p>
+ * A semaphore shared by all requests bounds how many of these queries hold a pooled connection
+ * at once; keep app.kpi-queries.max-concurrent below the pool size so the transactional
+ * endpoints always find one. A query that fails, or does not get a permit and finish within
+ * app.kpi-queries.timeout, is reported in {@link Results#failed()} and the rest still return.
+ * With app.kpi-queries.parallel=false the queries run one after another on the caller's thread.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class KpiQueryRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(KpiQueryRunner.class);
+
+    private final OrderRepositoryPort orderRepository;
+
+    @ConfigProperty(name = "app.kpi-queries.parallel", defaultValue = "true")
+    boolean parallel;
+
+    @ConfigProperty(name = "app.kpi-queries.max-concurrent", defaultValue = "2")
+    int maxConcurrent;
+
+    @ConfigProperty(name = "app.kpi-queries.timeout", defaultValue = "10s")
+    Duration timeout;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrent), true);
+    }
+
+    /** Query results by name, and the names of the queries that did not complete. */
+    public record Results(Map<String, Object> values, List<String> failed) {
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name, T fallback) {
+            return values.containsKey(name) ? (T) values.get(name) : fallback;
+        }
+    }
+
+    public Results runAll(Map<String, Callable<?>> queries) {
+        Map<String, Object> values = new HashMap<>();
+        List<String> failed = new ArrayList<>();
+        if (!parallel) {
+            queries.forEach((name, query) -> {
+                try {
+                    values.put(name, QuarkusTransaction.requiringNew().call(() -> readOnly(query, timeout)));
+                } catch (RuntimeException e) {
+                    log.warn("KPI query {} failed", name, e);
+                    failed.add(name);
+                }
+            });
+            return new Results(values, failed);
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        // Not closed with try-with-resources: close() would wait for a query stuck past its timeout.
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Map<String, Future<?>> running = new LinkedHashMap<>();
+            queries.forEach((name, query) -> running.put(name, executor.submit(() -> withPermit(query, deadline))));
+            for (Map.Entry<String, Future<?>> entry : running.entrySet()) {
+                try {
+                    values.put(entry.getKey(), entry.getValue().get(remainingNanos(deadline), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    log.warn("KPI query {} timed out after {}", entry.getKey(), timeout);
+                    failed.add(entry.getKey());
+                } catch (ExecutionException e) {
+                    log.warn("KPI query {} failed", entry.getKey(), e.getCause());
+                    failed.add(entry.getKey());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("KPI queries interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return new Results(values, failed);
+    }
+
+    private Object withPermit(Callable<?> query, long deadline) throws Exception {
+        if (!permits.tryAcquire(remainingNanos(deadline), TimeUnit.NANOSECONDS)) {
+            throw new TimeoutException("No connection permit within " + timeout);
+        }
+        try {
+            // A transaction timeout only marks the transaction for rollback; the statement keeps
+            // running and holding its connection. The statement timeout is what stops it.
+            Duration remaining = Duration.ofNanos(remainingNanos(deadline));
+            int seconds = (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining.toNanos() + 999_999_999L));
+            return QuarkusTransaction.requiringNew().timeout(seconds).call(() -> readOnly(query, remaining));
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Object readOnly(Callable<?> query, Duration statementTimeout) throws Exception {
+        orderRepository.restrictToReadOnly(statementTimeout);
+        return query.call();
+    }
+
+    private static long remainingNanos(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+}
@@ -0,0 +1,257 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.dto.OrderImportLine;
+import com.anotame.sales.application.dto.OrderImportResponse;
+import com.anotame.sales.application.dto.OrderItemDto;
+import com.anotame.sales.application.event.CustomerChanged;
+import com.anotame.sales.application.event.DashboardChanged;
+import com.anotame.sales.application.port.output.ImportedOrder;
+import com.anotame.sales.application.port.output.OrderImportCheckpoint;
+import com.anotame.sales.application.port.output.OrderImportLineError;
+import com.anotame.sales.application.port.output.OrderImportRepositoryPort;
+import com.anotame.sales.domain.exception.SalesNotFoundException;
+import com.anotame.sales.domain.exception.SalesUnprocessableException;
+import com.anotame.sales.domain.model.Customer;
+import com.anotame.sales.domain.model.Order;
+import com.anotame.sales.domain.model.OrderItem;
+import com.anotame.sales.domain.model.OrderPayment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of historical orders from an NDJSON stream (one {@link OrderImportLine} per line).
+ * <p>
+ * The stream is consumed in chunks: each chunk is parsed and validated in parallel, then handed
+ * to {@link OrderImportRepositoryPort#commitChunk} which loads it with COPY and advances the
+ * checkpoint in the same transaction. Invalid lines, orders whose ticket number already exists,
+ * and ORD-nnnnn numbers in the range already handed out to new orders are recorded as rejected
+ * lines and skipped, never fatal.
+ * Re-posting the same file with the same import id resumes after the last committed line.
+ * No audit entries are written: imported tickets are history, not edits.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class OrderImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderImportService.class);
+
+    private final OrderImportRepositoryPort importRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Event<DashboardChanged> dashboardChanged;
+    private final Event<CustomerChanged> customerChanged;
+
+    @ConfigProperty(name = "app.order-import.chunk-size", defaultValue = "5000")
+    int chunkSize;
+
+    public OrderImportResponse importOrders(InputStream body, UUID importId, UUID userId, UUID branchId) {
+        UUID id = importId != null ? importId : UUID.randomUUID();
+        OrderImportCheckpoint checkpoint = importRepository.beginImport(id, userId);
+        if ("COMPLETED".equals(checkpoint.status())) {
+            return toResponse(checkpoint);
+        }
+
+        ObjectReader reader = objectMapper.readerFor(OrderImportLine.class);
+        long resumeAfter = checkpoint.linesCommitted();
+        long lineNumber = 0;
+        List<RawLine> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String text;
+            while ((text = in.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= resumeAfter) {
+                    continue;
+                }
+                chunk.add(new RawLine(lineNumber, text));
+                if (chunk.size() >= chunkSize) {
+                    checkpoint = commit(id, userId, branchId, reader, chunk, checkpoint.linesCommitted(), lineNumber);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                checkpoint = commit(id, userId, branchId, reader, chunk, checkpoint.linesCommitted(), lineNumber);
+            }
+        } catch (IOException e) {
+            log.warn("Order import {} interrupted after line {}: {}", id, checkpoint.linesCommitted(), e.getMessage());
+            importRepository.finishImport(id, "INTERRUPTED");
+            // Committed chunks may have created customers.
+            customerChanged.fire(new CustomerChanged(null));
+            throw new SalesUnprocessableException("Import interrupted after line " + checkpoint.linesCommitted()
+                    + "; re-send the file with importId=" + id + " to resume");
+        }
+
+        OrderImportCheckpoint finished = importRepository.finishImport(id, "COMPLETED");
+        dashboardChanged.fire(new DashboardChanged(null));
+        customerChanged.fire(new CustomerChanged(null));
+        return toResponse(finished);
+    }
+
+    public OrderImportResponse getImport(UUID importId) {
+        return importRepository.findCheckpoint(importId)
+                .map(this::toResponse)
+                .orElseThrow(() -> new SalesNotFoundException("Import not found: " + importId));
+    }
+
+    private OrderImportCheckpoint commit(UUID importId, UUID userId, UUID branchId, ObjectReader reader,
+                                         List<RawLine> chunk, long linesBefore, long linesAfter) {
+        List<ParsedLine> parsed = chunk.parallelStream()
+                .map(line -> parse(reader, line))
+                .toList();
+
+        List<ImportedOrder> orders = new ArrayList<>(parsed.size());
+        List<OrderImportLineError> rejected = new ArrayList<>();
+        for (ParsedLine line : parsed) {
+            if (line.order() != null) {
+                orders.add(line.order());
+            } else if (line.error() != null) {
+                rejected.add(line.error());
+            }
+        }
+        return importRepository.commitChunk(importId, branchId, userId, orders, rejected, linesBefore, linesAfter);
+    }
+
+    private ParsedLine parse(ObjectReader reader, RawLine raw) {
+        if (raw.text().isBlank()) {
+            return new ParsedLine(null, null);
+        }
+        OrderImportLine line;
+        try {
+            line = reader.readValue(raw.text());
+        } catch (JsonProcessingException e) {
+            return rejected(raw.number(), "Invalid JSON: " + e.getOriginalMessage());
+        }
+
+        var violations = validator.validate(line);
+        if (!violations.isEmpty()) {
+            return rejected(raw.number(), violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        String status = line.getStatus() != null ? line.getStatus().trim().toUpperCase(Locale.ROOT) : "DELIVERED";
+        if (!SalesService.VALID_STATUSES.contains(status)) {
+            return rejected(raw.number(), "Invalid status: " + line.getStatus());
+        }
+
+        Order order = toOrder(line, status);
+        List<OrderPayment> payments = new ArrayList<>();
+        BigDecimal amountPaid = BigDecimal.ZERO;
+        if (line.getPayments() != null) {
+            for (OrderImportLine.Payment p : line.getPayments()) {
+                if (p.getAmount().signum() == 0) {
+                    continue;
+                }
+                String method = p.getPaymentMethod() != null
+                        ? p.getPaymentMethod().trim().toUpperCase(Locale.ROOT)
+                        : null;
+                if (method != null && !SalesService.VALID_PAYMENT_METHODS.contains(method)) {
+                    return rejected(raw.number(), "Invalid payment method: " + p.getPaymentMethod());
+                }
+                OrderPayment payment = new OrderPayment();
+                payment.setAmount(p.getAmount());
+                payment.setPaymentMethod(method);
+                payment.setNotes(p.getNotes());
+                payment.setRecordedAt(p.getRecordedAt() != null ? p.getRecordedAt() : line.getCreatedAt());
+                payments.add(payment);
+                amountPaid = amountPaid.add(p.getAmount());
+            }
+        }
+        if (amountPaid.compareTo(order.getTotalAmount()) > 0) {
+            return rejected(raw.number(), "Payments (" + amountPaid + ") exceed order total (" + order.getTotalAmount() + ")");
+        }
+        order.setAmountPaid(amountPaid);
+        order.setPaymentMethod(payments.isEmpty() ? null : payments.get(0).getPaymentMethod());
+
+        return new ParsedLine(new ImportedOrder(raw.number(), order, payments), null);
+    }
+
+    private Order toOrder(OrderImportLine line, String status) {
+        Customer customer = new Customer();
+        customer.setFirstName(line.getCustomer().getFirstName());
+        customer.setLastName(line.getCustomer().getLastName());
+        customer.setEmail(line.getCustomer().getEmail());
+        customer.setPhoneNumber(line.getCustomer().getPhoneNumber().trim());
+
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setTicketNumber(line.getTicketNumber().trim());
+        order.setFolioBranch(parseFolio(order.getTicketNumber()));
+        order.setStatus(status);
+        order.setNotes(line.getNotes());
+        order.setCommittedDeadline(line.getCommittedDeadline());
+        order.setDeliveredAt(line.getDeliveredAt());
+        order.setCreatedAt(line.getCreatedAt());
+        order.setUpdatedAt(line.getCreatedAt());
+        order.setPickupCode(String.format("%06d", ThreadLocalRandom.current().nextInt(100_000, 1_000_000)));
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItemDto itemDto : line.getItems()) {
+            OrderItem item = SalesService.buildOrderItem(itemDto);
+            order.addItem(item);
+            total = total.add(item.getSubtotal());
+        }
+        order.setTotalAmount(total);
+        order.setTotalDurationMin(SalesService.calculateTotalDuration(order));
+        return order;
+    }
+
+    // Same convention as createOrder: folio_branch mirrors the numeric part of the ticket.
+    private static int parseFolio(String ticketNumber) {
+        String digits = ticketNumber.replaceAll("\\D", "");
+        if (digits.isEmpty() || digits.length() > 9) {
+            return 0;
+        }
+        return Integer.parseInt(digits);
+    }
+
+    private static ParsedLine rejected(long line, String message) {
+        return new ParsedLine(null, new OrderImportLineError(line, message));
+    }
+
+    private OrderImportResponse toResponse(OrderImportCheckpoint checkpoint) {
+        return OrderImportResponse.builder()
+                .importId(checkpoint.importId())
+                .status(checkpoint.status())
+                .linesCommitted(checkpoint.linesCommitted())
+                .ordersImported(checkpoint.ordersImported())
+                .linesRejected(checkpoint.linesRejected())
+                .errors(checkpoint.errors().stream()
+                        .map(e -> OrderImportResponse.LineError.builder()
+                                .line(e.line())
+                                .message(e.message())
+                                .build())
+                        .toList())
+                .startedAt(checkpoint.startedAt())
+                .updatedAt(checkpoint.updatedAt())
+                .finishedAt(checkpoint.finishedAt())
+                .build();
+    }
+
+    private record RawLine(long number, String text) {
+    }
+
+    private record ParsedLine(ImportedOrder order, OrderImportLineError error) {
+    }
+}
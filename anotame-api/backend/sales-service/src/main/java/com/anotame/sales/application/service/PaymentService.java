@@ -1,19 +1,29 @@
 package com.anotame.sales.application.service;
 
 import com.anotame.sales.application.dto.AddPaymentRequest;
+import com.anotame.sales.application.dto.CashCloseResponse;
 import com.anotame.sales.application.dto.PaymentResponse;
+import com.anotame.sales.application.port.output.OrderCommandState;
 import com.anotame.sales.application.port.output.OrderPaymentRepositoryPort;
+import com.anotame.sales.application.port.output.OrderPaymentTotals;
 import com.anotame.sales.application.port.output.OrderRepositoryPort;
+import com.anotame.sales.application.port.output.PaymentDayTotals;
 import com.anotame.sales.domain.exception.SalesNotFoundException;
 import com.anotame.sales.domain.exception.SalesUnprocessableException;
-import com.anotame.sales.domain.model.Order;
 import com.anotame.sales.domain.model.OrderPayment;
+import com.anotame.sales.application.event.DashboardChanged;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,28 +33,28 @@ public class PaymentService {
 
     private final OrderRepositoryPort orderRepository;
     private final OrderPaymentRepositoryPort paymentRepository;
+    private final Event<DashboardChanged> dashboardChanged;
+    private final RebuildExecutor rebuildExecutor;
 
-    @Transactional
-    public PaymentResponse addPayment(UUID orderId, AddPaymentRequest request) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new SalesNotFoundException("Order not found: " + orderId));
+    @ConfigProperty(name = "app.timezone", defaultValue = "America/Mexico_City")
+    String appTimezone;
 
-        if ("CANCELLED".equals(order.getStatus())) {
-            throw new SalesUnprocessableException("Cannot record payment for a cancelled order");
-        }
+    @ConfigProperty(name = "app.payment-rollup.rebuild-parallelism", defaultValue = "2")
+    int rebuildParallelism;
 
+    @Transactional
+    public PaymentResponse addPayment(UUID orderId, AddPaymentRequest request) {
         if (request.amount().compareTo(BigDecimal.ZERO) < 0
                 && (request.notes() == null || request.notes().isBlank())) {
             throw new SalesUnprocessableException("REFUND_NOTE_REQUIRED");
         }
 
-        BigDecimal newTotal = order.getAmountPaid().add(request.amount());
-        if (newTotal.compareTo(order.getTotalAmount()) > 0) {
-            throw new SalesUnprocessableException("Payment would exceed order total. Balance remaining: "
-                    + order.getTotalAmount().subtract(order.getAmountPaid()));
-        }
-
+        // One guarded increment instead of read-modify-write: concurrent payments queue on the
+        // row lock and each re-checks the cap against the amount the previous one committed.
         OffsetDateTime now = OffsetDateTime.now();
+        OrderPaymentTotals totals = orderRepository.applyPayment(orderId, request.amount(), now)
+                .orElseThrow(() -> rejectPayment(orderId));
+
         OrderPayment payment = new OrderPayment();
         payment.setOrderId(orderId);
         payment.setAmount(request.amount());
@@ -54,28 +64,87 @@ public class PaymentService {
         payment.setCreatedAt(now);
 
         OrderPayment saved = paymentRepository.save(payment);
+        dashboardChanged.fire(new DashboardChanged(orderId));
+        return toResponse(saved, totals.amountPaid(), totals.totalAmount(), totals.balance());
+    }
 
-        // Recompute amountPaid from ledger within the same transaction
-        BigDecimal amountPaid = paymentRepository.sumByOrderId(orderId);
-        order.setAmountPaid(amountPaid);
-        order.setUpdatedAt(now);
-        orderRepository.save(order);
-
-        BigDecimal balance = order.getTotalAmount().subtract(amountPaid);
-        return toResponse(saved, amountPaid, order.getTotalAmount(), balance);
+    /**
+     * Explains why {@link OrderRepositoryPort#applyPayment} matched no row. Only reached on the
+     * rejection path, so the extra read does not cost anything on accepted payments.
+     */
+    private RuntimeException rejectPayment(UUID orderId) {
+        OrderCommandState state = orderRepository.findCommandState(orderId).orElse(null);
+        if (state == null) {
+            return new SalesNotFoundException("Order not found: " + orderId);
+        }
+        if ("CANCELLED".equals(state.status())) {
+            return new SalesUnprocessableException("Cannot record payment for a cancelled order");
+        }
+        return new SalesUnprocessableException("Payment would exceed order total. Balance remaining: "
+                + state.totalAmount().subtract(state.amountPaid()));
     }
 
     public List<PaymentResponse> getPayments(UUID orderId) {
-        Order order = orderRepository.findById(orderId)
+        OrderCommandState order = orderRepository.findCommandState(orderId)
                 .orElseThrow(() -> new SalesNotFoundException("Order not found: " + orderId));
         BigDecimal amountPaid = paymentRepository.sumByOrderId(orderId);
 
         return paymentRepository.findByOrderId(orderId).stream()
-                .map(p -> toResponse(p, amountPaid, order.getTotalAmount(),
-                        order.getTotalAmount().subtract(amountPaid)))
+                .map(p -> toResponse(p, amountPaid, order.totalAmount(),
+                        order.totalAmount().subtract(amountPaid)))
                 .toList();
     }
 
+    /**
+     * Cash close for one local day (today when {@code date} is null), read from the daily
+     * payment rollup rather than the ledger.
+     */
+    public CashCloseResponse getCashClose(LocalDate date, UUID branchId) {
+        LocalDate day = date != null ? date : LocalDate.now(ZoneId.of(appTimezone));
+        List<CashCloseResponse.MethodTotal> methods = new ArrayList<>();
+        BigDecimal received = BigDecimal.ZERO;
+        BigDecimal refunded = BigDecimal.ZERO;
+        long receivedCount = 0;
+        long refundCount = 0;
+        for (PaymentDayTotals totals : paymentRepository.findDailyTotals(day, day.plusDays(1), branchId)) {
+            methods.add(CashCloseResponse.MethodTotal.builder()
+                    .paymentMethod(totals.paymentMethod())
+                    .received(totals.receivedAmount())
+                    .receivedCount(totals.receivedCount())
+                    .refunded(totals.refundedAmount())
+                    .refundCount(totals.refundCount())
+                    .net(totals.net())
+                    .build());
+            received = received.add(totals.receivedAmount());
+            refunded = refunded.add(totals.refundedAmount());
+            receivedCount += totals.receivedCount();
+            refundCount += totals.refundCount();
+        }
+        return CashCloseResponse.builder()
+                .date(day)
+                .branchId(branchId)
+                .methods(methods)
+                .totalReceived(received)
+                .receivedCount(receivedCount)
+                .totalRefunded(refunded)
+                .refundCount(refundCount)
+                .net(received.subtract(refunded))
+                .build();
+    }
+
+    /**
+     * Recomputes the daily payment rollup from the ledger, one month per transaction and up to
+     * {@code app.payment-rollup.rebuild-parallelism} months at a time. Each month locks only
+     * itself, so payments of other months are recorded meanwhile. Returns the months rebuilt.
+     */
+    public int rebuildDailyTotals() {
+        List<YearMonth> months = paymentRepository.findDailyTotalMonths();
+        rebuildExecutor.runAll("Payment rollup rebuild", months, rebuildParallelism,
+                paymentRepository::rebuildDailyTotals);
+        dashboardChanged.fire(new DashboardChanged(null));
+        return months.size();
+    }
+
     private PaymentResponse toResponse(OrderPayment payment, BigDecimal amountPaid,
                                        BigDecimal totalAmount, BigDecimal balance) {
         return new PaymentResponse(
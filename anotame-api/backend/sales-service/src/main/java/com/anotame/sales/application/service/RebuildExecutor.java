@@ -0,0 +1,75 @@
+package com.anotame.sales.application.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the parts of an admin rebuild (customer statistics chunks, payment rollup months) on one
+ * shared pool, at most {@code parallelism} parts of a rebuild at a time. Each part runs in the
+ * transaction its repository method opens. The first failure stops the parts not yet started
+ * and is rethrown once the running ones finish.
+ */
+@ApplicationScoped
+public class RebuildExecutor {
+
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "rebuild-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public <T> void runAll(String rebuild, List<T> parts, int parallelism, Consumer<T> task) {
+        Queue<T> pending = new ConcurrentLinkedQueue<>(parts);
+        List<Future<?>> running = IntStream.range(0, Math.max(1, Math.min(parallelism, parts.size())))
+                .<Future<?>>mapToObj(worker -> workers.submit(() -> {
+                    T part;
+                    while ((part = pending.poll()) != null) {
+                        try {
+                            task.accept(part);
+                        } catch (RuntimeException e) {
+                            pending.clear();
+                            throw e;
+                        }
+                    }
+                }))
+                .toList();
+        ExecutionException failure = null;
+        try {
+            for (Future<?> worker : running) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            pending.clear();
+            running.forEach(worker -> worker.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(rebuild + " interrupted", e);
+        }
+        if (failure != null) {
+            if (failure.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(rebuild + " failed", failure.getCause());
+        }
+    }
+}
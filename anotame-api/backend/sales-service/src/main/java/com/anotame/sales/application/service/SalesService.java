@@ -3,6 +3,7 @@ package com.anotame.sales.application.service;
 import com.anotame.sales.application.dto.AuditLogResponse;
 import com.anotame.sales.application.dto.CreateOrderRequest;
 import com.anotame.sales.application.dto.CustomerDto;
+import com.anotame.sales.application.dto.CustomerOrderHistoryResponse;
 import com.anotame.sales.application.dto.OrderItemDto;
 import com.anotame.sales.application.dto.UpdateOrderRequest;
 import com.anotame.sales.domain.exception.SalesConflictException;
@@ -13,6 +14,7 @@ import com.anotame.sales.application.dto.CalendarMonthResponse;
 import com.anotame.sales.application.dto.OrderItemResponse;
 import com.anotame.sales.application.dto.OrderItemServiceDto;
 import com.anotame.sales.application.dto.OrderResponse;
+import com.anotame.sales.application.dto.OrderSummaryFacetsResponse;
 import com.anotame.sales.application.dto.OrderSummaryPageResponse;
 import com.anotame.sales.application.dto.OrderSummaryResponse;
 import com.anotame.sales.domain.model.Customer;
@@ -21,16 +23,32 @@ import com.anotame.sales.domain.model.OrderContentSource;
 import com.anotame.sales.domain.model.OrderItem;
 import com.anotame.sales.domain.model.OrderItemService;
 import com.anotame.sales.domain.model.OrderPayment;
+import com.anotame.sales.application.port.output.CustomerOrderCursor;
 import com.anotame.sales.application.port.output.CustomerRepositoryPort;
+import com.anotame.sales.application.port.output.CustomerStats;
 import com.anotame.sales.application.port.output.OrderPaymentRepositoryPort;
 import com.anotame.sales.application.port.output.OrderRepositoryPort;
 import com.anotame.sales.application.port.output.AuditLogEntry;
+import com.anotame.sales.application.port.output.AuditTrailPort;
 import com.anotame.sales.application.port.output.OrderAuditLogRepositoryPort;
+import com.anotame.sales.application.port.output.DashboardSnapshot;
+import com.anotame.sales.application.port.output.DashboardWindow;
+import com.anotame.sales.application.port.output.KpiAnalyticsPort;
+import com.anotame.sales.application.port.output.OrderCommandState;
+import com.anotame.sales.application.port.output.OrderSummaryCount;
 import com.anotame.sales.application.port.output.OrderSummaryCriteria;
+import com.anotame.sales.application.port.output.OrderSummaryCursor;
+import com.anotame.sales.application.port.output.OrderSummaryFacetCount;
 import com.anotame.sales.application.port.output.OrderSummaryProjection;
 import com.anotame.sales.application.port.output.OrderSummaryResult;
+import com.anotame.sales.application.port.output.OrderSummarySlice;
+import com.anotame.sales.application.port.output.PaymentDayTotals;
+import com.anotame.sales.application.port.output.StageDurationBucket;
+import com.anotame.sales.application.event.CustomerChanged;
+import com.anotame.sales.application.event.DashboardChanged;
 import lombok.RequiredArgsConstructor;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 
 import java.math.BigDecimal;
@@ -42,20 +60,29 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import com.anotame.sales.application.dto.AtRiskCustomerItem;
+import com.anotame.sales.application.dto.CycleTimeResponse;
+import com.anotame.sales.application.dto.StageDurationItem;
 import com.anotame.sales.application.dto.DashboardMetricsResponse;
 import com.anotame.sales.application.dto.FinancialKpiResponse;
 import com.anotame.sales.application.dto.RevenueTrendPoint;
@@ -67,16 +94,30 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 @RequiredArgsConstructor
 public class SalesService {
 
-    private static final Set<String> VALID_STATUSES = Set.of(
+    private static final List<String> STATUS_DISPLAY_ORDER = List.of(
             "RECEIVED", "IN_PROGRESS", "READY", "DELIVERED", "CANCELLED");
-    private static final Set<String> VALID_PAYMENT_METHODS = Set.of("CASH", "CARD", "TRANSFER");
+    static final Set<String> VALID_STATUSES = Set.copyOf(STATUS_DISPLAY_ORDER);
+    // Statuses an order may be moved to through PATCH /orders/{id}/status, each with the statuses
+    // it may come from. DELIVERED is only reached through deliverOrder (pickup code, delivered_at).
+    static final Map<String, Set<String>> STATUS_TRANSITIONS = Map.of(
+            "RECEIVED", Set.of("IN_PROGRESS"),
+            "IN_PROGRESS", Set.of("RECEIVED", "READY"),
+            "READY", Set.of("RECEIVED", "IN_PROGRESS"),
+            "CANCELLED", Set.of("RECEIVED", "IN_PROGRESS", "READY"));
+    static final Set<String> VALID_PAYMENT_METHODS = Set.of("CASH", "CARD", "TRANSFER");
     private static final String DEFAULT_PAYMENT_METHOD = "CASH";
     private static final String DELIVERY_SETTLEMENT_NOTE = "DELIVERY_SETTLEMENT";
+    private static final Set<String> CYCLE_TIME_GROUPS = Set.of("stage", "service", "staff");
 
     private final OrderRepositoryPort orderRepository;
     private final CustomerRepositoryPort customerRepository;
     private final OrderAuditLogRepositoryPort auditLogRepositoryPort;
+    private final AuditTrailPort auditTrail;
     private final OrderPaymentRepositoryPort paymentRepository;
+    private final KpiAnalyticsPort kpiAnalytics;
+    private final KpiQueryRunner kpiQueryRunner;
+    private final Event<DashboardChanged> dashboardChanged;
+    private final Event<CustomerChanged> customerChanged;
 
     @ConfigProperty(name = "app.timezone", defaultValue = "America/Mexico_City")
     String appTimezone;
@@ -85,6 +126,7 @@ public class SalesService {
     public OrderResponse createOrderDTO(CreateOrderRequest request, UUID userId,
             UUID branchId) {
         Order saved = createOrder(request, userId, branchId);
+        dashboardChanged.fire(new DashboardChanged(saved.getId()));
         return mapToResponse(saved);
     }
 
@@ -134,8 +176,8 @@ public class SalesService {
         Order saved = orderRepository.save(order);
 
         // Record the ledger entry backing amountPaid. Done after the save (needs the generated
-        // order id) but without re-saving the order — a second save() would reload the entity
-        // and delete+recreate every line item via orphanRemoval.
+        // order id) but without re-saving the order — a second save() would only reload the
+        // aggregate to find nothing changed.
         if (hasInitialPayment) {
             OffsetDateTime now = OffsetDateTime.now();
             OrderPayment payment = new OrderPayment();
@@ -167,31 +209,10 @@ public class SalesService {
             LocalDate deadline,
             List<String> statuses) {
         int normalizedPage = Math.max(page, 0);
-        int normalizedSize = Math.min(Math.max(size, 1), 100);
-        String normalizedSearch = search == null || search.isBlank() ? null : search.trim();
-        String exactTicketNumber = normalizedSearch == null ? null : normalizeTicketSearch(normalizedSearch);
-        List<String> normalizedStatuses = normalizeStatuses(statuses);
-        OrderContentSource normalizedGarmentSource = normalizeGarmentSource(garmentSource);
+        int normalizedSize = normalizeSummaryPageSize(size);
+        OrderSummaryCriteria criteria = buildSummaryCriteria(search, garmentTypeId, garmentSource, deadline, statuses);
 
-        OffsetDateTime deadlineStart = null;
-        OffsetDateTime deadlineEnd = null;
-        if (deadline != null) {
-            ZoneId zone = ZoneId.of(appTimezone);
-            deadlineStart = deadline.atStartOfDay(zone).toOffsetDateTime();
-            deadlineEnd = deadline.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
-        }
-
-        OrderSummaryResult result = orderRepository.findSummaries(
-                normalizedPage,
-                normalizedSize,
-                new OrderSummaryCriteria(
-                        normalizedSearch,
-                        exactTicketNumber,
-                        garmentTypeId,
-                        normalizedGarmentSource,
-                        deadlineStart,
-                        deadlineEnd,
-                        normalizedStatuses));
+        OrderSummaryResult result = orderRepository.findSummaries(normalizedPage, normalizedSize, criteria);
         List<OrderSummaryResponse> items = result.items().stream()
                 .map(this::mapToSummaryResponse)
                 .toList();
@@ -208,6 +229,172 @@ public class SalesService {
                 .build();
     }
 
+    /**
+     * Cursor (keyset) mode of {@link #getOrderSummaries}: every page costs one index range read no
+     * matter how far back the client scrolls. The total is only computed when {@code includeTotal}
+     * is set, and may be a planner estimate for the unfiltered listing.
+     */
+    @Transactional
+    public OrderSummaryPageResponse getOrderSummariesByCursor(
+            String cursor,
+            int size,
+            boolean includeTotal,
+            String search,
+            UUID garmentTypeId,
+            String garmentSource,
+            LocalDate deadline,
+            List<String> statuses) {
+        int normalizedSize = normalizeSummaryPageSize(size);
+        OrderSummaryCriteria criteria = buildSummaryCriteria(search, garmentTypeId, garmentSource, deadline, statuses);
+        OrderSummaryCursor after = KeysetCursors.decode(cursor, OrderSummaryCursor::new);
+
+        OrderSummarySlice slice = orderRepository.findSummariesAfter(after, normalizedSize, criteria);
+        List<OrderSummaryResponse> items = slice.items().stream()
+                .map(this::mapToSummaryResponse)
+                .toList();
+
+        String nextCursor = null;
+        if (slice.hasMore() && !slice.items().isEmpty()) {
+            OrderSummaryProjection last = slice.items().get(slice.items().size() - 1);
+            nextCursor = KeysetCursors.encode(last.createdAt(), last.ticketNumber());
+        }
+
+        var response = OrderSummaryPageResponse.builder()
+                .items(items)
+                .size(normalizedSize)
+                .nextCursor(nextCursor);
+        if (includeTotal) {
+            OrderSummaryCount count = orderRepository.countSummaries(criteria, true);
+            response.total(count.value())
+                    .totalPages(count.value() == 0 ? 0 : (int) Math.ceil((double) count.value() / normalizedSize))
+                    .totalEstimated(count.estimated());
+        }
+        return response.build();
+    }
+
+    /**
+     * One customer's orders, newest first, in keyset pages, along with the customer's lifetime
+     * totals read from the statistics table rather than summed over the history.
+     */
+    @Transactional
+    public CustomerOrderHistoryResponse getCustomerOrders(UUID customerId, String cursor, int size) {
+        if (customerRepository.findById(customerId).isEmpty()) {
+            throw new SalesNotFoundException("Cliente no encontrado");
+        }
+        int normalizedSize = normalizeSummaryPageSize(size);
+        CustomerOrderCursor after = KeysetCursors.decode(cursor,
+                (createdAt, key) -> new CustomerOrderCursor(createdAt, UUID.fromString(key)));
+
+        OrderSummarySlice slice = orderRepository.findCustomerOrdersAfter(customerId, after, normalizedSize);
+        List<OrderSummaryResponse> items = slice.items().stream()
+                .map(this::mapToSummaryResponse)
+                .toList();
+
+        String nextCursor = null;
+        if (slice.hasMore() && !slice.items().isEmpty()) {
+            OrderSummaryProjection last = slice.items().get(slice.items().size() - 1);
+            nextCursor = KeysetCursors.encode(last.createdAt(), last.id());
+        }
+
+        CustomerStats stats = customerRepository.findStats(customerId)
+                .orElseGet(() -> new CustomerStats(0, BigDecimal.ZERO, BigDecimal.ZERO, null, null));
+        return CustomerOrderHistoryResponse.builder()
+                .customerId(customerId)
+                .totals(CustomerDto.Stats.of(stats))
+                .items(items)
+                .size(normalizedSize)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Counts behind the order list filter chips ("RECEIVED (12) / READY (7) / Pantalón (30)") under
+     * the same filter as {@link #getOrderSummaries}. One grouped query, cached briefly per filter.
+     */
+    @Transactional
+    public OrderSummaryFacetsResponse getOrderSummaryFacets(
+            String search,
+            UUID garmentTypeId,
+            String garmentSource,
+            LocalDate deadline,
+            List<String> statuses) {
+        OrderSummaryCriteria criteria = buildSummaryCriteria(search, garmentTypeId, garmentSource, deadline, statuses);
+
+        long total = 0;
+        Map<String, Long> statusCounts = new HashMap<>();
+        Map<String, Long> sourceCounts = new HashMap<>();
+        List<OrderSummaryFacetsResponse.GarmentTypeFacetCount> garmentTypes = new ArrayList<>();
+        for (OrderSummaryFacetCount facet : orderRepository.countSummaryFacets(criteria)) {
+            switch (facet.dimension()) {
+                case "STATUS" -> statusCounts.put(facet.value(), facet.count());
+                case "GARMENT_SOURCE" -> sourceCounts.put(facet.value(), facet.count());
+                case "GARMENT_TYPE" -> garmentTypes.add(OrderSummaryFacetsResponse.GarmentTypeFacetCount.builder()
+                        .garmentTypeId(UUID.fromString(facet.value()))
+                        .garmentName(facet.label())
+                        .count(facet.count())
+                        .build());
+                default -> total = facet.count();
+            }
+        }
+        garmentTypes.sort(Comparator
+                .comparingLong(OrderSummaryFacetsResponse.GarmentTypeFacetCount::getCount).reversed()
+                .thenComparing(g -> g.getGarmentName() != null ? g.getGarmentName() : ""));
+
+        // Every status and source is listed, so the UI can show zero-count chips without special cases.
+        List<OrderSummaryFacetsResponse.FacetCount> statusFacets = STATUS_DISPLAY_ORDER.stream()
+                .map(status -> OrderSummaryFacetsResponse.FacetCount.builder()
+                        .value(status)
+                        .count(statusCounts.getOrDefault(status, 0L))
+                        .build())
+                .toList();
+        List<OrderSummaryFacetsResponse.FacetCount> sourceFacets = Arrays.stream(OrderContentSource.values())
+                .map(source -> OrderSummaryFacetsResponse.FacetCount.builder()
+                        .value(source.name())
+                        .count(sourceCounts.getOrDefault(source.name(), 0L))
+                        .build())
+                .toList();
+
+        return OrderSummaryFacetsResponse.builder()
+                .total(total)
+                .statuses(statusFacets)
+                .garmentTypes(garmentTypes)
+                .garmentSources(sourceFacets)
+                .build();
+    }
+
+    private int normalizeSummaryPageSize(int size) {
+        return Math.min(Math.max(size, 1), 100);
+    }
+
+    private OrderSummaryCriteria buildSummaryCriteria(
+            String search,
+            UUID garmentTypeId,
+            String garmentSource,
+            LocalDate deadline,
+            List<String> statuses) {
+        String normalizedSearch = search == null || search.isBlank() ? null : search.trim();
+        String exactTicketNumber = normalizedSearch == null ? null : normalizeTicketSearch(normalizedSearch);
+        List<String> normalizedStatuses = normalizeStatuses(statuses);
+        OrderContentSource normalizedGarmentSource = normalizeGarmentSource(garmentSource);
+
+        OffsetDateTime deadlineStart = null;
+        OffsetDateTime deadlineEnd = null;
+        if (deadline != null) {
+            ZoneId zone = ZoneId.of(appTimezone);
+            deadlineStart = deadline.atStartOfDay(zone).toOffsetDateTime();
+            deadlineEnd = deadline.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
+        }
+
+        return new OrderSummaryCriteria(
+                normalizedSearch,
+                exactTicketNumber,
+                garmentTypeId,
+                normalizedGarmentSource,
+                deadlineStart,
+                deadlineEnd,
+                normalizedStatuses);
+    }
+
     private OrderContentSource normalizeGarmentSource(String garmentSource) {
         if (garmentSource == null || garmentSource.isBlank()) {
             return null;
@@ -299,6 +486,7 @@ public class SalesService {
                     if (item.getServices() != null) {
                         serviceDtos = item.getServices().stream().map(s -> {
                             OrderItemServiceDto dto = new OrderItemServiceDto();
+                            dto.setId(s.getId());
                             dto.setServiceId(s.getServiceId());
                             dto.setSource(s.getSource());
                             dto.setServiceName(s.getServiceName());
@@ -347,14 +535,14 @@ public class SalesService {
 
     @Transactional
     public OrderResponse getOrder(UUID id) {
-        Order order = orderRepository.findById(id)
+        return orderRepository.findDetailById(id)
                 .orElseThrow(() -> new SalesNotFoundException("Order not found"));
-        return mapToResponse(order);
     }
 
     @Transactional
     public void deleteOrder(UUID id) {
         orderRepository.delete(id);
+        dashboardChanged.fire(new DashboardChanged(id));
     }
 
     public List<AuditLogResponse> getAuditLog(UUID orderId) {
@@ -365,7 +553,8 @@ public class SalesService {
                     entry.fieldName(),
                     entry.oldValue(),
                     entry.newValue(),
-                    entry.changedAt()));
+                    entry.changedAt(),
+                    entry.diff()));
         }
         return entries;
     }
@@ -381,16 +570,17 @@ public class SalesService {
             throw new SalesConflictException("No se puede editar un pedido entregado o cancelado");
         }
 
-        // Audit log: record per-field changes before applying updates
+        // Audit log: record per-field changes before applying updates; written once, after the save
         OffsetDateTime now = OffsetDateTime.now();
+        List<AuditLogEntry> audit = new ArrayList<>();
 
         // Always-auditable fields (available to both ADMIN and EMPLOYEE)
         if (!Objects.equals(order.getNotes(), request.getNotes())) {
-            auditLogRepositoryPort.save(buildAuditEntry(id, userId, "notes",
+            audit.add(buildAuditEntry(id, userId, "notes",
                     order.getNotes(), request.getNotes(), now));
         }
         if (!Objects.equals(order.getCommittedDeadline(), request.getCommittedDeadline())) {
-            auditLogRepositoryPort.save(buildAuditEntry(id, userId, "committedDeadline",
+            audit.add(buildAuditEntry(id, userId, "committedDeadline",
                     order.getCommittedDeadline() != null ? order.getCommittedDeadline().toString() : null,
                     request.getCommittedDeadline() != null ? request.getCommittedDeadline().toString() : null,
                     now));
@@ -406,6 +596,8 @@ public class SalesService {
 
             // Replace items (full content update for ADMIN)
             if (request.getItems() != null) {
+                List<Map<String, Object>> previousItems = auditItems(order.getItems());
+                BigDecimal previousTotal = order.getTotalAmount();
                 order.getItems().clear();
                 BigDecimal total = BigDecimal.ZERO;
                 for (OrderItemDto itemDto : request.getItems()) {
@@ -415,6 +607,13 @@ public class SalesService {
                 }
                 order.setTotalAmount(total);
                 order.setTotalDurationMin(calculateTotalDuration(order));
+
+                Map<String, Object> diff = itemsDiff(previousItems, auditItems(order.getItems()));
+                if (diff != null) {
+                    audit.add(new AuditLogEntry(id, userId, "items",
+                            previousTotal != null ? previousTotal.toPlainString() : null,
+                            total.toPlainString(), now, diff));
+                }
             }
         } else {
             // EMPLOYEE (OPERATOR): only notes, committedDeadline
@@ -430,84 +629,141 @@ public class SalesService {
         order.setUpdatedAt(OffsetDateTime.now(ZoneId.systemDefault()));
 
         Order saved = orderRepository.save(order);
+        auditTrail.record(audit);
+        dashboardChanged.fire(new DashboardChanged(id));
         return mapToResponse(saved);
     }
 
     private AuditLogEntry buildAuditEntry(UUID orderId, UUID userId, String fieldName,
             String oldValue, String newValue, OffsetDateTime changedAt) {
-        return new AuditLogEntry(orderId, userId, fieldName, oldValue, newValue, changedAt);
+        return new AuditLogEntry(orderId, userId, fieldName, oldValue, newValue, changedAt, null);
+    }
+
+    /** Compact form of the live items for the audit diff: what a person would compare. */
+    private List<Map<String, Object>> auditItems(List<OrderItem> items) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (OrderItem item : items) {
+            if (item.isDeleted()) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("garment", item.getGarmentName());
+            entry.put("quantity", item.getQuantity());
+            // Plain strings so 10.00 and 10.0000 (as read back from NUMERIC(19,4)) compare equal.
+            entry.put("subtotal", item.getSubtotal() != null ? item.getSubtotal().stripTrailingZeros().toPlainString() : null);
+            entry.put("services", item.getServices().stream().map(OrderItemService::getServiceName).toList());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Items present on only one side, as {"removed": [...], "added": [...]}, matched as a
+     * multiset so an unchanged item resubmitted with the rest does not show up. Null when the
+     * replacement changed nothing.
+     */
+    static Map<String, Object> itemsDiff(List<Map<String, Object>> before, List<Map<String, Object>> after) {
+        List<Map<String, Object>> removed = new ArrayList<>(before);
+        List<Map<String, Object>> added = new ArrayList<>();
+        for (Map<String, Object> item : after) {
+            if (!removed.remove(item)) {
+                added.add(item);
+            }
+        }
+        if (removed.isEmpty() && added.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> diff = new LinkedHashMap<>();
+        diff.put("removed", removed);
+        diff.put("added", added);
+        return diff;
     }
 
     @Transactional
-    public void updateOrderStatus(UUID id, String status) {
+    public void updateOrderStatus(UUID id, String status, UUID userId) {
         if (status == null || !VALID_STATUSES.contains(status)) {
             throw new SalesValidationException("Estado inválido: " + status);
         }
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new SalesNotFoundException("Order not found"));
-        order.setStatus(status);
-        order.setUpdatedAt(OffsetDateTime.now(ZoneId.systemDefault()));
-        orderRepository.save(order);
+        if ("DELIVERED".equals(status)) {
+            throw new SalesValidationException("Los pedidos se entregan con su código de recogida");
+        }
+        OffsetDateTime changedAt = OffsetDateTime.now(ZoneId.systemDefault());
+        Optional<String> previousStatus = orderRepository.updateStatus(
+                id, status, STATUS_TRANSITIONS.get(status), userId, changedAt);
+        if (previousStatus.isEmpty()) {
+            String currentStatus = orderRepository.findCommandState(id)
+                    .map(OrderCommandState::status)
+                    .orElseThrow(() -> new SalesNotFoundException("Order not found"));
+            if (currentStatus.equals(status)) {
+                // Already there (a repeated click, or a bulk change over mixed orders): nothing to record.
+                return;
+            }
+            throw new SalesConflictException("No se puede pasar un pedido de " + currentStatus + " a " + status);
+        }
+        auditTrail.record(List.of(buildAuditEntry(id, userId, "status", previousStatus.get(), status, changedAt)));
+        dashboardChanged.fire(new DashboardChanged(id));
     }
 
     @Transactional
     public void deliverOrder(UUID orderId, String pickupCode, UUID userId, boolean markFullyPaid,
                              String paymentMethod) {
-        Order order = orderRepository.findById(orderId)
+        OrderCommandState state = orderRepository.findCommandState(orderId)
                 .orElseThrow(() -> new SalesNotFoundException("Pedido no encontrado"));
 
-        if (!"READY".equals(order.getStatus())) {
+        if (!"READY".equals(state.status())) {
             throw new SalesConflictException("Solo se pueden entregar pedidos en estado LISTO");
         }
 
-        if (order.getPickupCode() == null || order.getPickupCode().isEmpty()) {
+        if (state.pickupCode() == null || state.pickupCode().isEmpty()) {
             throw new SalesValidationException("Código de recogida no está disponible para este pedido");
         }
 
         boolean valid = MessageDigest.isEqual(
-                order.getPickupCode().getBytes(StandardCharsets.UTF_8),
+                state.pickupCode().getBytes(StandardCharsets.UTF_8),
                 pickupCode.getBytes(StandardCharsets.UTF_8));
         if (!valid) {
             throw new SalesValidationException("Código de recogida incorrecto");
         }
 
+        // Guarded by status = 'READY', so of two concurrent deliveries only one gets here.
         OffsetDateTime deliveredAt = OffsetDateTime.now(ZoneId.systemDefault());
-        if (markFullyPaid) {
-            settleRemainingBalance(order, orderId, paymentMethod, deliveredAt);
+        if (!orderRepository.markDelivered(orderId, userId, deliveredAt)) {
+            throw new SalesConflictException("Solo se pueden entregar pedidos en estado LISTO");
         }
 
-        order.setStatus("DELIVERED");
-        order.setDeliveredAt(deliveredAt);
-        order.setUpdatedAt(deliveredAt);
-        orderRepository.save(order);
+        if (markFullyPaid) {
+            settleRemainingBalance(orderId, paymentMethod, deliveredAt);
+        }
 
-        auditLogRepositoryPort.save(buildAuditEntry(
+        auditTrail.record(List.of(buildAuditEntry(
                 orderId, userId, "status",
                 "READY", "DELIVERED",
-                deliveredAt));
+                deliveredAt)));
+        dashboardChanged.fire(new DashboardChanged(orderId));
     }
 
-    private void settleRemainingBalance(Order order, UUID orderId, String requestedPaymentMethod,
-                                        OffsetDateTime recordedAt) {
-        BigDecimal totalAmount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
-        BigDecimal amountPaid = paymentRepository.sumByOrderId(orderId);
-        BigDecimal remainingBalance = totalAmount.subtract(amountPaid);
+    private void settleRemainingBalance(UUID orderId, String requestedPaymentMethod, OffsetDateTime recordedAt) {
+        // Re-read after markDelivered: the row is locked now, so the balance cannot move under us.
+        OrderCommandState state = orderRepository.findCommandState(orderId)
+                .orElseThrow(() -> new SalesNotFoundException("Pedido no encontrado"));
+        BigDecimal totalAmount = state.totalAmount() != null ? state.totalAmount() : BigDecimal.ZERO;
+        BigDecimal remainingBalance = totalAmount.subtract(state.amountPaid());
 
         if (remainingBalance.compareTo(BigDecimal.ZERO) <= 0) {
-            order.setAmountPaid(amountPaid);
             return;
         }
 
+        orderRepository.applyPayment(orderId, remainingBalance, recordedAt)
+                .orElseThrow(() -> new SalesConflictException("No se pudo liquidar el saldo pendiente"));
+
         OrderPayment payment = new OrderPayment();
         payment.setOrderId(orderId);
         payment.setAmount(remainingBalance);
-        payment.setPaymentMethod(resolvePaymentMethod(requestedPaymentMethod, order.getPaymentMethod()));
+        payment.setPaymentMethod(resolvePaymentMethod(requestedPaymentMethod, state.paymentMethod()));
         payment.setNotes(DELIVERY_SETTLEMENT_NOTE);
         payment.setRecordedAt(recordedAt);
         payment.setCreatedAt(recordedAt);
         paymentRepository.save(payment);
-
-        order.setAmountPaid(amountPaid.add(remainingBalance));
     }
 
     private String resolvePaymentMethod(String requestedPaymentMethod, String orderPaymentMethod) {
@@ -533,8 +789,9 @@ public class SalesService {
      * Builds a persistent-ready {@link OrderItem} from its DTO, attaching services and computing
      * the per-item unit price (sum of service prices + adjustments) and line subtotal (× quantity).
      */
-    private OrderItem buildOrderItem(OrderItemDto itemDto) {
+    static OrderItem buildOrderItem(OrderItemDto itemDto) {
         OrderItem item = new OrderItem();
+        item.setId(itemDto.getId());
         item.setGarmentTypeId(itemDto.getGarmentTypeId());
         item.setSource(itemDto.getSource());
         item.setGarmentName(itemDto.getGarmentName());
@@ -545,6 +802,7 @@ public class SalesService {
         if (itemDto.getServices() != null) {
             for (OrderItemServiceDto serviceDto : itemDto.getServices()) {
                 OrderItemService service = new OrderItemService();
+                service.setId(serviceDto.getId());
                 service.setServiceId(serviceDto.getServiceId());
                 service.setSource(serviceDto.getSource());
                 service.setServiceName(serviceDto.getServiceName());
@@ -566,7 +824,7 @@ public class SalesService {
     }
 
     /** Sums duration across all non-deleted items: Σ(service minutes) × item quantity. */
-    private int calculateTotalDuration(Order order) {
+    static int calculateTotalDuration(Order order) {
         return order.getItems().stream()
                 .filter(item -> !item.isDeleted())
                 .mapToInt(item -> item.getServices().stream()
@@ -597,88 +855,64 @@ public class SalesService {
         newCustomer.setPhoneNumber(dto.getPhoneNumber());
         newCustomer.setPreferences(dto.getPreferences());
 
-        return customerRepository.save(newCustomer);
+        Customer saved = customerRepository.save(newCustomer);
+        customerChanged.fire(new CustomerChanged(saved.getId()));
+        return saved;
     }
 
     @Transactional
     public DashboardMetricsResponse getDashboardMetrics() {
-        return getDashboardMetrics(null);
+        return getDashboardMetrics(null, null);
     }
 
     @Transactional
     public DashboardMetricsResponse getDashboardMetrics(String monthParam) {
+        return getDashboardMetrics(monthParam, null);
+    }
+
+    /**
+     * Dashboard for one branch, or for all branches when {@code branchId} is null. The counters
+     * come from a cached snapshot (see {@link OrderRepositoryPort#loadDashboardSnapshot}), so
+     * many tablets refreshing together cost one query.
+     */
+    @Transactional
+    public DashboardMetricsResponse getDashboardMetrics(String monthParam, UUID branchId) {
         ZoneId zone = ZoneId.of(appTimezone);
-        String zoneId = zone.getId();
         LocalDate today = LocalDate.now(zone);
-        YearMonth selectedMonth = parseMonthParam(monthParam, today);
-        OffsetDateTime startOfDay = today.atStartOfDay(zone).toOffsetDateTime();
-        OffsetDateTime startOfTomorrow = today.plusDays(1).atStartOfDay(zone).toOffsetDateTime();
-        OffsetDateTime startOfMonth = selectedMonth.atDay(1).atStartOfDay(zone).toOffsetDateTime();
-        OffsetDateTime startOfNextMonth = startOfMonth.plusMonths(1);
-        OffsetDateTime sevenDaysAgo = today.minusDays(6).atStartOfDay(zone).toOffsetDateTime();
-
-        // Workload Metrics
-        long todayDeliveries = orderRepository.countActiveByDeadlineRange(startOfDay, startOfTomorrow);
-        long comingDeliveries = orderRepository.countActiveFromDeadline(startOfTomorrow);
-        long readyForPickup = orderRepository.countByStatus("READY");
-
-        List<String> finishedStatuses = Arrays.asList("READY", "DELIVERED", "CANCELLED");
-        long pendingPipeline = orderRepository.countByStatusNotIn(finishedStatuses);
-        long totalActive = pendingPipeline + readyForPickup;
-
-        // Finance Metrics
-        BigDecimal todayRevenue = orderRepository.sumPaidAmountInRange(startOfDay, startOfTomorrow);
-        BigDecimal monthlyRevenue = orderRepository.sumPaidAmountInRange(startOfMonth, startOfNextMonth);
-        BigDecimal pendingDebt = orderRepository.sumPendingDebt();
-
-        // Chart Data — index raw rows by date (row[0]) for O(1) lookup while filling every day.
-        // row[0] is Date (java.sql.Date) or LocalDate, row[1] is BigDecimal.
-        List<Object[]> rawChartData = orderRepository.getWeeklyRevenueData(sevenDaysAgo, zoneId);
-        Map<String, Object[]> chartByDate = rawChartData.stream()
-                .collect(Collectors.toMap(row -> row[0].toString(), row -> row, (a, b) -> a));
-        List<DashboardMetricsResponse.WeeklyChartPoint> chartData = new ArrayList<>();
+        DashboardWindow window = new DashboardWindow(branchId, zone, today, parseMonthParam(monthParam, today));
+        DashboardSnapshot snapshot = orderRepository.loadDashboardSnapshot(window);
 
-        // Ensure all 7 days are populated even if empty
         DateTimeFormatter dtf = DateTimeFormatter.ISO_LOCAL_DATE;
-        for (int i = 6; i >= 0; i--) {
-            String dateStr = today.minusDays(i).format(dtf);
-            Object[] row = chartByDate.get(dateStr);
-            BigDecimal amount = row != null && row[1] != null ? (BigDecimal) row[1] : BigDecimal.ZERO;
+        List<DashboardMetricsResponse.WeeklyChartPoint> chartData = new ArrayList<>();
+        LocalDate firstRevenueDay = window.firstRevenueDay();
+        for (int i = 0; i < snapshot.dailyRevenue().size(); i++) {
             chartData.add(DashboardMetricsResponse.WeeklyChartPoint.builder()
-                    .date(dateStr)
-                    .totalPaid(amount)
+                    .date(firstRevenueDay.plusDays(i).format(dtf))
+                    .totalPaid(snapshot.dailyRevenue().get(i))
                     .build());
         }
 
-        // Daily Workload (Next 30 days) — dates grouped in local timezone so calendar labels match user expectations
-        OffsetDateTime endOfWorkloadRange = startOfDay.plusDays(30);
-        List<Object[]> rawWorkloadData = orderRepository.getDailyWorkload(startOfDay, endOfWorkloadRange, zoneId);
-        Map<String, Object[]> workloadByDate = rawWorkloadData.stream()
-                .collect(Collectors.toMap(row -> row[0].toString(), row -> row, (a, b) -> a));
+        // Daily Workload (Next 30 days) — days are local-timezone days so calendar labels match user expectations
         List<DashboardMetricsResponse.WorkloadDayPoint> dailyWorkload = new ArrayList<>();
-
-        for (int i = 0; i < 30; i++) {
-            String dateStr = today.plusDays(i).format(dtf);
-            Object[] row = workloadByDate.get(dateStr);
-            long mins = row != null && row[1] != null ? ((Number) row[1]).longValue() : 0;
+        for (int i = 0; i < snapshot.dailyWorkloadMinutes().size(); i++) {
             dailyWorkload.add(DashboardMetricsResponse.WorkloadDayPoint.builder()
-                    .date(dateStr)
-                    .totalMinutesUsed(mins)
+                    .date(today.plusDays(i).format(dtf))
+                    .totalMinutesUsed(snapshot.dailyWorkloadMinutes().get(i))
                     .build());
         }
 
         return DashboardMetricsResponse.builder()
                 .workload(DashboardMetricsResponse.WorkloadMetrics.builder()
-                        .todayDeliveries(todayDeliveries)
-                        .comingDeliveries(comingDeliveries)
-                        .pendingPipeline(pendingPipeline)
-                        .readyForPickup(readyForPickup)
-                        .totalActive(totalActive)
+                        .todayDeliveries(snapshot.todayDeliveries())
+                        .comingDeliveries(snapshot.comingDeliveries())
+                        .pendingPipeline(snapshot.pendingPipeline())
+                        .readyForPickup(snapshot.readyForPickup())
+                        .totalActive(snapshot.pendingPipeline() + snapshot.readyForPickup())
                         .build())
                 .finance(DashboardMetricsResponse.FinanceMetrics.builder()
-                        .todayRevenue(todayRevenue)
-                        .monthlyRevenue(monthlyRevenue)
-                        .pendingDebt(pendingDebt)
+                        .todayRevenue(snapshot.todayRevenue())
+                        .monthlyRevenue(snapshot.monthlyRevenue())
+                        .pendingDebt(snapshot.pendingDebt())
                         .build())
                 .weeklyRevenueChart(chartData)
                 .dailyWorkload(dailyWorkload)
@@ -687,13 +921,11 @@ public class SalesService {
 
     public FinancialKpiResponse getFinancialKpis(String granularity, int atRiskDays) {
         ZoneId zone = ZoneId.of(appTimezone);
-        String zoneId = zone.getId();
         LocalDate today = LocalDate.now(zone);
         OffsetDateTime now = OffsetDateTime.now(zone);
 
         // Determine date ranges based on granularity
         OffsetDateTime start;
-        OffsetDateTime end = now;
 
         if ("week".equals(granularity)) {
             start = now.minusWeeks(12);
@@ -704,20 +936,53 @@ public class SalesService {
             start = now.minusDays(30);
         }
 
-        // 1. Get Revenue Time Series
-        List<Object[]> rawTrendData = orderRepository.getRevenueTimeSeries(start, granularity, zoneId);
-        List<RevenueTrendPoint> revenueTrend = new ArrayList<>();
+        // Everything below reads per-day aggregates, so the range is whole local days up to today.
+        LocalDate fromDay = start.atZoneSameInstant(zone).toLocalDate();
+        LocalDate toDay = today.plusDays(1);
+        // The in-memory engine, once loaded, answers the breakdowns without the views' refresh lag.
+        boolean inMemory = kpiAnalytics.isReady();
+        int safeAtRiskDays = Math.max(1, atRiskDays);
+        LocalDate atRiskCutoff = today.minusDays(safeAtRiskDays);
 
-        for (Object[] row : rawTrendData) {
-            revenueTrend.add(RevenueTrendPoint.builder()
-                    .period((String) row[0])
-                    .totalRevenue(row[1] != null ? (BigDecimal) row[1] : BigDecimal.ZERO)
-                    .paymentCount(((Number) row[2]).longValue())
-                    .build());
+        // The reads are independent, so they overlap; one that fails or times out leaves its
+        // section empty and is listed in unavailableSections instead of failing the response.
+        Map<String, Callable<?>> queries = new LinkedHashMap<>();
+        queries.put("revenueTrend", () -> paymentRepository.findDailyTotals(fromDay, toDay, null));
+        queries.put("serviceBreakdown", () -> inMemory
+                ? kpiAnalytics.getServiceTypeRevenue(fromDay, toDay)
+                : orderRepository.getServiceTypeRevenue(fromDay, toDay));
+        queries.put("topCustomers", () -> inMemory
+                ? kpiAnalytics.getTopCustomers(fromDay, toDay, 10)
+                : orderRepository.getTopCustomers(fromDay, toDay, 10));
+        queries.put("atRiskCustomers", () -> orderRepository.getAtRiskCustomers(atRiskCutoff, 10));
+        queries.put("repeatRate", () -> inMemory
+                ? kpiAnalytics.getRepeatRate(fromDay, toDay)
+                : orderRepository.getRepeatRate(fromDay, toDay));
+        queries.put("refreshedAt", () -> inMemory
+                ? kpiAnalytics.refreshedAt()
+                : orderRepository.findKpiViewsRefreshedAt());
+        KpiQueryRunner.Results results = kpiQueryRunner.runAll(queries);
+
+        // 1. Revenue Time Series — receipts from the daily payment rollup, bucketed per period.
+        Map<String, BigDecimal> revenueByPeriod = new TreeMap<>();
+        Map<String, Long> paymentsByPeriod = new HashMap<>();
+        for (PaymentDayTotals totals : results.<List<PaymentDayTotals>>get("revenueTrend", List.of())) {
+            if (totals.receivedCount() == 0) {
+                continue;
+            }
+            String period = revenuePeriod(totals.day(), granularity);
+            revenueByPeriod.merge(period, totals.receivedAmount(), BigDecimal::add);
+            paymentsByPeriod.merge(period, totals.receivedCount(), Long::sum);
         }
+        List<RevenueTrendPoint> revenueTrend = new ArrayList<>();
+        revenueByPeriod.forEach((period, revenue) -> revenueTrend.add(RevenueTrendPoint.builder()
+                .period(period)
+                .totalRevenue(revenue)
+                .paymentCount(paymentsByPeriod.get(period))
+                .build()));
 
         // 2. Get Service Type Revenue (with percentage share calculation)
-        List<Object[]> rawServiceData = orderRepository.getServiceTypeRevenue(start, end);
+        List<Object[]> rawServiceData = results.get("serviceBreakdown", List.of());
         BigDecimal totalServiceRevenue = BigDecimal.ZERO;
 
         // First pass: sum total revenue
@@ -751,7 +1016,7 @@ public class SalesService {
         }
 
         // 3. Get Top Customers
-        List<Object[]> rawCustomerData = orderRepository.getTopCustomers(start, end, 10);
+        List<Object[]> rawCustomerData = results.get("topCustomers", List.of());
         List<TopCustomerItem> topCustomers = new ArrayList<>();
 
         for (Object[] row : rawCustomerData) {
@@ -766,9 +1031,7 @@ public class SalesService {
         }
 
         // 4. Get At-Risk Customers (no order in atRiskDays+ days)
-        int safeAtRiskDays = Math.max(1, atRiskDays);
-        LocalDate atRiskCutoff = today.minusDays(safeAtRiskDays);
-        List<Object[]> rawAtRiskData = orderRepository.getAtRiskCustomers(atRiskCutoff, zoneId, 10);
+        List<Object[]> rawAtRiskData = results.get("atRiskCustomers", List.of());
         List<AtRiskCustomerItem> atRiskCustomers = new ArrayList<>();
 
         for (Object[] row : rawAtRiskData) {
@@ -787,7 +1050,7 @@ public class SalesService {
                     .build());
         }
 
-        Object[] repeatRateRow = orderRepository.getRepeatRate(start, end);
+        Object[] repeatRateRow = results.get("repeatRate", null);
         long totalCustomersInPeriod = 0L;
         long repeatCustomers = 0L;
         BigDecimal repeatRate = BigDecimal.ZERO;
@@ -809,22 +1072,102 @@ public class SalesService {
                 .repeatRate(repeatRate)
                 .totalCustomersInPeriod(totalCustomersInPeriod)
                 .repeatCustomers(repeatCustomers)
+                .refreshedAt(results.get("refreshedAt", null))
+                .unavailableSections(results.failed())
+                .build();
+    }
+
+    /**
+     * Time orders spent in each stage, and from intake to delivery, for stages that ended on
+     * local days in {@code [from, to]}; the last 30 days by default. {@code groupBy} is "stage",
+     * "service" or "staff".
+     */
+    public CycleTimeResponse getCycleTimeKpis(LocalDate from, LocalDate to, UUID branchId, String groupBy) {
+        if (!CYCLE_TIME_GROUPS.contains(groupBy)) {
+            throw new SalesValidationException("groupBy must be one of " + CYCLE_TIME_GROUPS);
+        }
+        LocalDate lastDay = to != null ? to : LocalDate.now(ZoneId.of(appTimezone));
+        LocalDate firstDay = from != null ? from : lastDay.minusDays(29);
+        if (firstDay.isAfter(lastDay)) {
+            throw new SalesValidationException("from must not be after to");
+        }
+
+        // Buckets arrive ordered by stage, group and duration; each run of one stage and group
+        // is a histogram.
+        List<StageDurationItem> stages = new ArrayList<>();
+        List<StageDurationBucket> histogram = new ArrayList<>();
+        for (StageDurationBucket bucket
+                : orderRepository.findStageDurations(firstDay, lastDay.plusDays(1), branchId, groupBy)) {
+            if (!histogram.isEmpty() && !sameHistogram(histogram.get(0), bucket)) {
+                stages.add(toStageDuration(histogram, groupBy));
+                histogram.clear();
+            }
+            histogram.add(bucket);
+        }
+        if (!histogram.isEmpty()) {
+            stages.add(toStageDuration(histogram, groupBy));
+        }
+
+        return CycleTimeResponse.builder()
+                .from(firstDay)
+                .to(lastDay)
+                .groupBy(groupBy)
+                .stages(stages)
                 .build();
     }
 
-    public CalendarMonthResponse getCalendarData(String monthParam, int dailyCapacityMinutes) {
+    private static boolean sameHistogram(StageDurationBucket a, StageDurationBucket b) {
+        return a.stage().equals(b.stage()) && a.group().equals(b.group());
+    }
+
+    static StageDurationItem toStageDuration(List<StageDurationBucket> histogram, String groupBy) {
+        long transitions = 0;
+        long totalSeconds = 0;
+        for (StageDurationBucket bucket : histogram) {
+            transitions += bucket.transitions();
+            totalSeconds += bucket.totalSeconds();
+        }
+        return StageDurationItem.builder()
+                .stage(histogram.get(0).stage())
+                .group("stage".equals(groupBy) ? null : histogram.get(0).group())
+                .transitions(transitions)
+                .averageMinutes(minutes((double) totalSeconds / transitions))
+                .p50Minutes(minutes(percentileSeconds(histogram, transitions, 0.50)))
+                .p90Minutes(minutes(percentileSeconds(histogram, transitions, 0.90)))
+                .p99Minutes(minutes(percentileSeconds(histogram, transitions, 0.99)))
+                .build();
+    }
+
+    // Upper bound of the bucket holding the p-th duration.
+    static double percentileSeconds(List<StageDurationBucket> histogram, long transitions, double p) {
+        long rank = Math.max(1, (long) Math.ceil(p * transitions));
+        long seen = 0;
+        for (StageDurationBucket bucket : histogram) {
+            seen += bucket.transitions();
+            if (seen >= rank) {
+                return bucket.upperBoundSeconds();
+            }
+        }
+        return histogram.get(histogram.size() - 1).upperBoundSeconds();
+    }
+
+    private static BigDecimal minutes(double seconds) {
+        return BigDecimal.valueOf(seconds / 60).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    /** Brings the precomputed financial KPI views up to date; see {@link #getFinancialKpis}. */
+    public boolean refreshFinancialKpiViews() {
+        return orderRepository.refreshKpiViews();
+    }
+
+    public CalendarMonthResponse getCalendarData(String monthParam, int dailyCapacityMinutes, UUID branchId) {
         ZoneId zone = ZoneId.of(appTimezone);
-        String zoneId = zone.getId();
         LocalDate today = LocalDate.now(zone);
         LocalDate monthStart = parseMonthParam(monthParam, today).atDay(1);
-
-        // Calculate month boundaries
         LocalDate monthEnd = monthStart.plusMonths(1);
-        OffsetDateTime monthStartOdt = monthStart.atStartOfDay(zone).toOffsetDateTime();
-        OffsetDateTime monthEndOdt = monthEnd.atStartOfDay(zone).toOffsetDateTime();
 
-        // Fetch daily aggregates from repository, indexed by date (row[0]) for O(1) lookup.
-        List<Object[]> rawData = orderRepository.getCalendarMonthData(monthStartOdt, monthEndOdt, zoneId);
+        // Daily rows come from the workload rollup, indexed by date (row[0]) for O(1) lookup.
+        List<Object[]> rawData = orderRepository.getCalendarMonthData(monthStart, monthEnd, branchId);
         Map<Object, Object[]> dataByDate = rawData.stream()
                 .collect(Collectors.toMap(row -> row[0], row -> row, (a, b) -> a));
         List<CalendarDayResponse> days = new ArrayList<>();
@@ -859,6 +1202,22 @@ public class SalesService {
                 .build();
     }
 
+    @Transactional
+    public void rebuildDailyWorkload() {
+        orderRepository.rebuildDailyWorkload();
+        dashboardChanged.fire(new DashboardChanged(null));
+    }
+
+    // Same labels the time series always used: YYYY-MM-DD, ISO week-year and week (IYYY-IW), YYYY-MM.
+    private static String revenuePeriod(LocalDate day, String granularity) {
+        return switch (granularity) {
+            case "week" -> String.format("%d-%02d",
+                    day.get(IsoFields.WEEK_BASED_YEAR), day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case "month" -> YearMonth.from(day).toString();
+            default -> day.toString();
+        };
+    }
+
     private YearMonth parseMonthParam(String monthParam, LocalDate fallbackDate) {
         if (monthParam == null || monthParam.isBlank()) {
             return YearMonth.from(fallbackDate);
@@ -0,0 +1,8 @@
+package com.anotame.sales.domain.exception;
+
+public class SalesUnavailableException extends SalesException {
+
+    public SalesUnavailableException(String message) {
+        super(message);
+    }
+}
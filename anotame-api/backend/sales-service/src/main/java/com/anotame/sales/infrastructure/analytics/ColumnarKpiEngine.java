@@ -0,0 +1,634 @@
+package com.anotame.sales.infrastructure.analytics;
+
+import com.anotame.sales.application.event.DashboardChanged;
+import com.anotame.sales.application.port.output.KpiAnalyticsPort;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory engine for the financial KPIs, enabled with app.analytics.in-memory.enabled. It keeps
+ * the live orders, their service lines and their positive payments per local day as primitive
+ * columns, and answers the service breakdown, top customers and repeat rate with parallel scans
+ * instead of database round trips. Results match the KPI views (V12, V14) without their refresh
+ * lag.
+ * <p>
+ * The columns load in the background at startup; callers use the views until then. Writes fire
+ * {@link DashboardChanged}: after commit, the changed orders are re-read and appended as new
+ * versions and their old rows are marked dead. Bulk changes (a null order id), and dead orders
+ * passing a quarter of the live ones, trigger a full reload instead. All of that runs on one
+ * thread. Readers scan an immutable {@link View} published through a volatile field, so they
+ * never block and never see half an update.
+ * <p>
+ * Memory per million rows: orders ~17 MB of columns plus ~100 MB for the id index incremental
+ * updates need; service lines and payment days ~16 MB each; customers ~100 MB for their id
+ * dictionary. A load that would pass app.analytics.in-memory.max-memory-mb is abandoned and
+ * the engine stays off.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class ColumnarKpiEngine implements KpiAnalyticsPort {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarKpiEngine.class);
+
+    private static final int ORDER_BYTES = 17;
+    private static final int LINE_BYTES = 16;
+    private static final int PAYMENT_DAY_BYTES = 16;
+    // UUID, boxed index and hash map node.
+    private static final int INDEX_ENTRY_BYTES = 100;
+    private static final int BUDGET_CHECK_INTERVAL = 1 << 16;
+
+    // Below this many rows per slice, splitting a scan costs more than it saves.
+    private static final int MIN_SLICE_ROWS = 50_000;
+    private static final int SLICES = ForkJoinPool.getCommonPoolParallelism();
+
+    // Customers first read by name for the top list; spares for the ones deleted since. When too
+    // many of them are gone the candidate set doubles until the list is full.
+    private static final int TOP_CUSTOMER_CANDIDATES_FACTOR = 2;
+
+    private final ColumnarKpiLoader loader;
+
+    private final Set<UUID> dirtyOrders = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean fullReloadRequested = new AtomicBoolean();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kpi-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Owned by the writer thread.
+    private Columns columns;
+    private volatile boolean overBudget;
+
+    private volatile View view;
+
+    @ConfigProperty(name = "app.analytics.in-memory.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.analytics.in-memory.refresh-delay", defaultValue = "1s")
+    Duration refreshDelay;
+
+    @ConfigProperty(name = "app.analytics.in-memory.max-memory-mb", defaultValue = "512")
+    long maxMemoryMb;
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            writer.execute(this::reload);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+
+    void onDashboardChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) DashboardChanged event) {
+        if (!enabled || overBudget) {
+            return;
+        }
+        if (event.orderId() == null) {
+            fullReloadRequested.set(true);
+        } else {
+            dirtyOrders.add(event.orderId());
+        }
+        if (refreshScheduled.compareAndSet(false, true)) {
+            writer.schedule(this::refresh, refreshDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return view != null;
+    }
+
+    @Override
+    public OffsetDateTime refreshedAt() {
+        View v = view;
+        return v != null ? v.refreshedAt() : null;
+    }
+
+    /** Estimated heap held by the columns and their indexes, in bytes; 0 until loaded. */
+    public long estimatedBytes() {
+        View v = view;
+        return v != null ? v.estimatedBytes() : 0;
+    }
+
+    @Override
+    public List<Object[]> getServiceTypeRevenue(LocalDate from, LocalDate to) {
+        View v = requireView();
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        ServiceTotals totals = scan(v.paymentDays(), () -> new ServiceTotals(v.serviceCount()), (acc, p) -> {
+            int day = v.paymentDay()[p];
+            int order = v.paymentOrder()[p];
+            if (day >= fromDay && day < toDay && v.orderLive()[order]) {
+                acc.add(v, order, v.paymentCents()[p]);
+            }
+        }, ServiceTotals::merge);
+
+        List<Integer> services = new ArrayList<>();
+        for (int s = 0; s < v.serviceCount(); s++) {
+            if (totals.orders[s] > 0) {
+                services.add(s);
+            }
+        }
+        services.sort(Comparator.<Integer>comparingDouble(s -> -totals.revenueCents[s])
+                .thenComparing(s -> v.serviceName()[s]));
+        List<Object[]> rows = new ArrayList<>(services.size());
+        for (int s : services) {
+            String name = v.serviceName()[s];
+            rows.add(new Object[]{
+                    v.serviceSource()[s],
+                    name.isEmpty() ? null : name,
+                    BigDecimal.valueOf(totals.revenueCents[s]).movePointLeft(2).setScale(2, RoundingMode.HALF_UP),
+                    totals.orders[s],
+                    totals.minutes[s]});
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Object[]> getTopCustomers(LocalDate from, LocalDate to, int limit) {
+        View v = requireView();
+        if (limit <= 0) {
+            return List.of();
+        }
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        CustomerTotals totals = scan(v.paymentDays(), () -> new CustomerTotals(v.customerCount()), (acc, p) -> {
+            int day = v.paymentDay()[p];
+            int order = v.paymentOrder()[p];
+            if (day >= fromDay && day < toDay && v.orderLive()[order]) {
+                acc.add(v.orderCustomer()[order], v.paymentCents()[p], v.orderCreatedDay()[order]);
+            }
+        }, CustomerTotals::merge);
+
+        // Ids already read, mapped to null when the customer is deleted.
+        Map<UUID, Object[]> names = new HashMap<>();
+        int candidates = limit * TOP_CUSTOMER_CANDIDATES_FACTOR;
+        while (true) {
+            List<Integer> ranked = topBySpend(totals, v.customerCount(), candidates);
+            List<UUID> unread = ranked.stream()
+                    .map(c -> v.customers()[c])
+                    .filter(id -> !names.containsKey(id))
+                    .toList();
+            for (UUID id : unread) {
+                names.put(id, null);
+            }
+            for (Object[] row : loader.findActiveCustomers(unread)) {
+                names.put((UUID) row[0], row);
+            }
+
+            List<Object[]> rows = new ArrayList<>(limit);
+            for (int c : ranked) {
+                Object[] name = names.get(v.customers()[c]);
+                if (name == null) {
+                    continue;
+                }
+                int lastOrderDay = totals.lastOrderDay[c];
+                rows.add(new Object[]{
+                        name[0], name[1], name[2],
+                        BigDecimal.valueOf(totals.spendCents[c], 2),
+                        totals.orders[c],
+                        lastOrderDay != Integer.MIN_VALUE ? LocalDate.ofEpochDay(lastOrderDay).toString() : null});
+                if (rows.size() == limit) {
+                    return rows;
+                }
+            }
+            if (ranked.size() < candidates || candidates == Integer.MAX_VALUE) {
+                // Every customer with spend in the range has been looked at.
+                return rows;
+            }
+            candidates = (int) Math.min((long) candidates * 2, Integer.MAX_VALUE);
+        }
+    }
+
+    /** The {@code n} customers with the most spend, most first; ties go to the lower code. */
+    private static List<Integer> topBySpend(CustomerTotals totals, int customers, int n) {
+        Comparator<Integer> bySpendDesc = Comparator.<Integer>comparingLong(c -> -totals.spendCents[c])
+                .thenComparingInt(c -> c);
+        // Worst candidate on top, so the heap keeps the best ones.
+        PriorityQueue<Integer> top = new PriorityQueue<>(bySpendDesc.reversed());
+        for (int c = 0; c < customers; c++) {
+            if (totals.orders[c] == 0) {
+                continue;
+            }
+            top.add(c);
+            if (top.size() > n) {
+                top.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(top);
+        ranked.sort(bySpendDesc);
+        return ranked;
+    }
+
+    @Override
+    public Object[] getRepeatRate(LocalDate from, LocalDate to) {
+        View v = requireView();
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        int[] ordersPerCustomer = scan(v.orders(), () -> new int[v.customerCount()], (acc, o) -> {
+            int day = v.orderCreatedDay()[o];
+            if (day >= fromDay && day < toDay && v.orderLive()[o]) {
+                acc[v.orderCustomer()[o]]++;
+            }
+        }, (a, b) -> {
+            for (int c = 0; c < a.length; c++) {
+                a[c] += b[c];
+            }
+            return a;
+        });
+        long customers = 0;
+        long repeat = 0;
+        for (int count : ordersPerCustomer) {
+            if (count > 0) {
+                customers++;
+            }
+            if (count >= 2) {
+                repeat++;
+            }
+        }
+        return new Object[]{customers, repeat};
+    }
+
+    private View requireView() {
+        View v = view;
+        if (v == null) {
+            throw new IllegalStateException("In-memory KPI engine is not loaded");
+        }
+        return v;
+    }
+
+    // Writer thread only (tests call these directly instead).
+
+    void refresh() {
+        refreshScheduled.set(false);
+        try {
+            if (overBudget) {
+                return;
+            }
+            if (fullReloadRequested.getAndSet(false) || columns == null
+                    || columns.deadOrders > columns.liveOrders() / 4) {
+                reload();
+                return;
+            }
+            List<UUID> ids = new ArrayList<>(dirtyOrders);
+            dirtyOrders.removeAll(ids);
+            if (!ids.isEmpty()) {
+                apply(columns, ids);
+                publish(columns);
+            }
+        } catch (RuntimeException e) {
+            // The next change retries with a full reload; until then the last view stays.
+            fullReloadRequested.set(true);
+            log.warn("In-memory KPI refresh failed", e);
+        }
+    }
+
+    void reload() {
+        // Everything committed before this point is in the load; later changes are applied after.
+        dirtyOrders.clear();
+        long started = System.nanoTime();
+        try {
+            Columns loaded = new Columns();
+            apply(loaded, null);
+            columns = loaded;
+            publish(loaded);
+            log.info("In-memory KPI engine loaded {} orders, {} service lines and {} payment days in {} ms (~{} MB)",
+                    loaded.orders, loaded.lines, loaded.paymentDays,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), loaded.estimatedBytes() >> 20);
+        } catch (OverBudgetException e) {
+            overBudget = true;
+            columns = null;
+            view = null;
+            log.warn("In-memory KPI engine disabled: data exceeds app.analytics.in-memory.max-memory-mb={}", maxMemoryMb);
+        } catch (RuntimeException e) {
+            log.warn("In-memory KPI engine load failed; the KPI views stay in use", e);
+        }
+    }
+
+    /** Appends the current version of the given orders (all of them when null), retiring older ones. */
+    private void apply(Columns target, Collection<UUID> orderIds) {
+        if (orderIds != null) {
+            for (UUID id : orderIds) {
+                target.retire(id);
+            }
+        }
+        long budget = maxMemoryMb << 20;
+        loader.load(orderIds,
+                row -> {
+                    target.appendOrder((UUID) row[0], (UUID) row[1], (Number) row[2]);
+                    if (target.orders % BUDGET_CHECK_INTERVAL == 0 && target.estimatedBytes() > budget) {
+                        throw new OverBudgetException();
+                    }
+                },
+                row -> target.appendLine((UUID) row[0], (String) row[1], (String) row[2],
+                        (BigDecimal) row[3], (Number) row[4]),
+                row -> target.appendPaymentDay((UUID) row[0], (Number) row[1], (BigDecimal) row[2]));
+        if (target.estimatedBytes() > budget) {
+            throw new OverBudgetException();
+        }
+    }
+
+    private void publish(Columns source) {
+        view = source.snapshot(OffsetDateTime.now());
+    }
+
+    /**
+     * Runs {@code add} over rows {@code [0, rows)} split into one slice per common pool thread,
+     * each into its own accumulator, then merges them.
+     */
+    private static <A> A scan(int rows, Supplier<A> accumulator, RowConsumer<A> add, BinaryOperator<A> merge) {
+        int slices = Math.max(1, Math.min(SLICES, rows / MIN_SLICE_ROWS));
+        return IntStream.range(0, slices).parallel()
+                .mapToObj(slice -> {
+                    A acc = accumulator.get();
+                    int end = (int) ((long) rows * (slice + 1) / slices);
+                    for (int row = (int) ((long) rows * slice / slices); row < end; row++) {
+                        add.accept(acc, row);
+                    }
+                    return acc;
+                })
+                .reduce(merge)
+                .orElseGet(accumulator);
+    }
+
+    @FunctionalInterface
+    private interface RowConsumer<A> {
+        void accept(A acc, int row);
+    }
+
+    private static final class OverBudgetException extends RuntimeException {
+        OverBudgetException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class ServiceTotals {
+        final double[] revenueCents;
+        final long[] orders;
+        final long[] minutes;
+
+        ServiceTotals(int services) {
+            revenueCents = new double[services];
+            orders = new long[services];
+            minutes = new long[services];
+        }
+
+        // One order's payments of one day, spread over its services by their share of the item.
+        void add(View v, int order, long cents) {
+            int start = v.orderLineStart()[order];
+            int end = v.orderLineEnd()[order];
+            for (int l = start; l < end; l++) {
+                int s = v.lineService()[l];
+                revenueCents[s] += cents * v.lineShare()[l];
+                minutes[s] += v.lineMinutes()[l];
+                if (!seenBefore(v, start, l, s)) {
+                    orders[s]++;
+                }
+            }
+        }
+
+        private static boolean seenBefore(View v, int start, int line, int service) {
+            for (int l = start; l < line; l++) {
+                if (v.lineService()[l] == service) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        ServiceTotals merge(ServiceTotals other) {
+            for (int s = 0; s < revenueCents.length; s++) {
+                revenueCents[s] += other.revenueCents[s];
+                orders[s] += other.orders[s];
+                minutes[s] += other.minutes[s];
+            }
+            return this;
+        }
+    }
+
+    private static final class CustomerTotals {
+        final long[] spendCents;
+        final long[] orders;
+        final int[] lastOrderDay;
+
+        CustomerTotals(int customers) {
+            spendCents = new long[customers];
+            orders = new long[customers];
+            lastOrderDay = new int[customers];
+            Arrays.fill(lastOrderDay, Integer.MIN_VALUE);
+        }
+
+        void add(int customer, long cents, int createdDay) {
+            spendCents[customer] += cents;
+            orders[customer]++;
+            lastOrderDay[customer] = Math.max(lastOrderDay[customer], createdDay);
+        }
+
+        CustomerTotals merge(CustomerTotals other) {
+            for (int c = 0; c < spendCents.length; c++) {
+                spendCents[c] += other.spendCents[c];
+                orders[c] += other.orders[c];
+                lastOrderDay[c] = Math.max(lastOrderDay[c], other.lastOrderDay[c]);
+            }
+            return this;
+        }
+    }
+
+    /**
+     * What readers scan. Arrays past the counts may be shared with the writer, which only ever
+     * appends beyond them; the live flags are copied because retiring an order flips them in place.
+     */
+    private record View(int orders, int[] orderCustomer, int[] orderCreatedDay, int[] orderLineStart,
+                        int[] orderLineEnd, boolean[] orderLive,
+                        int[] lineService, double[] lineShare, int[] lineMinutes,
+                        int paymentDays, int[] paymentOrder, int[] paymentDay, long[] paymentCents,
+                        int customerCount, UUID[] customers,
+                        int serviceCount, String[] serviceSource, String[] serviceName,
+                        long estimatedBytes, OffsetDateTime refreshedAt) {
+    }
+
+    /**
+     * Growable columns. Lines and payment days refer to orders by row, orders to customers and
+     * lines to services by dictionary code. Days are epoch days; a missing day is
+     * {@link Integer#MIN_VALUE} and never falls in a range.
+     */
+    private static final class Columns {
+        int orders;
+        int deadOrders;
+        int[] orderCustomer = new int[1024];
+        int[] orderCreatedDay = new int[1024];
+        int[] orderLineStart = new int[1024];
+        int[] orderLineEnd = new int[1024];
+        boolean[] orderLive = new boolean[1024];
+        final Map<UUID, Integer> orderRows = new HashMap<>();
+
+        int lines;
+        int[] lineService = new int[1024];
+        double[] lineShare = new double[1024];
+        int[] lineMinutes = new int[1024];
+
+        int paymentDays;
+        int[] paymentOrder = new int[1024];
+        int[] paymentDay = new int[1024];
+        long[] paymentCents = new long[1024];
+
+        int customerCount;
+        UUID[] customers = new UUID[1024];
+        final Map<UUID, Integer> customerCodes = new HashMap<>();
+
+        int serviceCount;
+        String[] serviceSource = new String[64];
+        String[] serviceName = new String[64];
+        final Map<String, Integer> serviceCodes = new HashMap<>();
+
+        int liveOrders() {
+            return orders - deadOrders;
+        }
+
+        void retire(UUID orderId) {
+            Integer row = orderRows.remove(orderId);
+            if (row != null) {
+                orderLive[row] = false;
+                deadOrders++;
+            }
+        }
+
+        void appendOrder(UUID orderId, UUID customerId, Number createdDay) {
+            if (orders == orderCustomer.length) {
+                int capacity = grow(orders);
+                orderCustomer = Arrays.copyOf(orderCustomer, capacity);
+                orderCreatedDay = Arrays.copyOf(orderCreatedDay, capacity);
+                orderLineStart = Arrays.copyOf(orderLineStart, capacity);
+                orderLineEnd = Arrays.copyOf(orderLineEnd, capacity);
+                orderLive = Arrays.copyOf(orderLive, capacity);
+            }
+            int row = orders++;
+            orderCustomer[row] = customerCode(customerId);
+            orderCreatedDay[row] = createdDay != null ? createdDay.intValue() : Integer.MIN_VALUE;
+            orderLineStart[row] = lines;
+            orderLineEnd[row] = lines;
+            orderLive[row] = true;
+            orderRows.put(orderId, row);
+        }
+
+        // Lines arrive grouped by order, after all the orders of the same load.
+        void appendLine(UUID orderId, String source, String name, BigDecimal share, Number minutes) {
+            Integer order = orderRows.get(orderId);
+            if (order == null) {
+                return;
+            }
+            if (lines == lineService.length) {
+                int capacity = grow(lines);
+                lineService = Arrays.copyOf(lineService, capacity);
+                lineShare = Arrays.copyOf(lineShare, capacity);
+                lineMinutes = Arrays.copyOf(lineMinutes, capacity);
+            }
+            if (orderLineStart[order] == orderLineEnd[order]) {
+                orderLineStart[order] = lines;
+            }
+            int row = lines++;
+            lineService[row] = serviceCode(source, name);
+            lineShare[row] = share != null ? share.doubleValue() : 0;
+            lineMinutes[row] = minutes.intValue();
+            orderLineEnd[order] = lines;
+        }
+
+        void appendPaymentDay(UUID orderId, Number day, BigDecimal amount) {
+            Integer order = orderRows.get(orderId);
+            if (order == null) {
+                return;
+            }
+            if (paymentDays == paymentOrder.length) {
+                int capacity = grow(paymentDays);
+                paymentOrder = Arrays.copyOf(paymentOrder, capacity);
+                paymentDay = Arrays.copyOf(paymentDay, capacity);
+                paymentCents = Arrays.copyOf(paymentCents, capacity);
+            }
+            int row = paymentDays++;
+            paymentOrder[row] = order;
+            paymentDay[row] = day != null ? day.intValue() : Integer.MIN_VALUE;
+            paymentCents[row] = amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+
+        private int customerCode(UUID customerId) {
+            Integer code = customerCodes.get(customerId);
+            if (code != null) {
+                return code;
+            }
+            if (customerCount == customers.length) {
+                customers = Arrays.copyOf(customers, grow(customerCount));
+            }
+            customers[customerCount] = customerId;
+            customerCodes.put(customerId, customerCount);
+            return customerCount++;
+        }
+
+        private int serviceCode(String source, String name) {
+            return serviceCodes.computeIfAbsent(source + '\u0000' + name, key -> {
+                if (serviceCount == serviceSource.length) {
+                    serviceSource = Arrays.copyOf(serviceSource, grow(serviceCount));
+                    serviceName = Arrays.copyOf(serviceName, serviceSource.length);
+                }
+                serviceSource[serviceCount] = source;
+                serviceName[serviceCount] = name;
+                return serviceCount++;
+            });
+        }
+
+        private static int grow(int size) {
+            return size + (size >> 1);
+        }
+
+        long estimatedBytes() {
+            return (long) orders * ORDER_BYTES
+                    + (long) lines * LINE_BYTES
+                    + (long) paymentDays * PAYMENT_DAY_BYTES
+                    + (long) (orderRows.size() + customerCodes.size()) * INDEX_ENTRY_BYTES;
+        }
+
+        View snapshot(OffsetDateTime refreshedAt) {
+            return new View(orders, orderCustomer, orderCreatedDay, orderLineStart, orderLineEnd,
+                    Arrays.copyOf(orderLive, orders),
+                    lineService, lineShare, lineMinutes,
+                    paymentDays, paymentOrder, paymentDay, paymentCents,
+                    customerCount, customers,
+                    serviceCount, serviceSource, serviceName,
+                    estimatedBytes(), refreshedAt);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.anotame.sales.infrastructure.analytics;
+
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads what {@link ColumnarKpiEngine} keeps in memory, through server-side cursors (see
+ * ExportPersistenceAdapter). Days are epoch days of the stored local dates (V14), and every
+ * stream is ordered by order id.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class ColumnarKpiLoader {
+
+    private static final int FETCH_SIZE = 5000;
+    // A full load reads every live order, line and payment day; the default 60s is too short.
+    private static final int LOAD_TIMEOUT_SECONDS = 1800;
+
+    private static final String LIVE_ORDER = "o.is_deleted = FALSE";
+
+    private final EntityManager em;
+
+    /**
+     * Streams the live orders (id, customer, created day), their service lines (order, source,
+     * name, share of the item subtotal, minutes) and their positive payments per day (order, day,
+     * amount). {@code orderIds} limits the read to those orders; null reads everything.
+     */
+    @Transactional
+    @TransactionConfiguration(timeout = LOAD_TIMEOUT_SECONDS)
+    public void load(Collection<UUID> orderIds, Consumer<Object[]> orders, Consumer<Object[]> lines,
+                     Consumer<Object[]> paymentDays) {
+        String only = orderIds != null ? " AND o.id_order IN (:ids)" : "";
+        stream("SELECT o.id_order, o.id_customer, (o.created_date - DATE '1970-01-01') " +
+                "FROM tco_order o WHERE " + LIVE_ORDER + only + " ORDER BY o.id_order", orderIds, orders);
+        stream("SELECT oi.id_order, ois.service_source, COALESCE(ois.service_name, ''), " +
+                "ois.unit_price / oi.subtotal, COALESCE(ois.duration_min * oi.quantity, 0) " +
+                "FROM tco_order o " +
+                "JOIN tco_order_item oi ON oi.id_order = o.id_order " +
+                "JOIN tco_order_item_service ois ON ois.id_order_item = oi.id_order_item " +
+                "WHERE " + LIVE_ORDER + " AND oi.is_deleted = FALSE AND oi.subtotal > 0" + only +
+                " ORDER BY oi.id_order", orderIds, lines);
+        stream("SELECT p.id_order, (p.recorded_date - DATE '1970-01-01'), SUM(p.amount) " +
+                "FROM tco_order o JOIN tco_order_payment p ON p.id_order = o.id_order " +
+                "WHERE " + LIVE_ORDER + " AND p.amount > 0" + only +
+                " GROUP BY 1, 2 ORDER BY 1, 2", orderIds, paymentDays);
+    }
+
+    /** Id, first name and last name of the given customers that are not deleted. */
+    @SuppressWarnings("unchecked")
+    @Transactional
+    public List<Object[]> findActiveCustomers(Collection<UUID> customerIds) {
+        if (customerIds.isEmpty()) {
+            return List.of();
+        }
+        return em.createNativeQuery(
+                        "SELECT id_customer, first_name, last_name FROM tco_customer " +
+                                "WHERE id_customer IN (:ids) AND is_deleted = FALSE")
+                .setParameter("ids", customerIds)
+                .getResultList();
+    }
+
+    private void stream(String sql, Collection<UUID> orderIds, Consumer<Object[]> sink) {
+        Query query = em.createNativeQuery(sql)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (orderIds != null) {
+            query.setParameter("ids", orderIds);
+        }
+        try (Stream<?> rows = query.getResultStream()) {
+            rows.forEach(row -> sink.accept((Object[]) row));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.anotame.sales.infrastructure.audit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Audit log writer figures on /q/health/ready: queue depth and flush latency (one flush is one
+ * multi-row insert). Not ready while the async queue is full, since committing requests then
+ * wait for room or drop their audit entries.
+ */
+@Readiness
+@ApplicationScoped
+@RequiredArgsConstructor
+public class AuditLogHealthCheck implements HealthCheck {
+
+    private final AuditLogWriter writer;
+
+    @Override
+    public HealthCheckResponse call() {
+        AuditLogWriter.Stats stats = writer.stats();
+        return HealthCheckResponse.named("audit-log")
+                .status(stats.queueDepth() < stats.queueCapacity())
+                .withData("mode", stats.mode())
+                .withData("queueDepth", stats.queueDepth())
+                .withData("queueCapacity", stats.queueCapacity())
+                .withData("batchesWritten", stats.batchesWritten())
+                .withData("entriesWritten", stats.entriesWritten())
+                .withData("entriesFailed", stats.entriesFailed())
+                .withData("entriesDropped", stats.entriesDropped())
+                .withData("lastFlushMillis", stats.lastFlushMillis())
+                .withData("maxFlushMillis", stats.maxFlushMillis())
+                .withData("meanFlushMillis", stats.meanFlushMillis())
+                .build();
+    }
+}
@@ -0,0 +1,231 @@
+package com.anotame.sales.infrastructure.audit;
+
+import com.anotame.sales.application.port.output.AuditLogEntry;
+import com.anotame.sales.application.port.output.AuditTrailPort;
+import com.anotame.sales.application.port.output.OrderAuditLogRepositoryPort;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the order audit log in batches.
+ * <p>
+ * In {@code commit} mode (the default) the entries of a transaction go out as one multi-row
+ * insert inside it, so they commit or roll back with the change they describe. In
+ * {@code async} mode they are queued once the transaction commits and a background thread
+ * writes whatever has accumulated, up to app.audit-log.batch-size rows per insert and
+ * transaction. A failed batch is retried twice, then dropped and logged. The queue is bounded:
+ * a committing thread waits up to app.audit-log.enqueue-timeout for room, then drops the entry.
+ * Entries still queued when the process dies are lost; on a normal shutdown the queue is
+ * drained first.
+ * <p>
+ * Queue depth and flush latency are reported by {@link AuditLogHealthCheck}.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class AuditLogWriter implements AuditTrailPort {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Entries of one committed transaction, handed to the queue after commit. */
+    record CommittedEntries(List<AuditLogEntry> entries) {
+    }
+
+    public record Stats(String mode, int queueDepth, int queueCapacity, long batchesWritten,
+                        long entriesWritten, long entriesFailed, long entriesDropped,
+                        long lastFlushMillis, long maxFlushMillis, long meanFlushMillis) {
+    }
+
+    private final OrderAuditLogRepositoryPort auditLogRepository;
+    private final Event<CommittedEntries> committedEntries;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder entriesWritten = new LongAdder();
+    private final LongAdder entriesFailed = new LongAdder();
+    private final LongAdder entriesDropped = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private BlockingQueue<AuditLogEntry> queue;
+    private boolean async;
+    private volatile boolean running;
+
+    @ConfigProperty(name = "app.audit-log.mode", defaultValue = "commit")
+    String mode;
+
+    @ConfigProperty(name = "app.audit-log.queue-capacity", defaultValue = "10000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "app.audit-log.batch-size", defaultValue = "200")
+    int batchSize;
+
+    @ConfigProperty(name = "app.audit-log.enqueue-timeout", defaultValue = "2s")
+    Duration enqueueTimeout;
+
+    // Multiplied by the attempt number between retries; shortened by tests.
+    Duration retryDelay = RETRY_DELAY;
+
+    @PostConstruct
+    void init() {
+        switch (mode) {
+            case "commit" -> async = false;
+            case "async" -> async = true;
+            default -> throw new IllegalArgumentException(
+                    "app.audit-log.mode must be commit or async, was " + mode);
+        }
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (async) {
+            running = true;
+            writer.execute(this::drain);
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Audit log writer did not drain in time; {} entries lost", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+
+    @Override
+    public void record(List<AuditLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (async) {
+            // Delivered after commit only, so rolled-back changes leave no audit rows.
+            committedEntries.fire(new CommittedEntries(List.copyOf(entries)));
+        } else {
+            write(entries);
+        }
+    }
+
+    void onCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) CommittedEntries event) {
+        try {
+            for (AuditLogEntry entry : event.entries()) {
+                if (!queue.offer(entry, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    entriesDropped.increment();
+                    log.error("Audit log queue full; dropped {} change of order {} at {}",
+                            entry.fieldName(), entry.orderId(), entry.changedAt());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Stats stats() {
+        long batches = batchesWritten.sum();
+        return new Stats(
+                mode,
+                queue.size(),
+                queueCapacity,
+                batches,
+                entriesWritten.sum(),
+                entriesFailed.sum(),
+                entriesDropped.sum(),
+                TimeUnit.NANOSECONDS.toMillis(lastFlushNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()),
+                batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalFlushNanos.sum() / batches));
+    }
+
+    /** Writer thread: keeps writing until stopped and the queue is empty. */
+    private void drain() {
+        List<AuditLogEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLogEntry first = queue.poll(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeWithRetry(List<AuditLogEntry> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                inNewTransaction(() -> write(batch));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    entriesFailed.add(batch.size());
+                    log.error("Audit log batch of {} entries dropped after {} attempts", batch.size(), attempt, e);
+                    return;
+                }
+                log.warn("Audit log batch of {} entries failed, retrying", batch.size(), e);
+                Thread.sleep(retryDelay.toMillis() * attempt);
+            }
+        }
+    }
+
+    /** Runs one batch write in a transaction of its own; replaced by tests, which have no transaction manager. */
+    void inNewTransaction(Runnable work) {
+        QuarkusTransaction.requiringNew().run(work);
+    }
+
+    private void write(List<AuditLogEntry> entries) {
+        long start = System.nanoTime();
+        auditLogRepository.saveAll(entries);
+        long elapsed = System.nanoTime() - start;
+        batchesWritten.increment();
+        entriesWritten.add(entries.size());
+        totalFlushNanos.add(elapsed);
+        lastFlushNanos.set(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+}
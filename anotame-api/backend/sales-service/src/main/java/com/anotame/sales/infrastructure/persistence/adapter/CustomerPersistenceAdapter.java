@@ -1,22 +1,30 @@
 package com.anotame.sales.infrastructure.persistence.adapter;
 
 import com.anotame.sales.application.port.output.CustomerRepositoryPort;
+import com.anotame.sales.application.port.output.CustomerStats;
 import com.anotame.sales.domain.model.Customer;
 import com.anotame.sales.infrastructure.persistence.entity.CustomerEntity;
 import com.anotame.sales.infrastructure.persistence.repository.CustomerRepository;
+import com.anotame.sales.infrastructure.persistence.repository.OrderRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 @RequiredArgsConstructor
 public class CustomerPersistenceAdapter implements CustomerRepositoryPort {
 
     private final CustomerRepository customerRepository;
+    private final OrderRepository orderRepository;
+    private final CustomerStatsRollup customerStatsRollup;
 
     @Override
     public Optional<Customer> findById(UUID id) {
@@ -34,8 +42,22 @@ public class CustomerPersistenceAdapter implements CustomerRepositoryPort {
     }
 
     @Override
-    public List<Customer> search(String query) {
-        return customerRepository.search(query).stream()
+    public List<Customer> search(String query, int limit, int offset) {
+        return findAllByIds(customerRepository.searchIds(
+                SearchText.normalize(query), SearchText.phoneDigits(query), limit, offset));
+    }
+
+    @Override
+    public List<Customer> findAllByIds(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // Loaded in one query, then put back in the caller's (rank) order.
+        Map<UUID, CustomerEntity> byId = customerRepository.list("id in ?1", ids).stream()
+                .collect(Collectors.toMap(CustomerEntity::getId, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
                 .map(this::toDomain)
                 .toList();
     }
@@ -60,6 +82,13 @@ public class CustomerPersistenceAdapter implements CustomerRepositoryPort {
         entity.setPreferences(customer.getPreferences());
 
         customerRepository.persist(entity);
+        customerRepository.flush();
+        if (customer.getId() != null) {
+            // Keep the order summary read model in step with the edited contact details.
+            orderRepository.refreshCustomerSnapshot(entity.getId());
+        } else {
+            customerStatsRollup.refresh(List.of(entity.getId()));
+        }
         return toDomain(entity);
     }
 
@@ -67,6 +96,24 @@ public class CustomerPersistenceAdapter implements CustomerRepositoryPort {
     @Transactional
     public void deleteById(UUID id) {
         customerRepository.deleteById(id);
+        customerRepository.flush();
+        customerStatsRollup.refresh(List.of(id));
+    }
+
+    @Override
+    public Optional<CustomerStats> findStats(UUID id) {
+        return customerStatsRollup.find(id);
+    }
+
+    @Override
+    public int statsChunkCount() {
+        return CustomerStatsRollup.CHUNKS;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void rebuildStats(int chunk) {
+        customerStatsRollup.rebuildChunk(chunk);
     }
 
     private Customer toDomain(CustomerEntity entity) {
@@ -0,0 +1,162 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import com.anotame.sales.application.port.output.CustomerStats;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Maintains tco_customer_stats (V13): first and last order, order count, lifetime spend and
+ * open balance per customer.
+ * <p>
+ * Writers recompute the rows of the customers they touched from those customers' orders, an
+ * indexed read per customer. Deltas would not do: deleting an order cannot undo a MIN or MAX.
+ * Customers are spread over {@link #CHUNKS} advisory locks. A writer takes its customers'
+ * chunk locks before recomputing and holds them until commit, so each recompute sees every
+ * write committed before it. The reconciliation rebuilds one chunk per transaction under the
+ * same lock.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class CustomerStatsRollup {
+
+    /** Number of lock chunks; also the unit of work of {@link #rebuildChunk}. A power of two. */
+    public static final int CHUNKS = 64;
+
+    private static final String CHUNK_LOCK_CLASS = "hashtext('tco_customer_stats')";
+
+    private static final String UPSERT =
+            "INSERT INTO tco_customer_stats (id_customer, customer_since, first_order_at, last_order_at, " +
+                    "last_order_date, order_count, lifetime_spend, open_balance) ";
+
+    private static final String GROUPED_ORDERS =
+            "SELECT c.id_customer, (COALESCE(c.created_at, NOW()) AT TIME ZONE :zone)::date, " +
+                    "MIN(o.created_at), MAX(o.created_at), MAX(o.created_date), " +
+                    "COUNT(o.id_order), COALESCE(SUM(o.amount_paid), 0), " +
+                    "COALESCE(SUM(o.total_amount - o.amount_paid) " +
+                    "FILTER (WHERE o.status <> 'CANCELLED' AND o.total_amount > o.amount_paid), 0) " +
+                    "FROM tco_customer c " +
+                    "LEFT JOIN tco_order o ON o.id_customer = c.id_customer AND o.is_deleted = FALSE " +
+                    "WHERE c.is_deleted = FALSE ";
+
+    private static final String ON_CONFLICT_REPLACE =
+            " ON CONFLICT (id_customer) DO UPDATE SET " +
+                    "customer_since = EXCLUDED.customer_since, " +
+                    "first_order_at = EXCLUDED.first_order_at, " +
+                    "last_order_at = EXCLUDED.last_order_at, " +
+                    "last_order_date = EXCLUDED.last_order_date, " +
+                    "order_count = EXCLUDED.order_count, " +
+                    "lifetime_spend = EXCLUDED.lifetime_spend, " +
+                    "open_balance = EXCLUDED.open_balance";
+
+    private static final String LAST_ACTIVITY = "COALESCE(s.last_order_date, s.customer_since)";
+
+    private final EntityManager em;
+
+    @ConfigProperty(name = "app.timezone", defaultValue = "America/Mexico_City")
+    String appTimezone;
+
+    /** Recomputes the given customers; nulls are ignored. Deleted customers lose their row. */
+    public void refresh(Collection<UUID> customerIds) {
+        List<UUID> ids = customerIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        recompute("SELECT id_customer FROM tco_customer WHERE id_customer IN (:ids)", Map.of("ids", ids));
+    }
+
+    /** Recomputes the customer of one order. */
+    public void refreshForOrder(UUID orderId) {
+        recompute("SELECT id_customer FROM tco_order WHERE id_order = :orderId", Map.of("orderId", orderId));
+    }
+
+    /** Recomputes the customers of an import chunk's orders (listed in stg_import_inserted). */
+    public void refreshImported() {
+        recompute("SELECT o.id_customer FROM tco_order o JOIN stg_import_inserted n ON n.id_order = o.id_order",
+                Map.of());
+    }
+
+    /** Recomputes every customer of one chunk, {@code 0 <= chunk < CHUNKS}. */
+    public void rebuildChunk(int chunk) {
+        recompute("SELECT id_customer FROM tco_customer WHERE " + chunkOf("id_customer") + " = :chunk",
+                Map.of("chunk", chunk));
+    }
+
+    public Optional<CustomerStats> find(UUID customerId) {
+        List<?> rows = em.createNativeQuery(
+                        "SELECT order_count, lifetime_spend, open_balance, first_order_at, last_order_at " +
+                                "FROM tco_customer_stats WHERE id_customer = :customerId")
+                .setParameter("customerId", customerId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return Optional.of(new CustomerStats(
+                ((Number) row[0]).longValue(),
+                (BigDecimal) row[1],
+                (BigDecimal) row[2],
+                (OffsetDateTime) row[3],
+                (OffsetDateTime) row[4]));
+    }
+
+    /**
+     * Customers whose last order (or creation, without orders) is on or before the cutoff,
+     * longest-idle first: id, first name, last name, last order date (null without orders).
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findAtRisk(LocalDate cutoffDate, int limit) {
+        return em.createNativeQuery(
+                        "SELECT c.id_customer, c.first_name, c.last_name, s.last_order_date::text " +
+                                "FROM tco_customer_stats s " +
+                                "JOIN tco_customer c ON c.id_customer = s.id_customer AND c.is_deleted = FALSE " +
+                                "WHERE " + LAST_ACTIVITY + " <= :cutoffDate " +
+                                "ORDER BY " + LAST_ACTIVITY + " ASC, c.first_name ASC, c.last_name ASC " +
+                                "LIMIT :limit")
+                .setParameter("cutoffDate", cutoffDate)
+                .setParameter("limit", limit)
+                .getResultList();
+    }
+
+    private void recompute(String customers, Map<String, Object> parameters) {
+        // Chunks are locked in ascending order so two writers sharing chunks cannot deadlock.
+        Query lock = em.createNativeQuery(
+                "SELECT COUNT(pg_advisory_xact_lock(" + CHUNK_LOCK_CLASS + ", chunk)::text) FROM (" +
+                        "SELECT DISTINCT " + chunkOf("id_customer") + " AS chunk " +
+                        "FROM (" + customers + ") ids WHERE id_customer IS NOT NULL ORDER BY chunk) chunks");
+        parameters.forEach(lock::setParameter);
+        lock.getSingleResult();
+
+        // Separate statements after the lock, so they read what earlier holders committed.
+        Query delete = em.createNativeQuery(
+                "DELETE FROM tco_customer_stats s WHERE s.id_customer IN (" + customers + ") " +
+                        "AND NOT EXISTS (SELECT 1 FROM tco_customer c " +
+                        "WHERE c.id_customer = s.id_customer AND c.is_deleted = FALSE)");
+        parameters.forEach(delete::setParameter);
+        delete.executeUpdate();
+
+        Query upsert = em.createNativeQuery(UPSERT + GROUPED_ORDERS +
+                        "AND c.id_customer IN (" + customers + ") GROUP BY c.id_customer, c.created_at" +
+                        ON_CONFLICT_REPLACE)
+                .setParameter("zone", appTimezone);
+        parameters.forEach(upsert::setParameter);
+        upsert.executeUpdate();
+    }
+
+    // A bit mask rather than a modulo keeps negative hashes in [0, CHUNKS).
+    private static String chunkOf(String column) {
+        return "(hashtext(" + column + "::text) & " + (CHUNKS - 1) + ")";
+    }
+}
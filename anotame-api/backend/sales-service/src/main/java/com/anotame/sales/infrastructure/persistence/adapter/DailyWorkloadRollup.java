@@ -0,0 +1,145 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Maintains tco_daily_workload (V10): minutes, order count and order totals per branch and
+ * local deadline day, for the orders still to be delivered.
+ * <p>
+ * Writers add the order's old slot with a minus sign and its new slot with a plus sign in
+ * their own transaction. Increments commute, so concurrent writers never lose each other's
+ * changes. The row lock on the rollup row serialises them.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class DailyWorkloadRollup {
+
+    /** Where one order counts: its branch and local deadline day, with its minutes and total. */
+    public record Slot(UUID branchId, LocalDate day, long minutes, BigDecimal revenue) {
+    }
+
+    private static final String ACTIVE_ORDER =
+            "o.is_deleted = FALSE AND o.status NOT IN ('DELIVERED', 'CANCELLED') AND o.committed_deadline IS NOT NULL";
+
+    private static final String UPSERT =
+            "INSERT INTO tco_daily_workload (id_branch, work_date, committed_minutes, order_count, scheduled_revenue) ";
+
+    private static final String ON_CONFLICT_ADD =
+            " ON CONFLICT (id_branch, work_date) DO UPDATE SET " +
+                    "committed_minutes = tco_daily_workload.committed_minutes + EXCLUDED.committed_minutes, " +
+                    "order_count = tco_daily_workload.order_count + EXCLUDED.order_count, " +
+                    "scheduled_revenue = tco_daily_workload.scheduled_revenue + EXCLUDED.scheduled_revenue";
+
+    // deadline_date is the stored local day of committed_deadline (V14).
+    private static final String GROUPED_ACTIVE_ORDERS =
+            "SELECT o.id_branch, o.deadline_date, " +
+                    "COALESCE(SUM(o.total_duration_min), 0), COUNT(*), COALESCE(SUM(o.total_amount), 0) ";
+
+    private static final Comparator<Slot> KEY_ORDER =
+            Comparator.comparing(Slot::branchId).thenComparing(Slot::day);
+
+    private final EntityManager em;
+
+    @ConfigProperty(name = "app.timezone", defaultValue = "America/Mexico_City")
+    String appTimezone;
+
+    /**
+     * The slot an order with these values occupies, or null when it does not count
+     * (finished, cancelled or without a deadline).
+     */
+    public Slot slotOf(UUID branchId, String status, OffsetDateTime deadline, Integer minutes, BigDecimal total) {
+        if (deadline == null || "DELIVERED".equals(status) || "CANCELLED".equals(status)) {
+            return null;
+        }
+        return new Slot(
+                branchId,
+                deadline.atZoneSameInstant(ZoneId.of(appTimezone)).toLocalDate(),
+                minutes != null ? minutes : 0,
+                // Normalised so a re-save with an unchanged total compares equal and writes nothing.
+                total != null ? total.stripTrailingZeros() : BigDecimal.ZERO);
+    }
+
+    /**
+     * Moves one order from {@code before} to {@code after}; either may be null.
+     * Rows are touched in key order so two orders moving between the same days cannot deadlock.
+     */
+    public void move(Slot before, Slot after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null && after != null && KEY_ORDER.compare(after, before) < 0) {
+            add(after, 1);
+            add(before, -1);
+            return;
+        }
+        if (before != null) {
+            add(before, -1);
+        }
+        if (after != null) {
+            add(after, 1);
+        }
+    }
+
+    /** Adds the orders of an import chunk (listed in stg_import_inserted) to the rollup. */
+    public void addImportedOrders() {
+        em.createNativeQuery(UPSERT + GROUPED_ACTIVE_ORDERS +
+                        "FROM tco_order o JOIN stg_import_inserted n ON n.id_order = o.id_order " +
+                        "WHERE " + ACTIVE_ORDER + " GROUP BY 1, 2" + ON_CONFLICT_ADD)
+                .executeUpdate();
+    }
+
+    /**
+     * Daily rows of {@code [from, to)}: date, minutes, order count, scheduled revenue.
+     * A null branch sums all branches; days without orders are absent.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findRange(UUID branchId, LocalDate from, LocalDate to) {
+        Query query = em.createNativeQuery(
+                        "SELECT work_date, SUM(committed_minutes), SUM(order_count), SUM(scheduled_revenue) " +
+                                "FROM tco_daily_workload " +
+                                "WHERE work_date >= :from AND work_date < :to" +
+                                (branchId != null ? " AND id_branch = :branchId" : "") +
+                                " GROUP BY work_date HAVING SUM(order_count) > 0 ORDER BY work_date")
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (branchId != null) {
+            query.setParameter("branchId", branchId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Recomputes the whole rollup from tco_order. The table lock waits for in-flight writers
+     * and holds new ones until commit, so their deltas land on the rebuilt rows.
+     */
+    public void rebuild() {
+        em.createNativeQuery("LOCK TABLE tco_daily_workload IN EXCLUSIVE MODE").executeUpdate();
+        em.createNativeQuery("DELETE FROM tco_daily_workload").executeUpdate();
+        em.createNativeQuery(UPSERT + GROUPED_ACTIVE_ORDERS +
+                        "FROM tco_order o WHERE " + ACTIVE_ORDER + " GROUP BY 1, 2")
+                .executeUpdate();
+    }
+
+    private void add(Slot slot, int sign) {
+        em.createNativeQuery(UPSERT + "VALUES (:branchId, :day, :minutes, :orders, :revenue)" + ON_CONFLICT_ADD)
+                .setParameter("branchId", slot.branchId())
+                .setParameter("day", slot.day())
+                .setParameter("minutes", sign * slot.minutes())
+                .setParameter("orders", sign)
+                .setParameter("revenue", sign < 0 ? slot.revenue().negate() : slot.revenue())
+                .executeUpdate();
+    }
+}
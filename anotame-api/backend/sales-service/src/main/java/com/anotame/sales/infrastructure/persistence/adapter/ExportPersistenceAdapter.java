@@ -0,0 +1,163 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import com.anotame.sales.application.port.output.CustomerExportRow;
+import com.anotame.sales.application.port.output.ExportCriteria;
+import com.anotame.sales.application.port.output.ExportRepositoryPort;
+import com.anotame.sales.application.port.output.OrderExportRow;
+import com.anotame.sales.application.port.output.PaymentExportRow;
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Scalar native queries read through a server-side cursor: PostgreSQL only honours the fetch
+ * size inside a transaction, and scalar rows never enter the persistence context, so at most
+ * {@link #FETCH_SIZE} rows are held in memory at a time.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class ExportPersistenceAdapter implements ExportRepositoryPort {
+
+    private static final int FETCH_SIZE = 500;
+    // The cursor stays open while the client downloads; the default 60s would cut large exports.
+    private static final int EXPORT_TIMEOUT_SECONDS = 1800;
+
+    private final EntityManager em;
+
+    @Override
+    @Transactional
+    @TransactionConfiguration(timeout = EXPORT_TIMEOUT_SECONDS)
+    public void streamOrders(ExportCriteria criteria, Consumer<OrderExportRow> sink) {
+        Map<String, Object> params = new HashMap<>();
+        String sql = "SELECT o.id_order, o.ticket_number, o.id_branch, o.created_at, o.status, o.id_customer, " +
+                "btrim(concat_ws(' ', o.customer_snapshot ->> 'firstName', o.customer_snapshot ->> 'lastName')), " +
+                "o.customer_snapshot ->> 'phoneNumber', o.total_amount, COALESCE(o.amount_paid, 0), o.payment_method, " +
+                "o.committed_deadline, o.delivered_at, array_to_string(o.garment_names, '; '), " +
+                "array_to_string(o.service_names, '; '), o.notes " +
+                "FROM tco_order o WHERE o.is_deleted = FALSE" +
+                rangeAndBranch("o.created_at", "o.id_branch", criteria, params) +
+                " ORDER BY o.created_at, o.id_order";
+        stream(sql, params, row -> new OrderExportRow(
+                (UUID) row[0],
+                (String) row[1],
+                (UUID) row[2],
+                toOffsetDateTime(row[3]),
+                (String) row[4],
+                (UUID) row[5],
+                (String) row[6],
+                (String) row[7],
+                (BigDecimal) row[8],
+                (BigDecimal) row[9],
+                (String) row[10],
+                toOffsetDateTime(row[11]),
+                toOffsetDateTime(row[12]),
+                (String) row[13],
+                (String) row[14],
+                (String) row[15]), sink);
+    }
+
+    @Override
+    @Transactional
+    @TransactionConfiguration(timeout = EXPORT_TIMEOUT_SECONDS)
+    public void streamPayments(ExportCriteria criteria, Consumer<PaymentExportRow> sink) {
+        Map<String, Object> params = new HashMap<>();
+        String sql = "SELECT p.id_payment, p.id_order, o.ticket_number, o.id_branch, p.amount, p.payment_method, " +
+                "p.notes, p.recorded_at " +
+                "FROM tco_order_payment p JOIN tco_order o ON o.id_order = p.id_order WHERE o.is_deleted = FALSE" +
+                rangeAndBranch("p.recorded_at", "o.id_branch", criteria, params) +
+                " ORDER BY p.recorded_at, p.id_payment";
+        stream(sql, params, row -> new PaymentExportRow(
+                (UUID) row[0],
+                (UUID) row[1],
+                (String) row[2],
+                (UUID) row[3],
+                (BigDecimal) row[4],
+                (String) row[5],
+                (String) row[6],
+                toOffsetDateTime(row[7])), sink);
+    }
+
+    @Override
+    @Transactional
+    @TransactionConfiguration(timeout = EXPORT_TIMEOUT_SECONDS)
+    public void streamCustomers(ExportCriteria criteria, Consumer<CustomerExportRow> sink) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder sql = new StringBuilder(
+                "SELECT c.id_customer, c.first_name, c.last_name, c.phone_number, c.email, c.created_at " +
+                        "FROM tco_customer c WHERE c.is_deleted = FALSE");
+        sql.append(rangeAndBranch("c.created_at", null, criteria, params));
+        if (criteria.branchId() != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM tco_order o WHERE o.id_customer = c.id_customer " +
+                    "AND o.id_branch = :branchId AND o.is_deleted = FALSE)");
+            params.put("branchId", criteria.branchId());
+        }
+        sql.append(" ORDER BY c.created_at, c.id_customer");
+        stream(sql.toString(), params, row -> new CustomerExportRow(
+                (UUID) row[0],
+                (String) row[1],
+                (String) row[2],
+                (String) row[3],
+                (String) row[4],
+                toOffsetDateTime(row[5])), sink);
+    }
+
+    private <T> void stream(String sql, Map<String, Object> params, Function<Object[], T> mapper, Consumer<T> sink) {
+        Query query = em.createNativeQuery(sql)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        params.forEach(query::setParameter);
+        try (Stream<?> rows = query.getResultStream()) {
+            rows.forEach(row -> sink.accept(mapper.apply((Object[]) row)));
+        }
+    }
+
+    private static String rangeAndBranch(String timestampColumn, String branchColumn, ExportCriteria criteria,
+                                         Map<String, Object> params) {
+        StringBuilder where = new StringBuilder();
+        if (criteria.from() != null) {
+            where.append(" AND ").append(timestampColumn).append(" >= :from");
+            params.put("from", criteria.from());
+        }
+        if (criteria.to() != null) {
+            where.append(" AND ").append(timestampColumn).append(" < :to");
+            params.put("to", criteria.to());
+        }
+        if (branchColumn != null && criteria.branchId() != null) {
+            where.append(" AND ").append(branchColumn).append(" = :branchId");
+            params.put("branchId", criteria.branchId());
+        }
+        return where.toString();
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof OffsetDateTime odt) {
+            return odt;
+        }
+        if (value instanceof Instant instant) {
+            return instant.atOffset(ZoneOffset.UTC);
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant().atOffset(ZoneOffset.UTC);
+        }
+        throw new IllegalStateException("Unexpected timestamp type: " + value.getClass().getName());
+    }
+}
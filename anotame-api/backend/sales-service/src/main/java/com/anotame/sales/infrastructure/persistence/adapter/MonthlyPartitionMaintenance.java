@@ -0,0 +1,53 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of the payment ledger and the order audit log (V19) ahead of
+ * the calendar, and moves rows that landed in a default partition (imported history, or
+ * months the job missed) into partitions of their own.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class MonthlyPartitionMaintenance {
+
+    static final List<String> PARTITIONED_TABLES = List.of("tco_order_payment", "tco_order_audit_log");
+
+    // Moving a large import out of a default partition rewrites every row of it.
+    private static final int MAINTENANCE_TIMEOUT_SECONDS = 900;
+
+    private final EntityManager em;
+
+    @ConfigProperty(name = "app.partitions.months-ahead", defaultValue = "3")
+    int monthsAhead;
+
+    /**
+     * Creates the missing month partitions of every partitioned table and returns how many
+     * were created, or -1 without doing anything when another instance is already at it.
+     */
+    @Transactional
+    @TransactionConfiguration(timeout = MAINTENANCE_TIMEOUT_SECONDS)
+    public int maintain() {
+        Boolean locked = (Boolean) em.createNativeQuery(
+                        "SELECT pg_try_advisory_xact_lock(hashtext('sales_month_partitions'))")
+                .getSingleResult();
+        if (!Boolean.TRUE.equals(locked)) {
+            return -1;
+        }
+        int created = 0;
+        for (String table : PARTITIONED_TABLES) {
+            created += ((Number) em.createNativeQuery("SELECT sales_maintain_month_partitions(:table, :monthsAhead)")
+                    .setParameter("table", table)
+                    .setParameter("monthsAhead", monthsAhead)
+                    .getSingleResult()).intValue();
+        }
+        return created;
+    }
+}
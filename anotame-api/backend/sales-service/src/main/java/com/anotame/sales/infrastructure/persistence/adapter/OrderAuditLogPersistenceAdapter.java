@@ -2,11 +2,16 @@ package com.anotame.sales.infrastructure.persistence.adapter;
 
 import com.anotame.sales.application.port.output.AuditLogEntry;
 import com.anotame.sales.application.port.output.OrderAuditLogRepositoryPort;
-import com.anotame.sales.infrastructure.persistence.entity.OrderAuditLogEntity;
 import com.anotame.sales.infrastructure.persistence.repository.OrderAuditLogRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.enterprise.context.ApplicationScoped;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,25 +19,59 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class OrderAuditLogPersistenceAdapter implements OrderAuditLogRepositoryPort {
 
+    // 7 parameters per row; PostgreSQL caps a statement at 65535.
+    private static final int INSERT_CHUNK_ROWS = 500;
+    private static final String INSERT_PREFIX =
+            "INSERT INTO tco_order_audit_log (id_order, user_id, field_name, old_value, new_value, changed_at, diff) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, CAST(? AS jsonb))";
+
     private final OrderAuditLogRepository auditLogRepository;
+    private final ObjectMapper objectMapper;
 
     @Override
-    public void save(AuditLogEntry entry) {
-        OrderAuditLogEntity entity = new OrderAuditLogEntity();
-        entity.setOrderId(entry.orderId());
-        entity.setUserId(entry.userId());
-        entity.setFieldName(entry.fieldName());
-        entity.setOldValue(entry.oldValue());
-        entity.setNewValue(entry.newValue());
-        entity.setChangedAt(entry.changedAt());
-        auditLogRepository.save(entity);
+    public void saveAll(List<AuditLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        // Runs on the transaction's own connection. Audited orders already exist, so the rows do not
+        // depend on changes Hibernate has not flushed yet.
+        auditLogRepository.getEntityManager().unwrap(Session.class).doWork(connection -> {
+            for (int from = 0; from < entries.size(); from += INSERT_CHUNK_ROWS) {
+                List<AuditLogEntry> chunk = entries.subList(from, Math.min(from + INSERT_CHUNK_ROWS, entries.size()));
+                String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), INSERT_ROW));
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    int index = 1;
+                    for (AuditLogEntry entry : chunk) {
+                        statement.setObject(index++, entry.orderId());
+                        statement.setObject(index++, entry.userId());
+                        statement.setString(index++, entry.fieldName());
+                        statement.setString(index++, entry.oldValue());
+                        statement.setString(index++, entry.newValue());
+                        statement.setObject(index++, entry.changedAt(), Types.TIMESTAMP_WITH_TIMEZONE);
+                        statement.setString(index++, toJson(entry));
+                    }
+                    statement.executeUpdate();
+                }
+            }
+        });
     }
 
     @Override
     public List<AuditLogEntry> findByOrderId(UUID orderId) {
         return auditLogRepository.findByOrderId(orderId).stream()
                 .map(e -> new AuditLogEntry(e.getOrderId(), e.getUserId(), e.getFieldName(),
-                        e.getOldValue(), e.getNewValue(), e.getChangedAt()))
+                        e.getOldValue(), e.getNewValue(), e.getChangedAt(), e.getDiff()))
                 .collect(java.util.stream.Collectors.toCollection(java.util.ArrayList::new));
     }
+
+    private String toJson(AuditLogEntry entry) {
+        if (entry.diff() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(entry.diff());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Audit diff of order " + entry.orderId() + " is not serializable", e);
+        }
+    }
 }
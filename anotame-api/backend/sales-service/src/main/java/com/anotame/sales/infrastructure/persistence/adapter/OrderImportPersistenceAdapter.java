@@ -0,0 +1,235 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import com.anotame.sales.application.port.output.ImportedOrder;
+import com.anotame.sales.application.port.output.OrderImportCheckpoint;
+import com.anotame.sales.application.port.output.OrderImportLineError;
+import com.anotame.sales.application.port.output.OrderImportRepositoryPort;
+import com.anotame.sales.domain.exception.SalesConflictException;
+import com.anotame.sales.domain.exception.SalesNotFoundException;
+import com.anotame.sales.domain.model.Customer;
+import com.anotame.sales.domain.model.Order;
+import com.anotame.sales.domain.model.OrderItem;
+import com.anotame.sales.domain.model.OrderItemService;
+import com.anotame.sales.domain.model.OrderPayment;
+import com.anotame.sales.infrastructure.persistence.entity.OrderImportEntity;
+import com.anotame.sales.infrastructure.persistence.repository.OrderImportRepository;
+import io.quarkus.cache.CacheInvalidateAll;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@ApplicationScoped
+@RequiredArgsConstructor
+public class OrderImportPersistenceAdapter implements OrderImportRepositoryPort {
+
+    private static final int MAX_STORED_ERRORS = 100;
+
+    private final OrderImportRepository importRepository;
+    private final DailyWorkloadRollup dailyWorkloadRollup;
+    private final PaymentDailyRollup paymentDailyRollup;
+    private final CustomerStatsRollup customerStatsRollup;
+
+    @Override
+    public Optional<OrderImportCheckpoint> findCheckpoint(UUID importId) {
+        return importRepository.findByIdOptional(importId).map(this::toCheckpoint);
+    }
+
+    @Override
+    @Transactional
+    public OrderImportCheckpoint beginImport(UUID importId, UUID userId) {
+        OffsetDateTime now = OffsetDateTime.now();
+        OrderImportEntity entity = importRepository.findById(importId, LockModeType.PESSIMISTIC_WRITE);
+        if (entity == null) {
+            entity = new OrderImportEntity();
+            entity.setId(importId);
+            entity.setCreatedBy(userId);
+            entity.setStartedAt(now);
+            entity.setUpdatedAt(now);
+            importRepository.persist(entity);
+        } else if (!"COMPLETED".equals(entity.getStatus())) {
+            entity.setStatus("RUNNING");
+            entity.setUpdatedAt(now);
+        }
+        return toCheckpoint(entity);
+    }
+
+    @Override
+    @Transactional
+    @CacheInvalidateAll(cacheName = "order-summary-facets")
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
+    public OrderImportCheckpoint commitChunk(UUID importId, UUID branchId, UUID userId, List<ImportedOrder> orders,
+                                             List<OrderImportLineError> rejected, long linesBefore, long linesAfter) {
+        OrderImportEntity entity = importRepository.findById(importId, LockModeType.PESSIMISTIC_WRITE);
+        if (entity == null) {
+            throw new SalesNotFoundException("Import not found: " + importId);
+        }
+        if (entity.getLinesCommitted() != linesBefore) {
+            throw new SalesConflictException("Import " + importId + " is being resumed by another request");
+        }
+
+        int inserted = 0;
+        List<OrderImportLineError> lineErrors = new ArrayList<>(rejected);
+        if (!orders.isEmpty()) {
+            importRepository.createStagingTables();
+            stage(orders);
+            inserted = importRepository.mergeStagedOrders(branchId, userId);
+            if (inserted > 0) {
+                dailyWorkloadRollup.addImportedOrders();
+                paymentDailyRollup.addImportedPayments();
+                customerStatsRollup.refreshImported();
+            }
+            if (inserted < orders.size()) {
+                for (Object[] row : importRepository.findConflictingStagedOrders()) {
+                    lineErrors.add(new OrderImportLineError(((Number) row[0]).longValue(),
+                            Boolean.TRUE.equals(row[2])
+                                    ? "Ticket number is in the range given to new orders: " + row[1]
+                                    : "Ticket number already exists: " + row[1]));
+                }
+                lineErrors.sort(Comparator.comparingLong(OrderImportLineError::line));
+            }
+        }
+
+        entity.setLinesCommitted(linesAfter);
+        entity.setOrdersImported(entity.getOrdersImported() + inserted);
+        entity.setLinesRejected(entity.getLinesRejected() + lineErrors.size());
+        List<Map<String, Object>> errors = new ArrayList<>(entity.getErrors());
+        for (OrderImportLineError error : lineErrors) {
+            if (errors.size() >= MAX_STORED_ERRORS) {
+                break;
+            }
+            Map<String, Object> stored = new LinkedHashMap<>();
+            stored.put("line", error.line());
+            stored.put("message", error.message());
+            errors.add(stored);
+        }
+        entity.setErrors(errors);
+        entity.setUpdatedAt(OffsetDateTime.now());
+        return toCheckpoint(entity);
+    }
+
+    @Override
+    @Transactional
+    public OrderImportCheckpoint finishImport(UUID importId, String status) {
+        OrderImportEntity entity = importRepository.findById(importId);
+        if (entity == null) {
+            throw new SalesNotFoundException("Import not found: " + importId);
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        entity.setStatus(status);
+        entity.setUpdatedAt(now);
+        if ("COMPLETED".equals(status)) {
+            entity.setFinishedAt(now);
+        }
+        return toCheckpoint(entity);
+    }
+
+    /**
+     * Writes the chunk as CSV and COPYs it into the staging tables. Ids are assigned here so
+     * items, services and payments can reference their parents without a round trip.
+     */
+    private void stage(List<ImportedOrder> orders) {
+        StringBuilder orderRows = new StringBuilder();
+        StringBuilder itemRows = new StringBuilder();
+        StringBuilder serviceRows = new StringBuilder();
+        StringBuilder paymentRows = new StringBuilder();
+
+        for (ImportedOrder imported : orders) {
+            Order order = imported.order();
+            Customer customer = order.getCustomer();
+            UUID orderId = UUID.randomUUID();
+            csvRow(orderRows, orderId, imported.line(), order.getTicketNumber(), order.getFolioBranch(),
+                    customer.getFirstName(), customer.getLastName(), customer.getPhoneNumber(), customer.getEmail(),
+                    order.getStatus(), order.getTotalAmount(), order.getAmountPaid(), order.getPaymentMethod(),
+                    order.getCommittedDeadline(), order.getDeliveredAt(), order.getPickupCode(), order.getNotes(),
+                    order.getTotalDurationMin(), order.getCreatedAt());
+
+            int itemPosition = 0;
+            int servicePosition = 0;
+            for (OrderItem item : order.getItems()) {
+                UUID itemId = UUID.randomUUID();
+                csvRow(itemRows, itemId, orderId, itemPosition++, item.getGarmentTypeId(), item.getSource(),
+                        item.getGarmentName(), item.getQuantity(), item.getUnitPrice(), item.getSubtotal(),
+                        item.getNotes());
+                for (OrderItemService service : item.getServices()) {
+                    csvRow(serviceRows, UUID.randomUUID(), itemId, servicePosition++, service.getServiceId(),
+                            service.getSource(), service.getServiceName(), service.getUnitPrice(),
+                            service.getAdjustmentAmount(), service.getAdjustmentReason(), service.getDurationMin(),
+                            service.getInstructions());
+                }
+            }
+
+            for (OrderPayment payment : imported.payments()) {
+                csvRow(paymentRows, orderId, payment.getAmount(), payment.getPaymentMethod(), payment.getNotes(),
+                        payment.getRecordedAt());
+            }
+        }
+
+        importRepository.copyIn("stg_import_order", OrderImportRepository.STAGED_ORDER_COLUMNS,
+                new StringReader(orderRows.toString()));
+        importRepository.copyIn("stg_import_item", OrderImportRepository.STAGED_ITEM_COLUMNS,
+                new StringReader(itemRows.toString()));
+        if (!serviceRows.isEmpty()) {
+            importRepository.copyIn("stg_import_service", OrderImportRepository.STAGED_SERVICE_COLUMNS,
+                    new StringReader(serviceRows.toString()));
+        }
+        if (!paymentRows.isEmpty()) {
+            importRepository.copyIn("stg_import_payment", OrderImportRepository.STAGED_PAYMENT_COLUMNS,
+                    new StringReader(paymentRows.toString()));
+        }
+    }
+
+    /**
+     * Appends one COPY CSV row. Nulls are written as unquoted empty fields (NULL in COPY csv);
+     * strings are always quoted so an empty string stays an empty string.
+     */
+    private static void csvRow(StringBuilder out, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof String s) {
+                out.append('"').append(s.replace("\"", "\"\"")).append('"');
+            } else if (value instanceof BigDecimal d) {
+                out.append(d.toPlainString());
+            } else if (value instanceof Enum<?> e) {
+                out.append(e.name());
+            } else {
+                out.append(value);
+            }
+        }
+        out.append('\n');
+    }
+
+    private OrderImportCheckpoint toCheckpoint(OrderImportEntity entity) {
+        return new OrderImportCheckpoint(
+                entity.getId(),
+                entity.getStatus(),
+                entity.getLinesCommitted(),
+                entity.getOrdersImported(),
+                entity.getLinesRejected(),
+                entity.getErrors().stream()
+                        .map(e -> new OrderImportLineError(
+                                ((Number) e.get("line")).longValue(),
+                                (String) e.get("message")))
+                        .toList(),
+                entity.getStartedAt(),
+                entity.getUpdatedAt(),
+                entity.getFinishedAt());
+    }
+}
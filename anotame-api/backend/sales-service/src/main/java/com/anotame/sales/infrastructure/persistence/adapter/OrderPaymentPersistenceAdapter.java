@@ -1,14 +1,19 @@
 package com.anotame.sales.infrastructure.persistence.adapter;
 
 import com.anotame.sales.application.port.output.OrderPaymentRepositoryPort;
+import com.anotame.sales.application.port.output.PaymentDayTotals;
 import com.anotame.sales.domain.model.OrderPayment;
 import com.anotame.sales.infrastructure.persistence.entity.OrderPaymentEntity;
 import com.anotame.sales.infrastructure.persistence.repository.OrderPaymentRepository;
+import io.quarkus.cache.CacheInvalidateAll;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,12 +22,19 @@ import java.util.UUID;
 public class OrderPaymentPersistenceAdapter implements OrderPaymentRepositoryPort {
 
     private final OrderPaymentRepository repository;
+    private final PaymentDailyRollup paymentDailyRollup;
 
     @Override
     @Transactional
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
     public OrderPayment save(OrderPayment payment) {
         OrderPaymentEntity entity = toEntity(payment);
+        if (entity.getRecordedAt() == null) {
+            entity.setRecordedAt(OffsetDateTime.now());
+        }
         repository.persist(entity);
+        paymentDailyRollup.record(entity.getOrderId(), entity.getAmount(), entity.getPaymentMethod(),
+                entity.getRecordedAt());
         return toDomain(entity);
     }
 
@@ -38,6 +50,23 @@ public class OrderPaymentPersistenceAdapter implements OrderPaymentRepositoryPor
         return repository.sumByOrderId(orderId);
     }
 
+    @Override
+    public List<PaymentDayTotals> findDailyTotals(LocalDate from, LocalDate to, UUID branchId) {
+        return paymentDailyRollup.findRange(branchId, from, to);
+    }
+
+    @Override
+    public List<YearMonth> findDailyTotalMonths() {
+        return paymentDailyRollup.months();
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
+    public void rebuildDailyTotals(YearMonth month) {
+        paymentDailyRollup.rebuildMonth(month);
+    }
+
     private OrderPaymentEntity toEntity(OrderPayment domain) {
         OrderPaymentEntity entity = new OrderPaymentEntity();
         entity.setId(domain.getId());
@@ -1,16 +1,37 @@
 package com.anotame.sales.infrastructure.persistence.adapter;
 
+import com.anotame.sales.application.dto.CustomerDto;
+import com.anotame.sales.application.dto.OrderItemResponse;
+import com.anotame.sales.application.dto.OrderItemServiceDto;
+import com.anotame.sales.application.dto.OrderResponse;
+import com.anotame.sales.application.port.output.CustomerOrderCursor;
+import com.anotame.sales.application.port.output.DashboardSnapshot;
+import com.anotame.sales.application.port.output.DashboardWindow;
+import com.anotame.sales.application.port.output.OrderCommandState;
+import com.anotame.sales.application.port.output.OrderPaymentTotals;
 import com.anotame.sales.application.port.output.OrderRepositoryPort;
+import com.anotame.sales.application.port.output.OrderSummaryCount;
 import com.anotame.sales.application.port.output.OrderSummaryCriteria;
+import com.anotame.sales.application.port.output.OrderSummaryCursor;
+import com.anotame.sales.application.port.output.OrderSummaryFacetCount;
 import com.anotame.sales.application.port.output.OrderSummaryProjection;
 import com.anotame.sales.application.port.output.OrderSummaryResult;
+import com.anotame.sales.application.port.output.OrderSummarySlice;
+import com.anotame.sales.application.port.output.PaymentDayTotals;
+import com.anotame.sales.application.port.output.StageDurationBucket;
+import com.anotame.sales.domain.model.Customer;
 import com.anotame.sales.domain.model.Order;
+import com.anotame.sales.domain.model.OrderContentSource;
 import com.anotame.sales.domain.model.OrderItem;
+import com.anotame.sales.domain.model.OrderItemService;
 import com.anotame.sales.infrastructure.persistence.entity.CustomerEntity;
 import com.anotame.sales.infrastructure.persistence.entity.OrderEntity;
 import com.anotame.sales.infrastructure.persistence.entity.OrderItemEntity;
-import com.anotame.sales.infrastructure.persistence.repository.CustomerRepository;
+import com.anotame.sales.infrastructure.persistence.entity.OrderItemServiceEntity;
 import com.anotame.sales.infrastructure.persistence.repository.OrderRepository;
+import io.quarkus.cache.CacheInvalidateAll;
+import io.quarkus.cache.CacheResult;
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
@@ -18,25 +39,54 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @ApplicationScoped
 @RequiredArgsConstructor
 public class OrderPersistenceAdapter implements OrderRepositoryPort {
 
+    private static final String SUMMARY_SELECT =
+            "select o.id, o.ticketNumber, o.customerSnapshot, " +
+                    "o.committedDeadline, o.status, o.totalAmount, o.amountPaid, o.totalDurationMin, " +
+                    "o.createdAt, o.deliveredAt, o.garmentNames, o.serviceNames";
+    private static final String SUMMARY_ORDER_BY = " order by o.createdAt desc, o.ticketNumber desc";
+    // Free-text search in page mode is relevance-ranked and bounded to the best SEARCH_TOP_K matches.
+    private static final String SEARCH_ORDER_BY =
+            " order by function('word_similarity', :searchTerm, o.searchDocument) desc, " +
+                    "o.createdAt desc, o.ticketNumber desc";
+    private static final int SEARCH_TOP_K = 200;
+    // A concurrent refresh re-runs the view queries over the whole history; the default 60s is too short.
+    private static final int KPI_REFRESH_TIMEOUT_SECONDS = 900;
+    // Typo fallback (e.g. "pantlon" -> "pantalon") only kicks in when no document contains the term.
+    private static final int FUZZY_MIN_TERM_LENGTH = 3;
+    private static final String FUZZY_WORD_SIMILARITY_THRESHOLD = "0.4";
+
     private final OrderRepository orderRepository;
-    private final CustomerRepository customerRepository;
     private final EntityManager em;
+    private final TicketNumberAllocator ticketNumberAllocator;
+    private final DailyWorkloadRollup dailyWorkloadRollup;
+    private final PaymentDailyRollup paymentDailyRollup;
+    private final CustomerStatsRollup customerStatsRollup;
+    private final OrderStageRollup orderStageRollup;
 
     @Override
     @Transactional
+    @CacheInvalidateAll(cacheName = "order-summary-facets")
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
     public Order save(Order order) {
         OrderEntity entity;
         if (order.getId() != null) {
@@ -47,6 +97,8 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
         } else {
             entity = new OrderEntity();
         }
+        DailyWorkloadRollup.Slot workloadBefore = entity.getId() != null ? workloadSlot(entity) : null;
+        UUID customerBefore = entity.getCustomer() != null ? entity.getCustomer().getId() : null;
 
         entity.setTicketNumber(order.getTicketNumber());
         entity.setFolioBranch(order.getFolioBranch());
@@ -66,50 +118,94 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
         entity.setPriceListId(order.getPriceListId());
         entity.setPriceListName(order.getPriceListName());
 
-        entity.getItems().clear();
-        if (order.getItems() != null) {
-            for (OrderItem item : order.getItems()) {
-                OrderItemEntity ie = new OrderItemEntity();
-                ie.setGarmentTypeId(item.getGarmentTypeId());
-                ie.setSource(item.getSource());
-                ie.setGarmentName(item.getGarmentName());
-                ie.setQuantity(item.getQuantity());
-                ie.setUnitPrice(item.getUnitPrice());
-                ie.setSubtotal(item.getSubtotal());
-                ie.setNotes(item.getNotes());
-
-                if (item.getServices() != null) {
-                    for (com.anotame.sales.domain.model.OrderItemService service : item.getServices()) {
-                        com.anotame.sales.infrastructure.persistence.entity.OrderItemServiceEntity se = new com.anotame.sales.infrastructure.persistence.entity.OrderItemServiceEntity();
-                        se.setServiceId(service.getServiceId());
-                        se.setSource(service.getSource());
-                        se.setServiceName(service.getServiceName());
-                        se.setUnitPrice(service.getUnitPrice());
-                        se.setAdjustmentAmount(service.getAdjustmentAmount());
-                        se.setAdjustmentReason(service.getAdjustmentReason());
-                        se.setDurationMin(service.getDurationMin());
-                        se.setInstructions(service.getInstructions());
-                        se.setOrderItem(ie);
-                        ie.getServices().add(se);
-                    }
-                }
-
-                entity.addItem(ie);
-                ie.setOrder(entity);
-            }
-        }
+        reconcileItems(entity, order.getItems() != null ? order.getItems() : List.of());
 
         if (order.getCustomer() != null && order.getCustomer().getId() != null) {
-            CustomerEntity customerEntity = customerRepository.findById(order.getCustomer().getId());
-            if (customerEntity != null) {
-                entity.setCustomer(customerEntity);
+            UUID customerId = order.getCustomer().getId();
+            if (entity.getCustomer() == null || !customerId.equals(entity.getCustomer().getId())) {
+                // A reference is enough for the FK; the snapshot below comes from the domain customer.
+                entity.setCustomer(em.getReference(CustomerEntity.class, customerId));
             }
         }
+        refreshSummaryReadModel(entity, order.getCustomer());
 
         orderRepository.persist(entity);
+        dailyWorkloadRollup.move(workloadBefore, workloadSlot(entity));
+        // The statistics and the search document are computed from the tables, so the order and
+        // its items must be there first.
+        orderRepository.flush();
+        orderRepository.refreshSearchDocument(entity.getId());
+        customerStatsRollup.refresh(Arrays.asList(customerBefore,
+                entity.getCustomer() != null ? entity.getCustomer().getId() : null));
         return toDomain(entity);
     }
 
+    /**
+     * Applies the domain item list onto the managed collection instead of rebuilding it:
+     * items carrying the id of an existing row update that row in place, items without one
+     * (or with an unknown one) are inserted, and rows no item refers to are deleted.
+     * Unchanged rows produce no SQL at all thanks to dirty checking.
+     */
+    private void reconcileItems(OrderEntity entity, List<OrderItem> items) {
+        Map<UUID, OrderItemEntity> existingById = new HashMap<>();
+        for (OrderItemEntity existing : entity.getItems()) {
+            existingById.put(existing.getId(), existing);
+        }
+
+        Set<OrderItemEntity> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<OrderItemEntity> added = new ArrayList<>();
+        for (OrderItem item : items) {
+            OrderItemEntity ie = item.getId() != null ? existingById.remove(item.getId()) : null;
+            if (ie == null) {
+                ie = new OrderItemEntity();
+                added.add(ie);
+            }
+            ie.setGarmentTypeId(item.getGarmentTypeId());
+            ie.setSource(item.getSource());
+            ie.setGarmentName(item.getGarmentName());
+            ie.setQuantity(item.getQuantity());
+            ie.setUnitPrice(item.getUnitPrice());
+            ie.setSubtotal(item.getSubtotal());
+            ie.setNotes(item.getNotes());
+            reconcileServices(ie, item.getServices() != null ? item.getServices() : List.of());
+            kept.add(ie);
+        }
+
+        // Whatever is left was removed from the order: orphanRemoval soft-deletes it via @SQLDelete.
+        entity.getItems().removeIf(existing -> !kept.contains(existing));
+        added.forEach(entity::addItem);
+    }
+
+    private void reconcileServices(OrderItemEntity item, List<OrderItemService> services) {
+        Map<UUID, OrderItemServiceEntity> existingById = new HashMap<>();
+        for (OrderItemServiceEntity existing : item.getServices()) {
+            existingById.put(existing.getId(), existing);
+        }
+
+        Set<OrderItemServiceEntity> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<OrderItemServiceEntity> added = new ArrayList<>();
+        for (OrderItemService service : services) {
+            OrderItemServiceEntity se = service.getId() != null ? existingById.remove(service.getId()) : null;
+            if (se == null) {
+                se = new OrderItemServiceEntity();
+                se.setOrderItem(item);
+                added.add(se);
+            }
+            se.setServiceId(service.getServiceId());
+            se.setSource(service.getSource());
+            se.setServiceName(service.getServiceName());
+            se.setUnitPrice(service.getUnitPrice());
+            se.setAdjustmentAmount(service.getAdjustmentAmount());
+            se.setAdjustmentReason(service.getAdjustmentReason());
+            se.setDurationMin(service.getDurationMin());
+            se.setInstructions(service.getInstructions());
+            kept.add(se);
+        }
+
+        item.getServices().removeIf(existing -> !kept.contains(existing));
+        item.getServices().addAll(added);
+    }
+
     @Override
     public List<Order> findAll() {
         return orderRepository.listAll().stream().map(this::toDomain).toList();
@@ -117,54 +213,253 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
 
     @Override
     public OrderSummaryResult findSummaries(int page, int size, OrderSummaryCriteria criteria) {
-        String fromClause = buildSummaryFromClause(criteria);
+        List<UUID> fuzzyMatches = findFuzzySearchMatches(criteria);
+        String fromClause = buildSummaryFromClause(criteria, null, fuzzyMatches);
+        boolean ranked = isFreeTextSearch(criteria);
 
         Query countQuery = em.createQuery("select count(o.id)" + fromClause);
-        bindSummaryParameters(countQuery, criteria);
+        bindSummaryParameters(countQuery, criteria, null, fuzzyMatches);
         long total = ((Number) countQuery.getSingleResult()).longValue();
+        if (ranked) {
+            total = Math.min(total, SEARCH_TOP_K);
+        }
+
+        int first = page * size;
+        if (first >= total) {
+            return new OrderSummaryResult(List.of(), total);
+        }
 
         var dataQuery = em.createQuery(
-                "select o.id, o.ticketNumber, c.id, c.firstName, c.lastName, c.email, c.phoneNumber, " +
-                        "o.committedDeadline, o.status, o.totalAmount, o.amountPaid, o.totalDurationMin, " +
-                        "o.createdAt, o.deliveredAt" +
-                        fromClause +
-                        " order by o.createdAt desc, o.ticketNumber desc",
+                SUMMARY_SELECT + fromClause + (ranked ? SEARCH_ORDER_BY : SUMMARY_ORDER_BY),
                 Object[].class);
-        bindSummaryParameters(dataQuery, criteria);
-        dataQuery.setFirstResult(page * size);
-        dataQuery.setMaxResults(size);
+        bindSummaryParameters(dataQuery, criteria, null, fuzzyMatches);
+        if (ranked) {
+            dataQuery.setParameter("searchTerm", SearchText.normalize(criteria.search()));
+        }
+        dataQuery.setFirstResult(first);
+        dataQuery.setMaxResults(ranked ? (int) Math.min(size, total - first) : size);
+
+        return new OrderSummaryResult(toSummaryProjections(dataQuery.getResultList()), total);
+    }
+
+    @Override
+    public OrderSummarySlice findSummariesAfter(OrderSummaryCursor after, int size, OrderSummaryCriteria criteria) {
+        // Keyset pages keep the (createdAt, ticketNumber) order even when searching; relevance
+        // ranking is only offered by the bounded page mode.
+        List<UUID> fuzzyMatches = findFuzzySearchMatches(criteria);
+        var dataQuery = em.createQuery(
+                SUMMARY_SELECT + buildSummaryFromClause(criteria, after, fuzzyMatches) + SUMMARY_ORDER_BY,
+                Object[].class);
+        bindSummaryParameters(dataQuery, criteria, after, fuzzyMatches);
+        // One extra row tells us whether another page exists without a count query.
+        dataQuery.setMaxResults(size + 1);
 
         var rows = dataQuery.getResultList();
-        List<UUID> orderIds = new ArrayList<>(rows.size());
-        for (var row : rows) {
-            orderIds.add((UUID) row[0]);
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        return new OrderSummarySlice(toSummaryProjections(rows), hasMore);
+    }
+
+    @Override
+    public OrderSummarySlice findCustomerOrdersAfter(UUID customerId, CustomerOrderCursor after, int size) {
+        // Expanded row comparison (createdAt, id) < (:cursorCreatedAt, :cursorOrderId), served by
+        // idx_order_customer_history.
+        var dataQuery = em.createQuery(
+                SUMMARY_SELECT + " from OrderEntity o where o.customer.id = :customerId" +
+                        (after != null
+                                ? " and (o.createdAt < :cursorCreatedAt or " +
+                                "(o.createdAt = :cursorCreatedAt and o.id < :cursorOrderId))"
+                                : "") +
+                        " order by o.createdAt desc, o.id desc",
+                Object[].class)
+                .setParameter("customerId", customerId);
+        if (after != null) {
+            dataQuery.setParameter("cursorCreatedAt", after.createdAt());
+            dataQuery.setParameter("cursorOrderId", after.orderId());
+        }
+        dataQuery.setMaxResults(size + 1);
+
+        var rows = dataQuery.getResultList();
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        return new OrderSummarySlice(toSummaryProjections(rows), hasMore);
+    }
+
+    @Override
+    public OrderSummaryCount countSummaries(OrderSummaryCriteria criteria, boolean allowEstimate) {
+        if (allowEstimate && !hasSummaryPredicates(criteria)) {
+            // Unfiltered listing: reltuples is maintained by autovacuum/ANALYZE and costs nothing to read.
+            // It is -1 until the table has been analyzed once, in which case fall through to the exact count.
+            long estimate = ((Number) em.createNativeQuery(
+                    "SELECT reltuples::bigint FROM pg_class WHERE oid = 'tco_order'::regclass")
+                    .getSingleResult()).longValue();
+            if (estimate >= 0) {
+                return new OrderSummaryCount(estimate, true);
+            }
+        }
+
+        List<UUID> fuzzyMatches = findFuzzySearchMatches(criteria);
+        Query countQuery = em.createQuery("select count(o.id)" + buildSummaryFromClause(criteria, null, fuzzyMatches));
+        bindSummaryParameters(countQuery, criteria, null, fuzzyMatches);
+        return new OrderSummaryCount(((Number) countQuery.getSingleResult()).longValue(), false);
+    }
+
+    @Override
+    @CacheResult(cacheName = "order-summary-facets")
+    @SuppressWarnings("unchecked")
+    public List<OrderSummaryFacetCount> countSummaryFacets(OrderSummaryCriteria criteria) {
+        Map<String, Object> parameters = new HashMap<>();
+        String where = buildSummaryNativeWhere(criteria, findFuzzySearchMatches(criteria), parameters);
+
+        // The status facet ignores the status filter, so the other chips keep their counts once
+        // one is selected; every other facet and the total honour it through the FILTER.
+        boolean byStatuses = criteria.statuses() != null && !criteria.statuses().isEmpty();
+        String statusFilter = byStatuses ? " FILTER (WHERE o.status IN (:statuses))" : "";
+
+        // Items are joined so garment facets can be counted; DISTINCT keeps multi-garment orders at 1.
+        Query query = em.createNativeQuery(
+                "SELECT GROUPING(o.status), GROUPING(oi.id_garment_type), GROUPING(oi.garment_source), " +
+                        "o.status, oi.id_garment_type, oi.garment_source, MIN(oi.garment_name), " +
+                        "CASE WHEN GROUPING(o.status) = 0 THEN COUNT(DISTINCT o.id_order) " +
+                        "ELSE COUNT(DISTINCT o.id_order)" + statusFilter + " END " +
+                        "FROM tco_order o " +
+                        "LEFT JOIN tco_order_item oi ON oi.id_order = o.id_order AND oi.is_deleted = FALSE " +
+                        where +
+                        " GROUP BY GROUPING SETS ((o.status), (oi.id_garment_type), (oi.garment_source), ())");
+        parameters.forEach(query::setParameter);
+        if (byStatuses) {
+            query.setParameter("statuses", criteria.statuses());
+        }
+
+        List<OrderSummaryFacetCount> facets = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            boolean byStatus = ((Number) row[0]).intValue() == 0;
+            boolean byGarmentType = ((Number) row[1]).intValue() == 0;
+            boolean bySource = ((Number) row[2]).intValue() == 0;
+            long count = ((Number) row[7]).longValue();
+            if (byStatus) {
+                facets.add(new OrderSummaryFacetCount("STATUS", (String) row[3], null, count));
+            } else if (byGarmentType) {
+                // Custom garments have no garment type id and cannot be filtered by one.
+                if (row[4] != null) {
+                    facets.add(new OrderSummaryFacetCount("GARMENT_TYPE", row[4].toString(), (String) row[6], count));
+                }
+            } else if (bySource) {
+                if (row[5] != null) {
+                    facets.add(new OrderSummaryFacetCount("GARMENT_SOURCE", (String) row[5], null, count));
+                }
+            } else {
+                facets.add(new OrderSummaryFacetCount("TOTAL", null, null, count));
+            }
+        }
+        return List.copyOf(facets);
+    }
+
+    private boolean isFreeTextSearch(OrderSummaryCriteria criteria) {
+        return criteria.exactTicketNumber() == null && criteria.search() != null;
+    }
+
+    /**
+     * Returns null when the search term is served by the substring (LIKE) path. Otherwise, i.e. when
+     * nothing contains the term verbatim, returns the ids of the best word-similarity matches so
+     * misspellings still find their order. Both probes are served by idx_order_search_document_trgm.
+     */
+    @SuppressWarnings("unchecked")
+    private List<UUID> findFuzzySearchMatches(OrderSummaryCriteria criteria) {
+        if (!isFreeTextSearch(criteria)) {
+            return null;
+        }
+        String term = SearchText.normalize(criteria.search());
+        if (term.length() < FUZZY_MIN_TERM_LENGTH) {
+            return null;
+        }
+        boolean hasSubstringMatch = !em.createNativeQuery(
+                "SELECT 1 FROM tco_order WHERE is_deleted = FALSE AND search_document LIKE :pattern LIMIT 1")
+                .setParameter("pattern", "%" + term + "%")
+                .getResultList()
+                .isEmpty();
+        if (hasSubstringMatch) {
+            return null;
         }
-        Map<UUID, List<String>> garmentNames = findGarmentNames(orderIds);
-        Map<UUID, List<String>> serviceNames = findServiceNames(orderIds);
 
+        // Transaction-local: lowers the <% cut-off for this search only.
+        em.createNativeQuery("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)")
+                .setParameter("threshold", FUZZY_WORD_SIMILARITY_THRESHOLD)
+                .getSingleResult();
+        List<Object> ids = em.createNativeQuery(
+                "SELECT id_order FROM tco_order " +
+                        "WHERE is_deleted = FALSE AND :term <% search_document " +
+                        "ORDER BY word_similarity(:term, search_document) DESC, created_at DESC " +
+                        "LIMIT :limit")
+                .setParameter("term", term)
+                .setParameter("limit", SEARCH_TOP_K)
+                .getResultList();
+        return ids.stream().map(id -> (UUID) id).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OrderSummaryProjection> toSummaryProjections(List<Object[]> rows) {
         List<OrderSummaryProjection> items = new ArrayList<>(rows.size());
         for (var row : rows) {
-            UUID orderId = (UUID) row[0];
+            Map<String, Object> customer = row[2] != null ? (Map<String, Object>) row[2] : Map.of();
+            Object customerId = customer.get("id");
             items.add(new OrderSummaryProjection(
-                    orderId,
+                    (UUID) row[0],
                     (String) row[1],
-                    (UUID) row[2],
-                    (String) row[3],
+                    customerId != null ? UUID.fromString(customerId.toString()) : null,
+                    (String) customer.get("firstName"),
+                    (String) customer.get("lastName"),
+                    (String) customer.get("email"),
+                    (String) customer.get("phoneNumber"),
+                    (OffsetDateTime) row[3],
                     (String) row[4],
-                    (String) row[5],
-                    (String) row[6],
-                    (OffsetDateTime) row[7],
-                    (String) row[8],
-                    (BigDecimal) row[9],
-                    (BigDecimal) row[10],
-                    (Integer) row[11],
-                    (OffsetDateTime) row[12],
-                    (OffsetDateTime) row[13],
-                    garmentNames.getOrDefault(orderId, List.of()),
-                    serviceNames.getOrDefault(orderId, List.of())));
+                    (BigDecimal) row[5],
+                    (BigDecimal) row[6],
+                    (Integer) row[7],
+                    (OffsetDateTime) row[8],
+                    (OffsetDateTime) row[9],
+                    row[10] != null ? (List<String>) row[10] : List.of(),
+                    row[11] != null ? (List<String>) row[11] : List.of()));
         }
+        return items;
+    }
 
-        return new OrderSummaryResult(items, total);
+    /**
+     * Denormalizes what the order listing shows (customer contact, garment and service names)
+     * onto the order row itself. Must run after items have been reconciled.
+     */
+    private void refreshSummaryReadModel(OrderEntity entity, Customer customer) {
+        if (customer != null && customer.getId() != null) {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("id", customer.getId().toString());
+            snapshot.put("firstName", customer.getFirstName());
+            snapshot.put("lastName", customer.getLastName());
+            snapshot.put("email", customer.getEmail());
+            snapshot.put("phoneNumber", customer.getPhoneNumber());
+            entity.setCustomerSnapshot(snapshot);
+        }
+
+        List<String> garmentNames = new ArrayList<>();
+        List<String> serviceNames = new ArrayList<>();
+        for (OrderItemEntity item : entity.getItems()) {
+            if (item.isDeleted()) {
+                continue;
+            }
+            if (item.getGarmentName() != null && !item.getGarmentName().isBlank()) {
+                garmentNames.add(item.getGarmentName());
+            }
+            for (var service : item.getServices()) {
+                if (service.getServiceName() != null && !service.getServiceName().isBlank()) {
+                    serviceNames.add(service.getServiceName());
+                }
+            }
+        }
+        entity.setGarmentNames(garmentNames);
+        entity.setServiceNames(serviceNames);
     }
 
     @Override
@@ -172,83 +467,305 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
         return orderRepository.findByIdOptional(id).map(this::toDomain);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<OrderResponse> findDetailById(UUID id) {
+        List<Object[]> rows = em.createQuery(
+                "select o.id, o.ticketNumber, o.customerSnapshot, o.committedDeadline, o.status, " +
+                        "o.totalAmount, o.amountPaid, o.paymentMethod, o.notes, o.createdAt, " +
+                        "o.totalDurationMin, o.pickupCode, o.deliveredAt, o.priceListId, o.priceListName, " +
+                        "i.id, i.garmentTypeId, i.source, i.garmentName, i.quantity, i.unitPrice, " +
+                        "i.subtotal, i.notes, " +
+                        "s.id, s.serviceId, s.source, s.serviceName, s.unitPrice, s.adjustmentAmount, " +
+                        "s.adjustmentReason, s.durationMin, s.instructions " +
+                        "from OrderEntity o left join o.items i left join i.services s " +
+                        "where o.id = :id " +
+                        "order by i.createdAt, i.id, s.createdAt, s.id",
+                Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] head = rows.get(0);
+        Map<String, Object> snapshot = head[2] != null ? (Map<String, Object>) head[2] : Map.of();
+        Object customerId = snapshot.get("id");
+        CustomerDto customer = new CustomerDto();
+        customer.setId(customerId != null ? UUID.fromString(customerId.toString()) : null);
+        customer.setFirstName((String) snapshot.get("firstName"));
+        customer.setLastName((String) snapshot.get("lastName"));
+        customer.setEmail((String) snapshot.get("email"));
+        customer.setPhoneNumber((String) snapshot.get("phoneNumber"));
+
+        Map<UUID, OrderItemResponse> items = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            UUID itemId = (UUID) row[15];
+            if (itemId == null) {
+                continue;
+            }
+            OrderItemResponse item = items.computeIfAbsent(itemId, ignored -> OrderItemResponse.builder()
+                    .id(itemId)
+                    .garmentTypeId((UUID) row[16])
+                    .source((OrderContentSource) row[17])
+                    .garmentName((String) row[18])
+                    .quantity((Integer) row[19])
+                    .unitPrice((BigDecimal) row[20])
+                    .subtotal((BigDecimal) row[21])
+                    .notes((String) row[22])
+                    .services(new ArrayList<>())
+                    .build());
+            if (row[23] != null) {
+                OrderItemServiceDto service = new OrderItemServiceDto();
+                service.setId((UUID) row[23]);
+                service.setServiceId((UUID) row[24]);
+                service.setSource((OrderContentSource) row[25]);
+                service.setServiceName((String) row[26]);
+                service.setUnitPrice((BigDecimal) row[27]);
+                service.setAdjustmentAmount((BigDecimal) row[28]);
+                service.setAdjustmentReason((String) row[29]);
+                service.setDurationMin((Integer) row[30]);
+                service.setInstructions((String) row[31]);
+                item.getServices().add(service);
+            }
+        }
+
+        return Optional.of(OrderResponse.builder()
+                .id((UUID) head[0])
+                .ticketNumber((String) head[1])
+                .customer(customer)
+                .committedDeadline((OffsetDateTime) head[3])
+                .status((String) head[4])
+                .totalAmount((BigDecimal) head[5])
+                .amountPaid((BigDecimal) head[6])
+                .paymentMethod((String) head[7])
+                .notes((String) head[8])
+                .createdAt((OffsetDateTime) head[9])
+                .totalDurationMin((Integer) head[10])
+                .pickupCode((String) head[11])
+                .deliveredAt((OffsetDateTime) head[12])
+                .priceListId((UUID) head[13])
+                .priceListName((String) head[14])
+                .items(new ArrayList<>(items.values()))
+                .build());
+    }
+
     @Override
     @Transactional
+    @CacheInvalidateAll(cacheName = "order-summary-facets")
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
     public void delete(UUID id) {
-        orderRepository.deleteById(id);
+        OrderEntity entity = orderRepository.findById(id);
+        if (entity == null) {
+            return;
+        }
+        dailyWorkloadRollup.move(workloadSlot(entity), null);
+        orderRepository.delete(entity);
+        orderRepository.flush();
+        customerStatsRollup.refresh(List.of(entity.getCustomer().getId()));
     }
 
     @Override
-    public long countActiveByDeadlineRange(java.time.OffsetDateTime start, java.time.OffsetDateTime end) {
-        return orderRepository.countActiveByDeadlineRange(start, end);
+    public Optional<OrderCommandState> findCommandState(UUID id) {
+        Object[] row = orderRepository.findCommandState(id);
+        if (row == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new OrderCommandState(
+                (String) row[0],
+                (String) row[1],
+                (BigDecimal) row[2],
+                (BigDecimal) row[3],
+                (String) row[4]));
     }
 
     @Override
-    public long countActiveFromDeadline(java.time.OffsetDateTime start) {
-        return orderRepository.countActiveFromDeadline(start);
+    @Transactional
+    @CacheInvalidateAll(cacheName = "order-summary-facets")
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
+    public Optional<String> updateStatus(UUID id, String status, Set<String> allowedFrom, UUID userId,
+                                         OffsetDateTime updatedAt) {
+        Object[] row = orderRepository.updateStatus(id, status, allowedFrom, updatedAt);
+        if (row == null) {
+            return Optional.empty();
+        }
+        orderStageRollup.record(id, (String) row[0], status, userId, updatedAt);
+        UUID branchId = (UUID) row[1];
+        OffsetDateTime deadline = (OffsetDateTime) row[2];
+        Integer minutes = (Integer) row[3];
+        BigDecimal total = (BigDecimal) row[4];
+        dailyWorkloadRollup.move(
+                dailyWorkloadRollup.slotOf(branchId, (String) row[0], deadline, minutes, total),
+                dailyWorkloadRollup.slotOf(branchId, status, deadline, minutes, total));
+        if ("CANCELLED".equals(row[0]) != "CANCELLED".equals(status)) {
+            // Cancelled orders do not count towards the customer's open balance.
+            customerStatsRollup.refreshForOrder(id);
+        }
+        return Optional.of((String) row[0]);
     }
 
     @Override
-    public long countByStatusNotIn(java.util.List<String> excludedStatuses) {
-        return orderRepository.countByStatusNotIn(excludedStatuses);
+    @Transactional
+    @CacheInvalidateAll(cacheName = "order-summary-facets")
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
+    public boolean markDelivered(UUID id, UUID userId, OffsetDateTime deliveredAt) {
+        Object[] row = orderRepository.markDelivered(id, deliveredAt);
+        if (row == null) {
+            return false;
+        }
+        orderStageRollup.record(id, "READY", "DELIVERED", userId, deliveredAt);
+        dailyWorkloadRollup.move(dailyWorkloadRollup.slotOf(
+                (UUID) row[0], "READY", (OffsetDateTime) row[1], (Integer) row[2], (BigDecimal) row[3]), null);
+        return true;
+    }
+
+    private DailyWorkloadRollup.Slot workloadSlot(OrderEntity entity) {
+        return dailyWorkloadRollup.slotOf(entity.getBranchId(), entity.getStatus(), entity.getCommittedDeadline(),
+                entity.getTotalDurationMin(), entity.getTotalAmount());
     }
 
     @Override
-    public long countByStatus(String status) {
-        return orderRepository.countByStatus(status);
+    @Transactional
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
+    public Optional<OrderPaymentTotals> applyPayment(UUID id, BigDecimal amount, OffsetDateTime updatedAt) {
+        Object[] row = orderRepository.applyPayment(id, amount, updatedAt);
+        if (row == null) {
+            return Optional.empty();
+        }
+        customerStatsRollup.refreshForOrder(id);
+        return Optional.of(new OrderPaymentTotals((BigDecimal) row[0], (BigDecimal) row[1]));
     }
 
     @Override
-    public java.math.BigDecimal sumPaidAmountInRange(java.time.OffsetDateTime start, java.time.OffsetDateTime end) {
-        return orderRepository.sumPaidAmountInRange(start, end);
+    @CacheResult(cacheName = "dashboard-snapshot")
+    public DashboardSnapshot loadDashboardSnapshot(DashboardWindow window) {
+        LocalDate today = window.today();
+
+        // Every counter is a FILTER over the same rows, so the order table is read once.
+        StringBuilder sql = new StringBuilder(
+                "SELECT " +
+                        "COUNT(*) FILTER (WHERE status NOT IN ('DELIVERED', 'CANCELLED') " +
+                        "AND committed_deadline >= :startOfDay AND committed_deadline < :startOfTomorrow), " +
+                        "COUNT(*) FILTER (WHERE status NOT IN ('DELIVERED', 'CANCELLED') " +
+                        "AND committed_deadline >= :startOfTomorrow), " +
+                        "COUNT(*) FILTER (WHERE status = 'READY'), " +
+                        "COUNT(*) FILTER (WHERE status NOT IN ('READY', 'DELIVERED', 'CANCELLED')), " +
+                        "SUM(total_amount - amount_paid) FILTER (WHERE status NOT IN ('DELIVERED', 'CANCELLED') " +
+                        "AND total_amount > amount_paid) " +
+                        "FROM tco_order WHERE is_deleted = FALSE");
+        if (window.branchId() != null) {
+            sql.append(" AND id_branch = :branchId");
+        }
+        Query query = em.createNativeQuery(sql.toString())
+                .setParameter("startOfDay", window.startOf(today))
+                .setParameter("startOfTomorrow", window.startOf(today.plusDays(1)));
+        if (window.branchId() != null) {
+            query.setParameter("branchId", window.branchId());
+        }
+        Object[] row = (Object[]) query.getSingleResult();
+
+        // Revenue is money recorded in the ledger, read from the payment rollup by local day.
+        LocalDate monthStart = window.month().atDay(1);
+        LocalDate monthEnd = window.month().plusMonths(1).atDay(1);
+        LocalDate firstRevenueDay = window.firstRevenueDay();
+        LocalDate tomorrow = today.plusDays(1);
+        Map<LocalDate, BigDecimal> revenueByDay = new HashMap<>();
+        for (PaymentDayTotals totals : paymentDailyRollup.findRange(window.branchId(),
+                firstRevenueDay.isBefore(monthStart) ? firstRevenueDay : monthStart,
+                tomorrow.isAfter(monthEnd) ? tomorrow : monthEnd)) {
+            revenueByDay.merge(totals.day(), totals.net(), BigDecimal::add);
+        }
+        List<BigDecimal> dailyRevenue = new ArrayList<>(DashboardWindow.REVENUE_DAYS);
+        for (int i = 0; i < DashboardWindow.REVENUE_DAYS; i++) {
+            dailyRevenue.add(revenueByDay.getOrDefault(firstRevenueDay.plusDays(i), BigDecimal.ZERO));
+        }
+        BigDecimal monthlyRevenue = revenueByDay.entrySet().stream()
+                .filter(day -> !day.getKey().isBefore(monthStart) && day.getKey().isBefore(monthEnd))
+                .map(Map.Entry::getValue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // The workload series is an indexed read of at most WORKLOAD_DAYS rollup rows.
+        Map<Object, Long> minutesByDay = new HashMap<>();
+        for (Object[] day : dailyWorkloadRollup.findRange(window.branchId(), today,
+                today.plusDays(DashboardWindow.WORKLOAD_DAYS))) {
+            minutesByDay.put(day[0], ((Number) day[1]).longValue());
+        }
+        List<Long> dailyWorkloadMinutes = new ArrayList<>(DashboardWindow.WORKLOAD_DAYS);
+        for (int i = 0; i < DashboardWindow.WORKLOAD_DAYS; i++) {
+            dailyWorkloadMinutes.add(minutesByDay.getOrDefault(today.plusDays(i), 0L));
+        }
+        return new DashboardSnapshot(
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue(),
+                revenueByDay.getOrDefault(today, BigDecimal.ZERO),
+                monthlyRevenue,
+                amountOrZero(row[4]),
+                dailyRevenue,
+                dailyWorkloadMinutes);
+    }
+
+    private static BigDecimal amountOrZero(Object value) {
+        return value != null ? (BigDecimal) value : BigDecimal.ZERO;
     }
 
     @Override
-    public java.math.BigDecimal sumPendingDebt() {
-        return orderRepository.sumPendingDebt();
+    public String nextTicketNumber() {
+        return String.format("ORD-%05d", ticketNumberAllocator.next());
     }
 
     @Override
-    public java.util.List<Object[]> getWeeklyRevenueData(java.time.OffsetDateTime start, String zoneId) {
-        return orderRepository.getWeeklyRevenueData(start, zoneId);
+    public java.util.List<Object[]> getServiceTypeRevenue(LocalDate from, LocalDate to) {
+        return orderRepository.getServiceTypeRevenue(from, to);
     }
 
     @Override
-    public java.util.List<Object[]> getDailyWorkload(java.time.OffsetDateTime start, java.time.OffsetDateTime end,
-            String zoneId) {
-        return orderRepository.getDailyWorkload(start, end, zoneId);
+    public java.util.List<Object[]> getTopCustomers(LocalDate from, LocalDate to, int limit) {
+        return orderRepository.getTopCustomers(from, to, limit);
     }
 
     @Override
-    public String nextTicketNumber() {
-        Long next = ((Number) em.createNativeQuery(
-                "SELECT nextval('tco_ticket_number_seq')").getSingleResult()).longValue();
-        return String.format("ORD-%05d", next);
+    @Transactional
+    @TransactionConfiguration(timeout = KPI_REFRESH_TIMEOUT_SECONDS)
+    public boolean refreshKpiViews() {
+        return orderRepository.refreshKpiViews();
     }
 
     @Override
-    public java.util.List<Object[]> getRevenueTimeSeries(java.time.OffsetDateTime start, String granularity, String zoneId) {
-        return orderRepository.getRevenueTimeSeries(start, granularity, zoneId);
+    public OffsetDateTime findKpiViewsRefreshedAt() {
+        return orderRepository.findKpiViewsRefreshedAt();
     }
 
     @Override
-    public java.util.List<Object[]> getServiceTypeRevenue(java.time.OffsetDateTime start, java.time.OffsetDateTime end) {
-        return orderRepository.getServiceTypeRevenue(start, end);
+    public void restrictToReadOnly(Duration statementTimeout) {
+        em.createNativeQuery("SET TRANSACTION READ ONLY").executeUpdate();
+        // Local to the transaction, so the pooled connection goes back without it.
+        em.createNativeQuery("SELECT set_config('statement_timeout', :timeout, true)")
+                .setParameter("timeout", Math.max(1, statementTimeout.toMillis()) + "ms")
+                .getSingleResult();
     }
 
     @Override
-    public java.util.List<Object[]> getTopCustomers(java.time.OffsetDateTime start, java.time.OffsetDateTime end, int limit) {
-        return orderRepository.getTopCustomers(start, end, limit);
+    public List<StageDurationBucket> findStageDurations(LocalDate from, LocalDate to, UUID branchId, String groupBy) {
+        return orderStageRollup.findBuckets(from, to, branchId, groupBy);
     }
 
     @Override
-    public java.util.List<Object[]> getAtRiskCustomers(java.time.LocalDate cutoffDate, String zoneId, int limit) {
-        return orderRepository.getAtRiskCustomers(cutoffDate, zoneId, limit);
+    public java.util.List<Object[]> getAtRiskCustomers(LocalDate cutoffDate, int limit) {
+        return customerStatsRollup.findAtRisk(cutoffDate, limit);
     }
 
     @Override
-    public java.util.List<Object[]> getCalendarMonthData(java.time.OffsetDateTime monthStart, java.time.OffsetDateTime monthEnd, String zoneId) {
-        return orderRepository.getCalendarMonthData(monthStart, monthEnd, zoneId);
+    public java.util.List<Object[]> getCalendarMonthData(LocalDate from, LocalDate to, UUID branchId) {
+        return dailyWorkloadRollup.findRange(branchId, from, to);
+    }
+
+    @Override
+    @Transactional
+    @CacheInvalidateAll(cacheName = "dashboard-snapshot")
+    public void rebuildDailyWorkload() {
+        dailyWorkloadRollup.rebuild();
     }
 
     private Order toDomain(OrderEntity entity) {
@@ -274,8 +791,18 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
         o.setPriceListId(entity.getPriceListId());
         o.setPriceListName(entity.getPriceListName());
 
-        if (entity.getCustomer() != null) {
-            com.anotame.sales.domain.model.Customer c = new com.anotame.sales.domain.model.Customer();
+        if (entity.getCustomerSnapshot() != null) {
+            // The snapshot carries every field mapped here, so the lazy customer is never loaded.
+            Map<String, Object> snapshot = entity.getCustomerSnapshot();
+            Customer c = new Customer();
+            c.setId(UUID.fromString(snapshot.get("id").toString()));
+            c.setFirstName((String) snapshot.get("firstName"));
+            c.setLastName((String) snapshot.get("lastName"));
+            c.setEmail((String) snapshot.get("email"));
+            c.setPhoneNumber((String) snapshot.get("phoneNumber"));
+            o.setCustomer(c);
+        } else if (entity.getCustomer() != null) {
+            Customer c = new Customer();
             c.setId(entity.getCustomer().getId());
             c.setFirstName(entity.getCustomer().getFirstName());
             c.setLastName(entity.getCustomer().getLastName());
@@ -297,9 +824,8 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
                 item.setNotes(ie.getNotes());
 
                 if (ie.getServices() != null) {
-                    for (com.anotame.sales.infrastructure.persistence.entity.OrderItemServiceEntity se : ie
-                            .getServices()) {
-                        com.anotame.sales.domain.model.OrderItemService s = new com.anotame.sales.domain.model.OrderItemService();
+                    for (OrderItemServiceEntity se : ie.getServices()) {
+                        OrderItemService s = new OrderItemService();
                         s.setId(se.getId());
                         s.setServiceId(se.getServiceId());
                         s.setSource(se.getSource());
@@ -320,21 +846,28 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
     }
 
     @Override
-    public Object[] getRepeatRate(java.time.OffsetDateTime start, java.time.OffsetDateTime end) {
-        return orderRepository.getRepeatRate(start, end);
+    public Object[] getRepeatRate(LocalDate from, LocalDate to) {
+        return orderRepository.getRepeatRate(from, to);
     }
 
-    private String buildSummaryFromClause(OrderSummaryCriteria criteria) {
+    private boolean hasSummaryPredicates(OrderSummaryCriteria criteria) {
+        return criteria.exactTicketNumber() != null
+                || criteria.search() != null
+                || criteria.garmentTypeId() != null
+                || criteria.garmentSource() != null
+                || (criteria.deadlineStart() != null && criteria.deadlineEnd() != null)
+                || (criteria.statuses() != null && !criteria.statuses().isEmpty());
+    }
+
+    private String buildSummaryFromClause(OrderSummaryCriteria criteria, OrderSummaryCursor after,
+            List<UUID> fuzzyMatches) {
         List<String> predicates = new ArrayList<>();
         if (criteria.exactTicketNumber() != null) {
             predicates.add("lower(o.ticketNumber) = :exactTicketNumber");
+        } else if (fuzzyMatches != null) {
+            predicates.add(fuzzyMatches.isEmpty() ? "1 = 0" : "o.id in :fuzzyMatches");
         } else if (criteria.search() != null) {
-            predicates.add("(" +
-                    "lower(o.ticketNumber) like :search or " +
-                    "lower(c.firstName) like :search or " +
-                    "lower(coalesce(c.lastName, '')) like :search or " +
-                    "lower(coalesce(c.phoneNumber, '')) like :search" +
-                    ")");
+            predicates.add("o.searchDocument like :search");
         }
         if (criteria.garmentTypeId() != null) {
             predicates.add("exists (" +
@@ -354,18 +887,73 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
         if (criteria.statuses() != null && !criteria.statuses().isEmpty()) {
             predicates.add("o.status in :statuses");
         }
+        if (after != null) {
+            // Expanded row comparison (createdAt, ticketNumber) < (:cursorCreatedAt, :cursorTicketNumber),
+            // served by idx_order_summary_keyset.
+            predicates.add("(o.createdAt < :cursorCreatedAt or " +
+                    "(o.createdAt = :cursorCreatedAt and o.ticketNumber < :cursorTicketNumber))");
+        }
 
+        // The join keeps orders of soft-deleted customers out (CustomerEntity's @SQLRestriction).
         if (predicates.isEmpty()) {
             return " from OrderEntity o join o.customer c";
         }
         return " from OrderEntity o join o.customer c where " + String.join(" and ", predicates);
     }
 
-    private void bindSummaryParameters(Query query, OrderSummaryCriteria criteria) {
+    /**
+     * SQL counterpart of {@link #buildSummaryFromClause} for the native facet query over
+     * {@code tco_order o}, without the status filter (the query applies it per facet); fills
+     * {@code parameters} with the values to bind.
+     */
+    private String buildSummaryNativeWhere(OrderSummaryCriteria criteria, List<UUID> fuzzyMatches,
+            Map<String, Object> parameters) {
+        List<String> predicates = new ArrayList<>();
+        predicates.add("o.is_deleted = FALSE");
+        predicates.add("EXISTS (SELECT 1 FROM tco_customer c WHERE c.id_customer = o.id_customer " +
+                "AND c.is_deleted = FALSE)");
+        if (criteria.exactTicketNumber() != null) {
+            predicates.add("lower(o.ticket_number) = :exactTicketNumber");
+            parameters.put("exactTicketNumber", criteria.exactTicketNumber().toLowerCase(Locale.ROOT));
+        } else if (fuzzyMatches != null) {
+            if (fuzzyMatches.isEmpty()) {
+                predicates.add("FALSE");
+            } else {
+                predicates.add("o.id_order IN (:fuzzyMatches)");
+                parameters.put("fuzzyMatches", fuzzyMatches);
+            }
+        } else if (criteria.search() != null) {
+            predicates.add("o.search_document LIKE :search");
+            parameters.put("search", "%" + SearchText.normalize(criteria.search()) + "%");
+        }
+        if (criteria.garmentTypeId() != null) {
+            predicates.add("EXISTS (SELECT 1 FROM tco_order_item fi WHERE fi.id_order = o.id_order " +
+                    "AND fi.is_deleted = FALSE AND fi.id_garment_type = :garmentTypeId)");
+            parameters.put("garmentTypeId", criteria.garmentTypeId());
+        }
+        if (criteria.garmentSource() != null) {
+            predicates.add("EXISTS (SELECT 1 FROM tco_order_item fs WHERE fs.id_order = o.id_order " +
+                    "AND fs.is_deleted = FALSE AND fs.garment_source = :garmentSource)");
+            parameters.put("garmentSource", criteria.garmentSource().name());
+        }
+        if (criteria.deadlineStart() != null && criteria.deadlineEnd() != null) {
+            predicates.add("o.committed_deadline >= :deadlineStart AND o.committed_deadline < :deadlineEnd");
+            parameters.put("deadlineStart", criteria.deadlineStart());
+            parameters.put("deadlineEnd", criteria.deadlineEnd());
+        }
+        return " WHERE " + String.join(" AND ", predicates);
+    }
+
+    private void bindSummaryParameters(Query query, OrderSummaryCriteria criteria, OrderSummaryCursor after,
+            List<UUID> fuzzyMatches) {
         if (criteria.exactTicketNumber() != null) {
             query.setParameter("exactTicketNumber", criteria.exactTicketNumber().toLowerCase(Locale.ROOT));
+        } else if (fuzzyMatches != null) {
+            if (!fuzzyMatches.isEmpty()) {
+                query.setParameter("fuzzyMatches", fuzzyMatches);
+            }
         } else if (criteria.search() != null) {
-            query.setParameter("search", "%" + criteria.search().toLowerCase(Locale.ROOT) + "%");
+            query.setParameter("search", "%" + SearchText.normalize(criteria.search()) + "%");
         }
         if (criteria.garmentTypeId() != null) {
             query.setParameter("garmentTypeId", criteria.garmentTypeId());
@@ -380,48 +968,10 @@ public class OrderPersistenceAdapter implements OrderRepositoryPort {
         if (criteria.statuses() != null && !criteria.statuses().isEmpty()) {
             query.setParameter("statuses", criteria.statuses());
         }
-    }
-
-    private Map<UUID, List<String>> findGarmentNames(List<UUID> orderIds) {
-        if (orderIds.isEmpty()) {
-            return Map.of();
-        }
-        List<Object[]> rows = em.createQuery(
-                "select i.order.id, i.garmentName " +
-                        "from OrderItemEntity i " +
-                        "where i.order.id in :orderIds " +
-                        "order by i.order.id, i.id",
-                Object[].class)
-                .setParameter("orderIds", orderIds)
-                .getResultList();
-        return groupNamesByOrder(rows);
-    }
-
-    private Map<UUID, List<String>> findServiceNames(List<UUID> orderIds) {
-        if (orderIds.isEmpty()) {
-            return Map.of();
-        }
-        List<Object[]> rows = em.createQuery(
-                "select s.orderItem.order.id, s.serviceName " +
-                        "from OrderItemServiceEntity s " +
-                        "where s.orderItem.order.id in :orderIds and s.orderItem.deleted = false " +
-                        "order by s.orderItem.order.id, s.orderItem.id, s.id",
-                Object[].class)
-                .setParameter("orderIds", orderIds)
-                .getResultList();
-        return groupNamesByOrder(rows);
-    }
-
-    private Map<UUID, List<String>> groupNamesByOrder(List<Object[]> rows) {
-        Map<UUID, List<String>> grouped = new HashMap<>();
-        for (Object[] row : rows) {
-            String name = (String) row[1];
-            if (name == null || name.isBlank()) {
-                continue;
-            }
-            grouped.computeIfAbsent((UUID) row[0], ignored -> new ArrayList<>()).add(name);
+        if (after != null) {
+            query.setParameter("cursorCreatedAt", after.createdAt());
+            query.setParameter("cursorTicketNumber", after.ticketNumber());
         }
-        return grouped;
     }
 
 }
@@ -0,0 +1,139 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import com.anotame.sales.application.port.output.StageDurationBucket;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Writes tco_order_history and maintains the stage duration histograms (V15) from it.
+ * <p>
+ * One statement per status change inserts the history row and adds the duration of the stage it
+ * ends, and on delivery the whole cycle, to the per-staff and per-service histograms. Callers
+ * hold the order's row lock, so the latest history row read as the stage start cannot move.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class OrderStageRollup {
+
+    /** Stages whose duration is tracked; DELIVERED and CANCELLED are final. */
+    static final Set<String> STAGES = Set.of("RECEIVED", "IN_PROGRESS", "READY");
+
+    /** Pseudo-stage from order creation to delivery. */
+    public static final String CYCLE = "CYCLE";
+
+    public static final UUID UNKNOWN_USER = new UUID(0, 0);
+
+    private static final double BUCKET_BASE = 1.1;
+
+    // Bucket b holds durations in [1.1^b, 1.1^(b+1)) seconds; under a second counts as 1s and
+    // everything from 1.1^255 seconds up lands in the last bucket.
+    private static final String BUCKET = "LEAST(255, FLOOR(LN(GREATEST(d.seconds, 1)) / LN(" + BUCKET_BASE + ")))::smallint";
+
+    private static final String ON_CONFLICT_ADD =
+            " DO UPDATE SET transitions = %1$s.transitions + EXCLUDED.transitions, " +
+                    "total_seconds = %1$s.total_seconds + EXCLUDED.total_seconds";
+
+    private final EntityManager em;
+
+    @ConfigProperty(name = "app.timezone", defaultValue = "America/Mexico_City")
+    String appTimezone;
+
+    /**
+     * Records a status change of one order made by {@code userId} (null when unknown). No-op
+     * when the status did not change.
+     */
+    public void record(UUID orderId, String fromStatus, String toStatus, UUID userId, OffsetDateTime changedAt) {
+        if (toStatus.equals(fromStatus)) {
+            return;
+        }
+        boolean endsStage = STAGES.contains(fromStatus) && !"CANCELLED".equals(toStatus);
+        // The CTEs all read the snapshot from before the history insert, so MAX finds the previous row.
+        em.createNativeQuery(
+                        "WITH history AS (" +
+                                "INSERT INTO tco_order_history (id_order, previous_status, new_status, changed_by_user_id, created_at) " +
+                                "VALUES (:orderId, :fromStatus, :toStatus, NULLIF(:userId, :unknownUser), :changedAt)), " +
+                                "durations AS (" +
+                                "SELECT :fromStatus AS stage, o.id_branch, EXTRACT(EPOCH FROM (:changedAt - COALESCE(" +
+                                "(SELECT MAX(h.created_at) FROM tco_order_history h WHERE h.id_order = o.id_order), " +
+                                "CASE WHEN :fromStatus = 'RECEIVED' THEN o.created_at END))) AS seconds " +
+                                "FROM tco_order o WHERE o.id_order = :orderId AND :endsStage " +
+                                "UNION ALL " +
+                                "SELECT '" + CYCLE + "', o.id_branch, EXTRACT(EPOCH FROM (:changedAt - o.created_at)) " +
+                                "FROM tco_order o WHERE o.id_order = :orderId AND :toStatus = 'DELIVERED'), " +
+                                "staff AS (" +
+                                "INSERT INTO tco_order_stage_daily (stage_date, stage, id_branch, id_user, bucket, transitions, total_seconds) " +
+                                "SELECT :day, d.stage, d.id_branch, :userId, " + BUCKET + ", 1, ROUND(d.seconds) " +
+                                "FROM durations d WHERE d.seconds >= 0 " +
+                                "ON CONFLICT (stage_date, stage, id_branch, id_user, bucket)" +
+                                String.format(ON_CONFLICT_ADD, "tco_order_stage_daily") + ") " +
+                                "INSERT INTO tco_order_stage_service_daily (stage_date, stage, id_branch, service_name, bucket, " +
+                                "transitions, total_seconds) " +
+                                "SELECT :day, d.stage, d.id_branch, s.service_name, " + BUCKET + ", 1, ROUND(d.seconds) " +
+                                "FROM durations d CROSS JOIN (" +
+                                "SELECT DISTINCT COALESCE(ois.service_name, '') AS service_name FROM tco_order_item oi " +
+                                "JOIN tco_order_item_service ois ON ois.id_order_item = oi.id_order_item " +
+                                "WHERE oi.id_order = :orderId AND oi.is_deleted = FALSE) s " +
+                                "WHERE d.seconds >= 0 " +
+                                "ON CONFLICT (stage_date, stage, id_branch, service_name, bucket)" +
+                                String.format(ON_CONFLICT_ADD, "tco_order_stage_service_daily"))
+                .setParameter("orderId", orderId)
+                .setParameter("fromStatus", fromStatus)
+                .setParameter("toStatus", toStatus)
+                .setParameter("userId", userId != null ? userId : UNKNOWN_USER)
+                .setParameter("unknownUser", UNKNOWN_USER)
+                .setParameter("changedAt", changedAt)
+                .setParameter("endsStage", endsStage)
+                .setParameter("day", changedAt.atZoneSameInstant(ZoneId.of(appTimezone)).toLocalDate())
+                .executeUpdate();
+    }
+
+    /**
+     * Summed histogram buckets of the stages ended in {@code [from, to)}, per stage and group:
+     * "stage" (no group), "service" (service name) or "staff" (user id, nil UUID when unknown).
+     */
+    @SuppressWarnings("unchecked")
+    public List<StageDurationBucket> findBuckets(LocalDate from, LocalDate to, UUID branchId, String groupBy) {
+        String table = "service".equals(groupBy) ? "tco_order_stage_service_daily" : "tco_order_stage_daily";
+        String group = switch (groupBy) {
+            case "service" -> "service_name";
+            case "staff" -> "id_user::text";
+            default -> "''";
+        };
+        Query query = em.createNativeQuery(
+                        "SELECT stage, " + group + ", bucket, SUM(transitions), SUM(total_seconds) FROM " + table +
+                                " WHERE stage_date >= :from AND stage_date < :to" +
+                                (branchId != null ? " AND id_branch = :branchId" : "") +
+                                " GROUP BY 1, 2, 3 ORDER BY 1, 2, 3")
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (branchId != null) {
+            query.setParameter("branchId", branchId);
+        }
+        List<StageDurationBucket> buckets = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            int bucket = ((Number) row[2]).intValue();
+            buckets.add(new StageDurationBucket(
+                    (String) row[0],
+                    (String) row[1],
+                    upperBoundSeconds(bucket),
+                    ((Number) row[3]).longValue(),
+                    ((Number) row[4]).longValue()));
+        }
+        return buckets;
+    }
+
+    static double upperBoundSeconds(int bucket) {
+        return Math.pow(BUCKET_BASE, bucket + 1);
+    }
+}
@@ -0,0 +1,160 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import com.anotame.sales.application.port.output.PaymentDayTotals;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maintains tco_payment_daily (V11): receipts and refunds of the payment ledger per branch,
+ * local day of recorded_at and payment method.
+ * <p>
+ * Every ledger insert adds itself to its row with an ON CONFLICT increment. A month is
+ * rebuilt under an exclusive advisory lock on that month. Writers take the shared form of
+ * the same lock, so a rebuild waits for in-flight payments of its month and holds back new
+ * ones until it commits. Different months rebuild in parallel.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class PaymentDailyRollup {
+
+    private static final String MONTH_LOCK_CLASS = "hashtext('tco_payment_daily')";
+
+    private static final String UPSERT =
+            "INSERT INTO tco_payment_daily (id_branch, pay_date, payment_method, received_amount, received_count, " +
+                    "refunded_amount, refund_count) ";
+
+    private static final String ON_CONFLICT_ADD =
+            " ON CONFLICT (id_branch, pay_date, payment_method) DO UPDATE SET " +
+                    "received_amount = tco_payment_daily.received_amount + EXCLUDED.received_amount, " +
+                    "received_count = tco_payment_daily.received_count + EXCLUDED.received_count, " +
+                    "refunded_amount = tco_payment_daily.refunded_amount + EXCLUDED.refunded_amount, " +
+                    "refund_count = tco_payment_daily.refund_count + EXCLUDED.refund_count";
+
+    // recorded_date and recorded_month are the stored local day and month of recorded_at (V14).
+    private static final String GROUPED_LEDGER =
+            "SELECT o.id_branch, p.recorded_date, COALESCE(p.payment_method, ''), " +
+                    "COALESCE(SUM(p.amount) FILTER (WHERE p.amount > 0), 0), COUNT(*) FILTER (WHERE p.amount > 0), " +
+                    "COALESCE(-SUM(p.amount) FILTER (WHERE p.amount < 0), 0), COUNT(*) FILTER (WHERE p.amount < 0) " +
+                    "FROM tco_order_payment p JOIN tco_order o ON o.id_order = p.id_order ";
+
+    private final EntityManager em;
+
+    @ConfigProperty(name = "app.timezone", defaultValue = "America/Mexico_City")
+    String appTimezone;
+
+    /** Adds one ledger entry of the given order to its day. */
+    public void record(UUID orderId, BigDecimal amount, String paymentMethod, OffsetDateTime recordedAt) {
+        ZonedDateTime local = recordedAt.atZoneSameInstant(ZoneId.of(appTimezone));
+        boolean refund = amount.signum() < 0;
+        // The branch comes from the order in the same statement; the CTE takes the month lock.
+        em.createNativeQuery(
+                        "WITH month_lock AS (SELECT pg_advisory_xact_lock_shared(" + MONTH_LOCK_CLASS + ", :monthKey)) " +
+                                UPSERT +
+                                "SELECT o.id_branch, :day, :paymentMethod, :received, :receivedCount, :refunded, :refundCount " +
+                                "FROM tco_order o, month_lock WHERE o.id_order = :orderId" +
+                                ON_CONFLICT_ADD)
+                .setParameter("monthKey", monthKey(YearMonth.from(local)))
+                .setParameter("day", local.toLocalDate())
+                .setParameter("paymentMethod", paymentMethod != null ? paymentMethod : "")
+                .setParameter("received", refund ? BigDecimal.ZERO : amount)
+                .setParameter("receivedCount", refund ? 0 : 1)
+                .setParameter("refunded", refund ? amount.negate() : BigDecimal.ZERO)
+                .setParameter("refundCount", refund ? 1 : 0)
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+    }
+
+    /** Adds the ledger entries of an import chunk's orders (listed in stg_import_inserted). */
+    public void addImportedPayments() {
+        em.createNativeQuery(
+                        "SELECT COUNT(pg_advisory_xact_lock_shared(" + MONTH_LOCK_CLASS + ", m)::text) FROM (" +
+                                "SELECT DISTINCT (EXTRACT(YEAR FROM p.recorded_month) * 12 " +
+                                "+ EXTRACT(MONTH FROM p.recorded_month) - 1)::int AS m " +
+                                "FROM tco_order_payment p JOIN stg_import_inserted n ON n.id_order = p.id_order) months")
+                .getSingleResult();
+        em.createNativeQuery(UPSERT + GROUPED_LEDGER +
+                        "JOIN stg_import_inserted n ON n.id_order = p.id_order GROUP BY 1, 2, 3" + ON_CONFLICT_ADD)
+                .executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<PaymentDayTotals> findRange(UUID branchId, LocalDate from, LocalDate to) {
+        Query query = em.createNativeQuery(
+                        "SELECT pay_date, payment_method, SUM(received_amount), SUM(received_count), " +
+                                "SUM(refunded_amount), SUM(refund_count) " +
+                                "FROM tco_payment_daily " +
+                                "WHERE pay_date >= :from AND pay_date < :to" +
+                                (branchId != null ? " AND id_branch = :branchId" : "") +
+                                " GROUP BY pay_date, payment_method ORDER BY pay_date, payment_method")
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (branchId != null) {
+            query.setParameter("branchId", branchId);
+        }
+        List<PaymentDayTotals> totals = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            String paymentMethod = (String) row[1];
+            totals.add(new PaymentDayTotals(
+                    (LocalDate) row[0],
+                    paymentMethod.isEmpty() ? null : paymentMethod,
+                    (BigDecimal) row[2],
+                    ((Number) row[3]).longValue(),
+                    (BigDecimal) row[4],
+                    ((Number) row[5]).longValue()));
+        }
+        return totals;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<YearMonth> months() {
+        List<Object> rows = em.createNativeQuery(
+                        "SELECT m FROM (" +
+                                "SELECT recorded_month AS m FROM tco_order_payment " +
+                                "UNION SELECT date_trunc('month', pay_date)::date FROM tco_payment_daily) months " +
+                                "ORDER BY m")
+                .getResultList();
+        return rows.stream().map(m -> YearMonth.from((LocalDate) m)).toList();
+    }
+
+    /** Replaces one month of the rollup with a fresh aggregate of the ledger. */
+    public void rebuildMonth(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        em.createNativeQuery("SELECT pg_advisory_xact_lock(" + MONTH_LOCK_CLASS + ", :monthKey)::text")
+                .setParameter("monthKey", monthKey(month))
+                .getSingleResult();
+        em.createNativeQuery("DELETE FROM tco_payment_daily WHERE pay_date >= :from AND pay_date < :to")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+        // The recorded_at bounds cover the same local month and let the planner read only its
+        // ledger partition (V19); the stored date alone does not prune.
+        ZoneId zone = ZoneId.of(appTimezone);
+        em.createNativeQuery(UPSERT + GROUPED_LEDGER +
+                        "WHERE p.recorded_at >= :fromAt AND p.recorded_at < :toAt " +
+                        "AND p.recorded_date >= :from AND p.recorded_date < :to GROUP BY 1, 2, 3")
+                .setParameter("fromAt", from.atStartOfDay(zone).toOffsetDateTime())
+                .setParameter("toAt", to.atStartOfDay(zone).toOffsetDateTime())
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+    }
+
+    // Same numbering as the SQL above: year * 12 + zero-based month.
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+}
@@ -0,0 +1,51 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization shared by stored search documents and the terms searched against them:
+ * strips diacritics, lower-cases and collapses whitespace, mirroring
+ * {@code lower(f_unaccent(...))} on the database side so "Mónica" and "monica" meet.
+ */
+public final class SearchText {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PHONE_QUERY = Pattern.compile("[\\d\\s()+.-]+");
+    // Fewer digits than this match too many phone numbers to be worth a digit search.
+    private static final int MIN_PHONE_DIGITS = 3;
+
+    private SearchText() {
+    }
+
+    public static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return "";
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public static String digitsOnly(String value) {
+        return value == null ? "" : value.replaceAll("\\D", "");
+    }
+
+    /** Whether a query is typed as a phone number: digits and phone punctuation only. */
+    public static boolean isPhoneQuery(String query) {
+        return query != null && PHONE_QUERY.matcher(query.trim()).matches();
+    }
+
+    /**
+     * The digits to search phone numbers with: those of a phone-number query with at least
+     * three of them, empty for anything else (names, emails, "Ana 5").
+     */
+    public static String phoneDigits(String query) {
+        if (!isPhoneQuery(query)) {
+            return "";
+        }
+        String digits = digitsOnly(query);
+        return digits.length() >= MIN_PHONE_DIGITS ? digits : "";
+    }
+}
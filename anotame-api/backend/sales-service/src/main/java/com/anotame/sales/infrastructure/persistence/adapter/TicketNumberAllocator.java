@@ -0,0 +1,50 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Hands out values of tco_ticket_number_seq from an in-memory block, reserving a new block
+ * with a single round trip when the current one runs out.
+ * <p>
+ * Values stay unique across instances (they all come from the same sequence), but an
+ * instance restart leaves the unused rest of its block as a gap, and two instances
+ * interleave their blocks, so ticket numbers are not strictly in creation order. Nothing else
+ * may write an ORD-nnnnn ticket the sequence has handed out, as it may still sit in a block:
+ * order imports reject those numbers and move the sequence past the ones they insert.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class TicketNumberAllocator {
+
+    private final EntityManager em;
+
+    @ConfigProperty(name = "app.ticket-number.block-size", defaultValue = "20")
+    int blockSize;
+
+    private final Deque<Long> reserved = new ArrayDeque<>();
+
+    public synchronized long next() {
+        if (reserved.isEmpty()) {
+            reserveBlock();
+        }
+        return reserved.poll();
+    }
+
+    private void reserveBlock() {
+        // nextval is not transactional: a rollback of the caller never hands the block back.
+        List<?> values = em.createNativeQuery(
+                        "SELECT nextval('tco_ticket_number_seq') FROM generate_series(1, :blockSize)")
+                .setParameter("blockSize", Math.max(1, blockSize))
+                .getResultList();
+        for (Object value : values) {
+            reserved.add(((Number) value).longValue());
+        }
+    }
+}
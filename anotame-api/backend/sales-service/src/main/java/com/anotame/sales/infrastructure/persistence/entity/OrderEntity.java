@@ -4,13 +4,16 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Entity
@@ -92,6 +95,25 @@ public class OrderEntity {
     @Column(name = "is_deleted")
     private boolean deleted = false;
 
+    // Summary read model (V7): maintained on every save so order listings never join customers or items.
+    @Column(name = "customer_snapshot", columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> customerSnapshot;
+
+    @Column(name = "garment_names", nullable = false, columnDefinition = "text[]")
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private List<String> garmentNames = new ArrayList<>();
+
+    @Column(name = "service_names", nullable = false, columnDefinition = "text[]")
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    private List<String> serviceNames = new ArrayList<>();
+
+    // Normalized (unaccented, lower-case) text searched by the order listing; trigram-indexed in V8.
+    // Written only by OrderRepository.SEARCH_DOCUMENT_SQL, never from Java.
+    @Column(name = "search_document", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "TEXT DEFAULT ''")
+    private String searchDocument = "";
+
     // Helper to add items
     public void addItem(OrderItemEntity item) {
         items.add(item);
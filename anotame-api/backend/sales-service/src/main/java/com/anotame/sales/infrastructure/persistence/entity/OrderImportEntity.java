@@ -0,0 +1,53 @@
+package com.anotame.sales.infrastructure.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Entity
+@Table(name = "tco_order_import")
+@Getter
+@Setter
+public class OrderImportEntity {
+
+    @Id
+    @Column(name = "id_import")
+    private UUID id;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = "RUNNING";
+
+    @Column(name = "lines_committed", nullable = false)
+    private long linesCommitted;
+
+    @Column(name = "orders_imported", nullable = false)
+    private long ordersImported;
+
+    @Column(name = "lines_rejected", nullable = false)
+    private long linesRejected;
+
+    // First rejected lines ({line, message}), capped so a bad file cannot bloat the row.
+    @Column(name = "errors", nullable = false, columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<Map<String, Object>> errors = new ArrayList<>();
+
+    @Column(name = "created_by", nullable = false)
+    private UUID createdBy;
+
+    @Column(name = "started_at", nullable = false)
+    private OffsetDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+}
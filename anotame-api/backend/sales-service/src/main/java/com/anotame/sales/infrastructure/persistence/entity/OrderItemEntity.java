@@ -9,6 +9,7 @@ import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
@@ -54,6 +55,10 @@ public class OrderItemEntity {
 
     private String notes;
 
+    // Set by the column default on insert; orders rows in the detail view.
+    @Column(name = "created_at", insertable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
+
     @Column(name = "is_deleted")
     private boolean deleted = false;
 }
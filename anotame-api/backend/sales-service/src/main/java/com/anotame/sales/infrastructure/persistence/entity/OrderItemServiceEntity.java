@@ -6,6 +6,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
@@ -47,4 +48,8 @@ public class OrderItemServiceEntity {
 
     @Column(name = "instructions", columnDefinition = "TEXT")
     private String instructions;
+
+    // Set by the column default on insert; orders rows in the detail view.
+    @Column(name = "created_at", insertable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private OffsetDateTime createdAt;
 }
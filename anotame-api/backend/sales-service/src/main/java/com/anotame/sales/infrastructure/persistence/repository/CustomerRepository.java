@@ -3,7 +3,10 @@ package com.anotame.sales.infrastructure.persistence.repository;
 import com.anotame.sales.infrastructure.persistence.entity.CustomerEntity;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,27 +14,81 @@ import java.util.UUID;
 @ApplicationScoped
 public class CustomerRepository implements PanacheRepositoryBase<CustomerEntity, UUID> {
 
-    public List<CustomerEntity> search(String query) {
-        if (query == null) {
-            query = "";
+    // Trigrams need three characters; shorter terms fall back to prefix matching.
+    private static final int TRIGRAM_MIN_TERM_LENGTH = 3;
+    private static final String WORD_SIMILARITY_THRESHOLD = "0.4";
+
+    /**
+     * Ids of the live customers matching a search term, best first. {@code term} is normalized
+     * as by SearchText.normalize and {@code digits} is SearchText.phoneDigits of it: the digits
+     * of a term typed as a phone number, empty when phones should not be searched.
+     * <p>
+     * From three characters on, the name and email match by substring or, for typos, by word
+     * similarity, and the phone by digit substring (V16 trigram indexes). Ranking puts an exact
+     * phone first, then prefix matches of the name, any word of it, the email or the phone,
+     * then similarity. Shorter terms only match name and phone prefixes, listed by name. An
+     * empty term lists every customer by name.
+     */
+    @SuppressWarnings("unchecked")
+    public List<UUID> searchIds(String term, String digits, int limit, int offset) {
+        EntityManager em = getEntityManager();
+        boolean byPhone = !digits.isEmpty();
+        Query query;
+        if (term.length() < TRIGRAM_MIN_TERM_LENGTH) {
+            List<String> matches = new ArrayList<>();
+            if (!term.isEmpty()) {
+                matches.add("search_name LIKE :prefix");
+                if (byPhone) {
+                    matches.add("phone_digits LIKE :digitsPrefix");
+                }
+            }
+            query = em.createNativeQuery(
+                    "SELECT id_customer FROM tco_customer WHERE is_deleted = FALSE" +
+                            (matches.isEmpty() ? "" : " AND (" + String.join(" OR ", matches) + ")") +
+                            " ORDER BY search_name, id_customer LIMIT :limit OFFSET :offset");
+            if (!term.isEmpty()) {
+                query.setParameter("prefix", likePrefix(term));
+            }
+        } else {
+            // Transaction-local: lowers the <% cut-off for this search only.
+            em.createNativeQuery("SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)")
+                    .setParameter("threshold", WORD_SIMILARITY_THRESHOLD)
+                    .getSingleResult();
+            query = em.createNativeQuery(
+                    "SELECT id_customer FROM tco_customer WHERE is_deleted = FALSE AND (" +
+                            "search_name LIKE :contains OR search_email LIKE :contains OR :term <% search_name" +
+                            (byPhone ? " OR phone_digits LIKE :digitsContains" : "") + ") " +
+                            "ORDER BY (" +
+                            (byPhone ? "CASE WHEN phone_digits = :digits THEN 4 ELSE 0 END + " : "") +
+                            "CASE WHEN search_name LIKE :prefix OR search_name LIKE :wordPrefix " +
+                            "OR search_email LIKE :prefix" +
+                            (byPhone ? " OR phone_digits LIKE :digitsPrefix" : "") + " THEN 2 ELSE 0 END + " +
+                            "GREATEST(word_similarity(:term, search_name), word_similarity(:term, search_email))" +
+                            ") DESC, search_name, id_customer LIMIT :limit OFFSET :offset")
+                    .setParameter("term", term)
+                    .setParameter("contains", "%" + escapeLike(term) + "%")
+                    .setParameter("prefix", likePrefix(term))
+                    .setParameter("wordPrefix", "% " + likePrefix(term));
+            if (byPhone) {
+                query.setParameter("digits", digits)
+                        .setParameter("digitsContains", "%" + digits + "%");
+            }
+        }
+        if (byPhone && !term.isEmpty()) {
+            query.setParameter("digitsPrefix", digits + "%");
         }
-        // Accent-insensitive: unaccent() (from the unaccent extension, enabled in V4)
-        // is applied to both the column and the search term so "monica" matches
-        // "Mónica" and vice versa. The parameter is unaccented in-DB too, so callers
-        // can type either form.
-        //
-        // Both sides of each LIKE are wrapped in LOWER(): besides normalizing case, it
-        // gives the unaccent() result a known String type. Hibernate can't infer the
-        // return type of the custom unaccent() function, so a bare FUNCTION('unaccent',
-        // ?1) on the right of a LIKE is treated as java.lang.Object and rejected with
-        // "Operand of 'like' is of type 'java.lang.Object'".
-        String q = "%" + query.toLowerCase() + "%";
-        return list(
-                "LOWER(FUNCTION('unaccent', firstName)) LIKE LOWER(FUNCTION('unaccent', ?1)) "
-                        + "OR LOWER(FUNCTION('unaccent', lastName)) LIKE LOWER(FUNCTION('unaccent', ?1)) "
-                        + "OR phoneNumber LIKE ?1 "
-                        + "OR LOWER(FUNCTION('unaccent', email)) LIKE LOWER(FUNCTION('unaccent', ?1))",
-                q);
+        return query.setParameter("limit", limit)
+                .setParameter("offset", offset)
+                .getResultList();
+    }
+
+    private static String likePrefix(String term) {
+        return escapeLike(term) + "%";
+    }
+
+    // Backslash is PostgreSQL's default LIKE escape character.
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     public Optional<CustomerEntity> findByEmail(String email) {
@@ -10,10 +10,6 @@ import java.util.UUID;
 
 @ApplicationScoped
 public class OrderAuditLogRepository implements PanacheRepository<OrderAuditLogEntity> {
-    public void save(OrderAuditLogEntity entry) {
-        persist(entry);
-    }
-
     public List<OrderAuditLogEntity> findByOrderId(UUID orderId) {
         return find("orderId", Sort.by("changedAt").descending(), orderId).list();
     }
@@ -0,0 +1,207 @@
+package com.anotame.sales.infrastructure.persistence.repository;
+
+import com.anotame.sales.infrastructure.persistence.entity.OrderImportEntity;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Checkpoints of bulk order imports, plus the staging-and-merge SQL that loads one chunk.
+ * The staging tables are temporary and dropped on commit, so every chunk transaction starts
+ * from empty ones and concurrent imports never see each other's rows.
+ */
+@ApplicationScoped
+public class OrderImportRepository implements PanacheRepositoryBase<OrderImportEntity, UUID> {
+
+    public static final String STAGED_ORDER_COLUMNS =
+            "id_order, line_no, ticket_number, folio_branch, customer_first_name, customer_last_name, " +
+                    "customer_phone, customer_email, status, total_amount, amount_paid, payment_method, " +
+                    "committed_deadline, delivered_at, pickup_code, notes, total_duration_min, created_at";
+    public static final String STAGED_ITEM_COLUMNS =
+            "id_order_item, id_order, position, id_garment_type, garment_source, garment_name, quantity, " +
+                    "unit_price, subtotal, notes";
+    public static final String STAGED_SERVICE_COLUMNS =
+            "id_item_service, id_order_item, position, id_service, service_source, service_name, unit_price, " +
+                    "adjustment_amount, adjustment_reason, duration_min, instructions";
+    public static final String STAGED_PAYMENT_COLUMNS =
+            "id_order, amount, payment_method, notes, recorded_at";
+
+    public void createStagingTables() {
+        EntityManager em = getEntityManager();
+        em.createNativeQuery(
+                "CREATE TEMP TABLE stg_import_order (" +
+                        "id_order UUID PRIMARY KEY, line_no BIGINT NOT NULL, ticket_number VARCHAR(255) NOT NULL, " +
+                        "folio_branch INTEGER NOT NULL, customer_first_name VARCHAR(255), customer_last_name VARCHAR(255), " +
+                        "customer_phone VARCHAR(255) NOT NULL, customer_email VARCHAR(255), id_customer UUID, " +
+                        "status VARCHAR(50) NOT NULL, total_amount NUMERIC(19,4) NOT NULL, amount_paid NUMERIC(19,4) NOT NULL, " +
+                        "payment_method VARCHAR(255), committed_deadline TIMESTAMPTZ, delivered_at TIMESTAMPTZ, " +
+                        "pickup_code VARCHAR(6), notes VARCHAR(255), total_duration_min INTEGER, created_at TIMESTAMPTZ NOT NULL, " +
+                        "ticket_reserved BOOLEAN NOT NULL DEFAULT FALSE" +
+                        ") ON COMMIT DROP").executeUpdate();
+        em.createNativeQuery(
+                "CREATE TEMP TABLE stg_import_item (" +
+                        "id_order_item UUID PRIMARY KEY, id_order UUID NOT NULL, position INTEGER NOT NULL, " +
+                        "id_garment_type UUID, garment_source VARCHAR(20) NOT NULL, garment_name VARCHAR(255), " +
+                        "quantity INTEGER NOT NULL, unit_price NUMERIC(19,4) NOT NULL, subtotal NUMERIC(19,4) NOT NULL, " +
+                        "notes VARCHAR(255)" +
+                        ") ON COMMIT DROP").executeUpdate();
+        em.createNativeQuery(
+                "CREATE TEMP TABLE stg_import_service (" +
+                        "id_item_service UUID PRIMARY KEY, id_order_item UUID NOT NULL, position INTEGER NOT NULL, " +
+                        "id_service UUID, service_source VARCHAR(20) NOT NULL, service_name VARCHAR(255), " +
+                        "unit_price NUMERIC(19,4) NOT NULL, adjustment_amount NUMERIC(19,4), adjustment_reason VARCHAR(255), " +
+                        "duration_min INTEGER, instructions TEXT" +
+                        ") ON COMMIT DROP").executeUpdate();
+        em.createNativeQuery(
+                "CREATE TEMP TABLE stg_import_payment (" +
+                        "id_order UUID NOT NULL, amount NUMERIC(19,4) NOT NULL, payment_method VARCHAR(255), " +
+                        "notes VARCHAR(500), recorded_at TIMESTAMPTZ NOT NULL" +
+                        ") ON COMMIT DROP").executeUpdate();
+        em.createNativeQuery(
+                "CREATE TEMP TABLE stg_import_inserted (id_order UUID PRIMARY KEY) ON COMMIT DROP").executeUpdate();
+    }
+
+    /**
+     * Streams CSV rows into a staging table with COPY on the transaction's own connection.
+     */
+    public long copyIn(String table, String columns, Reader csv) {
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)", csv);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Merges the staged chunk into the live tables with set-based statements and returns the
+     * number of orders inserted. Orders whose ticket number already exists are left out, and so
+     * are their items, services and payments; {@link #findConflictingStagedOrders} lists them.
+     * <p>
+     * So are ORD-nnnnn numbers tco_ticket_number_seq has already handed out: a running instance
+     * may hold them in its reserved block ({@code TicketNumberAllocator}) and would give them to
+     * a new order later. Higher numbers are imported and the sequence is moved past them right
+     * away, so blocks reserved from then on skip them.
+     */
+    public int mergeStagedOrders(UUID branchId, UUID userId) {
+        EntityManager em = getEntityManager();
+
+        // Customers: reuse the oldest live customer with the same phone, create the missing ones once.
+        em.createNativeQuery(
+                "INSERT INTO tco_customer (first_name, last_name, phone_number, email) " +
+                        "SELECT DISTINCT ON (s.customer_phone) s.customer_first_name, s.customer_last_name, " +
+                        "s.customer_phone, s.customer_email " +
+                        "FROM stg_import_order s " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM tco_customer c " +
+                        "WHERE c.phone_number = s.customer_phone AND c.is_deleted = FALSE) " +
+                        "ORDER BY s.customer_phone, s.line_no").executeUpdate();
+        em.createNativeQuery(
+                "UPDATE stg_import_order s SET id_customer = c.id_customer " +
+                        "FROM (SELECT DISTINCT ON (phone_number) id_customer, phone_number FROM tco_customer " +
+                        "WHERE is_deleted = FALSE AND phone_number IN (SELECT customer_phone FROM stg_import_order) " +
+                        "ORDER BY phone_number, created_at, id_customer) c " +
+                        "WHERE c.phone_number = s.customer_phone").executeUpdate();
+
+        em.createNativeQuery(
+                "UPDATE stg_import_order SET ticket_reserved = TRUE " +
+                        "WHERE substring(ticket_number FROM '^ORD-(\\d{1,18})$')::BIGINT <= " +
+                        "(SELECT CASE WHEN is_called THEN last_value ELSE last_value - 1 END FROM tco_ticket_number_seq)")
+                .executeUpdate();
+
+        int inserted = em.createNativeQuery(
+                        "WITH ins AS (" +
+                                "INSERT INTO tco_order (id_order, folio_branch, id_branch, id_customer, created_by_user_id, " +
+                                "total_amount, amount_paid, payment_method, status, ticket_number, received_at, " +
+                                "committed_deadline, delivered_at, pickup_code, notes, total_duration_min, created_at, updated_at) " +
+                                "SELECT id_order, folio_branch, :branchId, id_customer, :userId, total_amount, amount_paid, " +
+                                "payment_method, status, ticket_number, created_at, committed_deadline, delivered_at, " +
+                                "pickup_code, notes, total_duration_min, created_at, created_at " +
+                                "FROM stg_import_order WHERE NOT ticket_reserved ORDER BY line_no " +
+                                "ON CONFLICT (ticket_number) DO NOTHING " +
+                                "RETURNING id_order) " +
+                                "INSERT INTO stg_import_inserted SELECT id_order FROM ins")
+                .setParameter("branchId", branchId)
+                .setParameter("userId", userId)
+                .executeUpdate();
+        if (inserted == 0) {
+            return 0;
+        }
+        // Right after the insert, to keep the window for a block reserved in between short.
+        em.createNativeQuery(
+                "SELECT setval('tco_ticket_number_seq', GREATEST(" +
+                        "(SELECT last_value FROM tco_ticket_number_seq), " +
+                        "(SELECT COALESCE(MAX(substring(s.ticket_number FROM '^ORD-(\\d{1,18})$')::BIGINT), 1) " +
+                        "FROM stg_import_order s JOIN stg_import_inserted n ON n.id_order = s.id_order)))")
+                .getSingleResult();
+
+        // Positions become created_at offsets so item/service order survives the V7 read-model ordering.
+        em.createNativeQuery(
+                "INSERT INTO tco_order_item (id_order_item, id_order, id_garment_type, garment_source, garment_name, " +
+                        "quantity, unit_price, subtotal, notes, created_at, updated_at) " +
+                        "SELECT i.id_order_item, i.id_order, i.id_garment_type, i.garment_source, i.garment_name, " +
+                        "i.quantity, i.unit_price, i.subtotal, i.notes, " +
+                        "o.created_at + i.position * INTERVAL '1 millisecond', o.created_at " +
+                        "FROM stg_import_item i " +
+                        "JOIN stg_import_inserted n ON n.id_order = i.id_order " +
+                        "JOIN stg_import_order o ON o.id_order = i.id_order").executeUpdate();
+        em.createNativeQuery(
+                "INSERT INTO tco_order_item_service (id_item_service, id_order_item, id_service, service_source, " +
+                        "service_name, unit_price, adjustment_amount, adjustment_reason, duration_min, instructions, created_at) " +
+                        "SELECT s.id_item_service, s.id_order_item, s.id_service, s.service_source, s.service_name, " +
+                        "s.unit_price, s.adjustment_amount, s.adjustment_reason, s.duration_min, s.instructions, " +
+                        "o.created_at + s.position * INTERVAL '1 millisecond' " +
+                        "FROM stg_import_service s " +
+                        "JOIN stg_import_item i ON i.id_order_item = s.id_order_item " +
+                        "JOIN stg_import_inserted n ON n.id_order = i.id_order " +
+                        "JOIN stg_import_order o ON o.id_order = i.id_order").executeUpdate();
+        em.createNativeQuery(
+                "INSERT INTO tco_order_payment (id_order, amount, payment_method, notes, recorded_at, created_at) " +
+                        "SELECT p.id_order, p.amount, p.payment_method, p.notes, p.recorded_at, NOW() " +
+                        "FROM stg_import_payment p " +
+                        "JOIN stg_import_inserted n ON n.id_order = p.id_order").executeUpdate();
+
+        // Summary read model (V7/V8) for the new rows, same shape as OrderPersistenceAdapter.save writes.
+        em.createNativeQuery(
+                "UPDATE tco_order o SET " +
+                        "customer_snapshot = jsonb_build_object('id', c.id_customer, 'firstName', c.first_name, " +
+                        "'lastName', c.last_name, 'email', c.email, 'phoneNumber', c.phone_number), " +
+                        "garment_names = COALESCE((SELECT array_agg(i.garment_name ORDER BY i.position) " +
+                        "FROM stg_import_item i WHERE i.id_order = o.id_order " +
+                        "AND i.garment_name IS NOT NULL AND btrim(i.garment_name) <> ''), '{}'), " +
+                        "service_names = COALESCE((SELECT array_agg(s.service_name ORDER BY i.position, s.position) " +
+                        "FROM stg_import_service s JOIN stg_import_item i ON i.id_order_item = s.id_order_item " +
+                        "WHERE i.id_order = o.id_order " +
+                        "AND s.service_name IS NOT NULL AND btrim(s.service_name) <> ''), '{}') " +
+                        "FROM stg_import_inserted n, tco_customer c " +
+                        "WHERE o.id_order = n.id_order AND c.id_customer = o.id_customer").executeUpdate();
+        em.createNativeQuery(
+                "UPDATE tco_order o SET search_document = " + OrderRepository.SEARCH_DOCUMENT_SQL + " " +
+                        "FROM stg_import_inserted n WHERE o.id_order = n.id_order").executeUpdate();
+
+        return inserted;
+    }
+
+    /**
+     * Staged orders the last merge left out because their ticket number was taken, or is in the
+     * range handed out to new orders, as {@code [line_no, ticket_number, ticket_reserved]} rows
+     * in line order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findConflictingStagedOrders() {
+        return getEntityManager().createNativeQuery(
+                        "SELECT s.line_no, s.ticket_number, s.ticket_reserved FROM stg_import_order s " +
+                                "WHERE NOT EXISTS (SELECT 1 FROM stg_import_inserted n WHERE n.id_order = s.id_order) " +
+                                "ORDER BY s.line_no")
+                .getResultList();
+    }
+}
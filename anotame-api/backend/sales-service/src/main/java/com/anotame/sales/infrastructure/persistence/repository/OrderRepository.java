@@ -3,225 +3,202 @@ package com.anotame.sales.infrastructure.persistence.repository;
 import com.anotame.sales.infrastructure.persistence.entity.OrderEntity;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @ApplicationScoped
 public class OrderRepository implements PanacheRepositoryBase<OrderEntity, UUID> {
 
-    // Workload
-    public long countActiveByDeadlineRange(OffsetDateTime start, OffsetDateTime end) {
-        return count("committedDeadline >= ?1 and committedDeadline < ?2 and status not in ('DELIVERED', 'CANCELLED')",
-                start, end);
-    }
-
-    public long countActiveFromDeadline(OffsetDateTime start) {
-        return count("committedDeadline >= ?1 and status not in ('DELIVERED', 'CANCELLED')", start);
-    }
-
-    public long countByStatusNotIn(List<String> excludedStatuses) {
-        return count("status not in ?1", excludedStatuses);
-    }
-
-    public long countByStatus(String status) {
-        return count("status = ?1", status);
-    }
-
-    // Finance
-    @SuppressWarnings("null")
-    public BigDecimal sumPaidAmountInRange(OffsetDateTime start, OffsetDateTime end) {
+    // Builds tco_order.search_document for row alias "o" (same expression as the V8 backfill).
+    // The only definition used at runtime: order saves, customer renames and imports all use it.
+    static final String SEARCH_DOCUMENT_SQL =
+            "btrim(regexp_replace(lower(f_unaccent(concat_ws(' ', " +
+                    "o.ticket_number, " +
+                    "o.customer_snapshot ->> 'firstName', " +
+                    "o.customer_snapshot ->> 'lastName', " +
+                    "o.customer_snapshot ->> 'phoneNumber', " +
+                    "regexp_replace(coalesce(o.customer_snapshot ->> 'phoneNumber', ''), '\\D', '', 'g'), " +
+                    "array_to_string(o.garment_names, ' '), " +
+                    "array_to_string(o.service_names, ' '), " +
+                    "o.notes, " +
+                    "(SELECT string_agg(concat_ws(' ', oi.notes, ois.instructions), ' ') " +
+                    "FROM tco_order_item oi " +
+                    "LEFT JOIN tco_order_item_service ois ON ois.id_order_item = oi.id_order_item " +
+                    "WHERE oi.id_order = o.id_order AND oi.is_deleted = FALSE)" +
+                    "))), '\\s+', ' ', 'g'))";
+
+    // Summary read model
+    public int refreshCustomerSnapshot(UUID customerId) {
+        getEntityManager()
+                .createNativeQuery(
+                        "UPDATE tco_order o SET customer_snapshot = jsonb_build_object(" +
+                                "'id', c.id_customer, 'firstName', c.first_name, 'lastName', c.last_name, " +
+                                "'email', c.email, 'phoneNumber', c.phone_number) " +
+                                "FROM tco_customer c " +
+                                "WHERE c.id_customer = :customerId AND o.id_customer = c.id_customer")
+                .setParameter("customerId", customerId)
+                .executeUpdate();
         return getEntityManager()
-                .createQuery(
-                        "SELECT SUM(o.amountPaid) FROM OrderEntity o WHERE o.createdAt >= :start AND o.createdAt < :end",
-                        BigDecimal.class)
-                .setParameter("start", start)
-                .setParameter("end", end)
-                .getResultStream()
-                .filter(java.util.Objects::nonNull)
-                .findFirst()
-                .orElse(BigDecimal.ZERO);
+                .createNativeQuery(
+                        "UPDATE tco_order o SET search_document = " + SEARCH_DOCUMENT_SQL + " " +
+                                "WHERE o.id_customer = :customerId")
+                .setParameter("customerId", customerId)
+                .executeUpdate();
     }
 
-    @SuppressWarnings("null")
-    public BigDecimal sumPendingDebt() {
-        // Pending debt calculated only for non-cancelled/non-delivered items
-        return getEntityManager()
-                .createQuery(
-                        "SELECT SUM(o.totalAmount - o.amountPaid) FROM OrderEntity o WHERE o.status not in ('DELIVERED', 'CANCELLED') AND o.totalAmount > o.amountPaid",
-                        BigDecimal.class)
-                .getResultStream()
-                .filter(java.util.Objects::nonNull)
-                .findFirst()
-                .orElse(BigDecimal.ZERO);
+    public void refreshSearchDocument(UUID orderId) {
+        getEntityManager()
+                .createNativeQuery("UPDATE tco_order o SET search_document = " + SEARCH_DOCUMENT_SQL + " " +
+                        "WHERE o.id_order = :orderId")
+                .setParameter("orderId", orderId)
+                .executeUpdate();
     }
 
-    // Chart
-    @SuppressWarnings("unchecked")
-    public List<Object[]> getWeeklyRevenueData(OffsetDateTime start, String zoneId) {
-        return getEntityManager()
+    // Commands — single-statement, row-locking updates that never load the aggregate
+    public Object[] findCommandState(UUID id) {
+        List<?> rows = getEntityManager()
                 .createNativeQuery(
-                        "SELECT (created_at AT TIME ZONE :zone)::date AS day, SUM(amount_paid) " +
-                                "FROM tco_order " +
-                                "WHERE created_at >= :start AND is_deleted = false " +
-                                "GROUP BY day ORDER BY day")
-                .setParameter("zone", zoneId)
-                .setParameter("start", start)
+                        "SELECT status, pickup_code, total_amount, COALESCE(amount_paid, 0), payment_method " +
+                                "FROM tco_order WHERE id_order = :id AND is_deleted = FALSE")
+                .setParameter("id", id)
                 .getResultList();
+        return rows.isEmpty() ? null : (Object[]) rows.get(0);
     }
 
-    @SuppressWarnings("unchecked")
-    public List<Object[]> getDailyWorkload(OffsetDateTime start, OffsetDateTime end, String zoneId) {
-        return getEntityManager()
+    /**
+     * Returns the previous status followed by the workload columns (branch, deadline,
+     * duration, total), or null when the order does not exist or its status is not one of
+     * {@code allowedFrom}. The sub-select locks the row first and re-checks the status against
+     * the locked version, so the previous status is the one this update replaced.
+     */
+    public Object[] updateStatus(UUID id, String status, Collection<String> allowedFrom, OffsetDateTime updatedAt) {
+        List<?> rows = getEntityManager()
                 .createNativeQuery(
-                        "SELECT (committed_deadline AT TIME ZONE :zone)::date AS day, SUM(total_duration_min) " +
-                                "FROM tco_order " +
-                                "WHERE committed_deadline >= :start AND committed_deadline < :end " +
-                                "AND status NOT IN ('DELIVERED', 'CANCELLED') AND is_deleted = false " +
-                                "GROUP BY day ORDER BY day")
-                .setParameter("zone", zoneId)
-                .setParameter("start", start)
-                .setParameter("end", end)
+                        "UPDATE tco_order o SET status = :status, updated_at = :updatedAt " +
+                                "FROM (SELECT id_order, status FROM tco_order " +
+                                "WHERE id_order = :id AND is_deleted = FALSE AND status IN (:allowedFrom) FOR UPDATE) prev " +
+                                "WHERE o.id_order = prev.id_order " +
+                                "RETURNING prev.status, o.id_branch, o.committed_deadline, o.total_duration_min, o.total_amount")
+                .setParameter("status", status)
+                .setParameter("allowedFrom", allowedFrom)
+                .setParameter("updatedAt", updatedAt)
+                .setParameter("id", id)
                 .getResultList();
+        return rows.isEmpty() ? null : (Object[]) rows.get(0);
     }
 
-    // Financial KPI Queries
-    @SuppressWarnings("unchecked")
-    public List<Object[]> getRevenueTimeSeries(OffsetDateTime start, String granularity, String zoneId) {
-        String dateFormat = switch (granularity) {
-            case "week" -> "IYYY-IW";  // ISO week-year and week
-            case "month" -> "YYYY-MM";
-            default -> "YYYY-MM-DD";   // day
-        };
+    /**
+     * Returns the workload columns (branch, deadline, duration, total) of the delivered
+     * order, or null when it was not READY.
+     */
+    public Object[] markDelivered(UUID id, OffsetDateTime deliveredAt) {
+        List<?> rows = getEntityManager()
+                .createNativeQuery(
+                        "UPDATE tco_order SET status = 'DELIVERED', delivered_at = :deliveredAt, updated_at = :deliveredAt " +
+                                "WHERE id_order = :id AND status = 'READY' AND is_deleted = FALSE " +
+                                "RETURNING id_branch, committed_deadline, total_duration_min, total_amount")
+                .setParameter("deliveredAt", deliveredAt)
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? null : (Object[]) rows.get(0);
+    }
 
-        return getEntityManager()
+    // The cap is checked against the locked row, so concurrent payments serialize on it and
+    // a second one re-evaluates the WHERE clause against the first one's committed amount.
+    public Object[] applyPayment(UUID id, BigDecimal amount, OffsetDateTime updatedAt) {
+        List<?> rows = getEntityManager()
                 .createNativeQuery(
-                        "SELECT TO_CHAR((top.recorded_at AT TIME ZONE :zone), :dateFormat) AS period, " +
-                                "SUM(top.amount) AS totalRevenue, COUNT(*) AS paymentCount " +
-                                "FROM tco_order_payment top " +
-                                "WHERE top.recorded_at >= :start AND top.amount > 0 " +
-                                "GROUP BY period ORDER BY period")
-                .setParameter("zone", zoneId)
-                .setParameter("start", start)
-                .setParameter("dateFormat", dateFormat)
+                        "UPDATE tco_order SET amount_paid = COALESCE(amount_paid, 0) + :amount, updated_at = :updatedAt " +
+                                "WHERE id_order = :id AND is_deleted = FALSE AND status <> 'CANCELLED' " +
+                                "AND COALESCE(amount_paid, 0) + :amount <= total_amount " +
+                                "RETURNING amount_paid, total_amount")
+                .setParameter("amount", amount)
+                .setParameter("updatedAt", updatedAt)
+                .setParameter("id", id)
                 .getResultList();
+        return rows.isEmpty() ? null : (Object[]) rows.get(0);
     }
 
+    // Financial KPI Queries — read the per-day materialized views of V12, days are [from, to)
+    private static final List<String> KPI_VIEWS = List.of(
+            "mv_kpi_service_revenue_daily", "mv_kpi_customer_spend_daily", "mv_kpi_customer_orders_daily");
+
     @SuppressWarnings("unchecked")
-    public List<Object[]> getServiceTypeRevenue(OffsetDateTime start, OffsetDateTime end) {
+    public List<Object[]> getServiceTypeRevenue(LocalDate from, LocalDate to) {
         return getEntityManager()
                 .createNativeQuery(
-                        "SELECT " +
-                        "  ois.service_source, " +
-                        "  ois.service_name, " +
-                        "  COALESCE(SUM(top.amount * (ois.unit_price / NULLIF(oi.subtotal, 0))), 0) AS totalRevenue, " +
-                        "  COUNT(DISTINCT top.id_order) AS orderCount, " +
-                        "  COALESCE(SUM(ois.duration_min * oi.quantity), 0) AS totalDurationMin " +
-                        "FROM tco_order_payment top " +
-                        "JOIN tco_order o ON top.id_order = o.id_order " +
-                        "JOIN tco_order_item oi ON o.id_order = oi.id_order " +
-                        "JOIN tco_order_item_service ois ON oi.id_order_item = ois.id_order_item " +
-                        "WHERE top.recorded_at >= :start AND top.recorded_at < :end " +
-                        "  AND top.amount > 0 " +
-                        "  AND o.is_deleted = false " +
-                        "  AND oi.is_deleted = false " +
-                        "  AND oi.subtotal > 0 " +
-                        "GROUP BY ois.service_source, ois.service_name " +
-                        "ORDER BY totalRevenue DESC NULLS LAST, ois.service_name ASC")
-                .setParameter("start", start)
-                .setParameter("end", end)
+                        "SELECT service_source, NULLIF(service_name, ''), SUM(revenue) AS totalRevenue, " +
+                        "SUM(order_count), SUM(duration_min) " +
+                        "FROM mv_kpi_service_revenue_daily " +
+                        "WHERE pay_date >= :from AND pay_date < :to " +
+                        "GROUP BY service_source, service_name " +
+                        "ORDER BY totalRevenue DESC NULLS LAST, service_name ASC")
+                .setParameter("from", from)
+                .setParameter("to", to)
                 .getResultList();
     }
 
-    public Object[] getRepeatRate(OffsetDateTime start, OffsetDateTime end) {
+    public Object[] getRepeatRate(LocalDate from, LocalDate to) {
         return (Object[]) getEntityManager()
                 .createNativeQuery(
-                        "SELECT COUNT(DISTINCT id_customer) AS totalCustomers, " +
-                        "COUNT(DISTINCT CASE WHEN cnt >= 2 THEN id_customer END) AS repeatCustomers " +
-                        "FROM (SELECT id_customer, COUNT(*) AS cnt FROM tco_order WHERE created_at >= :start " +
-                        "AND created_at < :end AND is_deleted = false GROUP BY id_customer) sub")
-                .setParameter("start", start)
-                .setParameter("end", end)
+                        "SELECT COUNT(*) AS totalCustomers, COUNT(*) FILTER (WHERE cnt >= 2) AS repeatCustomers " +
+                        "FROM (SELECT id_customer, SUM(order_count) AS cnt FROM mv_kpi_customer_orders_daily " +
+                        "WHERE order_date >= :from AND order_date < :to GROUP BY id_customer) sub")
+                .setParameter("from", from)
+                .setParameter("to", to)
                 .getSingleResult();
     }
 
     @SuppressWarnings("unchecked")
-    public List<Object[]> getTopCustomers(OffsetDateTime start, OffsetDateTime end, int limit) {
+    public List<Object[]> getTopCustomers(LocalDate from, LocalDate to, int limit) {
         return getEntityManager()
                 .createNativeQuery(
-                        "SELECT " +
-                        "  c.id_customer, " +
-                        "  c.first_name, " +
-                        "  c.last_name, " +
-                        "  SUM(top.amount) AS totalSpend, " +
-                        "  COUNT(DISTINCT top.id_order) AS orderCount, " +
-                        "  MAX((o.created_at AT TIME ZONE 'UTC')::date)::text AS lastOrderDate " +
-                        "FROM tco_order_payment top " +
-                        "JOIN tco_order o ON top.id_order = o.id_order " +
-                        "JOIN tco_customer c ON o.id_customer = c.id_customer " +
-                        "WHERE top.recorded_at >= :start AND top.recorded_at < :end " +
-                        "  AND top.amount > 0 " +
-                        "  AND o.is_deleted = false " +
-                        "  AND c.is_deleted = false " +
-                        "GROUP BY c.id_customer, c.first_name, c.last_name " +
-                        "ORDER BY totalSpend DESC " +
+                        "SELECT c.id_customer, c.first_name, c.last_name, s.spend, s.order_count, " +
+                        "s.last_order_date::text " +
+                        "FROM (SELECT id_customer, SUM(spend) AS spend, SUM(order_count) AS order_count, " +
+                        "MAX(last_order_date) AS last_order_date " +
+                        "FROM mv_kpi_customer_spend_daily " +
+                        "WHERE pay_date >= :from AND pay_date < :to " +
+                        "GROUP BY id_customer) s " +
+                        "JOIN tco_customer c ON c.id_customer = s.id_customer AND c.is_deleted = false " +
+                        "ORDER BY s.spend DESC " +
                         "LIMIT :limit")
-                .setParameter("start", start)
-                .setParameter("end", end)
+                .setParameter("from", from)
+                .setParameter("to", to)
                 .setParameter("limit", limit)
                 .getResultList();
     }
 
-    // At-Risk Customers
-    @SuppressWarnings("unchecked")
-    public List<Object[]> getAtRiskCustomers(LocalDate cutoffDate, String zoneId, int limit) {
-        return getEntityManager()
-                .createNativeQuery(
-                        "SELECT " +
-                        "  c.id_customer, " +
-                        "  c.first_name, " +
-                        "  c.last_name, " +
-                        "  MAX((o.created_at AT TIME ZONE :zone)::date)::text AS last_order_date " +
-                        "FROM tco_customer c " +
-                        "LEFT JOIN tco_order o ON o.id_customer = c.id_customer " +
-                        "  AND o.is_deleted = false " +
-                        "WHERE c.is_deleted = false " +
-                        "GROUP BY c.id_customer, c.first_name, c.last_name " +
-                        "HAVING MAX((o.created_at AT TIME ZONE :zone)::date) <= :cutoffDate " +
-                        "  OR (MAX((o.created_at AT TIME ZONE :zone)::date) IS NULL " +
-                        "    AND MIN((c.created_at AT TIME ZONE :zone)::date) <= :cutoffDate) " +
-                        "ORDER BY COALESCE(MAX((o.created_at AT TIME ZONE :zone)::date), " +
-                        "  MIN((c.created_at AT TIME ZONE :zone)::date)) ASC, " +
-                        "  c.first_name ASC, c.last_name ASC " +
-                        "LIMIT :limit")
-                .setParameter("zone", zoneId)
-                .setParameter("cutoffDate", cutoffDate)
-                .setParameter("limit", limit)
-                .getResultList();
+    /**
+     * Refreshes the KPI views without blocking their readers and stamps each refresh. Returns
+     * false without doing anything when another instance is already refreshing.
+     */
+    public boolean refreshKpiViews() {
+        EntityManager em = getEntityManager();
+        Boolean locked = (Boolean) em.createNativeQuery("SELECT pg_try_advisory_xact_lock(hashtext('tco_kpi_view_refresh'))")
+                .getSingleResult();
+        if (!Boolean.TRUE.equals(locked)) {
+            return false;
+        }
+        for (String view : KPI_VIEWS) {
+            em.createNativeQuery("REFRESH MATERIALIZED VIEW CONCURRENTLY " + view).executeUpdate();
+            em.createNativeQuery("UPDATE tco_kpi_view_refresh SET refreshed_at = clock_timestamp() WHERE view_name = :view")
+                    .setParameter("view", view)
+                    .executeUpdate();
+        }
+        return true;
     }
 
-    // Calendar
-    @SuppressWarnings("unchecked")
-    public List<Object[]> getCalendarMonthData(OffsetDateTime monthStart, OffsetDateTime monthEnd, String zoneId) {
-        return getEntityManager()
-                .createNativeQuery(
-                        "SELECT " +
-                        "  (o.committed_deadline AT TIME ZONE :zone)::date AS date, " +
-                        "  COALESCE(SUM(o.total_duration_min), 0) AS totalMinutesUsed, " +
-                        "  COUNT(DISTINCT o.id_order) AS orderCount, " +
-                        "  COALESCE(SUM(o.total_amount), 0) AS scheduledRevenue " +
-                        "FROM tco_order o " +
-                        "WHERE o.committed_deadline >= :start AND o.committed_deadline < :end " +
-                        "  AND o.status NOT IN ('DELIVERED', 'CANCELLED') " +
-                        "  AND o.is_deleted = false " +
-                        "GROUP BY date " +
-                        "ORDER BY date")
-                .setParameter("zone", zoneId)
-                .setParameter("start", monthStart)
-                .setParameter("end", monthEnd)
-                .getResultList();
+    /** When the least recently refreshed KPI view was refreshed. */
+    public OffsetDateTime findKpiViewsRefreshedAt() {
+        return (OffsetDateTime) getEntityManager()
+                .createNativeQuery("SELECT MIN(refreshed_at) FROM tco_kpi_view_refresh")
+                .getSingleResult();
     }
 }
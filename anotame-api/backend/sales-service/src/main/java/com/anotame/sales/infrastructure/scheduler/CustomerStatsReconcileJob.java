@@ -0,0 +1,29 @@
+package com.anotame.sales.infrastructure.scheduler;
+
+import com.anotame.sales.application.service.CustomerService;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds the customer statistics (V13) once a night, correcting any drift from writes that
+ * bypassed the adapters (manual SQL, restored backups). Order writes keep the table current
+ * otherwise.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class CustomerStatsReconcileJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerStatsReconcileJob.class);
+
+    private final CustomerService customerService;
+
+    @Scheduled(cron = "{app.customer-stats.reconcile-cron}", timeZone = "{app.timezone}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void reconcile() {
+        int chunks = customerService.rebuildStats();
+        log.info("Customer statistics reconciled in {} chunks", chunks);
+    }
+}
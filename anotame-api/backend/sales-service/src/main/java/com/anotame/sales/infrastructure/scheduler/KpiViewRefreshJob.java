@@ -0,0 +1,29 @@
+package com.anotame.sales.infrastructure.scheduler;
+
+import com.anotame.sales.application.service.SalesService;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the financial KPI materialized views (V12) fresh. Runs are skipped while the previous
+ * one is still going, and an advisory lock in the database keeps other instances out.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class KpiViewRefreshJob {
+
+    private static final Logger log = LoggerFactory.getLogger(KpiViewRefreshJob.class);
+
+    private final SalesService salesService;
+
+    @Scheduled(every = "{app.kpi-views.refresh-every}", delayed = "1m",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        if (!salesService.refreshFinancialKpiViews()) {
+            log.debug("Financial KPI views are being refreshed by another instance; skipped");
+        }
+    }
+}
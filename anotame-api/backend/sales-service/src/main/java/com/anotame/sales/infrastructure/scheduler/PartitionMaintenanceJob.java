@@ -0,0 +1,32 @@
+package com.anotame.sales.infrastructure.scheduler;
+
+import com.anotame.sales.infrastructure.persistence.adapter.MonthlyPartitionMaintenance;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the upcoming monthly partitions of the payment ledger and audit log (V19) once a
+ * night, and gives rows parked in their default partitions a month partition of their own.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class PartitionMaintenanceJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceJob.class);
+
+    private final MonthlyPartitionMaintenance maintenance;
+
+    @Scheduled(cron = "{app.partitions.maintain-cron}", timeZone = "{app.timezone}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void maintain() {
+        int created = maintenance.maintain();
+        if (created < 0) {
+            log.debug("Monthly partitions are being maintained by another instance; skipped");
+        } else if (created > 0) {
+            log.info("Created {} monthly partitions", created);
+        }
+    }
+}
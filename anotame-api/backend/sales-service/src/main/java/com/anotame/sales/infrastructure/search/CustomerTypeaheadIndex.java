@@ -0,0 +1,419 @@
+package com.anotame.sales.infrastructure.search;
+
+import com.anotame.sales.application.event.CustomerChanged;
+import com.anotame.sales.application.port.output.CustomerTypeaheadPort;
+import com.anotame.sales.infrastructure.persistence.adapter.SearchText;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Customer typeahead served from memory: a sorted array of name words and phone digits, each
+ * pointing at a small record (id, sort name, keys) by int code. A query word matches the
+ * keys it prefixes, found by binary search; a customer matches when every query word prefixes
+ * one of its keys. Exact word matches rank first, then the name. Only the best offset + limit
+ * matches are kept while scanning, and the page is answered with their ids.
+ * <p>
+ * Loaded at startup. Committed customer writes ({@link CustomerChanged}) re-read the customer
+ * on the writer thread: its old record is dropped and the new one goes to a small unsorted
+ * delta, scanned on every query and merged into the sorted keys once it passes
+ * app.customer-typeahead.max-delta entries. Readers use an immutable {@link Snapshot} published
+ * through a volatile field.
+ * <p>
+ * Memory is about 300 bytes per customer with typical names: the record, its sort name, two
+ * or three keys and the id map, or ~30 MB per 100k customers. Name words are shared between
+ * customers. The estimate for the loaded data is logged at startup.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class CustomerTypeaheadIndex implements CustomerTypeaheadPort {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerTypeaheadIndex.class);
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    // Object headers, references and the id map entry of one customer; strings are counted by length.
+    private static final int RECORD_BYTES = 140;
+    private static final int STRING_BYTES = 40;
+    private static final int KEY_BYTES = 8;
+
+    private final CustomerTypeaheadLoader loader;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "customer-typeahead");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Owned by the writer thread. A dropped record leaves a null at its code until the next merge.
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<UUID, Integer> codes = new HashMap<>();
+    private final Map<String, String> keyPool = new HashMap<>();
+    private final List<String> deltaKeys = new ArrayList<>();
+    private final List<Integer> deltaCodes = new ArrayList<>();
+    private String[] keys = new String[0];
+    private int[] keyCodes = new int[0];
+    private int dropped;
+
+    private volatile Snapshot snapshot;
+
+    @ConfigProperty(name = "app.customer-typeahead.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "app.customer-typeahead.max-delta", defaultValue = "1024")
+    int maxDelta;
+
+    void onStart(@Observes StartupEvent event) {
+        if (enabled) {
+            writer.execute(() -> {
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.warn("Customer typeahead load failed; searches go to the database", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+
+    void onCustomerChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) CustomerChanged event) {
+        if (!enabled) {
+            return;
+        }
+        // Re-read on the writer thread: the committing thread's transaction is over.
+        writer.execute(() -> {
+            try {
+                if (event.customerId() == null) {
+                    reload();
+                } else {
+                    refresh(event.customerId());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Customer typeahead update failed for {}", event.customerId(), e);
+            }
+        });
+    }
+
+    @Override
+    public Optional<List<UUID>> search(String query, int limit, int offset) {
+        Snapshot s = snapshot;
+        String[] terms = terms(query);
+        if (s == null || terms == null) {
+            return Optional.empty();
+        }
+
+        // Drive from the term with the fewest sorted keys; the delta is small enough to scan.
+        String driver = null;
+        int driverFrom = 0;
+        int driverTo = 0;
+        for (String term : terms) {
+            int from = lowerBound(s.keys(), term);
+            int to = lowerBound(s.keys(), term + Character.MAX_VALUE);
+            if (driver == null || to - from < driverTo - driverFrom) {
+                driver = term;
+                driverFrom = from;
+                driverTo = to;
+            }
+        }
+        Matches matches = new Matches(terms, (int) Math.min((long) offset + limit, Integer.MAX_VALUE));
+        BitSet seen = new BitSet(s.entries().length);
+        for (int k = driverFrom; k < driverTo; k++) {
+            collect(s, s.keyCodes()[k], seen, matches);
+        }
+        for (int k = 0; k < s.deltaKeys().length; k++) {
+            if (s.deltaKeys()[k].startsWith(driver)) {
+                collect(s, s.deltaCodes()[k], seen, matches);
+            }
+        }
+        if (matches.found == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(matches.best().stream()
+                .skip(offset)
+                .map(Hit::id)
+                .toList());
+    }
+
+    private static void collect(Snapshot s, int code, BitSet seen, Matches matches) {
+        if (seen.get(code)) {
+            return;
+        }
+        seen.set(code);
+        Entry entry = s.entries()[code];
+        if (entry != null) {
+            matches.offer(entry);
+        }
+    }
+
+    /** Keys pending in the delta of the published snapshot, i.e. not yet merged. */
+    int deltaKeyCount() {
+        Snapshot s = snapshot;
+        return s == null ? 0 : s.deltaKeys().length;
+    }
+
+    /**
+     * The normalized words of a query, or its digits when it looks like a phone number; null when
+     * empty or when a word holds characters the index does not key (e.g. an email address).
+     */
+    private static String[] terms(String query) {
+        String normalized = SearchText.normalize(query);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        if (SearchText.isPhoneQuery(query)) {
+            String digits = SearchText.digitsOnly(query);
+            return digits.isEmpty() ? null : new String[]{digits};
+        }
+        String[] terms = normalized.split(" ");
+        for (String term : terms) {
+            if (!WORD.matcher(term).matches()) {
+                return null;
+            }
+        }
+        return terms;
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Writer thread only; tests call reload and refresh directly.
+
+    void reload() {
+        long started = System.nanoTime();
+        entries.clear();
+        codes.clear();
+        keyPool.clear();
+        dropped = 0;
+        loader.loadAll(row -> add(toEntry(row)));
+        merge();
+        long bytes = estimatedBytes();
+        log.info("Customer typeahead loaded {} customers in {} ms (~{} MB, ~{} MB per 100k customers)",
+                codes.size(), (System.nanoTime() - started) / 1_000_000, bytes >> 20,
+                codes.isEmpty() ? 0 : (bytes * 100_000 / codes.size()) >> 20);
+    }
+
+    void refresh(UUID customerId) {
+        if (snapshot == null) {
+            // Not loaded yet; the load will read this customer.
+            return;
+        }
+        Integer old = codes.remove(customerId);
+        if (old != null) {
+            entries.set(old, null);
+            dropped++;
+        }
+        loader.load(customerId).ifPresent(row -> {
+            int code = add(toEntry(row));
+            for (String key : entries.get(code).keys()) {
+                deltaKeys.add(key);
+                deltaCodes.add(code);
+            }
+        });
+        if (deltaKeys.size() > maxDelta || dropped > codes.size() / 4) {
+            merge();
+        } else {
+            publish();
+        }
+    }
+
+    private int add(Entry entry) {
+        int code = entries.size();
+        entries.add(entry);
+        codes.put(entry.id(), code);
+        return code;
+    }
+
+    /** Re-codes the live records and rebuilds the sorted keys, emptying the delta. */
+    private void merge() {
+        List<Entry> live = entries.stream().filter(Objects::nonNull).toList();
+        entries.clear();
+        codes.clear();
+        deltaKeys.clear();
+        deltaCodes.clear();
+        dropped = 0;
+        int keyCount = 0;
+        for (Entry entry : live) {
+            add(entry);
+            keyCount += entry.keys().length;
+        }
+        Integer[] order = new Integer[keyCount];
+        String[] unsortedKeys = new String[keyCount];
+        int[] unsortedCodes = new int[keyCount];
+        int k = 0;
+        for (int code = 0; code < entries.size(); code++) {
+            for (String key : entries.get(code).keys()) {
+                order[k] = k;
+                unsortedKeys[k] = key;
+                unsortedCodes[k] = code;
+                k++;
+            }
+        }
+        Arrays.sort(order, Comparator.comparing(i -> unsortedKeys[i]));
+        keys = new String[keyCount];
+        keyCodes = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = unsortedKeys[order[i]];
+            keyCodes[i] = unsortedCodes[order[i]];
+        }
+        publish();
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(keys, keyCodes,
+                deltaKeys.toArray(String[]::new),
+                deltaCodes.stream().mapToInt(Integer::intValue).toArray(),
+                entries.toArray(Entry[]::new));
+    }
+
+    private Entry toEntry(Object[] row) {
+        String firstName = (String) row[1];
+        String lastName = (String) row[2];
+        String phoneNumber = (String) row[3];
+        String sortName = SearchText.normalize((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : ""));
+        List<String> keys = new ArrayList<>();
+        for (String word : NON_WORD.split(sortName)) {
+            if (!word.isEmpty() && !keys.contains(word)) {
+                keys.add(keyPool.computeIfAbsent(word, w -> w));
+            }
+        }
+        String digits = SearchText.digitsOnly(phoneNumber);
+        if (!digits.isEmpty()) {
+            keys.add(digits);
+        }
+        return new Entry((UUID) row[0], sortName, keys.toArray(String[]::new));
+    }
+
+    private long estimatedBytes() {
+        long bytes = (long) keys.length * KEY_BYTES;
+        for (String key : keyPool.keySet()) {
+            bytes += STRING_BYTES + key.length();
+        }
+        for (Entry entry : entries) {
+            if (entry != null) {
+                bytes += RECORD_BYTES + stringBytes(entry.sortName()) + 4L * entry.keys().length;
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value != null ? STRING_BYTES + value.length() : 0;
+    }
+
+    private record Snapshot(String[] keys, int[] keyCodes, String[] deltaKeys, int[] deltaCodes, Entry[] entries) {
+    }
+
+    /** A matching customer with its rank: more exact word matches first, then the name and id. */
+    private record Hit(int exactMatches, String sortName, UUID id) {
+
+        static final Comparator<Hit> BEST_FIRST = Comparator.comparingInt((Hit h) -> -h.exactMatches())
+                .thenComparing(Hit::sortName)
+                .thenComparing(Hit::id);
+    }
+
+    /** The best {@code capacity} matches of a query, in a heap whose head is the worst of them. */
+    private static final class Matches {
+
+        private final String[] terms;
+        private final int capacity;
+        private final PriorityQueue<Hit> heap;
+        private int found;
+
+        Matches(String[] terms, int capacity) {
+            this.terms = terms;
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<>(Math.min(capacity, 64) + 1, Hit.BEST_FIRST.reversed());
+        }
+
+        void offer(Entry entry) {
+            if (!entry.matchesAll(terms)) {
+                return;
+            }
+            found++;
+            Hit hit = new Hit(entry.exactMatches(terms), entry.sortName(), entry.id());
+            if (heap.size() < capacity) {
+                heap.add(hit);
+            } else if (capacity > 0 && Hit.BEST_FIRST.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+
+        List<Hit> best() {
+            List<Hit> best = new ArrayList<>(heap);
+            best.sort(Hit.BEST_FIRST);
+            return best;
+        }
+    }
+
+    private record Entry(UUID id, String sortName, String[] keys) {
+
+        boolean matchesAll(String[] terms) {
+            for (String term : terms) {
+                if (!hasKeyStartingWith(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int exactMatches(String[] terms) {
+            int exact = 0;
+            for (String term : terms) {
+                for (String key : keys) {
+                    if (key.equals(term)) {
+                        exact++;
+                        break;
+                    }
+                }
+            }
+            return exact;
+        }
+
+        private boolean hasKeyStartingWith(String term) {
+            for (String key : keys) {
+                if (key.startsWith(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.anotame.sales.infrastructure.search;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/** Reads the customer fields {@link CustomerTypeaheadIndex} is keyed on: id, names and phone. */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class CustomerTypeaheadLoader {
+
+    private static final int FETCH_SIZE = 5000;
+
+    private static final String COLUMNS = "SELECT id_customer, first_name, last_name, phone_number FROM tco_customer ";
+
+    private final EntityManager em;
+
+    /** Streams every live customer. */
+    @Transactional
+    public void loadAll(Consumer<Object[]> sink) {
+        try (Stream<?> rows = em.createNativeQuery(COLUMNS + "WHERE is_deleted = FALSE")
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(row -> sink.accept((Object[]) row));
+        }
+    }
+
+    /** One customer, empty when it does not exist or is deleted. */
+    @Transactional
+    public Optional<Object[]> load(UUID customerId) {
+        List<?> rows = em.createNativeQuery(COLUMNS + "WHERE id_customer = :id AND is_deleted = FALSE")
+                .setParameter("id", customerId)
+                .getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.of((Object[]) rows.get(0));
+    }
+}
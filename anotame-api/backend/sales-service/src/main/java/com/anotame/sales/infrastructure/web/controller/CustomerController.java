@@ -1,9 +1,13 @@
 package com.anotame.sales.infrastructure.web.controller;
 
 import com.anotame.sales.application.dto.CustomerDto;
+import com.anotame.sales.application.dto.CustomerOrderHistoryResponse;
 import com.anotame.sales.application.service.CustomerService;
+import com.anotame.sales.application.service.SalesService;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
@@ -17,6 +21,7 @@ import java.util.UUID;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final SalesService salesService;
 
     @POST
     public CustomerDto createCustomer(CustomerDto customerDto) {
@@ -29,10 +34,39 @@ public class CustomerController {
         return customerService.getCustomer(id);
     }
 
+    /**
+     * The customer's orders, newest first, with its lifetime totals. Pass the returned
+     * {@code nextCursor} back as {@code cursor} to read the next page.
+     */
+    @GET
+    @Path("/{id}/orders")
+    public CustomerOrderHistoryResponse getCustomerOrders(
+            @PathParam("id") UUID id,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("size") @DefaultValue("20") int size) {
+        return salesService.getCustomerOrders(id, cursor, size);
+    }
+
+    /** Rebuilds the per-customer statistics (at-risk list, profile badges) from the orders. */
+    @POST
+    @Path("/stats/rebuild")
+    @RolesAllowed("ADMIN")
+    public Response rebuildStats() {
+        customerService.rebuildStats();
+        return Response.noContent().build();
+    }
+
+    /**
+     * Customers matching {@code query} by name, email or phone, best first. Pages of at most
+     * 50; the next page starts at {@code offset + limit}.
+     */
     @GET
     @Path("/search")
-    public List<CustomerDto> searchCustomers(@QueryParam("query") String query) {
-        return customerService.searchCustomers(query);
+    public List<CustomerDto> searchCustomers(
+            @QueryParam("query") String query,
+            @QueryParam("limit") @DefaultValue("20") int limit,
+            @QueryParam("offset") @DefaultValue("0") int offset) {
+        return customerService.searchCustomers(query, limit, offset);
     }
 
     @PUT
@@ -0,0 +1,70 @@
+package com.anotame.sales.infrastructure.web.controller;
+
+import com.anotame.sales.application.service.ExportService;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Bulk downloads for accounting. The body is written while the rows are read, so these
+ * endpoints are safe for the full history; use them instead of {@code GET /orders}.
+ */
+@Path("/exports")
+@RolesAllowed("ADMIN")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv; charset=UTF-8";
+
+    private final ExportService exportService;
+
+    @GET
+    @Path("/orders")
+    @Produces({CSV, NDJSON})
+    public Response exportOrders(
+            @QueryParam("from") LocalDate from,
+            @QueryParam("to") LocalDate to,
+            @QueryParam("branchId") UUID branchId,
+            @QueryParam("format") String format) {
+        ExportService.Format f = ExportService.Format.parse(format);
+        return download("orders", f, exportService.exportOrders(f, from, to, branchId)::accept);
+    }
+
+    @GET
+    @Path("/payments")
+    @Produces({CSV, NDJSON})
+    public Response exportPayments(
+            @QueryParam("from") LocalDate from,
+            @QueryParam("to") LocalDate to,
+            @QueryParam("branchId") UUID branchId,
+            @QueryParam("format") String format) {
+        ExportService.Format f = ExportService.Format.parse(format);
+        return download("payments", f, exportService.exportPayments(f, from, to, branchId)::accept);
+    }
+
+    @GET
+    @Path("/customers")
+    @Produces({CSV, NDJSON})
+    public Response exportCustomers(
+            @QueryParam("from") LocalDate from,
+            @QueryParam("to") LocalDate to,
+            @QueryParam("branchId") UUID branchId,
+            @QueryParam("format") String format) {
+        ExportService.Format f = ExportService.Format.parse(format);
+        return download("customers", f, exportService.exportCustomers(f, from, to, branchId)::accept);
+    }
+
+    private static Response download(String name, ExportService.Format format, StreamingOutput body) {
+        boolean ndjson = format == ExportService.Format.NDJSON;
+        return Response.ok(body, ndjson ? NDJSON : CSV)
+                .header("Content-Disposition",
+                        "attachment; filename=\"" + name + (ndjson ? ".ndjson" : ".csv") + "\"")
+                .build();
+    }
+}
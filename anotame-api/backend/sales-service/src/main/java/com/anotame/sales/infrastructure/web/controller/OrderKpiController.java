@@ -1,14 +1,26 @@
 package com.anotame.sales.infrastructure.web.controller;
 
 import com.anotame.sales.application.dto.CalendarMonthResponse;
+import com.anotame.sales.application.dto.CashCloseResponse;
+import com.anotame.sales.application.dto.CycleTimeResponse;
 import com.anotame.sales.application.dto.DashboardMetricsResponse;
 import com.anotame.sales.application.dto.FinancialKpiResponse;
+import com.anotame.sales.application.service.PaymentService;
 import com.anotame.sales.application.service.SalesService;
+import com.anotame.sales.infrastructure.web.sse.DashboardEventStream;
 import io.quarkus.security.Authenticated;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import lombok.RequiredArgsConstructor;
 
+import java.time.LocalDate;
+import java.util.UUID;
+
 @Path("/orders/kpi")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
@@ -17,19 +29,79 @@ import lombok.RequiredArgsConstructor;
 public class OrderKpiController {
 
     private final SalesService salesService;
+    private final PaymentService paymentService;
+    private final DashboardEventStream dashboardEventStream;
 
     @GET
     @Path("/dashboard")
-    public DashboardMetricsResponse getDashboardMetrics(@QueryParam("month") String month) {
-        return salesService.getDashboardMetrics(month);
+    public DashboardMetricsResponse getDashboardMetrics(
+            @QueryParam("month") String month,
+            @QueryParam("branchId") UUID branchId) {
+        return salesService.getDashboardMetrics(month, branchId);
+    }
+
+    /**
+     * Live dashboard as Server-Sent Events: a "snapshot" event with the full dashboard on connect,
+     * then "delta" events with the headline figures that changed as orders and payments commit.
+     */
+    @GET
+    @Path("/dashboard/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamDashboard(
+            @QueryParam("branchId") UUID branchId,
+            @Context SseEventSink sink,
+            @Context Sse sse) {
+        dashboardEventStream.subscribe(branchId, sink, sse);
     }
 
     @GET
     @Path("/calendar")
     public CalendarMonthResponse getCalendarData(
             @QueryParam("month") String month,
-            @QueryParam("dailyCapacityMinutes") @DefaultValue("480") int dailyCapacityMinutes) {
-        return salesService.getCalendarData(month, dailyCapacityMinutes);
+            @QueryParam("dailyCapacityMinutes") @DefaultValue("480") int dailyCapacityMinutes,
+            @QueryParam("branchId") UUID branchId) {
+        return salesService.getCalendarData(month, dailyCapacityMinutes, branchId);
+    }
+
+    /**
+     * Time spent per workshop stage and from intake to delivery, with percentiles, for stages
+     * ended between {@code from} and {@code to} (inclusive, last 30 days by default).
+     */
+    @GET
+    @Path("/cycle-time")
+    public CycleTimeResponse getCycleTime(
+            @QueryParam("from") LocalDate from,
+            @QueryParam("to") LocalDate to,
+            @QueryParam("branchId") UUID branchId,
+            @QueryParam("groupBy") @DefaultValue("stage") String groupBy) {
+        return salesService.getCycleTimeKpis(from, to, branchId, groupBy);
+    }
+
+    /** End-of-day cash close (corte de caja); {@code date} defaults to today. */
+    @GET
+    @Path("/cash-close")
+    public CashCloseResponse getCashClose(
+            @QueryParam("date") LocalDate date,
+            @QueryParam("branchId") UUID branchId) {
+        return paymentService.getCashClose(date, branchId);
+    }
+
+    /** Recomputes the daily payment rollup from the ledger, month by month. */
+    @POST
+    @Path("/payment-totals/rebuild")
+    @RolesAllowed("ADMIN")
+    public Response rebuildPaymentTotals() {
+        paymentService.rebuildDailyTotals();
+        return Response.noContent().build();
+    }
+
+    /** Recomputes the per-day workload rollup behind the calendar and dashboard charts. */
+    @POST
+    @Path("/workload/rebuild")
+    @RolesAllowed("ADMIN")
+    public Response rebuildDailyWorkload() {
+        salesService.rebuildDailyWorkload();
+        return Response.noContent().build();
     }
 
     @GET
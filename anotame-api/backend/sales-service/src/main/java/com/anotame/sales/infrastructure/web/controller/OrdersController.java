@@ -3,10 +3,14 @@ package com.anotame.sales.infrastructure.web.controller;
 import com.anotame.sales.application.dto.AuditLogResponse;
 import com.anotame.sales.application.dto.CreateOrderRequest;
 import com.anotame.sales.application.dto.DeliverOrderRequest;
+import com.anotame.sales.application.dto.OrderImportResponse;
 import com.anotame.sales.application.dto.UpdateOrderRequest;
 import com.anotame.sales.application.dto.OrderResponse;
+import com.anotame.sales.application.dto.OrderSummaryFacetsResponse;
 import com.anotame.sales.application.dto.OrderSummaryPageResponse;
+import com.anotame.sales.application.service.OrderImportService;
 import com.anotame.sales.application.service.SalesService;
+import jakarta.annotation.security.RolesAllowed;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +19,7 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +36,7 @@ public class OrdersController {
     private static final Logger log = LoggerFactory.getLogger(OrdersController.class);
 
     private final SalesService salesService;
+    private final OrderImportService orderImportService;
     private final JsonWebToken jwt;
 
     @ConfigProperty(name = "app.default-branch-id")
@@ -41,6 +47,25 @@ public class OrdersController {
         return salesService.createOrderDTO(request, requireUuidClaim("user_id"), branchIdFromJwtOrDefault());
     }
 
+    /**
+     * Bulk import of historical orders from an NDJSON body (one order per line). Pass the
+     * importId of an unfinished import to resume it after its last committed line.
+     */
+    @POST
+    @Path("/import")
+    @Consumes("application/x-ndjson")
+    @RolesAllowed("ADMIN")
+    public OrderImportResponse importOrders(InputStream body, @QueryParam("importId") UUID importId) {
+        return orderImportService.importOrders(body, importId, requireUuidClaim("user_id"), branchIdFromJwtOrDefault());
+    }
+
+    @GET
+    @Path("/import/{importId}")
+    @RolesAllowed("ADMIN")
+    public OrderImportResponse getImport(@PathParam("importId") UUID importId) {
+        return orderImportService.getImport(importId);
+    }
+
     @GET
     public List<OrderResponse> getOrders() {
         return salesService.getAllOrders();
@@ -55,10 +80,28 @@ public class OrdersController {
             @QueryParam("garmentId") UUID garmentId,
             @QueryParam("garmentSource") String garmentSource,
             @QueryParam("deadline") LocalDate deadline,
-            @QueryParam("status") List<String> statuses) {
+            @QueryParam("status") List<String> statuses,
+            @QueryParam("mode") @DefaultValue("page") String mode,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("includeTotal") @DefaultValue("false") boolean includeTotal) {
+        if ("cursor".equalsIgnoreCase(mode)) {
+            return salesService.getOrderSummariesByCursor(
+                    cursor, size, includeTotal, search, garmentId, garmentSource, deadline, statuses);
+        }
         return salesService.getOrderSummaries(page, size, search, garmentId, garmentSource, deadline, statuses);
     }
 
+    @GET
+    @Path("/summary/facets")
+    public OrderSummaryFacetsResponse getOrderSummaryFacets(
+            @QueryParam("search") String search,
+            @QueryParam("garmentId") UUID garmentId,
+            @QueryParam("garmentSource") String garmentSource,
+            @QueryParam("deadline") LocalDate deadline,
+            @QueryParam("status") List<String> statuses) {
+        return salesService.getOrderSummaryFacets(search, garmentId, garmentSource, deadline, statuses);
+    }
+
     @GET
     @Path("/{id}")
     public OrderResponse getOrder(@PathParam("id") UUID id) {
@@ -105,7 +148,7 @@ public class OrdersController {
     @Path("/{id}/status")
     public void updateStatus(@PathParam("id") UUID id, Map<String, String> payload) {
         String status = payload.get("status");
-        salesService.updateOrderStatus(id, status);
+        salesService.updateOrderStatus(id, status, requireUuidClaim("user_id"));
     }
 
     private UUID requireUuidClaim(String claimName) {
@@ -4,6 +4,7 @@ import com.anotame.sales.domain.exception.FieldValidationException;
 import com.anotame.sales.domain.exception.SalesConflictException;
 import com.anotame.sales.domain.exception.SalesException;
 import com.anotame.sales.domain.exception.SalesNotFoundException;
+import com.anotame.sales.domain.exception.SalesUnavailableException;
 import com.anotame.sales.domain.exception.SalesUnprocessableException;
 import com.anotame.sales.domain.exception.SalesValidationException;
 import com.anotame.sales.infrastructure.web.dto.ErrorResponse;
@@ -23,6 +24,8 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
 
         private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+        private static final int RETRY_AFTER_SECONDS = 30;
+
         @Override
         public Response toResponse(Exception exception) {
                 // 1. Bean validation errors (@NotBlank, @Email, etc.)
@@ -45,9 +48,12 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
                 // 3. Domain errors mapped to HTTP at the web boundary
                 if (exception instanceof SalesException se) {
                         log.warn("Sales domain exception: {}", se.getMessage());
-                        return Response.status(statusFor(se))
-                                        .entity(new ErrorResponse("REQUEST_FAILED", "Request could not be processed"))
-                                        .build();
+                        Response.ResponseBuilder response = Response.status(statusFor(se))
+                                        .entity(new ErrorResponse("REQUEST_FAILED", "Request could not be processed"));
+                        if (se instanceof SalesUnavailableException) {
+                                response.header("Retry-After", RETRY_AFTER_SECONDS);
+                        }
+                        return response.build();
                 }
                 // 4. Standard HTTP errors (unexpected infrastructure/controller usage)
                 if (exception instanceof WebApplicationException wae) {
@@ -85,6 +91,9 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
                 if (exception instanceof SalesUnprocessableException) {
                         return 422;
                 }
+                if (exception instanceof SalesUnavailableException) {
+                        return Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+                }
                 return Response.Status.BAD_REQUEST.getStatusCode();
         }
 }
@@ -0,0 +1,212 @@
+package com.anotame.sales.infrastructure.web.sse;
+
+import com.anotame.sales.application.dto.DashboardDelta;
+import com.anotame.sales.application.dto.DashboardMetricsResponse;
+import com.anotame.sales.application.event.DashboardChanged;
+import com.anotame.sales.application.service.SalesService;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseBroadcaster;
+import jakarta.ws.rs.sse.SseEventSink;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Live dashboard over Server-Sent Events. A subscriber gets a "snapshot" event with the full
+ * dashboard when it connects. After that it gets "delta" events with only the headline figures
+ * that changed: today's revenue, orders ready for pickup, pending debt and today's workload.
+ * <p>
+ * Writes fire {@link DashboardChanged}, observed here after commit. The changes of one debounce
+ * window collapse into one recomputation per subscribed branch, and every subscriber of that
+ * branch gets its result, so the cost follows the write rate and not the number of tablets.
+ * A periodic refresh catches the day rollover and changes made outside the services.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class DashboardEventStream {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardEventStream.class);
+
+    // One channel per branch filter; a null branch is the all-branches dashboard.
+    private record Key(UUID branchId) {
+    }
+
+    private static final class Channel {
+        final Sse sse;
+        final SseBroadcaster broadcaster;
+        final Set<SseEventSink> sinks = ConcurrentHashMap.newKeySet();
+        DashboardMetricsResponse last;
+        boolean closed;
+
+        Channel(Sse sse) {
+            this.sse = sse;
+            this.broadcaster = sse.newBroadcaster();
+            broadcaster.onClose(sinks::remove);
+            broadcaster.onError((sink, error) -> sinks.remove(sink));
+        }
+    }
+
+    private final SalesService salesService;
+
+    private final Map<Key, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @CacheName("dashboard-snapshot")
+    Cache dashboardSnapshotCache;
+
+    @ConfigProperty(name = "app.dashboard-stream.debounce", defaultValue = "500ms")
+    Duration debounce;
+
+    @ConfigProperty(name = "app.dashboard-stream.refresh-every", defaultValue = "60s")
+    Duration refreshEvery;
+
+    @PostConstruct
+    void startPeriodicRefresh() {
+        scheduler.scheduleWithFixedDelay(this::publishAll,
+                refreshEvery.toMillis(), refreshEvery.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        channels.values().forEach(channel -> channel.broadcaster.close());
+    }
+
+    /** Registers a subscriber and sends it the current dashboard. */
+    public void subscribe(UUID branchId, SseEventSink sink, Sse sse) {
+        Key key = new Key(branchId);
+        while (true) {
+            Channel channel = channels.computeIfAbsent(key, k -> new Channel(sse));
+            synchronized (channel) {
+                if (channel.closed) {
+                    continue;
+                }
+                // Under the channel lock, so no delta computed before this snapshot is sent after it.
+                DashboardMetricsResponse snapshot = salesService.getDashboardMetrics(null, branchId);
+                if (channel.last == null) {
+                    channel.last = snapshot;
+                }
+                channel.sinks.add(sink);
+                channel.broadcaster.register(sink);
+                sink.send(event(channel.sse, "snapshot", snapshot));
+                return;
+            }
+        }
+    }
+
+    void onDashboardChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) DashboardChanged event) {
+        if (!channels.isEmpty() && flushPending.compareAndSet(false, true)) {
+            scheduler.schedule(this::flush, debounce.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        flushPending.set(false);
+        // The adapters invalidate the snapshot cache before their transaction commits. A reader in
+        // between may have cached pre-commit figures, so start from a clean cache.
+        dashboardSnapshotCache.invalidateAll().await().indefinitely();
+        publishAll();
+    }
+
+    private void publishAll() {
+        channels.forEach((key, channel) -> {
+            try {
+                publish(key, channel);
+            } catch (RuntimeException e) {
+                log.warn("Could not publish dashboard update for branch {}", key.branchId(), e);
+            }
+        });
+    }
+
+    private void publish(Key key, Channel channel) {
+        synchronized (channel) {
+            if (channel.sinks.isEmpty()) {
+                channel.closed = true;
+                channels.remove(key, channel);
+                channel.broadcaster.close();
+                return;
+            }
+            DashboardMetricsResponse current = salesService.getDashboardMetrics(null, key.branchId());
+            DashboardMetricsResponse last = channel.last;
+            channel.last = current;
+            if (!today(current).equals(today(last))) {
+                // A new day shifts every series; deltas of the headline figures would not cover it.
+                channel.broadcaster.broadcast(event(channel.sse, "snapshot", current));
+                return;
+            }
+            DashboardDelta delta = delta(last, current);
+            if (delta != null) {
+                channel.broadcaster.broadcast(event(channel.sse, "delta", delta));
+            }
+        }
+    }
+
+    /** The headline figures of {@code current} that differ from {@code last}, or null if none do. */
+    private static DashboardDelta delta(DashboardMetricsResponse last, DashboardMetricsResponse current) {
+        DashboardDelta.DashboardDeltaBuilder delta = DashboardDelta.builder();
+        boolean changed = false;
+        if (!sameAmount(last.getFinance().getTodayRevenue(), current.getFinance().getTodayRevenue())) {
+            delta.todayRevenue(current.getFinance().getTodayRevenue());
+            changed = true;
+        }
+        if (last.getWorkload().getReadyForPickup() != current.getWorkload().getReadyForPickup()) {
+            delta.readyForPickup(current.getWorkload().getReadyForPickup());
+            changed = true;
+        }
+        if (!sameAmount(last.getFinance().getPendingDebt(), current.getFinance().getPendingDebt())) {
+            delta.pendingDebt(current.getFinance().getPendingDebt());
+            changed = true;
+        }
+        long lastMinutes = last.getDailyWorkload().get(0).getTotalMinutesUsed();
+        long currentMinutes = current.getDailyWorkload().get(0).getTotalMinutesUsed();
+        if (lastMinutes != currentMinutes) {
+            delta.todayWorkloadMinutes(currentMinutes);
+            changed = true;
+        }
+        return changed ? delta.build() : null;
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null || b == null ? Objects.equals(a, b) : a.compareTo(b) == 0;
+    }
+
+    // The first point of the workload series is today.
+    private static String today(DashboardMetricsResponse dashboard) {
+        return dashboard.getDailyWorkload().get(0).getDate();
+    }
+
+    private static OutboundSseEvent event(Sse sse, String name, Object data) {
+        return sse.newEventBuilder()
+                .name(name)
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(data)
+                .build();
+    }
+}
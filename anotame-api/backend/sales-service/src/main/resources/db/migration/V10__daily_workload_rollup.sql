@@ -0,0 +1,30 @@
+-- V10: Per-branch, per-day rollup of the workshop workload (calendar and dashboard charts).
+-- One row per (branch, local deadline date) with the minutes, order count and order totals of
+-- the orders still to be delivered on that day. OrderPersistenceAdapter keeps it current with
+-- +/- deltas in the same transaction as the order write; POST /orders/kpi/workload/rebuild
+-- recomputes it from tco_order (e.g. after changing app.timezone).
+-- Days are local to app.timezone, passed in as the ${app_timezone} Flyway placeholder.
+
+CREATE TABLE tco_daily_workload (
+    id_branch          UUID NOT NULL,
+    work_date          DATE NOT NULL,
+    committed_minutes  BIGINT NOT NULL DEFAULT 0,
+    order_count        INTEGER NOT NULL DEFAULT 0,
+    scheduled_revenue  NUMERIC(19,4) NOT NULL DEFAULT 0,
+    PRIMARY KEY (id_branch, work_date)
+);
+
+-- All-branch reads scan a date range across branches.
+CREATE INDEX idx_daily_workload_date ON tco_daily_workload(work_date);
+
+INSERT INTO tco_daily_workload (id_branch, work_date, committed_minutes, order_count, scheduled_revenue)
+SELECT o.id_branch,
+       (o.committed_deadline AT TIME ZONE '${app_timezone}')::date,
+       COALESCE(SUM(o.total_duration_min), 0),
+       COUNT(*),
+       COALESCE(SUM(o.total_amount), 0)
+FROM tco_order o
+WHERE o.is_deleted = FALSE
+  AND o.status NOT IN ('DELIVERED', 'CANCELLED')
+  AND o.committed_deadline IS NOT NULL
+GROUP BY 1, 2;
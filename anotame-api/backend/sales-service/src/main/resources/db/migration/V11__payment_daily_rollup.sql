@@ -0,0 +1,34 @@
+-- V11: Daily rollup of the payment ledger per branch, local day and payment method.
+-- Revenue charts, the revenue time series and the cash close read this table instead of
+-- scanning tco_order_payment. Money is dated by recorded_at, i.e. when it came in.
+-- Refunds (negative ledger entries) are kept apart from receipts and stored as positive sums.
+-- Rows are kept current by OrderPaymentPersistenceAdapter.save in the payment's own
+-- transaction, and can be recomputed month by month with POST /orders/kpi/payment-totals/rebuild.
+-- A payment without a method is stored under payment_method = ''.
+
+CREATE TABLE tco_payment_daily (
+    id_branch        UUID NOT NULL,
+    pay_date         DATE NOT NULL,
+    payment_method   VARCHAR(255) NOT NULL DEFAULT '',
+    received_amount  NUMERIC(19,4) NOT NULL DEFAULT 0,
+    received_count   INTEGER NOT NULL DEFAULT 0,
+    refunded_amount  NUMERIC(19,4) NOT NULL DEFAULT 0,
+    refund_count     INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (id_branch, pay_date, payment_method)
+);
+
+-- All-branch reads scan a date range across branches.
+CREATE INDEX idx_payment_daily_date ON tco_payment_daily(pay_date);
+
+INSERT INTO tco_payment_daily (id_branch, pay_date, payment_method, received_amount, received_count,
+                               refunded_amount, refund_count)
+SELECT o.id_branch,
+       (p.recorded_at AT TIME ZONE '${app_timezone}')::date,
+       COALESCE(p.payment_method, ''),
+       COALESCE(SUM(p.amount) FILTER (WHERE p.amount > 0), 0),
+       COUNT(*) FILTER (WHERE p.amount > 0),
+       COALESCE(-SUM(p.amount) FILTER (WHERE p.amount < 0), 0),
+       COUNT(*) FILTER (WHERE p.amount < 0)
+FROM tco_order_payment p
+JOIN tco_order o ON o.id_order = p.id_order
+GROUP BY 1, 2, 3;
@@ -0,0 +1,69 @@
+-- V12: Precomputed per-day facts behind GET /orders/kpi/financial.
+-- The service breakdown, top customers and repeat rate used to aggregate the payment ledger,
+-- orders, items and services over the whole requested range on every call. These views hold
+-- one row per local day (app.timezone, passed as the ${app_timezone} Flyway placeholder) and
+-- are refreshed with REFRESH MATERIALIZED VIEW CONCURRENTLY by KpiViewRefreshJob. Each refresh
+-- is stamped in tco_kpi_view_refresh, and the endpoint reports how fresh the figures are.
+-- Order counts are per day: an order paid on two days of a range counts on both days.
+
+-- Prorated service revenue, same proration as before: each positive payment is split over the
+-- services of its order by unit_price / item subtotal.
+CREATE MATERIALIZED VIEW mv_kpi_service_revenue_daily AS
+SELECT pd.pay_date,
+       ois.service_source,
+       COALESCE(ois.service_name, '') AS service_name,
+       SUM(pd.amount * (ois.unit_price / oi.subtotal)) AS revenue,
+       COUNT(DISTINCT pd.id_order) AS order_count,
+       COALESCE(SUM(ois.duration_min * oi.quantity), 0) AS duration_min
+FROM (SELECT id_order, (recorded_at AT TIME ZONE '${app_timezone}')::date AS pay_date, SUM(amount) AS amount
+      FROM tco_order_payment
+      WHERE amount > 0
+      GROUP BY 1, 2) pd
+JOIN tco_order o ON o.id_order = pd.id_order
+JOIN tco_order_item oi ON oi.id_order = o.id_order
+JOIN tco_order_item_service ois ON ois.id_order_item = oi.id_order_item
+WHERE o.is_deleted = FALSE
+  AND oi.is_deleted = FALSE
+  AND oi.subtotal > 0
+GROUP BY 1, 2, 3;
+
+CREATE UNIQUE INDEX ux_mv_kpi_service_revenue_daily
+    ON mv_kpi_service_revenue_daily(pay_date, service_source, service_name);
+
+-- Positive payments per customer and day.
+CREATE MATERIALIZED VIEW mv_kpi_customer_spend_daily AS
+SELECT (p.recorded_at AT TIME ZONE '${app_timezone}')::date AS pay_date,
+       o.id_customer,
+       SUM(p.amount) AS spend,
+       COUNT(DISTINCT p.id_order) AS order_count,
+       MAX((o.created_at AT TIME ZONE '${app_timezone}')::date) AS last_order_date
+FROM tco_order_payment p
+JOIN tco_order o ON o.id_order = p.id_order
+WHERE p.amount > 0
+  AND o.is_deleted = FALSE
+GROUP BY 1, 2;
+
+CREATE UNIQUE INDEX ux_mv_kpi_customer_spend_daily
+    ON mv_kpi_customer_spend_daily(pay_date, id_customer);
+
+-- Orders created per customer and day (repeat rate).
+CREATE MATERIALIZED VIEW mv_kpi_customer_orders_daily AS
+SELECT (created_at AT TIME ZONE '${app_timezone}')::date AS order_date,
+       id_customer,
+       COUNT(*) AS order_count
+FROM tco_order
+WHERE is_deleted = FALSE
+GROUP BY 1, 2;
+
+CREATE UNIQUE INDEX ux_mv_kpi_customer_orders_daily
+    ON mv_kpi_customer_orders_daily(order_date, id_customer);
+
+CREATE TABLE tco_kpi_view_refresh (
+    view_name     VARCHAR(63) PRIMARY KEY,
+    refreshed_at  TIMESTAMPTZ NOT NULL
+);
+
+INSERT INTO tco_kpi_view_refresh (view_name, refreshed_at) VALUES
+    ('mv_kpi_service_revenue_daily', NOW()),
+    ('mv_kpi_customer_spend_daily', NOW()),
+    ('mv_kpi_customer_orders_daily', NOW());
@@ -0,0 +1,39 @@
+-- V13: Per-customer statistics (at-risk list, customer profile).
+-- One row per active customer with its first and last order, lifetime order count, lifetime
+-- spend (amount paid on its orders) and open balance (unpaid remainder of its non-cancelled
+-- orders). CustomerStatsRollup recomputes a customer's row in the same transaction as every
+-- order creation, edit, cancellation, payment and deletion. CustomerStatsReconcileJob rebuilds
+-- the table in parallel chunks.
+-- Local dates use app.timezone, passed in as the ${app_timezone} Flyway placeholder.
+
+CREATE TABLE tco_customer_stats (
+    id_customer      UUID PRIMARY KEY REFERENCES tco_customer(id_customer),
+    customer_since   DATE NOT NULL,
+    first_order_at   TIMESTAMPTZ,
+    last_order_at    TIMESTAMPTZ,
+    last_order_date  DATE,
+    order_count      INTEGER NOT NULL DEFAULT 0,
+    lifetime_spend   NUMERIC(19,4) NOT NULL DEFAULT 0,
+    open_balance     NUMERIC(19,4) NOT NULL DEFAULT 0
+);
+
+-- At-risk customers: oldest last activity first. A customer without orders counts from the
+-- day it was created.
+CREATE INDEX idx_customer_stats_last_activity
+    ON tco_customer_stats((COALESCE(last_order_date, customer_since)));
+
+INSERT INTO tco_customer_stats (id_customer, customer_since, first_order_at, last_order_at, last_order_date,
+                                order_count, lifetime_spend, open_balance)
+SELECT c.id_customer,
+       (COALESCE(c.created_at, NOW()) AT TIME ZONE '${app_timezone}')::date,
+       MIN(o.created_at),
+       MAX(o.created_at),
+       (MAX(o.created_at) AT TIME ZONE '${app_timezone}')::date,
+       COUNT(o.id_order),
+       COALESCE(SUM(o.amount_paid), 0),
+       COALESCE(SUM(o.total_amount - o.amount_paid)
+                FILTER (WHERE o.status <> 'CANCELLED' AND o.total_amount > o.amount_paid), 0)
+FROM tco_customer c
+LEFT JOIN tco_order o ON o.id_customer = c.id_customer AND o.is_deleted = FALSE
+WHERE c.is_deleted = FALSE
+GROUP BY c.id_customer, c.created_at;
@@ -0,0 +1,92 @@
+-- V14: Stored local dates on orders and payments.
+-- The rollups, the KPI views and the customer statistics group orders by local creation and
+-- deadline day and payments by local day and month. Each query converted every row with
+-- AT TIME ZONE, so no index could serve the grouping. These generated columns hold the
+-- converted values, and the indexes below cover them.
+-- The zone is app.timezone at migration time, passed in as the ${app_timezone} Flyway placeholder.
+-- To change app.timezone on an existing database, add a migration that re-creates these columns.
+-- Then rebuild the rollups (POST /orders/kpi/workload/rebuild, /orders/kpi/payment-totals/rebuild
+-- and /api/customers/stats/rebuild).
+
+ALTER TABLE tco_order
+    ADD COLUMN created_date DATE
+        GENERATED ALWAYS AS ((created_at AT TIME ZONE '${app_timezone}')::date) STORED,
+    ADD COLUMN deadline_date DATE
+        GENERATED ALWAYS AS ((committed_deadline AT TIME ZONE '${app_timezone}')::date) STORED;
+
+ALTER TABLE tco_order_payment
+    ADD COLUMN recorded_date DATE
+        GENERATED ALWAYS AS ((recorded_at AT TIME ZONE '${app_timezone}')::date) STORED,
+    ADD COLUMN recorded_month DATE
+        GENERATED ALWAYS AS (date_trunc('month', recorded_at AT TIME ZONE '${app_timezone}')::date) STORED;
+
+-- Repeat rate and customer statistics: orders per customer and local day.
+CREATE INDEX idx_order_active_created_date
+    ON tco_order(created_date, id_customer)
+    WHERE is_deleted = FALSE;
+
+-- Workload rollup rebuild: an index-only scan grouped by branch and local deadline day.
+CREATE INDEX idx_order_active_deadline_date
+    ON tco_order(id_branch, deadline_date) INCLUDE (total_duration_min, total_amount)
+    WHERE is_deleted = FALSE
+      AND status NOT IN ('DELIVERED', 'CANCELLED')
+      AND committed_deadline IS NOT NULL;
+
+-- Payment rollup: month rebuilds read a day range, and the month listing reads distinct months.
+CREATE INDEX idx_order_payment_recorded_date  ON tco_order_payment(recorded_date);
+CREATE INDEX idx_order_payment_recorded_month ON tco_order_payment(recorded_month);
+
+-- The KPI views of V12, re-created over the stored dates (same columns and unique indexes).
+DROP MATERIALIZED VIEW mv_kpi_service_revenue_daily;
+DROP MATERIALIZED VIEW mv_kpi_customer_spend_daily;
+DROP MATERIALIZED VIEW mv_kpi_customer_orders_daily;
+
+CREATE MATERIALIZED VIEW mv_kpi_service_revenue_daily AS
+SELECT pd.pay_date,
+       ois.service_source,
+       COALESCE(ois.service_name, '') AS service_name,
+       SUM(pd.amount * (ois.unit_price / oi.subtotal)) AS revenue,
+       COUNT(DISTINCT pd.id_order) AS order_count,
+       COALESCE(SUM(ois.duration_min * oi.quantity), 0) AS duration_min
+FROM (SELECT id_order, recorded_date AS pay_date, SUM(amount) AS amount
+      FROM tco_order_payment
+      WHERE amount > 0
+      GROUP BY 1, 2) pd
+JOIN tco_order o ON o.id_order = pd.id_order
+JOIN tco_order_item oi ON oi.id_order = o.id_order
+JOIN tco_order_item_service ois ON ois.id_order_item = oi.id_order_item
+WHERE o.is_deleted = FALSE
+  AND oi.is_deleted = FALSE
+  AND oi.subtotal > 0
+GROUP BY 1, 2, 3;
+
+CREATE UNIQUE INDEX ux_mv_kpi_service_revenue_daily
+    ON mv_kpi_service_revenue_daily(pay_date, service_source, service_name);
+
+CREATE MATERIALIZED VIEW mv_kpi_customer_spend_daily AS
+SELECT p.recorded_date AS pay_date,
+       o.id_customer,
+       SUM(p.amount) AS spend,
+       COUNT(DISTINCT p.id_order) AS order_count,
+       MAX(o.created_date) AS last_order_date
+FROM tco_order_payment p
+JOIN tco_order o ON o.id_order = p.id_order
+WHERE p.amount > 0
+  AND o.is_deleted = FALSE
+GROUP BY 1, 2;
+
+CREATE UNIQUE INDEX ux_mv_kpi_customer_spend_daily
+    ON mv_kpi_customer_spend_daily(pay_date, id_customer);
+
+CREATE MATERIALIZED VIEW mv_kpi_customer_orders_daily AS
+SELECT created_date AS order_date,
+       id_customer,
+       COUNT(*) AS order_count
+FROM tco_order
+WHERE is_deleted = FALSE
+GROUP BY 1, 2;
+
+CREATE UNIQUE INDEX ux_mv_kpi_customer_orders_daily
+    ON mv_kpi_customer_orders_daily(order_date, id_customer);
+
+UPDATE tco_kpi_view_refresh SET refreshed_at = NOW();
@@ -0,0 +1,25 @@
+-- V16: Index-backed, accent-insensitive customer search.
+-- Stored search columns mirror SearchText.normalize on the application side: the full name and
+-- email lower-cased and unaccented with f_unaccent (V8), and the phone reduced to its digits.
+-- Trigram GIN indexes serve substring and word-similarity matches; the btree indexes serve the
+-- prefix matches used for one- and two-character terms, which trigrams cannot filter.
+
+ALTER TABLE tco_customer
+    ADD COLUMN search_name TEXT GENERATED ALWAYS AS
+        (lower(f_unaccent(coalesce(first_name, '') || ' ' || coalesce(last_name, '')))) STORED,
+    ADD COLUMN search_email TEXT GENERATED ALWAYS AS
+        (lower(f_unaccent(coalesce(email, '')))) STORED,
+    ADD COLUMN phone_digits TEXT GENERATED ALWAYS AS
+        (regexp_replace(coalesce(phone_number, ''), '\D', '', 'g')) STORED;
+
+CREATE INDEX idx_customer_search_name_trgm
+    ON tco_customer USING gin (search_name gin_trgm_ops) WHERE is_deleted = FALSE;
+CREATE INDEX idx_customer_search_email_trgm
+    ON tco_customer USING gin (search_email gin_trgm_ops) WHERE is_deleted = FALSE;
+CREATE INDEX idx_customer_phone_digits_trgm
+    ON tco_customer USING gin (phone_digits gin_trgm_ops) WHERE is_deleted = FALSE;
+
+CREATE INDEX idx_customer_search_name_prefix
+    ON tco_customer (search_name text_pattern_ops, id_customer) WHERE is_deleted = FALSE;
+CREATE INDEX idx_customer_phone_digits_prefix
+    ON tco_customer (phone_digits text_pattern_ops) WHERE is_deleted = FALSE;
@@ -0,0 +1,8 @@
+-- V17: Composite index backing keyset pagination of one customer's order history.
+-- Matches WHERE id_customer = ? ORDER BY created_at DESC, id_order DESC, so every page of
+-- GET /api/customers/{id}/orders is a range read of that customer's entries only.
+-- idx_order_customer stays: foreign key checks on tco_customer also need the deleted orders.
+
+CREATE INDEX idx_order_customer_history
+    ON tco_order(id_customer, created_at DESC, id_order DESC)
+    WHERE is_deleted = FALSE;
@@ -0,0 +1,5 @@
+-- V18: Structured changes in the order audit log.
+-- Changes that do not fit one old/new value pair, such as an ADMIN replacing the items of an
+-- order, are recorded as a single row whose diff holds what was removed and added.
+
+ALTER TABLE tco_order_audit_log ADD COLUMN diff JSONB;
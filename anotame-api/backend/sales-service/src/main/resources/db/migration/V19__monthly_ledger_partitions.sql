@@ -0,0 +1,266 @@
+-- V19: Monthly range partitions for the append-only payment ledger and order audit log.
+-- tco_order_payment is partitioned by recorded_at and tco_order_audit_log by changed_at, one
+-- partition per local month (app.timezone, passed in as the ${app_timezone} Flyway placeholder),
+-- named <table>_pYYYYMM. Range predicates on those columns (exports, payment rollup rebuilds)
+-- only read the partitions they cover, and indexes and vacuum work stay per month.
+-- Each table also has a <table>_default partition for rows outside every month partition, such
+-- as imported history. PartitionMaintenanceJob calls sales_maintain_month_partitions nightly.
+-- That moves such rows into their own month and keeps app.partitions.months-ahead months ready.
+-- Primary keys must include the partition key, so they become (id, timestamp); ids are still
+-- generated UUIDs.
+--
+-- Old months can be taken out with sales_detach_month_partition. The partition stays as a plain
+-- table that can be archived (pg_dump -Fc -t <partition>) and then dropped. Audit months can go
+-- at any time. Ledger months still feed the payment history of their orders, the customer
+-- statistics rebuild and POST /orders/kpi/payment-totals/rebuild. Only detach ledger months
+-- whose orders are settled, and do not rebuild the payment rollup for them afterwards.
+
+CREATE FUNCTION sales_month_start(first_day DATE) RETURNS TIMESTAMPTZ
+    LANGUAGE sql STABLE AS
+$$
+SELECT make_timestamptz(EXTRACT(YEAR FROM first_day)::int, EXTRACT(MONTH FROM first_day)::int, 1, 0, 0, 0,
+                        '${app_timezone}')
+$$;
+
+CREATE FUNCTION sales_partition_key(parent TEXT) RETURNS TEXT
+    LANGUAGE sql STABLE AS
+$$
+SELECT a.attname::text
+FROM pg_partitioned_table pt
+JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+WHERE pt.partrelid = parent::regclass
+$$;
+
+-- Creates the partition of the local month containing `any_day` unless a table of that name
+-- exists (attached or detached). Rows of that month waiting in the default partition are moved
+-- into it. Returns whether a partition was created.
+--
+-- Locks: CREATE TABLE ... PARTITION OF, and detaching the default partition, would hold an
+-- ACCESS EXCLUSIVE lock on the parent and block every insert. Instead the month is built as a
+-- plain table and attached, which takes SHARE UPDATE EXCLUSIVE on the parent: inserts and reads
+-- go on. The plain table gets the parent's columns, indexes and foreign keys, plus a CHECK of
+-- the month's range so the attach does not scan it again.
+--   1. Rows of the month are moved out of the default partition under ROW EXCLUSIVE only, so
+--      writes to the default partition go on. This is the long step for a large import.
+--   2. The default partition is then locked in SHARE mode, blocking only writes of rows outside
+--      every month partition, and the rows that arrived meanwhile are moved.
+--   3. The foreign keys are validated without blocking writes to the referenced tables.
+--   4. ATTACH PARTITION holds ACCESS EXCLUSIVE on the default partition while it checks that no
+--      row of the month is left there. Reads that cannot prune the default partition wait
+--      for it. The check is short once the month's rows have been moved.
+-- Steps 2 and 4 wait at most 10 s for their locks. On timeout the call fails and its
+-- transaction rolls back: the nightly job tries again the next night, and a migration fails
+-- and can be rerun. Everything runs in the caller's transaction, so the moved rows and the new
+-- partition only become visible together at commit.
+CREATE FUNCTION sales_create_month_partition(parent TEXT, any_day DATE) RETURNS BOOLEAN
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    first_day        DATE        := date_trunc('month', any_day)::date;
+    part_name        TEXT        := parent || '_p' || to_char(first_day, 'YYYYMM');
+    default_name     TEXT        := parent || '_default';
+    lower_bound      TIMESTAMPTZ := sales_month_start(first_day);
+    upper_bound      TIMESTAMPTZ := sales_month_start((first_day + INTERVAL '1 month')::date);
+    key_column       TEXT        := sales_partition_key(parent);
+    previous_timeout TEXT        := current_setting('lock_timeout');
+    column_list      TEXT;
+    move_rows        TEXT;
+    foreign_key      RECORD;
+BEGIN
+    IF to_regclass(part_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING INDEXES)',
+                   part_name, parent);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (%I >= %L AND %I < %L)',
+                   part_name, part_name || '_range', key_column, lower_bound, key_column, upper_bound);
+    FOR foreign_key IN
+        SELECT conname, pg_get_constraintdef(oid) AS definition
+        FROM pg_constraint
+        WHERE conrelid = parent::regclass AND contype = 'f'
+        LOOP
+            EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I %s NOT VALID',
+                           part_name, foreign_key.conname, foreign_key.definition);
+        END LOOP;
+
+    SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum)
+    INTO column_list
+    FROM pg_attribute
+    WHERE attrelid = parent::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = '';
+    move_rows := format('WITH moved AS (DELETE FROM %I WHERE %I >= $1 AND %I < $2 RETURNING %s) ' ||
+                        'INSERT INTO %I (%s) SELECT %s FROM moved',
+                        default_name, key_column, key_column, column_list, part_name, column_list, column_list);
+
+    EXECUTE move_rows USING lower_bound, upper_bound;
+    PERFORM set_config('lock_timeout', '10s', true);
+    EXECUTE format('LOCK TABLE %I IN SHARE MODE', default_name);
+    PERFORM set_config('lock_timeout', previous_timeout, true);
+    EXECUTE move_rows USING lower_bound, upper_bound;
+
+    FOR foreign_key IN
+        SELECT conname FROM pg_constraint WHERE conrelid = part_name::regclass AND contype = 'f'
+        LOOP
+            EXECUTE format('ALTER TABLE %I VALIDATE CONSTRAINT %I', part_name, foreign_key.conname);
+        END LOOP;
+
+    PERFORM set_config('lock_timeout', '10s', true);
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent, part_name, lower_bound, upper_bound);
+    PERFORM set_config('lock_timeout', previous_timeout, true);
+    -- Implied by the partition bound from here on.
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', part_name, part_name || '_range');
+    RETURN TRUE;
+END
+$$;
+
+-- Gives every month with rows in the default partition its own partition, and makes sure the
+-- current local month and the next `months_ahead` have one. Returns the partitions created.
+CREATE FUNCTION sales_maintain_month_partitions(parent TEXT, months_ahead INT) RETURNS INT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    current_month DATE := date_trunc('month', NOW() AT TIME ZONE '${app_timezone}')::date;
+    first_day     DATE;
+    created       INT  := 0;
+BEGIN
+    FOR first_day IN EXECUTE format('SELECT DISTINCT date_trunc(''month'', %I AT TIME ZONE %L)::date FROM %I',
+                                sales_partition_key(parent), '${app_timezone}', parent || '_default')
+        LOOP
+            IF sales_create_month_partition(parent, first_day) THEN
+                created := created + 1;
+            END IF;
+        END LOOP;
+    FOR i IN 0..months_ahead
+        LOOP
+            IF sales_create_month_partition(parent, (current_month + make_interval(months => i))::date) THEN
+                created := created + 1;
+            END IF;
+        END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Detaches the partition of the local month containing `any_day` and returns its name.
+CREATE FUNCTION sales_detach_month_partition(parent TEXT, any_day DATE) RETURNS TEXT
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    part_name TEXT := parent || '_p' || to_char(any_day, 'YYYYMM');
+BEGIN
+    EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, part_name);
+    RETURN part_name;
+END
+$$;
+
+-- Payment ledger. The KPI views read it and are re-created below with the V14 definitions.
+DROP MATERIALIZED VIEW mv_kpi_service_revenue_daily;
+DROP MATERIALIZED VIEW mv_kpi_customer_spend_daily;
+
+ALTER TABLE tco_order_payment RENAME CONSTRAINT tco_order_payment_pkey TO tco_order_payment_unpartitioned_pkey;
+ALTER TABLE tco_order_payment RENAME TO tco_order_payment_unpartitioned;
+
+CREATE TABLE tco_order_payment (
+    id_payment      UUID NOT NULL DEFAULT gen_random_uuid(),
+    id_order        UUID NOT NULL REFERENCES tco_order(id_order),
+    amount          NUMERIC(19,4) NOT NULL CHECK (amount <> 0),
+    payment_method  VARCHAR(255),
+    notes           VARCHAR(500),
+    recorded_at     TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    created_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    recorded_date   DATE GENERATED ALWAYS AS ((recorded_at AT TIME ZONE '${app_timezone}')::date) STORED,
+    recorded_month  DATE GENERATED ALWAYS AS (date_trunc('month', recorded_at AT TIME ZONE '${app_timezone}')::date) STORED,
+    PRIMARY KEY (id_payment, recorded_at)
+) PARTITION BY RANGE (recorded_at);
+
+CREATE TABLE tco_order_payment_default PARTITION OF tco_order_payment DEFAULT;
+
+SELECT sales_create_month_partition('tco_order_payment', m)
+FROM (SELECT DISTINCT recorded_month AS m FROM tco_order_payment_unpartitioned) months;
+SELECT sales_maintain_month_partitions('tco_order_payment', 3);
+
+INSERT INTO tco_order_payment (id_payment, id_order, amount, payment_method, notes, recorded_at, created_at)
+SELECT id_payment, id_order, amount, payment_method, notes, recorded_at, created_at
+FROM tco_order_payment_unpartitioned;
+
+DROP TABLE tco_order_payment_unpartitioned;
+
+CREATE INDEX idx_order_payment_order          ON tco_order_payment(id_order);
+CREATE INDEX idx_order_payment_recorded_at    ON tco_order_payment(recorded_at);
+CREATE INDEX idx_order_payment_recorded_date  ON tco_order_payment(recorded_date);
+CREATE INDEX idx_order_payment_recorded_month ON tco_order_payment(recorded_month);
+
+ANALYZE tco_order_payment;
+
+CREATE MATERIALIZED VIEW mv_kpi_service_revenue_daily AS
+SELECT pd.pay_date,
+       ois.service_source,
+       COALESCE(ois.service_name, '') AS service_name,
+       SUM(pd.amount * (ois.unit_price / oi.subtotal)) AS revenue,
+       COUNT(DISTINCT pd.id_order) AS order_count,
+       COALESCE(SUM(ois.duration_min * oi.quantity), 0) AS duration_min
+FROM (SELECT id_order, recorded_date AS pay_date, SUM(amount) AS amount
+      FROM tco_order_payment
+      WHERE amount > 0
+      GROUP BY 1, 2) pd
+JOIN tco_order o ON o.id_order = pd.id_order
+JOIN tco_order_item oi ON oi.id_order = o.id_order
+JOIN tco_order_item_service ois ON ois.id_order_item = oi.id_order_item
+WHERE o.is_deleted = FALSE
+  AND oi.is_deleted = FALSE
+  AND oi.subtotal > 0
+GROUP BY 1, 2, 3;
+
+CREATE UNIQUE INDEX ux_mv_kpi_service_revenue_daily
+    ON mv_kpi_service_revenue_daily(pay_date, service_source, service_name);
+
+CREATE MATERIALIZED VIEW mv_kpi_customer_spend_daily AS
+SELECT p.recorded_date AS pay_date,
+       o.id_customer,
+       SUM(p.amount) AS spend,
+       COUNT(DISTINCT p.id_order) AS order_count,
+       MAX(o.created_date) AS last_order_date
+FROM tco_order_payment p
+JOIN tco_order o ON o.id_order = p.id_order
+WHERE p.amount > 0
+  AND o.is_deleted = FALSE
+GROUP BY 1, 2;
+
+CREATE UNIQUE INDEX ux_mv_kpi_customer_spend_daily
+    ON mv_kpi_customer_spend_daily(pay_date, id_customer);
+
+UPDATE tco_kpi_view_refresh SET refreshed_at = NOW()
+WHERE view_name IN ('mv_kpi_service_revenue_daily', 'mv_kpi_customer_spend_daily');
+
+-- Order audit log.
+ALTER TABLE tco_order_audit_log RENAME CONSTRAINT tco_order_audit_log_pkey TO tco_order_audit_log_unpartitioned_pkey;
+ALTER TABLE tco_order_audit_log RENAME TO tco_order_audit_log_unpartitioned;
+
+CREATE TABLE tco_order_audit_log (
+    id_audit    UUID NOT NULL DEFAULT gen_random_uuid(),
+    id_order    UUID NOT NULL REFERENCES tco_order(id_order) ON DELETE CASCADE,
+    user_id     UUID NOT NULL,
+    field_name  VARCHAR(100) NOT NULL,
+    old_value   TEXT,
+    new_value   TEXT,
+    changed_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    diff        JSONB,
+    PRIMARY KEY (id_audit, changed_at)
+) PARTITION BY RANGE (changed_at);
+
+CREATE TABLE tco_order_audit_log_default PARTITION OF tco_order_audit_log DEFAULT;
+
+SELECT sales_create_month_partition('tco_order_audit_log', m)
+FROM (SELECT DISTINCT date_trunc('month', changed_at AT TIME ZONE '${app_timezone}')::date AS m
+      FROM tco_order_audit_log_unpartitioned) months;
+SELECT sales_maintain_month_partitions('tco_order_audit_log', 3);
+
+INSERT INTO tco_order_audit_log (id_audit, id_order, user_id, field_name, old_value, new_value, changed_at, diff)
+SELECT id_audit, id_order, user_id, field_name, old_value, new_value, changed_at, diff
+FROM tco_order_audit_log_unpartitioned;
+
+DROP TABLE tco_order_audit_log_unpartitioned;
+
+CREATE INDEX idx_audit_order ON tco_order_audit_log(id_order);
+
+ANALYZE tco_order_audit_log;
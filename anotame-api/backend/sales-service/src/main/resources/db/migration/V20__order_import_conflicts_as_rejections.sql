@@ -0,0 +1,4 @@
+-- V20: Orders whose ticket number already exists are now reported as rejected lines of the
+-- import (lines_rejected and errors) instead of a separate skipped count.
+UPDATE tco_order_import SET lines_rejected = lines_rejected + orders_skipped;
+ALTER TABLE tco_order_import DROP COLUMN orders_skipped;
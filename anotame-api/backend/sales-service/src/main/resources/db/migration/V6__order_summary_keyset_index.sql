@@ -0,0 +1,7 @@
+-- V6: Composite index backing keyset pagination of the order summary listing.
+-- Matches ORDER BY created_at DESC, ticket_number DESC so each page is an index range
+-- scan that starts right after the cursor, regardless of how deep the client has scrolled.
+
+CREATE INDEX idx_order_summary_keyset
+    ON tco_order(created_at DESC, ticket_number DESC)
+    WHERE is_deleted = FALSE;
@@ -0,0 +1,48 @@
+-- V7: Denormalized order summary read model.
+-- The order listing used to join tco_customer and make two extra IN (...) passes over
+-- tco_order_item / tco_order_item_service per page. These columns are written by
+-- OrderPersistenceAdapter.save (and refreshed when a customer is edited) so a summary page
+-- is a single-table range read over tco_order.
+--   customer_snapshot: {id, firstName, lastName, email, phoneNumber} of the order's customer
+--   garment_names:     names of the non-deleted items, in item order
+--   service_names:     names of the services on those items, in item order
+
+ALTER TABLE tco_order
+    ADD COLUMN garment_names TEXT[] NOT NULL DEFAULT '{}',
+    ADD COLUMN service_names TEXT[] NOT NULL DEFAULT '{}';
+
+UPDATE tco_order o
+SET customer_snapshot = jsonb_build_object(
+        'id', c.id_customer,
+        'firstName', c.first_name,
+        'lastName', c.last_name,
+        'email', c.email,
+        'phoneNumber', c.phone_number)
+FROM tco_customer c
+WHERE c.id_customer = o.id_customer;
+
+UPDATE tco_order o
+SET garment_names = sub.names
+FROM (
+    SELECT id_order, array_agg(garment_name ORDER BY created_at, id_order_item) AS names
+    FROM tco_order_item
+    WHERE is_deleted = FALSE
+      AND garment_name IS NOT NULL
+      AND btrim(garment_name) <> ''
+    GROUP BY id_order
+) sub
+WHERE sub.id_order = o.id_order;
+
+UPDATE tco_order o
+SET service_names = sub.names
+FROM (
+    SELECT oi.id_order,
+           array_agg(ois.service_name ORDER BY oi.created_at, oi.id_order_item, ois.created_at) AS names
+    FROM tco_order_item_service ois
+    JOIN tco_order_item oi ON oi.id_order_item = ois.id_order_item
+    WHERE oi.is_deleted = FALSE
+      AND ois.service_name IS NOT NULL
+      AND btrim(ois.service_name) <> ''
+    GROUP BY oi.id_order
+) sub
+WHERE sub.id_order = o.id_order;
@@ -0,0 +1,36 @@
+-- V8: Index-backed, accent-insensitive order search.
+-- search_document is a lower-cased, unaccented concatenation of everything staff search an
+-- order by (ticket, customer name and phone, garment and service names, notes, service
+-- instructions). It is written by OrderPersistenceAdapter.save; the trigram GIN index serves
+-- both LIKE '%term%' and the word-similarity (<%) fallback used for typos.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- unaccent() is only STABLE (it depends on the dictionary search path), so it cannot be used
+-- in index expressions. Pinning the dictionary makes this wrapper safe to mark IMMUTABLE.
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+AS $$ SELECT public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+ALTER TABLE tco_order
+    ADD COLUMN search_document TEXT NOT NULL DEFAULT '';
+
+UPDATE tco_order o
+SET search_document = btrim(regexp_replace(lower(f_unaccent(concat_ws(' ',
+        o.ticket_number,
+        o.customer_snapshot ->> 'firstName',
+        o.customer_snapshot ->> 'lastName',
+        o.customer_snapshot ->> 'phoneNumber',
+        regexp_replace(coalesce(o.customer_snapshot ->> 'phoneNumber', ''), '\D', '', 'g'),
+        array_to_string(o.garment_names, ' '),
+        array_to_string(o.service_names, ' '),
+        o.notes,
+        (SELECT string_agg(concat_ws(' ', oi.notes, ois.instructions), ' ')
+         FROM tco_order_item oi
+         LEFT JOIN tco_order_item_service ois ON ois.id_order_item = oi.id_order_item
+         WHERE oi.id_order = o.id_order AND oi.is_deleted = FALSE)
+    ))), '\s+', ' ', 'g'));
+
+CREATE INDEX idx_order_search_document_trgm
+    ON tco_order USING gin (search_document gin_trgm_ops)
+    WHERE is_deleted = FALSE;
@@ -0,0 +1,19 @@
+-- V9: Checkpoints for the bulk historical order import (POST /orders/import).
+-- An import streams an NDJSON file in chunks; each chunk is COPY'd into temp staging tables
+-- and merged in one transaction together with the update of this row, so lines_committed is
+-- exactly the number of input lines whose effect is durable. Re-posting the same file with
+-- the same import id skips those lines and continues from there.
+
+CREATE TABLE tco_order_import (
+    id_import        UUID PRIMARY KEY,
+    status           VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    lines_committed  BIGINT NOT NULL DEFAULT 0,
+    orders_imported  BIGINT NOT NULL DEFAULT 0,
+    orders_skipped   BIGINT NOT NULL DEFAULT 0,
+    lines_rejected   BIGINT NOT NULL DEFAULT 0,
+    errors           JSONB NOT NULL DEFAULT '[]',
+    created_by       UUID NOT NULL,
+    started_at       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at       TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    finished_at      TIMESTAMPTZ
+);
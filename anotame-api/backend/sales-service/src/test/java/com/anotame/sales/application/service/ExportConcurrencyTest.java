@@ -0,0 +1,70 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.port.output.CustomerExportRow;
+import com.anotame.sales.application.port.output.ExportCriteria;
+import com.anotame.sales.application.port.output.ExportRepositoryPort;
+import com.anotame.sales.application.port.output.OrderExportRow;
+import com.anotame.sales.application.port.output.PaymentExportRow;
+import com.anotame.sales.domain.exception.SalesUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExportConcurrencyTest {
+
+    private static class FailingOrders implements ExportRepositoryPort {
+
+        @Override
+        public void streamOrders(ExportCriteria criteria, Consumer<OrderExportRow> sink) {
+            throw new IllegalStateException("cursor closed");
+        }
+
+        @Override
+        public void streamPayments(ExportCriteria criteria, Consumer<PaymentExportRow> sink) {
+        }
+
+        @Override
+        public void streamCustomers(ExportCriteria criteria, Consumer<CustomerExportRow> sink) {
+        }
+    }
+
+    private static ExportService service(int maxConcurrent) {
+        ExportService service = new ExportService(new FailingOrders(), new ObjectMapper());
+        service.appTimezone = "America/Mexico_City";
+        service.maxConcurrent = maxConcurrent;
+        service.init();
+        return service;
+    }
+
+    @Test
+    void exportsPastTheLimitAreRejectedUntilOneFinishes() {
+        ExportService service = service(1);
+        Consumer<OutputStream> first = service.exportPayments(ExportService.Format.CSV, null, null, null);
+
+        assertThrows(SalesUnavailableException.class,
+                () -> service.exportCustomers(ExportService.Format.CSV, null, null, null));
+
+        first.accept(new ByteArrayOutputStream());
+        assertDoesNotThrow(() -> service.exportCustomers(ExportService.Format.CSV, null, null, null));
+    }
+
+    @Test
+    void aFailedExportGivesItsPermitBack() {
+        ExportService service = service(1);
+        Consumer<OutputStream> failing = service.exportOrders(ExportService.Format.NDJSON, null, null, null);
+
+        assertThrows(IllegalStateException.class, () -> failing.accept(new ByteArrayOutputStream()));
+        // Running the writer again must not release a second permit.
+        assertThrows(IllegalStateException.class, () -> failing.accept(new ByteArrayOutputStream()));
+
+        service.exportPayments(ExportService.Format.CSV, null, null, null);
+        assertThrows(SalesUnavailableException.class,
+                () -> service.exportPayments(ExportService.Format.CSV, null, null, null));
+    }
+}
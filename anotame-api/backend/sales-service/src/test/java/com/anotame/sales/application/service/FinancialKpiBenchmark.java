@@ -0,0 +1,99 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.port.output.OrderRepositoryPort;
+import com.anotame.sales.infrastructure.analytics.ColumnarKpiEngine;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Financial KPI breakdowns over the last 12 months: p50/p99 of the in-memory engine against the
+ * KPI views, plus the engine's memory estimate. Both answer the same three queries that
+ * {@link SalesService#getFinancialKpis} issues.
+ * <p>
+ * Opt-in, as it needs a real database with a realistic data set:
+ * {@code mvn test -Dbenchmark=true -Dapp.analytics.in-memory.enabled=true -Dtest=FinancialKpiBenchmark}.
+ */
+@QuarkusTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FinancialKpiBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(FinancialKpiBenchmark.class);
+
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 200;
+    private static final long LOAD_TIMEOUT_MILLIS = 600_000;
+
+    @Inject
+    ColumnarKpiEngine engine;
+
+    @Inject
+    OrderRepositoryPort orderRepository;
+
+    @Test
+    void compareEngineWithViews() throws Exception {
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MILLIS;
+        while (!engine.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(500);
+        }
+        assertTrue(engine.isReady(), "in-memory engine did not load; is app.analytics.in-memory.enabled set?");
+
+        LocalDate to = LocalDate.now().plusDays(1);
+        LocalDate from = to.minusMonths(12);
+        orderRepository.refreshKpiViews();
+
+        Runnable viaEngine = () -> {
+            engine.getServiceTypeRevenue(from, to);
+            engine.getTopCustomers(from, to, 10);
+            engine.getRepeatRate(from, to);
+        };
+        Runnable viaViews = () -> QuarkusTransaction.requiringNew().run(() -> {
+            orderRepository.getServiceTypeRevenue(from, to);
+            orderRepository.getTopCustomers(from, to, 10);
+            orderRepository.getRepeatRate(from, to);
+        });
+
+        report("in-memory", viaEngine);
+        report("kpi views", viaViews);
+        log.info("in-memory engine: ~{} MB", engine.estimatedBytes() >> 20);
+
+        Object[] fromViews = QuarkusTransaction.requiringNew().call(() -> orderRepository.getRepeatRate(from, to));
+        Object[] fromEngine = engine.getRepeatRate(from, to);
+        assertArrayEquals(
+                new long[]{((Number) fromViews[0]).longValue(), ((Number) fromViews[1]).longValue()},
+                new long[]{((Number) fromEngine[0]).longValue(), ((Number) fromEngine[1]).longValue()});
+    }
+
+    private static void report(String label, Runnable query) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            query.run();
+        }
+        long[] latencies = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long t0 = System.nanoTime();
+            query.run();
+            latencies[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(latencies);
+        log.info(String.format(Locale.ROOT, "financial KPIs (%s): p50 %.2f ms, p99 %.2f ms (%d runs)",
+                label,
+                percentile(latencies, 0.50) / 1_000_000.0,
+                percentile(latencies, 0.99) / 1_000_000.0,
+                MEASURED_RUNS));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
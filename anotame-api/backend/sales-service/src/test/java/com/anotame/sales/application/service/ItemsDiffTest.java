@@ -0,0 +1,69 @@
+package com.anotame.sales.application.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ItemsDiffTest {
+
+    private static Map<String, Object> item(String garment, int quantity, String subtotal, String... services) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("garment", garment);
+        item.put("quantity", quantity);
+        item.put("subtotal", subtotal);
+        item.put("services", List.of(services));
+        return item;
+    }
+
+    @Test
+    void unchangedItemsInAnotherOrderAreNoChange() {
+        List<Map<String, Object>> before = List.of(item("Pantalón", 1, "150", "Dobladillo"), item("Saco", 1, "300"));
+        List<Map<String, Object>> after = List.of(item("Saco", 1, "300"), item("Pantalón", 1, "150", "Dobladillo"));
+
+        assertNull(SalesService.itemsDiff(before, after));
+        assertNull(SalesService.itemsDiff(List.of(), List.of()));
+    }
+
+    @Test
+    void reportsOnlyTheItemsOnOneSide() {
+        Map<String, Object> kept = item("Saco", 1, "300");
+        Map<String, Object> old = item("Pantalón", 1, "150", "Dobladillo");
+        Map<String, Object> changed = item("Pantalón", 2, "300", "Dobladillo");
+        Map<String, Object> extra = item("Vestido", 1, "420", "Ajuste", "Parche");
+
+        Map<String, Object> diff = SalesService.itemsDiff(List.of(kept, old), List.of(kept, changed, extra));
+
+        assertEquals(List.of("removed", "added"), List.copyOf(diff.keySet()));
+        assertEquals(List.of(old), diff.get("removed"));
+        assertEquals(List.of(changed, extra), diff.get("added"));
+    }
+
+    @Test
+    void matchesDuplicateItemsAsAMultiset() {
+        Map<String, Object> shirt = item("Camisa", 1, "80", "Botones");
+
+        Map<String, Object> oneLess = SalesService.itemsDiff(List.of(shirt, shirt, shirt), List.of(shirt, shirt));
+        Map<String, Object> oneMore = SalesService.itemsDiff(List.of(shirt), List.of(shirt, shirt));
+
+        assertEquals(List.of(shirt), oneLess.get("removed"));
+        assertEquals(List.of(), oneLess.get("added"));
+        assertEquals(List.of(), oneMore.get("removed"));
+        assertEquals(List.of(shirt), oneMore.get("added"));
+    }
+
+    @Test
+    void replacingEverythingListsBothSidesWhole() {
+        List<Map<String, Object>> before = List.of(item("Falda", 1, "120", "Dobladillo"));
+        List<Map<String, Object>> after = List.of(item("Chamarra", 1, "250", "Cierre"), item("Falda", 1, "120"));
+
+        Map<String, Object> diff = SalesService.itemsDiff(before, after);
+
+        assertEquals(before, diff.get("removed"));
+        assertEquals(after, diff.get("added"));
+    }
+}
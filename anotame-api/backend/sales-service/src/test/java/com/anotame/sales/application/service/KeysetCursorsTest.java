@@ -0,0 +1,54 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.port.output.CustomerOrderCursor;
+import com.anotame.sales.application.port.output.OrderSummaryCursor;
+import com.anotame.sales.domain.exception.SalesValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeysetCursorsTest {
+
+    private static final OffsetDateTime CREATED_AT = OffsetDateTime.parse("2025-03-01T10:15:30.123456-06:00");
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void roundTripsBothCursorKinds() {
+        String summary = KeysetCursors.encode(CREATED_AT, "T-0042|B");
+        UUID orderId = UUID.randomUUID();
+        String history = KeysetCursors.encode(CREATED_AT, orderId);
+
+        assertEquals(new OrderSummaryCursor(CREATED_AT, "T-0042|B"),
+                KeysetCursors.decode(summary, OrderSummaryCursor::new));
+        assertEquals(new CustomerOrderCursor(CREATED_AT, orderId),
+                KeysetCursors.decode(history, (createdAt, key) -> new CustomerOrderCursor(createdAt, UUID.fromString(key))));
+    }
+
+    @Test
+    void noCursorMeansTheFirstPage() {
+        assertNull(KeysetCursors.decode(null, OrderSummaryCursor::new));
+        assertNull(KeysetCursors.decode("  ", OrderSummaryCursor::new));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String cursor : new String[]{"not base64!", base64("no separator"), base64("|T-1"),
+                base64(CREATED_AT + "|"), base64("yesterday|T-1")}) {
+            assertThrows(SalesValidationException.class, () -> KeysetCursors.decode(cursor, OrderSummaryCursor::new),
+                    cursor);
+        }
+        String badKey = base64(CREATED_AT + "|not-a-uuid");
+        assertThrows(SalesValidationException.class,
+                () -> KeysetCursors.decode(badKey, (createdAt, key) -> new CustomerOrderCursor(createdAt, UUID.fromString(key))));
+    }
+}
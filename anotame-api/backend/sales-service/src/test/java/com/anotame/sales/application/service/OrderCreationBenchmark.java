@@ -0,0 +1,128 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.dto.CreateOrderRequest;
+import com.anotame.sales.application.dto.CustomerDto;
+import com.anotame.sales.application.dto.OrderItemDto;
+import com.anotame.sales.application.dto.OrderItemServiceDto;
+import com.anotame.sales.domain.model.OrderContentSource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Order intake throughput: orders/sec and p99 latency of {@link SalesService#createOrderDTO}
+ * with a counter-sized order (3 garments × 2 services, an initial payment) from parallel clients.
+ * <p>
+ * Opt-in, as it needs a real database and takes a while:
+ * {@code mvn test -Dbenchmark=true -Dtest=OrderCreationBenchmark}. To compare pipelines, run it
+ * on both revisions, or here with {@code -Dapp.ticket-number.block-size=1} and
+ * {@code -Dquarkus.hibernate-orm.jdbc.statement-batch-size=0} for the one-round-trip-per-row baseline.
+ */
+@QuarkusTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderCreationBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCreationBenchmark.class);
+
+    private static final int CLIENTS = 8;
+    private static final int WARMUP_ORDERS = 200;
+    private static final int MEASURED_ORDERS = 2_000;
+
+    @Inject
+    SalesService salesService;
+
+    @Test
+    void createOrders() throws Exception {
+        run(WARMUP_ORDERS);
+        long[] latencies = run(MEASURED_ORDERS);
+
+        long elapsedNanos = latencies[latencies.length - 1];
+        long[] sorted = Arrays.copyOf(latencies, latencies.length - 1);
+        Arrays.sort(sorted);
+        double ordersPerSecond = MEASURED_ORDERS / (elapsedNanos / 1_000_000_000.0);
+        log.info(String.format(Locale.ROOT,
+                "order creation: %.1f orders/sec, p50 %.2f ms, p99 %.2f ms (%d orders, %d clients)",
+                ordersPerSecond,
+                percentile(sorted, 0.50) / 1_000_000.0,
+                percentile(sorted, 0.99) / 1_000_000.0,
+                MEASURED_ORDERS, CLIENTS));
+
+        assertEquals(MEASURED_ORDERS, sorted.length);
+    }
+
+    /** Returns one latency per order, followed by the wall-clock time of the whole run. */
+    private long[] run(int orders) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        List<Future<Long>> futures = new ArrayList<>(orders);
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            CreateOrderRequest request = sampleOrder();
+            futures.add(executor.submit(() -> {
+                long t0 = System.nanoTime();
+                salesService.createOrderDTO(request, UUID.randomUUID(), UUID.randomUUID());
+                return System.nanoTime() - t0;
+            }));
+        }
+        long[] latencies = new long[orders + 1];
+        for (int i = 0; i < orders; i++) {
+            latencies[i] = futures.get(i).get();
+        }
+        latencies[orders] = System.nanoTime() - start;
+        executor.shutdown();
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static CreateOrderRequest sampleOrder() {
+        CustomerDto customer = new CustomerDto();
+        customer.setFirstName("Bench");
+        customer.setLastName("Customer");
+        customer.setPhoneNumber(String.valueOf(5_500_000_000L + (long) (Math.random() * 99_999_999L)));
+
+        List<OrderItemDto> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderItemDto item = new OrderItemDto();
+            item.setSource(OrderContentSource.CUSTOM);
+            item.setGarmentName("Pantalón " + i);
+            item.setQuantity(1);
+            List<OrderItemServiceDto> services = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                OrderItemServiceDto service = new OrderItemServiceDto();
+                service.setSource(OrderContentSource.CUSTOM);
+                service.setServiceName("Dobladillo " + j);
+                service.setUnitPrice(new BigDecimal("80.00"));
+                service.setDurationMin(30);
+                services.add(service);
+            }
+            item.setServices(services);
+            items.add(item);
+        }
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomer(customer);
+        request.setItems(items);
+        request.setCommittedDeadline(OffsetDateTime.now().plusDays(2));
+        request.setAmountPaid(new BigDecimal("100.00"));
+        request.setPaymentMethod("CASH");
+        return request;
+    }
+}
@@ -0,0 +1,203 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.dto.AddPaymentRequest;
+import com.anotame.sales.domain.exception.SalesConflictException;
+import com.anotame.sales.domain.exception.SalesUnprocessableException;
+import com.anotame.sales.domain.exception.SalesValidationException;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Hammers the counter command path from parallel threads against a real database
+ * (Dev Services PostgreSQL) and checks that no payment or delivery is lost or duplicated.
+ */
+@QuarkusTest
+class PaymentConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Inject
+    PaymentService paymentService;
+
+    @Inject
+    SalesService salesService;
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    void parallelPaymentsAreAllApplied() throws Exception {
+        UUID orderId = createOrder(new BigDecimal("1000.00"), "RECEIVED");
+
+        List<Throwable> failures = runConcurrently(40, () ->
+                paymentService.addPayment(orderId, new AddPaymentRequest(new BigDecimal("10.00"), "CASH", null)));
+
+        assertEquals(List.of(), failures);
+        assertEquals(0, new BigDecimal("400.00").compareTo(amountPaid(orderId)));
+        assertEquals(0, new BigDecimal("400.00").compareTo(ledgerTotal(orderId)));
+    }
+
+    @Test
+    void parallelPaymentsNeverExceedTotal() throws Exception {
+        UUID orderId = createOrder(new BigDecimal("100.00"), "RECEIVED");
+
+        List<Throwable> failures = runConcurrently(25, () ->
+                paymentService.addPayment(orderId, new AddPaymentRequest(new BigDecimal("10.00"), "CASH", null)));
+
+        assertEquals(15, failures.size());
+        failures.forEach(f -> assertInstanceOf(SalesUnprocessableException.class, f));
+        assertEquals(0, new BigDecimal("100.00").compareTo(amountPaid(orderId)));
+        assertEquals(0, new BigDecimal("100.00").compareTo(ledgerTotal(orderId)));
+    }
+
+    @Test
+    void orderIsDeliveredAndSettledOnlyOnce() throws Exception {
+        UUID orderId = createOrder(new BigDecimal("250.00"), "READY");
+
+        List<Throwable> failures = runConcurrently(6, () ->
+                salesService.deliverOrder(orderId, "123456", UUID.randomUUID(), true, "CASH"));
+
+        assertEquals(5, failures.size());
+        failures.forEach(f -> assertInstanceOf(SalesConflictException.class, f));
+        assertEquals(0, new BigDecimal("250.00").compareTo(amountPaid(orderId)));
+        assertEquals(0, new BigDecimal("250.00").compareTo(ledgerTotal(orderId)));
+    }
+
+    @Test
+    void statusChangesAreGuardedByTheCurrentStatus() {
+        UUID delivered = createOrder(new BigDecimal("100.00"), "DELIVERED");
+        UUID cancelled = createOrder(new BigDecimal("100.00"), "CANCELLED");
+        UUID ready = createOrder(new BigDecimal("100.00"), "READY");
+        UUID user = UUID.randomUUID();
+
+        assertThrows(SalesConflictException.class, () -> salesService.updateOrderStatus(delivered, "RECEIVED", user));
+        assertThrows(SalesConflictException.class, () -> salesService.updateOrderStatus(cancelled, "READY", user));
+        assertThrows(SalesValidationException.class, () -> salesService.updateOrderStatus(ready, "DELIVERED", user));
+        assertEquals("DELIVERED", status(delivered));
+        assertEquals("CANCELLED", status(cancelled));
+        assertEquals("READY", status(ready));
+
+        // Asking for the status an order already has changes nothing and is not an error.
+        salesService.updateOrderStatus(ready, "READY", user);
+        salesService.updateOrderStatus(ready, "IN_PROGRESS", user);
+        assertEquals("IN_PROGRESS", status(ready));
+    }
+
+    @Test
+    void cancelAndDeliverNeverBothApply() throws Exception {
+        UUID orderId = createOrder(new BigDecimal("250.00"), "READY");
+        AtomicInteger calls = new AtomicInteger();
+
+        List<Throwable> failures = runConcurrently(6, () -> {
+            if (calls.getAndIncrement() % 2 == 0) {
+                salesService.deliverOrder(orderId, "123456", UUID.randomUUID(), true, "CASH");
+            } else {
+                salesService.updateOrderStatus(orderId, "CANCELLED", UUID.randomUUID());
+            }
+        });
+
+        failures.forEach(f -> assertInstanceOf(SalesConflictException.class, f));
+        if ("DELIVERED".equals(status(orderId))) {
+            // Two more deliveries and all three cancellations lost.
+            assertEquals(5, failures.size());
+            assertEquals(0, new BigDecimal("250.00").compareTo(ledgerTotal(orderId)));
+        } else {
+            assertEquals("CANCELLED", status(orderId));
+            // The deliveries lost; the other cancellations found the order already cancelled.
+            assertEquals(3, failures.size());
+            assertEquals(0, BigDecimal.ZERO.compareTo(ledgerTotal(orderId)));
+        }
+    }
+
+    private List<Throwable> runConcurrently(int calls, Runnable command) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            Callable<Void> task = () -> {
+                start.await();
+                command.run();
+                return null;
+            };
+            futures.add(executor.submit(task));
+        }
+        start.countDown();
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            } catch (Exception e) {
+                failures.add(e);
+            }
+        }
+        executor.shutdownNow();
+        return failures;
+    }
+
+    private UUID createOrder(BigDecimal totalAmount, String status) {
+        UUID customerId = UUID.randomUUID();
+        UUID orderId = UUID.randomUUID();
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("INSERT INTO tco_customer (id_customer, first_name) VALUES (:id, 'Concurrency')")
+                    .setParameter("id", customerId)
+                    .executeUpdate();
+            em.createNativeQuery(
+                            "INSERT INTO tco_order (id_order, folio_branch, id_branch, id_customer, created_by_user_id, " +
+                                    "total_amount, amount_paid, status, ticket_number, pickup_code) " +
+                                    "VALUES (:id, 0, :branch, :customer, :user, :total, 0, :status, :ticket, '123456')")
+                    .setParameter("id", orderId)
+                    .setParameter("branch", UUID.randomUUID())
+                    .setParameter("customer", customerId)
+                    .setParameter("user", UUID.randomUUID())
+                    .setParameter("total", totalAmount)
+                    .setParameter("status", status)
+                    .setParameter("ticket", "TEST-" + orderId)
+                    .executeUpdate();
+        });
+        return orderId;
+    }
+
+    private String status(UUID orderId) {
+        return QuarkusTransaction.requiringNew().call(() -> (String) em
+                .createNativeQuery("SELECT status FROM tco_order WHERE id_order = :id")
+                .setParameter("id", orderId)
+                .getSingleResult());
+    }
+
+    private BigDecimal amountPaid(UUID orderId) {
+        return QuarkusTransaction.requiringNew().call(() -> (BigDecimal) em
+                .createNativeQuery("SELECT amount_paid FROM tco_order WHERE id_order = :id")
+                .setParameter("id", orderId)
+                .getSingleResult());
+    }
+
+    private BigDecimal ledgerTotal(UUID orderId) {
+        return QuarkusTransaction.requiringNew().call(() -> (BigDecimal) em
+                .createNativeQuery("SELECT COALESCE(SUM(amount), 0) FROM tco_order_payment WHERE id_order = :id")
+                .setParameter("id", orderId)
+                .getSingleResult());
+    }
+}
@@ -0,0 +1,91 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.dto.StageDurationItem;
+import com.anotame.sales.application.port.output.StageDurationBucket;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StageDurationPercentileTest {
+
+    private static StageDurationBucket bucket(double upperBoundSeconds, long transitions, long totalSeconds) {
+        return new StageDurationBucket("READY", "", upperBoundSeconds, transitions, totalSeconds);
+    }
+
+    @Test
+    void singleBucketAnswersEveryPercentile() {
+        List<StageDurationBucket> histogram = List.of(bucket(60, 7, 400));
+
+        assertEquals(60, SalesService.percentileSeconds(histogram, 7, 0.50));
+        assertEquals(60, SalesService.percentileSeconds(histogram, 7, 0.90));
+        assertEquals(60, SalesService.percentileSeconds(histogram, 7, 0.99));
+    }
+
+    @Test
+    void rankOnABucketBoundaryStaysInThatBucket() {
+        List<StageDurationBucket> histogram = List.of(
+                bucket(10, 50, 400),
+                bucket(20, 40, 700),
+                bucket(30, 9, 250),
+                bucket(40, 1, 35));
+
+        // Ranks 50, 90 and 99 of 100 are the last durations of the first three buckets.
+        assertEquals(10, SalesService.percentileSeconds(histogram, 100, 0.50));
+        assertEquals(20, SalesService.percentileSeconds(histogram, 100, 0.90));
+        assertEquals(30, SalesService.percentileSeconds(histogram, 100, 0.99));
+    }
+
+    @Test
+    void rankPastABucketBoundaryMovesToTheNextBucket() {
+        List<StageDurationBucket> histogram = List.of(
+                bucket(10, 49, 400),
+                bucket(20, 41, 700),
+                bucket(30, 10, 280));
+
+        assertEquals(20, SalesService.percentileSeconds(histogram, 100, 0.50));
+        assertEquals(20, SalesService.percentileSeconds(histogram, 100, 0.90));
+        assertEquals(30, SalesService.percentileSeconds(histogram, 100, 0.99));
+    }
+
+    @Test
+    void smallHistogramRoundsTheRankUp() {
+        List<StageDurationBucket> histogram = List.of(bucket(10, 1, 8), bucket(20, 1, 15));
+
+        // ceil(0.5 × 2) = 1, ceil(0.9 × 2) = 2.
+        assertEquals(10, SalesService.percentileSeconds(histogram, 2, 0.50));
+        assertEquals(20, SalesService.percentileSeconds(histogram, 2, 0.90));
+    }
+
+    @Test
+    void summarisesAHistogramInMinutes() {
+        List<StageDurationBucket> histogram = List.of(bucket(60, 3, 170), bucket(3600, 1, 3500));
+
+        StageDurationItem item = SalesService.toStageDuration(histogram, "stage");
+
+        assertEquals("READY", item.getStage());
+        assertNull(item.getGroup());
+        assertEquals(4, item.getTransitions());
+        // (170 + 3500) s / 4 = 917.5 s.
+        assertEquals(new BigDecimal("15.3"), item.getAverageMinutes());
+        assertEquals(new BigDecimal("1.0"), item.getP50Minutes());
+        assertEquals(new BigDecimal("60.0"), item.getP90Minutes());
+        assertEquals(new BigDecimal("60.0"), item.getP99Minutes());
+    }
+
+    @Test
+    void keepsTheGroupWhenGrouping() {
+        StageDurationItem byService = SalesService.toStageDuration(
+                List.of(new StageDurationBucket("IN_PROGRESS", "Dobladillo", 120, 2, 200)), "service");
+        StageDurationItem withoutName = SalesService.toStageDuration(
+                List.of(new StageDurationBucket("IN_PROGRESS", "", 120, 1, 90)), "service");
+
+        assertEquals("Dobladillo", byService.getGroup());
+        assertEquals(new BigDecimal("1.7"), byService.getAverageMinutes());
+        assertEquals("", withoutName.getGroup());
+        assertEquals(new BigDecimal("1.5"), withoutName.getAverageMinutes());
+    }
+}
@@ -0,0 +1,128 @@
+package com.anotame.sales.application.service;
+
+import com.anotame.sales.application.dto.CreateOrderRequest;
+import com.anotame.sales.application.dto.CustomerDto;
+import com.anotame.sales.application.dto.OrderImportResponse;
+import com.anotame.sales.application.dto.OrderItemDto;
+import com.anotame.sales.application.dto.OrderItemServiceDto;
+import com.anotame.sales.domain.model.OrderContentSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Imported ORD-nnnnn tickets against the blocks of tco_ticket_number_seq this instance holds
+ * in memory (Dev Services PostgreSQL).
+ */
+@QuarkusTest
+class TicketNumberImportTest {
+
+    private static final UUID BRANCH = UUID.randomUUID();
+
+    @Inject
+    SalesService salesService;
+
+    @Inject
+    OrderImportService orderImportService;
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    void importedTicketInsideAReservedBlockIsRejectedAndNewOrdersStillGetIt() {
+        long created = ticketValue(createOrder());
+        String inBlock = ticket(created + 1);
+        // Every value up to here has been handed out; the instance holds the rest of its block.
+        long handedOut = lastValue();
+
+        OrderImportResponse response = importTicket(inBlock);
+
+        if (created + 1 <= handedOut) {
+            assertEquals(0, response.getOrdersImported());
+            assertEquals(1, response.getLinesRejected());
+            assertEquals("Ticket number is in the range given to new orders: " + inBlock,
+                    response.getErrors().get(0).getMessage());
+            assertEquals(inBlock, createOrder(), "the reserved number goes to the next order");
+        } else {
+            // The block ended at the created order: the number was free and the sequence moved past it.
+            assertEquals(1, response.getOrdersImported());
+            assertNotEquals(inBlock, createOrder());
+        }
+    }
+
+    @Test
+    void importedTicketAboveTheSequenceIsSkippedByLaterBlocks() {
+        long created = ticketValue(createOrder());
+        long blockEnd = lastValue();
+        String ahead = ticket(blockEnd + 1_000);
+
+        OrderImportResponse response = importTicket(ahead);
+
+        assertEquals(1, response.getOrdersImported());
+        assertEquals(List.of(), response.getErrors());
+        // Use up whatever is left of the current block, then reserve the next one.
+        for (long value = created + 1; value <= blockEnd; value++) {
+            createOrder();
+        }
+        long next = ticketValue(createOrder());
+        assertTrue(next > ticketValue(ahead), "blocks reserved after the import start past " + ahead);
+    }
+
+    private String createOrder() {
+        CustomerDto customer = new CustomerDto();
+        customer.setFirstName("Ticket");
+        customer.setPhoneNumber(String.valueOf(5_500_000_000L + (long) (Math.random() * 99_999_999L)));
+
+        OrderItemServiceDto service = new OrderItemServiceDto();
+        service.setSource(OrderContentSource.CUSTOM);
+        service.setServiceName("Dobladillo");
+        service.setUnitPrice(new BigDecimal("80.00"));
+        OrderItemDto item = new OrderItemDto();
+        item.setSource(OrderContentSource.CUSTOM);
+        item.setGarmentName("Pantalón");
+        item.setQuantity(1);
+        item.setServices(List.of(service));
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomer(customer);
+        request.setItems(List.of(item));
+        request.setCommittedDeadline(OffsetDateTime.now().plusDays(2));
+        return salesService.createOrderDTO(request, UUID.randomUUID(), BRANCH).getTicketNumber();
+    }
+
+    private OrderImportResponse importTicket(String ticketNumber) {
+        String line = "{\"ticketNumber\":\"" + ticketNumber + "\",\"createdAt\":\"2024-05-10T10:00:00Z\"," +
+                "\"customer\":{\"firstName\":\"Importada\",\"phoneNumber\":\"5599990000\"}," +
+                "\"items\":[{\"source\":\"CUSTOM\",\"garmentName\":\"Saco\",\"quantity\":1," +
+                "\"services\":[{\"source\":\"CUSTOM\",\"serviceName\":\"Ajuste\",\"unitPrice\":120}]}]}\n";
+        return orderImportService.importOrders(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)),
+                null, UUID.randomUUID(), BRANCH);
+    }
+
+    private long lastValue() {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) em
+                .createNativeQuery("SELECT last_value FROM tco_ticket_number_seq")
+                .getSingleResult()).longValue());
+    }
+
+    private static String ticket(long value) {
+        return String.format("ORD-%05d", value);
+    }
+
+    private static long ticketValue(String ticketNumber) {
+        return Long.parseLong(ticketNumber.substring("ORD-".length()));
+    }
+}
@@ -0,0 +1,247 @@
+package com.anotame.sales.infrastructure.analytics;
+
+import com.anotame.sales.application.event.DashboardChanged;
+import jakarta.enterprise.inject.Vetoed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarKpiEngineTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 1);
+
+    private static final UUID ANA = UUID.randomUUID();
+    private static final UUID BETO = UUID.randomUUID();
+    private static final UUID CARLA = UUID.randomUUID();
+
+    private FakeLoader loader;
+    private ColumnarKpiEngine engine;
+
+    @BeforeEach
+    void createEngine() {
+        loader = new FakeLoader();
+        loader.customer(ANA, "Ana", "Ruiz");
+        loader.customer(BETO, "Beto", "Luna");
+        loader.customer(CARLA, "Carla", "Mora");
+
+        engine = new ColumnarKpiEngine(loader);
+        engine.enabled = true;
+        engine.maxMemoryMb = 512;
+        // Refreshes are run by the test itself, never by the writer thread.
+        engine.refreshDelay = Duration.ofHours(1);
+    }
+
+    @AfterEach
+    void shutdownEngine() {
+        engine.shutdown();
+    }
+
+    @Test
+    void splitsPaymentsOverServicesByTheirShareOfTheItem() {
+        UUID first = loader.order(ANA, DAY);
+        loader.line(first, "Dobladillo", "0.6", 30);
+        loader.line(first, "Parche", "0.4", 20);
+        loader.payment(first, DAY, "100.00");
+        loader.payment(first, DAY.plusDays(10), "10.00");
+        UUID second = loader.order(BETO, DAY);
+        loader.line(second, "Dobladillo", "1", 15);
+        loader.payment(second, DAY.plusDays(1), "50.00");
+        engine.reload();
+
+        List<Object[]> rows = engine.getServiceTypeRevenue(DAY, DAY.plusDays(2));
+
+        assertEquals(2, rows.size());
+        // 100.00 × 0.6 + 50.00 × 1; the payment of day 10 is out of range.
+        assertArrayEquals(new Object[]{"CATALOG", "Dobladillo", new BigDecimal("110.00"), 2L, 45L}, rows.get(0));
+        assertArrayEquals(new Object[]{"CATALOG", "Parche", new BigDecimal("40.00"), 1L, 20L}, rows.get(1));
+    }
+
+    @Test
+    void ranksCustomersBySpendInRange() {
+        UUID first = loader.order(ANA, DAY);
+        loader.payment(first, DAY, "100.00");
+        loader.payment(first, DAY.plusDays(3), "10.50");
+        UUID second = loader.order(ANA, DAY.plusDays(4));
+        loader.payment(second, DAY.plusDays(4), "5.00");
+        UUID third = loader.order(BETO, DAY);
+        loader.payment(third, DAY, "50.00");
+        UUID fourth = loader.order(CARLA, DAY);
+        loader.payment(fourth, DAY.plusDays(30), "500.00");
+        engine.reload();
+
+        List<Object[]> rows = engine.getTopCustomers(DAY, DAY.plusDays(7), 2);
+
+        assertEquals(2, rows.size());
+        // One count per order and payment day, as in mv_kpi_customer_spend_daily.
+        assertArrayEquals(new Object[]{ANA, "Ana", "Ruiz", new BigDecimal("115.50"), 3L, "2025-03-05"}, rows.get(0));
+        assertArrayEquals(new Object[]{BETO, "Beto", "Luna", new BigDecimal("50.00"), 1L, "2025-03-01"}, rows.get(1));
+    }
+
+    @Test
+    void widensTopCustomerCandidatesPastDeletedCustomers() {
+        List<UUID> deleted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UUID customer = UUID.randomUUID();
+            deleted.add(customer);
+            loader.payment(loader.order(customer, DAY), DAY, (900 - i * 100) + ".00");
+        }
+        loader.payment(loader.order(BETO, DAY), DAY, "80.00");
+        loader.payment(loader.order(CARLA, DAY), DAY, "70.00");
+        engine.reload();
+
+        // The first four candidates are deleted (unknown to the loader), and so is the fifth.
+        List<Object[]> rows = engine.getTopCustomers(DAY, DAY.plusDays(1), 2);
+
+        assertEquals(2, rows.size());
+        assertEquals(BETO, rows.get(0)[0]);
+        assertEquals(CARLA, rows.get(1)[0]);
+        assertEquals(2, loader.customerLookups.size());
+        assertEquals(deleted.subList(0, 4), loader.customerLookups.get(0));
+        assertEquals(Set.of(deleted.get(4), BETO, CARLA), Set.copyOf(loader.customerLookups.get(1)));
+    }
+
+    @Test
+    void countsCustomersWithMoreThanOneOrderCreatedInRange() {
+        loader.order(ANA, DAY);
+        loader.order(ANA, DAY.plusDays(2));
+        loader.order(BETO, DAY.plusDays(1));
+        loader.order(CARLA, DAY);
+        loader.order(CARLA, DAY.plusDays(20));
+        engine.reload();
+
+        assertArrayEquals(new Object[]{3L, 1L}, engine.getRepeatRate(DAY, DAY.plusDays(7)));
+    }
+
+    @Test
+    void appliesChangedOrdersIncrementally() {
+        // Enough live orders that retiring three does not trigger a full reload.
+        for (int i = 0; i < 8; i++) {
+            loader.order(CARLA, DAY.minusYears(1));
+        }
+        UUID changed = loader.order(ANA, DAY);
+        loader.line(changed, "Dobladillo", "1", 30);
+        loader.payment(changed, DAY, "100.00");
+        UUID removed = loader.order(BETO, DAY);
+        loader.line(removed, "Parche", "1", 20);
+        loader.payment(removed, DAY, "40.00");
+        engine.reload();
+
+        loader.payments.get(changed).clear();
+        loader.payment(changed, DAY, "120.00");
+        loader.remove(removed);
+        UUID added = loader.order(BETO, DAY.plusDays(1));
+        loader.line(added, "Zurcido", "1", 10);
+        loader.payment(added, DAY.plusDays(1), "25.00");
+        engine.onDashboardChanged(new DashboardChanged(changed));
+        engine.onDashboardChanged(new DashboardChanged(removed));
+        engine.onDashboardChanged(new DashboardChanged(added));
+        engine.refresh();
+
+        assertEquals(2, loader.loads.size());
+        assertEquals(Set.of(changed, removed, added), Set.copyOf(loader.loads.get(1)));
+        List<Object[]> rows = engine.getServiceTypeRevenue(DAY, DAY.plusDays(2));
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[]{"CATALOG", "Dobladillo", new BigDecimal("120.00"), 1L, 30L}, rows.get(0));
+        assertArrayEquals(new Object[]{"CATALOG", "Zurcido", new BigDecimal("25.00"), 1L, 10L}, rows.get(1));
+        assertArrayEquals(new Object[]{2L, 0L}, engine.getRepeatRate(DAY, DAY.plusDays(2)));
+    }
+
+    @Test
+    void staysOffWhenTheDataExceedsTheMemoryBudget() {
+        loader.payment(loader.order(ANA, DAY), DAY, "100.00");
+        engine.maxMemoryMb = 0;
+        engine.reload();
+
+        assertFalse(engine.isReady());
+        assertNull(engine.refreshedAt());
+        assertThrows(IllegalStateException.class, () -> engine.getRepeatRate(DAY, DAY.plusDays(1)));
+
+        engine.onDashboardChanged(new DashboardChanged(null));
+        engine.refresh();
+        assertEquals(1, loader.loads.size(), "an over-budget engine does not reload");
+    }
+
+    /**
+     * The loader's streams, served from maps in insertion order. Vetoed so the inherited
+     * {@code @ApplicationScoped} does not make it a second bean in {@code @QuarkusTest} runs.
+     */
+    @Vetoed
+    private static final class FakeLoader extends ColumnarKpiLoader {
+
+        final Map<UUID, Object[]> orders = new LinkedHashMap<>();
+        final Map<UUID, List<Object[]>> lines = new HashMap<>();
+        final Map<UUID, List<Object[]>> payments = new HashMap<>();
+        final Map<UUID, Object[]> customers = new HashMap<>();
+        // Order ids of every load; null for a full one.
+        final List<Collection<UUID>> loads = new ArrayList<>();
+        final List<Collection<UUID>> customerLookups = new ArrayList<>();
+
+        FakeLoader() {
+            super(null);
+        }
+
+        void customer(UUID id, String firstName, String lastName) {
+            customers.put(id, new Object[]{id, firstName, lastName});
+        }
+
+        UUID order(UUID customerId, LocalDate created) {
+            UUID id = UUID.randomUUID();
+            orders.put(id, new Object[]{id, customerId, created.toEpochDay()});
+            lines.put(id, new ArrayList<>());
+            payments.put(id, new ArrayList<>());
+            return id;
+        }
+
+        void line(UUID orderId, String name, String share, int minutes) {
+            lines.get(orderId).add(new Object[]{orderId, "CATALOG", name, new BigDecimal(share), minutes});
+        }
+
+        void payment(UUID orderId, LocalDate day, String amount) {
+            payments.get(orderId).add(new Object[]{orderId, day.toEpochDay(), new BigDecimal(amount)});
+        }
+
+        void remove(UUID orderId) {
+            orders.remove(orderId);
+            lines.remove(orderId);
+            payments.remove(orderId);
+        }
+
+        @Override
+        public void load(Collection<UUID> orderIds, Consumer<Object[]> orderSink, Consumer<Object[]> lineSink,
+                         Consumer<Object[]> paymentDaySink) {
+            loads.add(orderIds);
+            List<UUID> selected = orderIds == null
+                    ? List.copyOf(orders.keySet())
+                    : orderIds.stream().filter(orders::containsKey).toList();
+            selected.forEach(id -> orderSink.accept(orders.get(id)));
+            selected.forEach(id -> lines.get(id).forEach(lineSink));
+            selected.forEach(id -> payments.get(id).forEach(paymentDaySink));
+        }
+
+        @Override
+        public List<Object[]> findActiveCustomers(Collection<UUID> customerIds) {
+            customerLookups.add(List.copyOf(customerIds));
+            return customerIds.stream().map(customers::get).filter(Objects::nonNull).toList();
+        }
+    }
+}
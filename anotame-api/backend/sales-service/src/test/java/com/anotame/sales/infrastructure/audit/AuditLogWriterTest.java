@@ -0,0 +1,184 @@
+package com.anotame.sales.infrastructure.audit;
+
+import com.anotame.sales.application.port.output.AuditLogEntry;
+import com.anotame.sales.application.port.output.OrderAuditLogRepositoryPort;
+import jakarta.enterprise.inject.Vetoed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuditLogWriterTest {
+
+    private static final UUID ORDER = UUID.randomUUID();
+
+    private final FakeRepository repository = new FakeRepository();
+    private AuditLogWriter writer;
+
+    private static List<AuditLogEntry> entries(int count) {
+        OffsetDateTime changedAt = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+        return IntStream.range(0, count)
+                .mapToObj(i -> new AuditLogEntry(ORDER, null, "field" + i, "old", "new", changedAt.plusSeconds(i), null))
+                .toList();
+    }
+
+    private AuditLogWriter writer(String mode, int queueCapacity, int batchSize) {
+        writer = new InlineTransactionWriter(repository);
+        writer.mode = mode;
+        writer.queueCapacity = queueCapacity;
+        writer.batchSize = batchSize;
+        writer.enqueueTimeout = Duration.ZERO;
+        writer.retryDelay = Duration.ofMillis(1);
+        writer.init();
+        return writer;
+    }
+
+    /** Queues the entries before the writer thread starts, so batches are cut deterministically. */
+    private void drain(List<AuditLogEntry> entries) {
+        writer.onCommitted(new AuditLogWriter.CommittedEntries(entries));
+        writer.onStart(null);
+        writer.onStop(null);
+    }
+
+    @AfterEach
+    void shutdownWriter() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void commitModeWritesEveryRecordInOneInsert() {
+        writer("commit", 10, 2);
+        List<AuditLogEntry> entries = entries(5);
+
+        writer.record(entries);
+        writer.record(List.of());
+
+        assertEquals(List.of(entries), repository.batches);
+        AuditLogWriter.Stats stats = writer.stats();
+        assertEquals(1, stats.batchesWritten());
+        assertEquals(5, stats.entriesWritten());
+    }
+
+    @Test
+    void commitModeFailuresReachTheCaller() {
+        writer("commit", 10, 2);
+        repository.failures = 1;
+
+        RuntimeException failure = assertThrows(RuntimeException.class, () -> writer.record(entries(1)));
+
+        assertSame(FakeRepository.FAILURE, failure);
+        assertEquals(0, writer.stats().entriesFailed(), "the caller's transaction rolls back instead");
+    }
+
+    @Test
+    void asyncModeWritesTheQueueInBatchesOfBatchSize() {
+        writer("async", 10, 2);
+        List<AuditLogEntry> entries = entries(5);
+
+        drain(entries);
+
+        assertEquals(List.of(entries.subList(0, 2), entries.subList(2, 4), entries.subList(4, 5)), repository.batches);
+        AuditLogWriter.Stats stats = writer.stats();
+        assertEquals(3, stats.batchesWritten());
+        assertEquals(5, stats.entriesWritten());
+        assertEquals(0, stats.queueDepth());
+    }
+
+    @Test
+    void retriesAFailedBatch() {
+        writer("async", 10, 10);
+        repository.failures = 2;
+        List<AuditLogEntry> entries = entries(3);
+
+        drain(entries);
+
+        assertEquals(3, repository.attempts);
+        assertEquals(List.of(entries), repository.batches);
+        assertEquals(3, writer.stats().entriesWritten());
+        assertEquals(0, writer.stats().entriesFailed());
+    }
+
+    @Test
+    void dropsABatchAfterThreeAttemptsAndWritesTheNext() {
+        writer("async", 10, 2);
+        repository.failures = 3;
+        List<AuditLogEntry> entries = entries(3);
+
+        drain(entries);
+
+        assertEquals(4, repository.attempts);
+        assertEquals(List.of(entries.subList(2, 3)), repository.batches);
+        AuditLogWriter.Stats stats = writer.stats();
+        assertEquals(2, stats.entriesFailed());
+        assertEquals(1, stats.entriesWritten());
+    }
+
+    @Test
+    void dropsEntriesThatFindTheQueueFull() {
+        writer("async", 2, 10);
+
+        writer.onCommitted(new AuditLogWriter.CommittedEntries(entries(3)));
+
+        AuditLogWriter.Stats stats = writer.stats();
+        assertEquals(2, stats.queueDepth());
+        assertEquals(1, stats.entriesDropped());
+    }
+
+    @Test
+    void rejectsAnUnknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> writer("batch", 10, 2));
+    }
+
+    /** Records the batches written; fails the first {@code failures} calls. */
+    private static final class FakeRepository implements OrderAuditLogRepositoryPort {
+
+        static final RuntimeException FAILURE = new IllegalStateException("database unavailable");
+
+        final List<List<AuditLogEntry>> batches = new CopyOnWriteArrayList<>();
+        volatile int failures;
+        volatile int attempts;
+
+        @Override
+        public void saveAll(List<AuditLogEntry> entries) {
+            attempts++;
+            if (failures > 0) {
+                failures--;
+                throw FAILURE;
+            }
+            batches.add(List.copyOf(entries));
+        }
+
+        @Override
+        public List<AuditLogEntry> findByOrderId(UUID orderId) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Runs batch writes without a transaction manager. Vetoed so the inherited
+     * {@code @ApplicationScoped} does not make it a second bean in {@code @QuarkusTest} runs.
+     */
+    @Vetoed
+    private static final class InlineTransactionWriter extends AuditLogWriter {
+
+        InlineTransactionWriter(OrderAuditLogRepositoryPort repository) {
+            super(repository, null);
+        }
+
+        @Override
+        void inNewTransaction(Runnable work) {
+            work.run();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.anotame.sales.infrastructure.persistence.adapter;
+
+import com.anotame.sales.application.dto.CreateOrderRequest;
+import com.anotame.sales.application.dto.CustomerDto;
+import com.anotame.sales.application.dto.OrderItemDto;
+import com.anotame.sales.application.dto.OrderItemServiceDto;
+import com.anotame.sales.application.service.SalesService;
+import com.anotame.sales.domain.model.OrderContentSource;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Histogram buckets as the record statement computes them (Dev Services PostgreSQL), against
+ * the upper bounds the read side reports for them.
+ */
+@QuarkusTest
+class OrderStageRollupTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static final UUID BRANCH = UUID.randomUUID();
+
+    @Inject
+    OrderStageRollup orderStageRollup;
+
+    @Inject
+    SalesService salesService;
+
+    @Inject
+    EntityManager em;
+
+    private UUID orderId;
+    private String status;
+    private OffsetDateTime stageStart;
+
+    @BeforeEach
+    void startStage() {
+        orderId = createOrder();
+        // The first change ends at a known instant; every later stage starts where the last one ended.
+        stageStart = OffsetDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        status = "IN_PROGRESS";
+        QuarkusTransaction.requiringNew().run(() ->
+                orderStageRollup.record(orderId, "RECEIVED", status, UUID.randomUUID(), stageStart));
+    }
+
+    @Test
+    void subSecondDurationsFallInTheFirstBucket() {
+        assertEquals(0, bucketOf(Duration.ZERO));
+        assertEquals(0, bucketOf(Duration.ofMillis(500)));
+        assertEquals(0, bucketOf(Duration.ofSeconds(1)));
+        assertEquals(1.1, OrderStageRollup.upperBoundSeconds(0), EPSILON);
+    }
+
+    @Test
+    void upperBoundsAreConsecutivePowersOfTheBase() {
+        assertEquals(7, bucketOf(Duration.ofSeconds(2)));
+        assertEquals(2.14358881, OrderStageRollup.upperBoundSeconds(7), EPSILON);
+        assertEquals(42, bucketOf(Duration.ofSeconds(59)));
+        assertEquals(42, bucketOf(Duration.ofSeconds(60)));
+        assertEquals(60.2400691612, OrderStageRollup.upperBoundSeconds(42), 1e-6);
+        assertEquals(85, bucketOf(Duration.ofHours(1)));
+        assertEquals(3628.8659325513, OrderStageRollup.upperBoundSeconds(85), 1e-6);
+    }
+
+    @Test
+    void everyDurationIsBelowItsUpperBoundAndWithinTenPercentOfIt() {
+        for (long seconds : new long[]{1, 2, 59, 60, 61, 3600, 86_400, 30 * 86_400}) {
+            double upper = OrderStageRollup.upperBoundSeconds(bucketOf(Duration.ofSeconds(seconds)));
+            assertTrue(seconds < upper, seconds + "s must be below " + upper);
+            assertTrue(upper <= seconds * 1.1 + EPSILON, upper + " must be at most 10% above " + seconds + "s");
+        }
+    }
+
+    @Test
+    void longDurationsShareTheLastBucket() {
+        // 1.1^255 s is about 1,100 years.
+        assertEquals(255, bucketOf(Duration.ofDays(365L * 2_000)));
+    }
+
+    /** Ends the current stage after {@code duration} and returns the bucket the statement stored it in. */
+    private int bucketOf(Duration duration) {
+        UUID userId = UUID.randomUUID();
+        String stage = status;
+        String next = "IN_PROGRESS".equals(stage) ? "READY" : "IN_PROGRESS";
+        OffsetDateTime changedAt = stageStart.plus(duration);
+        QuarkusTransaction.requiringNew().run(() -> orderStageRollup.record(orderId, stage, next, userId, changedAt));
+        status = next;
+        stageStart = changedAt;
+
+        List<?> buckets = QuarkusTransaction.requiringNew().call(() -> em
+                .createNativeQuery("SELECT bucket FROM tco_order_stage_daily WHERE id_user = :userId AND stage = :stage")
+                .setParameter("userId", userId)
+                .setParameter("stage", stage)
+                .getResultList());
+        assertEquals(1, buckets.size(), "one histogram row per recorded stage");
+        return ((Number) buckets.get(0)).intValue();
+    }
+
+    private UUID createOrder() {
+        CustomerDto customer = new CustomerDto();
+        customer.setFirstName("Etapas");
+        customer.setPhoneNumber(String.valueOf(5_500_000_000L + (long) (Math.random() * 99_999_999L)));
+
+        OrderItemServiceDto service = new OrderItemServiceDto();
+        service.setSource(OrderContentSource.CUSTOM);
+        service.setServiceName("Dobladillo");
+        service.setUnitPrice(new BigDecimal("80.00"));
+        OrderItemDto item = new OrderItemDto();
+        item.setSource(OrderContentSource.CUSTOM);
+        item.setGarmentName("Pantalón");
+        item.setQuantity(1);
+        item.setServices(List.of(service));
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCustomer(customer);
+        request.setItems(List.of(item));
+        request.setCommittedDeadline(OffsetDateTime.now().plusDays(2));
+        return salesService.createOrderDTO(request, UUID.randomUUID(), BRANCH).getId();
+    }
+}
@@ -0,0 +1,151 @@
+package com.anotame.sales.infrastructure.search;
+
+import jakarta.enterprise.inject.Vetoed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerTypeaheadIndexTest {
+
+    private static final UUID ANA_RUIZ = UUID.randomUUID();
+    private static final UUID ANA_MORA = UUID.randomUUID();
+    private static final UUID ANABEL_RUIZ = UUID.randomUUID();
+    private static final UUID BETO_LUNA = UUID.randomUUID();
+    private static final UUID CARLA_MORA = UUID.randomUUID();
+    private static final UUID MONICA_PAZ = UUID.randomUUID();
+
+    private StubLoader loader;
+    private CustomerTypeaheadIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        loader = new StubLoader();
+        loader.customer(ANA_RUIZ, "Ana", "Ruiz", "555-123-4567");
+        loader.customer(ANA_MORA, "Ana", "Mora", null);
+        loader.customer(ANABEL_RUIZ, "Anabel", "Ruiz", "(555) 987 0000");
+        loader.customer(BETO_LUNA, "Beto", "Luna", "5551112222");
+        loader.customer(CARLA_MORA, "Carla", "Mora", null);
+        loader.customer(MONICA_PAZ, "Mónica", "Paz", null);
+
+        index = new CustomerTypeaheadIndex(loader);
+        index.enabled = true;
+        index.maxDelta = 1024;
+        index.reload();
+    }
+
+    @AfterEach
+    void shutdownIndex() {
+        index.shutdown();
+    }
+
+    @Test
+    void everyWordMustPrefixANameWordAndExactWordsRankFirst() {
+        assertEquals(Optional.of(List.of(ANA_RUIZ, ANABEL_RUIZ)), index.search("ana ru", 10, 0));
+        // "ana" is a whole word of both Anas, a prefix of Anabel; then by name.
+        assertEquals(Optional.of(List.of(ANA_MORA, ANA_RUIZ, ANABEL_RUIZ)), index.search("Ana", 10, 0));
+        assertEquals(Optional.of(List.of(ANA_MORA, CARLA_MORA)), index.search("mor", 10, 0));
+        assertEquals(Optional.of(List.of(MONICA_PAZ)), index.search("MONICA", 10, 0));
+    }
+
+    @Test
+    void pagesThroughTheRankedMatches() {
+        assertEquals(Optional.of(List.of(ANA_MORA, ANA_RUIZ)), index.search("an", 2, 0));
+        assertEquals(Optional.of(List.of(ANABEL_RUIZ)), index.search("an", 2, 2));
+        assertEquals(Optional.of(List.of()), index.search("an", 2, 4));
+    }
+
+    @Test
+    void matchesPhoneDigitsWhateverTheFormatting() {
+        assertEquals(Optional.of(List.of(ANA_RUIZ)), index.search("555 123", 10, 0));
+        assertEquals(Optional.of(List.of(ANABEL_RUIZ)), index.search("(555) 98", 10, 0));
+        assertEquals(Optional.of(List.of(ANA_RUIZ, ANABEL_RUIZ, BETO_LUNA)), index.search("555", 10, 0));
+    }
+
+    @Test
+    void leavesWhatItCannotAnswerToTheDatabase() {
+        assertEquals(Optional.empty(), index.search("ana@example.com", 10, 0));
+        assertEquals(Optional.empty(), index.search("zoe", 10, 0));
+        assertEquals(Optional.empty(), index.search("   ", 10, 0));
+        assertEquals(Optional.empty(), new CustomerTypeaheadIndex(loader).search("ana", 10, 0),
+                "an index that has not loaded");
+    }
+
+    @Test
+    void appliesChangedAndDeletedCustomersThroughTheDelta() {
+        // Enough customers that two dropped records do not trigger a merge.
+        for (int i = 0; i < 10; i++) {
+            loader.customer(UUID.randomUUID(), "Xenia", "Vidal", null);
+        }
+        index.reload();
+
+        loader.customer(BETO_LUNA, "Roberto", "Luna", "5551112222");
+        index.refresh(BETO_LUNA);
+        loader.customers.remove(CARLA_MORA);
+        index.refresh(CARLA_MORA);
+        UUID added = UUID.randomUUID();
+        loader.customer(added, "Berta", "Sol", null);
+        index.refresh(added);
+
+        assertEquals(5, index.deltaKeyCount(), "roberto, luna, the phone, berta, sol");
+        assertEquals(Optional.of(List.of(BETO_LUNA)), index.search("rob", 10, 0));
+        assertEquals(Optional.empty(), index.search("beto", 10, 0));
+        assertEquals(Optional.of(List.of(ANA_MORA)), index.search("mora", 10, 0));
+        assertEquals(Optional.of(List.of(added)), index.search("ber", 10, 0));
+    }
+
+    @Test
+    void mergesTheDeltaOncePastItsLimit() {
+        index.maxDelta = 3;
+        loader.customer(BETO_LUNA, "Roberto", "Luna", "5551112222");
+        index.refresh(BETO_LUNA);
+        assertEquals(3, index.deltaKeyCount());
+
+        UUID added = UUID.randomUUID();
+        loader.customer(added, "Berta", "Sol", null);
+        index.refresh(added);
+
+        assertEquals(0, index.deltaKeyCount());
+        assertEquals(Optional.of(List.of(BETO_LUNA)), index.search("rob", 10, 0));
+        assertEquals(Optional.of(List.of(added)), index.search("sol", 10, 0));
+        assertEquals(Optional.of(List.of(ANA_RUIZ, ANABEL_RUIZ)), index.search("ruiz", 10, 0));
+        assertTrue(index.search("beto", 10, 0).isEmpty());
+    }
+
+    /**
+     * Customer rows from a map in insertion order. Vetoed so the inherited
+     * {@code @ApplicationScoped} does not make it a second bean in {@code @QuarkusTest} runs.
+     */
+    @Vetoed
+    private static final class StubLoader extends CustomerTypeaheadLoader {
+
+        final Map<UUID, Object[]> customers = new LinkedHashMap<>();
+
+        StubLoader() {
+            super(null);
+        }
+
+        void customer(UUID id, String firstName, String lastName, String phoneNumber) {
+            customers.put(id, new Object[]{id, firstName, lastName, phoneNumber});
+        }
+
+        @Override
+        public void loadAll(Consumer<Object[]> sink) {
+            customers.values().forEach(sink);
+        }
+
+        @Override
+        public Optional<Object[]> load(UUID customerId) {
+            return Optional.ofNullable(customers.get(customerId));
+        }
+    }
+}
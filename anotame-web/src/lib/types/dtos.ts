@@ -26,10 +26,12 @@ export interface CustomerDto {
 export type OrderContentSource = 'CATALOG' | 'CUSTOM';
 
 export interface OrderItemDto {
+  id?: string;
   garmentTypeId: string | null;
   source: OrderContentSource;
   garmentName: string;
   services: Array<{
+    id?: string;
     serviceId: string | null;
     source: OrderContentSource;
     serviceName: string;
@@ -56,6 +58,7 @@ export interface OrderItemResponse {
   source: OrderContentSource;
   garmentName: string;
   services: Array<{
+    id?: string;
     serviceId: string | null;
     source: OrderContentSource;
     serviceName: string;